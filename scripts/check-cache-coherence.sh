@@ -0,0 +1,52 @@
+#!/usr/bin/env bash
+# Verifica la coerenza delle cache tra due istanze che condividono lo stesso MySQL.
+#
+# 1. legge il cocktail su NODE_B (così finisce nella sua cache)
+# 2. lo rinomina con PUT su NODE_A
+# 3. misura dopo quanto NODE_B restituisce il nuovo nome
+#
+# Variabili: TOKEN (JWT con ruolo SOLDIER, obbligatorio), NODE_A, NODE_B, COCKTAIL_ID, TIMEOUT_S
+# Richiede curl e jq.
+set -euo pipefail
+
+NODE_A=${NODE_A:-http://localhost:8080}
+NODE_B=${NODE_B:-http://localhost:8082}
+COCKTAIL_ID=${COCKTAIL_ID:-1}
+TIMEOUT_S=${TIMEOUT_S:-10}
+: "${TOKEN:?Impostare TOKEN con un JWT che abbia il ruolo SOLDIER}"
+
+now_ms() { date +%s%3N; }
+
+originale=$(curl -sf "$NODE_B/api/cocktails/$COCKTAIL_ID")
+nome_originale=$(echo "$originale" | jq -r '.nome')
+nuovo_nome="$nome_originale [$(now_ms)]"
+
+echo "NODE_B ha in cache: $nome_originale"
+
+echo "$originale" | jq --arg n "$nuovo_nome" '.nome = $n' \
+  | curl -sf -X PUT "$NODE_A/api/cocktails/$COCKTAIL_ID" \
+      -H "Authorization: Bearer $TOKEN" -H "Content-Type: application/json" -d @- > /dev/null
+inizio=$(now_ms)
+
+esito=1
+while (( $(now_ms) - inizio < TIMEOUT_S * 1000 )); do
+  visto=$(curl -sf "$NODE_B/api/cocktails/$COCKTAIL_ID" | jq -r '.nome')
+  if [[ "$visto" == "$nuovo_nome" ]]; then
+    echo "NODE_B aggiornato dopo $(( $(now_ms) - inizio )) ms"
+    esito=0
+    break
+  fi
+  sleep 0.05
+done
+(( esito == 0 )) || echo "NODE_B ancora obsoleto dopo ${TIMEOUT_S}s" >&2
+
+# Ripristina il nome originale
+echo "$originale" \
+  | curl -sf -X PUT "$NODE_A/api/cocktails/$COCKTAIL_ID" \
+      -H "Authorization: Bearer $TOKEN" -H "Content-Type: application/json" -d @- > /dev/null
+
+echo "Metriche di NODE_B:"
+for m in cocktail.cache.invalidation.staleness cocktail.cache.invalidation.poll cocktail.cache.invalidation.applied; do
+  curl -sf -H "Authorization: Bearer $TOKEN" "$NODE_B/actuator/metrics/$m" | jq -c '{name, measurements}' || echo "$m non esposta"
+done
+exit $esito
@@ -0,0 +1,135 @@
+#!/usr/bin/env bash
+# Misura il tempo di avvio dell'applicazione in più modalità.
+#
+# Per ogni modalità avvia l'app RUNS volte e misura:
+# - "prima risposta": dal lancio del processo alla prima risposta 200 su PROBE_PATH
+# - "Started in": il tempo riportato da Spring nel log
+# - "schema": dal contesto web all'EntityManagerFactory pronto (pool, Flyway, controllo o
+#   aggiornamento dello schema di Hibernate), l'unica fase che cambia tra ddl-update e flyway-validate
+# - "heap dopo GC": heap occupato dopo un GC completo (jcmd), cioè la memoria trattenuta
+# - "metaspace": memoria delle classi caricate
+# e stampa le medie. Tra un avvio e l'altro il processo viene terminato.
+#
+# Modalità:
+#   ddl-update       schema verificato/aggiornato da Hibernate (ddl-auto=update, Flyway spento)
+#   flyway-validate  configurazione di default: Flyway (solo lettura della history) + ddl-auto=validate,
+#                    springdoc attivo (scansione dei controller, Swagger UI)
+#   prod             profilo prod: documento OpenAPI statico generato in build, springdoc spento
+#   aot              prod + definizioni dei bean generate in build (-Dspring.aot.enabled=true)
+#   cds              prod + archivio class-data-sharing (-XX:SharedArchiveFile)
+#   aot-cds          prod + AOT + CDS: la modalità dell'immagine Docker "fast-startup"
+# Le modalità aot* richiedono un jar costruito con mvn -Pfast-startup, le modalità cds* l'archivio
+# creato dall'esecuzione di addestramento (come nel Dockerfile). La JVM usa l'archivio solo se il
+# classpath è identico a quello dell'addestramento: stessa cartella di lavoro e stessi percorsi.
+#   mvn -Pfast-startup -DskipTests package
+#   java -Djarmode=tools -jar target/cocktailproject-0.0.1-SNAPSHOT.jar extract --destination app
+#   java -XX:ArchiveClassesAtExit=app/app.jsa -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+#     -jar app/cocktailproject-0.0.1-SNAPSHOT.jar --spring.profiles.active=prod --cocktail.startup.training-run=true \
+#     --spring.jpa.hibernate.ddl-auto=none --spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect \
+#     --spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false
+#   JAR=app/cocktailproject-0.0.1-SNAPSHOT.jar scripts/measure-startup.sh
+#
+# Variabili:
+#   MODES        modalità da misurare, separate da spazio (default: tutte)
+#   RUNS         avvii per modalità (default 5)
+#   PORT         porta usata per gli avvii (default 18080)
+#   PROBE_PATH   richiesta di verifica (default /api/cocktails?size=1)
+#   JAR          jar da avviare (default target/cocktailproject-0.0.1-SNAPSHOT.jar)
+#   CDS_ARCHIVE  archivio CDS delle modalità cds* (default app.jsa nella cartella del jar)
+#   JAVA_OPTS    opzioni JVM comuni a tutte le modalità
+#   APP_LAUNCH   avvio dopo le opzioni JVM, al posto di "-jar $JAR" (es. -cp ... MainClass)
+#   APP_ARGS     argomenti aggiuntivi per l'app (es. --spring.datasource.url=...)
+#   TIMEOUT_S    attesa massima per avvio (default 120)
+# Richiede curl e jcmd (JDK). Il database deve essere raggiungibile e già migrato (avviare una volta l'app).
+set -euo pipefail
+
+MODES=${MODES:-"ddl-update flyway-validate prod aot cds aot-cds"}
+RUNS=${RUNS:-5}
+PORT=${PORT:-18080}
+PROBE_PATH=${PROBE_PATH:-/api/cocktails?size=1}
+JAR=${JAR:-target/cocktailproject-0.0.1-SNAPSHOT.jar}
+CDS_ARCHIVE=${CDS_ARCHIVE:-$(dirname "$JAR")/app.jsa}
+JAVA_OPTS=${JAVA_OPTS:-}
+APP_LAUNCH=${APP_LAUNCH:-"-jar $JAR"}
+APP_ARGS=${APP_ARGS:-}
+TIMEOUT_S=${TIMEOUT_S:-120}
+
+now_ms() { date +%s%3N; }
+
+# Millisecondi del timestamp della prima riga del log che contiene $1
+ms_riga() { date -d "$(grep -m1 "$1" "$log" | cut -c1-23)" +%s%3N; }
+
+# Opzioni JVM specifiche di ogni modalità
+opzioni_jvm() {
+  case "$1" in
+    ddl-update | flyway-validate | prod) echo "" ;;
+    aot) echo "-Dspring.aot.enabled=true" ;;
+    cds) echo "-XX:SharedArchiveFile=$CDS_ARCHIVE" ;;
+    aot-cds) echo "-Dspring.aot.enabled=true -XX:SharedArchiveFile=$CDS_ARCHIVE" ;;
+    *) echo "Modalità sconosciuta: $1" >&2; exit 2 ;;
+  esac
+}
+
+# Argomenti dell'app specifici di ogni modalità
+argomenti() {
+  case "$1" in
+    ddl-update) echo "--spring.flyway.enabled=false --spring.jpa.hibernate.ddl-auto=update" ;;
+    flyway-validate) echo "" ;;
+    *) echo "--spring.profiles.active=prod" ;;
+  esac
+}
+
+log=$(mktemp)
+trap 'rm -f "$log"' EXIT
+
+printf "%-18s %6s %18s %14s %10s %16s %14s\n" "modalità" "avvii" "prima risposta ms" "Started in s" "schema ms" \
+  "heap dopo GC MB" "metaspace MB"
+for modo in $MODES; do
+  jvm=$(opzioni_jvm "$modo")
+  extra=$(argomenti "$modo")
+  totale_ms=0
+  totale_started=0
+  totale_schema_ms=0
+  totale_heap_kb=0
+  totale_meta_kb=0
+  for ((i = 1; i <= RUNS; i++)); do
+    inizio=$(now_ms)
+    # shellcheck disable=SC2086
+    java $JAVA_OPTS $jvm $APP_LAUNCH --server.port="$PORT" $extra $APP_ARGS > "$log" 2>&1 &
+    pid=$!
+    pronto=0
+    while (( $(now_ms) - inizio < TIMEOUT_S * 1000 )); do
+      if curl -sf -o /dev/null "http://localhost:$PORT$PROBE_PATH"; then
+        pronto=$(( $(now_ms) - inizio ))
+        break
+      fi
+      kill -0 "$pid" 2> /dev/null || break
+      sleep 0.02
+    done
+    if (( pronto > 0 )); then
+      jcmd "$pid" GC.run > /dev/null
+      info=$(jcmd "$pid" GC.heap_info)
+      # Righe "total NK, used NK" delle generazioni (G1: una sola riga), poi Metaspace
+      heap_kb=$(echo "$info" | grep -o 'total [0-9]*K, used [0-9]*K' | awk -F'used ' '{s += $2} END {print s + 0}')
+      meta_kb=$(echo "$info" | grep 'Metaspace' | grep -o 'used [0-9]*K' | grep -o '[0-9]*')
+      totale_heap_kb=$(( totale_heap_kb + heap_kb ))
+      totale_meta_kb=$(( totale_meta_kb + ${meta_kb:-0} ))
+    fi
+    kill "$pid" 2> /dev/null || true
+    wait "$pid" 2> /dev/null || true
+    if (( pronto == 0 )); then
+      echo "$modo: nessuna risposta da $PROBE_PATH, ultime righe del log:" >&2
+      tail -20 "$log" >&2
+      exit 1
+    fi
+    started=$(grep -o 'Started [A-Za-z]* in [0-9.]*' "$log" | awk '{print $4}')
+    totale_ms=$(( totale_ms + pronto ))
+    schema_ms=$(( $(ms_riga "Initialized JPA EntityManagerFactory") - $(ms_riga "Root WebApplicationContext") ))
+    totale_schema_ms=$(( totale_schema_ms + schema_ms ))
+    totale_started=$(awk -v a="$totale_started" -v b="${started:-0}" 'BEGIN {print a + b}')
+  done
+  printf "%-18s %6d %18d %14.2f %10d %16.1f %14.1f\n" "$modo" "$RUNS" $(( totale_ms / RUNS )) \
+    "$(awk -v t="$totale_started" -v n="$RUNS" 'BEGIN {print t / n}')" $(( totale_schema_ms / RUNS )) \
+    "$(awk -v t="$totale_heap_kb" -v n="$RUNS" 'BEGIN {print t / n / 1024}')" \
+    "$(awk -v t="$totale_meta_kb" -v n="$RUNS" 'BEGIN {print t / n / 1024}')"
+done
@@ -0,0 +1,145 @@
+#!/usr/bin/env bash
+# Smoke test dell'immagine nativa, confrontata con la build JVM.
+#
+# Avvia ogni build (profilo Spring prod), esegue una serie di richieste che toccano le parti
+# sensibili all'immagine nativa e stampa, per build:
+# - "avvio": dal lancio del processo alla prima risposta 200 su /api/cocktails
+# - "RSS": memoria residente del processo (VmRSS) subito dopo l'avvio e dopo le verifiche
+# - verifiche superate / totali
+# Esce con codice 1 se una verifica fallisce (dettaglio su stderr).
+#
+# Verifiche:
+#   pagina cocktail         Hibernate + Jackson (Page di DTO)
+#   dettaglio cocktail      entity con passaggi e ingredienti, DTO annidati
+#   ricerca per nome        query JPQL "SELECT new ...DTO(...)"
+#   pagina ingredienti      secondo controller/repository
+#   ordinamento non valido  400 dal controller
+#   openapi.json            risorsa statica
+#   preferiti senza token   401 da SecurityConfig
+#   login errato            errore JSON da KeycloakUserService (proxy lazy, client HTTP, Jackson),
+#                           qualunque status: con Keycloak irraggiungibile la risposta è 500
+#
+# Build:
+#   mvn -Pnative -DskipTests package    → target/cocktailproject (richiede GraalVM native-image)
+#   lo stesso comando produce anche il jar usato per il confronto JVM
+#
+# Variabili:
+#   BUILDS      build da verificare, separate da spazio (default "jvm native")
+#   RUNS        avvii per build, il tempo è la media (default 3)
+#   PORT        porta usata per gli avvii (default 18080)
+#   JAR         jar della build JVM (default target/cocktailproject-0.0.1-SNAPSHOT.jar)
+#   NATIVE_BIN  eseguibile nativo (default target/cocktailproject)
+#   JVM_CMD     comando di avvio JVM al posto di "java $JAVA_OPTS -jar $JAR"
+#   NATIVE_CMD  comando di avvio nativo al posto di "$NATIVE_BIN"
+#   APP_ARGS    argomenti aggiuntivi per l'app (es. --spring.datasource.url=...)
+#   TIMEOUT_S   attesa massima per avvio (default 120)
+# Richiede curl. Il database deve essere raggiungibile e già migrato.
+set -euo pipefail
+
+BUILDS=${BUILDS:-"jvm native"}
+RUNS=${RUNS:-3}
+PORT=${PORT:-18080}
+JAR=${JAR:-target/cocktailproject-0.0.1-SNAPSHOT.jar}
+NATIVE_BIN=${NATIVE_BIN:-target/cocktailproject}
+JVM_CMD=${JVM_CMD:-"java ${JAVA_OPTS:-} -jar $JAR"}
+NATIVE_CMD=${NATIVE_CMD:-$NATIVE_BIN}
+APP_ARGS=${APP_ARGS:-}
+TIMEOUT_S=${TIMEOUT_S:-120}
+
+BASE="http://localhost:$PORT"
+PROBE_PATH="/api/cocktails?size=1"
+
+now_ms() { date +%s%3N; }
+
+rss_mb() {
+  awk '/VmRSS/ {printf "%.1f", $2 / 1024}' "/proc/$1/status"
+}
+
+comando() {
+  case "$1" in
+    jvm) echo "$JVM_CMD" ;;
+    native) echo "$NATIVE_CMD" ;;
+    *) echo "Build sconosciuta: $1" >&2; exit 2 ;;
+  esac
+}
+
+# verifica <descrizione> <status atteso, o * per qualunque> <testo atteso nel body, o ""> <curl args...>
+verifica() {
+  local descrizione=$1 atteso=$2 testo=$3
+  shift 3
+  local status
+  status=$(curl -s -o "$body" -w '%{http_code}' "$@" || true)
+  totale=$(( totale + 1 ))
+  if [[ "$atteso" == "*" || "$status" == "$atteso" ]] && { [[ -z "$testo" ]] || grep -q "$testo" "$body"; }; then
+    superate=$(( superate + 1 ))
+  else
+    echo "$build: $descrizione: atteso $atteso${testo:+ con \"$testo\"}, ottenuto $status: $(head -c 300 "$body")" >&2
+    fallite=$(( fallite + 1 ))
+  fi
+}
+
+# Avvia la build e aspetta la prima risposta; imposta pid e pronto (ms, 0 se non risponde)
+avvia() {
+  local inizio
+  inizio=$(now_ms)
+  # shellcheck disable=SC2086
+  $(comando "$1") --server.port="$PORT" --spring.profiles.active=prod $APP_ARGS > "$log" 2>&1 &
+  pid=$!
+  pronto=0
+  while (( $(now_ms) - inizio < TIMEOUT_S * 1000 )); do
+    if curl -sf -o /dev/null "$BASE$PROBE_PATH"; then
+      pronto=$(( $(now_ms) - inizio ))
+      return
+    fi
+    kill -0 "$pid" 2> /dev/null || return
+    sleep 0.02
+  done
+}
+
+ferma() {
+  kill "$pid" 2> /dev/null || true
+  wait "$pid" 2> /dev/null || true
+}
+
+log=$(mktemp)
+body=$(mktemp)
+trap 'rm -f "$log" "$body"' EXIT
+
+fallite=0
+printf "%-8s %6s %10s %18s %20s %10s\n" "build" "avvii" "avvio ms" "RSS avvio MB" "RSS verifiche MB" "verifiche"
+for build in $BUILDS; do
+  totale_ms=0
+  rss_avvio=""
+  rss_verifiche=""
+  superate=0
+  totale=0
+  for ((i = 1; i <= RUNS; i++)); do
+    avvia "$build"
+    if (( pronto == 0 )); then
+      echo "$build: nessuna risposta da $PROBE_PATH, ultime righe del log:" >&2
+      tail -20 "$log" >&2
+      ferma
+      exit 1
+    fi
+    totale_ms=$(( totale_ms + pronto ))
+    # Memoria e verifiche solo sul primo avvio (gli altri misurano solo il tempo)
+    if (( i == 1 )); then
+      rss_avvio=$(rss_mb "$pid")
+      verifica "pagina cocktail" 200 '"content"' "$BASE/api/cocktails?size=5"
+      id=$(grep -o '"id":[0-9]*' "$body" | head -1 | cut -d: -f2)
+      verifica "dettaglio cocktail" 200 '"preparazione"' "$BASE/api/cocktails/${id:-1}"
+      verifica "ricerca per nome" 200 '"totaleStimato"' "$BASE/api/cocktails/search?nome=a&size=2"
+      verifica "pagina ingredienti" 200 '"content"' "$BASE/api/ingredients?size=5"
+      verifica "ordinamento non valido" 400 "" "$BASE/api/cocktails?sort=inesistente"
+      verifica "openapi.json" 200 '"openapi"' "$BASE/openapi.json"
+      verifica "preferiti senza token" 401 "" "$BASE/api/favoriti"
+      verifica "login errato" '*' '"success":false' -X POST -H 'Content-Type: application/json' \
+        -d '{"username":"smoke","password":"smoke"}' "$BASE/api/auth/login"
+      rss_verifiche=$(rss_mb "$pid")
+    fi
+    ferma
+  done
+  printf "%-8s %6d %10d %18s %20s %10s\n" "$build" "$RUNS" $(( totale_ms / RUNS )) \
+    "$rss_avvio" "$rss_verifiche" "$superate/$totale"
+done
+(( fallite == 0 )) || exit 1
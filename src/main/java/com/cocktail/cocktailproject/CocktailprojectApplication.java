@@ -2,12 +2,15 @@ package com.cocktail.cocktailproject;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * CocktailprojectApplication - Punto di avvio dell'app
  * Avvia Spring Boot sulla porta 8080
+ * Abilita i job schedulati (pulizia outbox, stream delle modifiche)
  */
 @SpringBootApplication
+@EnableScheduling
 public class CocktailprojectApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,212 @@
+package com.cocktail.cocktailproject.cache;
+
+import com.cocktail.cocktailproject.event.CatalogChangeEvent;
+import com.cocktail.cocktailproject.service.ChangeFeedService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * CacheInvalidationBus - Coerenza delle cache in memoria tra più istanze, usando solo MySQL
+ * 
+ * Come funziona:
+ * - Il log versionato delle invalidazioni è l'outbox catalog_change (seq crescente),
+ *   già scritto da tutte le scritture di CocktailService, IngredientService e FavoritiService
+ * - Ogni istanza interroga l'outbox ogni cocktail.cache.invalidation.poll-ms con UNA query
+ *   sulla chiave primaria (seq > cursore), quindi il costo è indipendente dalla dimensione della tabella
+ * - Le righe scritte da questa istanza vengono saltate (colonna origine): le sue cache sono
+ *   già state invalidate dopo il commit
+ * - Le modifiche lette vengono coalescenti (stessa entità e operazione una volta sola per ciclo)
+ *   e ripubblicate come CatalogChangeEvent con remoto = true, così ogni cache/indice locale
+ *   si aggiorna con lo stesso listener usato per le scritture locali
+ * 
+ * Il seq delle modifiche applicate e il cursore passano a CatalogGeneration: l'ETag di liste
+ * e ricerche è lo stesso su tutte le istanze allineate.
+ * 
+ * Il polling gira su un thread proprio (cache-invalidation-), non sullo scheduler condiviso
+ * dai job @Scheduled (stream SSE, pulizia dell'outbox, riconciliazioni, ricostruzione delle
+ * raccomandazioni): un job lungo o bloccato non ritarda l'invalidazione delle cache.
+ * 
+ * Limite di staleness: circa poll-ms + durata della query. Le righe più recenti della finestra
+ * di assestamento (cocktail.changes.settle-ms) vengono applicate subito ma il cursore avanza
+ * solo oltre le righe assestate, così una transazione confermata fuori ordine non viene persa.
+ * 
+ * Metriche (Micrometer, /actuator/metrics):
+ * - cocktail.cache.invalidation.poll: durata di ogni polling
+ * - cocktail.cache.invalidation.applied: modifiche remote applicate
+ * - cocktail.cache.invalidation.staleness: ritardo (ms, orologio del database) tra commit e applicazione
+ */
+@Component
+public class CacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private static final String POLL_SQL =
+            "SELECT seq, entita, entita_id, operazione, origine, " +
+            "TIMESTAMPDIFF(MICROSECOND, creato_il, CURRENT_TIMESTAMP(6)) AS eta_us " +
+            "FROM catalog_change WHERE seq > ? ORDER BY seq LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChangeFeedService changeFeedService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogGeneration catalogGeneration;
+
+    private final Timer pollTimer;
+    private final Counter applicate;
+    private final DistributionSummary staleness;
+
+    @Value("${cocktail.cache.invalidation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cocktail.cache.invalidation.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${cocktail.cache.invalidation.poll-ms:1000}")
+    private long pollMs;
+
+    // Scheduler dedicato: non è un bean, così lo scheduler e l'executor di Spring Boot restano quelli di default
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+    // Ultimo seq oltre il quale tutte le righe sono già state viste e assestate (-1 = da inizializzare)
+    private volatile long cursore = -1;
+
+    // seq > cursore già applicati (righe non ancora assestate, rilette al ciclo successivo)
+    private final Set<Long> giaApplicate = new HashSet<>();
+
+    public CacheInvalidationBus(JdbcTemplate jdbcTemplate,
+                                ChangeFeedService changeFeedService,
+                                ApplicationEventPublisher eventPublisher,
+                                CatalogGeneration catalogGeneration,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeFeedService = changeFeedService;
+        this.eventPublisher = eventPublisher;
+        this.catalogGeneration = catalogGeneration;
+        this.pollTimer = Timer.builder("cocktail.cache.invalidation.poll")
+                .description("Durata del polling dell'outbox per le invalidazioni")
+                .register(meterRegistry);
+        this.applicate = Counter.builder("cocktail.cache.invalidation.applied")
+                .description("Modifiche di altre istanze applicate alle cache locali")
+                .register(meterRegistry);
+        this.staleness = DistributionSummary.builder("cocktail.cache.invalidation.staleness")
+                .description("Ritardo tra il commit su un'altra istanza e l'invalidazione locale")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Avvia il polling sul thread dedicato (un errore in un ciclo viene registrato
+     * dallo scheduler e il ciclo successivo parte comunque)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void avvia() {
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("cache-invalidation-");
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::poll, Duration.ofMillis(pollMs));
+    }
+
+    @PreDestroy
+    void ferma() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Un ciclo di polling dell'outbox
+     */
+    public synchronized void poll() {
+        if (cursore < 0) {
+            // All'avvio le cache sono vuote: basta partire dall'ultima modifica esistente.
+            // Letto anche con il bus disattivato (istanza singola): è la base dell'ETag del catalogo
+            cursore = changeFeedService.ultimoSeq();
+            catalogGeneration.assestata(cursore);
+            return;
+        }
+        if (!enabled) {
+            return;
+        }
+        pollTimer.record(this::leggiEApplica);
+    }
+
+    /**
+     * @return cursore corrente (ultimo seq assestato letto)
+     */
+    public long getCursore() {
+        return cursore;
+    }
+
+    private void leggiEApplica() {
+        List<Riga> righe = jdbcTemplate.query(POLL_SQL, (rs, i) -> new Riga(
+                rs.getLong("seq"),
+                CatalogChangeEvent.Entita.valueOf(rs.getString("entita")),
+                rs.getLong("entita_id"),
+                CatalogChangeEvent.Operazione.valueOf(rs.getString("operazione")),
+                rs.getString("origine"),
+                rs.getLong("eta_us")), cursore, batchSize);
+        if (righe.isEmpty()) {
+            return;
+        }
+
+        String nodeId = changeFeedService.getNodeId();
+        long settleMicros = changeFeedService.getSettleMs() * 1000;
+        Set<CatalogChangeEvent> daPubblicare = new LinkedHashSet<>();
+        long ultimaRemota = 0;
+        long nuovoCursore = cursore;
+        boolean prefissoAssestato = true;
+
+        for (Riga riga : righe) {
+            boolean assestata = riga.etaMicros >= settleMicros;
+            if (prefissoAssestato && assestata) {
+                nuovoCursore = riga.seq;
+            } else {
+                prefissoAssestato = false;
+            }
+            if (!giaApplicate.add(riga.seq) || nodeId.equals(riga.origine)) {
+                continue;
+            }
+            ultimaRemota = riga.seq;
+            // Coalescenza: la stessa entità modificata più volte genera un solo evento
+            if (daPubblicare.add(new CatalogChangeEvent(riga.entita, riga.entitaId, riga.operazione, true))) {
+                staleness.record(riga.etaMicros / 1000.0);
+            }
+        }
+
+        cursore = nuovoCursore;
+        long limite = nuovoCursore;
+        giaApplicate.removeIf(seq -> seq <= limite);
+
+        for (CatalogChangeEvent evento : daPubblicare) {
+            try {
+                eventPublisher.publishEvent(evento);
+            } catch (RuntimeException e) {
+                logger.warn("Invalidazione remota non applicata ({}): {}", evento, e.getMessage());
+            }
+        }
+        applicate.increment(daPubblicare.size());
+        // Dopo la pubblicazione: l'ETag del catalogo cambia solo con cache e indici già aggiornati.
+        // Le righe di questa istanza le ha già dichiarate ChangeFeedService dopo il commit
+        catalogGeneration.applicata(ultimaRemota);
+        catalogGeneration.assestata(nuovoCursore);
+    }
+
+    private record Riga(long seq, CatalogChangeEvent.Entita entita, Long entitaId,
+                        CatalogChangeEvent.Operazione operazione, String origine, long etaMicros) {
+    }
+}
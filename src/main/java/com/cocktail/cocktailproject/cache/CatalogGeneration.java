@@ -0,0 +1,89 @@
+package com.cocktail.cocktailproject.cache;
+
+import com.cocktail.cocktailproject.event.CatalogChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CatalogGeneration - Generazione del catalogo (cocktail e ingredienti) per cache ed ETag
+ * 
+ * Due valori, letti entrambi PRIMA di caricare i dati: così una risposta non può mai
+ * contenere dati più vecchi della generazione dichiarata.
+ * 
+ * corrente(): contatore locale, incrementato a ogni modifica del catalogo (locale o
+ * arrivata da un'altra istanza tramite CacheInvalidationBus). Fa parte delle chiavi
+ * delle cache di ricerca di questa istanza.
+ * 
+ * etag(): ETag debole di liste e ricerche, uguale su tutte le istanze che hanno applicato
+ * le stesse modifiche. Deriva dai seq dell'outbox catalog_change:
+ * - assestato: cursore di CacheInvalidationBus, tutte le modifiche fino a questo seq
+ *   sono state applicate
+ * - massimo: seq più alto applicato (scritture locali dopo il commit, modifiche remote
+ *   dopo la pubblicazione dell'evento)
+ * Una modifica confermata fuori ordine (seq minore di uno già applicato) non cambia
+ * "massimo" ma fa avanzare "assestato" entro la finestra di assestamento: due istanze
+ * possono dichiarare lo stesso tag con dati diversi al massimo per poll-ms + settle-ms,
+ * lo stesso limite di staleness delle cache. Cambia anche con le modifiche ai preferiti
+ * (si perde al massimo un 304).
+ * 
+ * Finché il bus non ha letto il cursore iniziale l'ETag contiene un identificativo
+ * casuale generato all'avvio: non coincide mai con tag di altre istanze o di avvii precedenti.
+ */
+@Component
+public class CatalogGeneration {
+
+    private final String istanza = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong generazione = new AtomicLong();
+    private final AtomicLong massimo = new AtomicLong(-1);
+    private volatile long assestato = -1;
+
+    /**
+     * @return generazione corrente del catalogo su questa istanza
+     */
+    public long corrente() {
+        return generazione.get();
+    }
+
+    /**
+     * @return ETag debole per liste e ricerche (es: W/"1200-1203")
+     */
+    public String etag() {
+        long cursore = assestato;
+        if (cursore < 0) {
+            return "W/\"" + istanza + "-" + generazione.get() + "\"";
+        }
+        return "W/\"" + cursore + "-" + Math.max(cursore, massimo.get()) + "\"";
+    }
+
+    /**
+     * Modifiche dell'outbox applicate a cache e indici di questa istanza
+     * (da chiamare DOPO aver pubblicato i relativi CatalogChangeEvent)
+     * @param seq seq più alto tra quelle applicate
+     */
+    public void applicata(long seq) {
+        massimo.accumulateAndGet(seq, Math::max);
+    }
+
+    /**
+     * Nuovo cursore di CacheInvalidationBus: ogni modifica fino a seq è stata applicata
+     * @param seq ultimo seq assestato
+     */
+    public void assestata(long seq) {
+        applicata(seq);
+        assestato = Math.max(assestato, seq);
+    }
+
+    /**
+     * Nuova generazione locale dopo ogni modifica confermata al catalogo
+     * (i preferiti non cambiano le risposte pubbliche)
+     */
+    @EventListener
+    public void onCatalogChange(CatalogChangeEvent evento) {
+        if (evento.isCatalogo()) {
+            generazione.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.cocktail.cocktailproject.cache;
+
+import com.cocktail.cocktailproject.dto.CocktailDTO;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * CocktailCache - Cache in memoria dei CocktailDTO completi, per ID
+ * 
+ * Come funziona:
+ * - LRU con numero massimo di elementi (cocktail.cache.max-entries)
+ * - Popolata in lettura da CocktailService (getCocktailById, batch)
+ * - Invalidata dopo il commit delle scritture, ascoltando i CatalogChangeEvent
+ * - Una generazione viene incrementata a ogni invalidazione: un valore letto dal
+ *   database prima di un'invalidazione non viene inserito (putIfGeneration), così
+ *   una lettura lenta non può rimettere in cache una ricetta appena modificata
+ * 
+ * I DTO in cache non vanno modificati da chi li legge.
+ */
+@Component
+public class CocktailCache {
+
+    private final Map<Long, CocktailDTO> cache;
+    private long generazione;
+
+    public CocktailCache(@Value("${cocktail.cache.max-entries:10000}") int maxEntries) {
+        // LinkedHashMap in access-order: l'elemento meno usato di recente viene rimosso per primo
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CocktailDTO> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param id ID del cocktail
+     * @return il DTO in cache, o null se assente
+     */
+    public synchronized CocktailDTO get(Long id) {
+        return cache.get(id);
+    }
+
+    /**
+     * Legge più ID in un colpo solo
+     * @param ids ID da cercare
+     * @return mappa ID -> DTO contenente solo gli ID presenti in cache
+     */
+    public synchronized Map<Long, CocktailDTO> getAll(Collection<Long> ids) {
+        Map<Long, CocktailDTO> trovati = new HashMap<>();
+        for (Long id : ids) {
+            CocktailDTO dto = cache.get(id);
+            if (dto != null) {
+                trovati.put(id, dto);
+            }
+        }
+        return trovati;
+    }
+
+    public synchronized void put(CocktailDTO dto) {
+        cache.put(dto.getId(), dto);
+    }
+
+    /**
+     * Inserisce il DTO solo se non ci sono state invalidazioni dopo "generazioneLettura"
+     * @param dto Ricetta letta dal database
+     * @param generazioneLettura valore di generazione() letto prima della query
+     */
+    public synchronized void putIfGeneration(CocktailDTO dto, long generazioneLettura) {
+        if (generazione == generazioneLettura) {
+            cache.put(dto.getId(), dto);
+        }
+    }
+
+    /**
+     * @return generazione corrente (da leggere prima di caricare dal database)
+     */
+    public synchronized long generazione() {
+        return generazione;
+    }
+
+    public synchronized void evict(Long id) {
+        generazione++;
+        cache.remove(id);
+    }
+
+    public synchronized void clear() {
+        generazione++;
+        cache.clear();
+    }
+
+    /**
+     * Invalida la ricetta modificata dopo il commit della transazione
+     * (le modifiche a un ingrediente arrivano anche come UPDATE dei cocktail coinvolti)
+     */
+    @EventListener
+    public void onCatalogChange(CatalogChangeEvent evento) {
+        if (evento.entita() == CatalogChangeEvent.Entita.COCKTAIL) {
+            evict(evento.entitaId());
+        }
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+}
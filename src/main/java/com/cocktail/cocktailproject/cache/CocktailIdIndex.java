@@ -0,0 +1,185 @@
+package com.cocktail.cocktailproject.cache;
+
+import com.cocktail.cocktailproject.event.CatalogChangeEvent;
+import com.cocktail.cocktailproject.repository.CocktailRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CocktailIdIndex - Indice in memoria degli ID dei cocktail esistenti
+ * 
+ * Serve a rispondere "non esiste" senza interrogare il database quando client
+ * vecchi o scraper chiedono ID inesistenti (/api/cocktails/{id}, /api/favoriti/{id}).
+ * 
+ * Come funziona:
+ * - bitmap (BitSet) con un bit per ID, caricata all'avvio con una sola query
+ *   (gli ID sono auto-increment: la bitmap è densa, ~125 KB per un milione di ID)
+ * - aggiornata dai CatalogChangeEvent: CREATE accende il bit, DELETE lo spegne
+ *   (anche per le modifiche arrivate da altre istanze)
+ * - gli ID oltre il massimo noto vanno sempre al database: possono essere appena
+ *   stati creati da un'altra istanza
+ * - cache negativa con TTL breve per gli ID cercati e non trovati nel database
+ *   (copre gli ID oltre il massimo e l'intervallo prima del caricamento)
+ * 
+ * Errori ammessi solo nel verso sicuro: un bit acceso per un ID eliminato costa una
+ * query in più. Un ID creato da un'altra istanza sotto il massimo noto risulta
+ * inesistente al più fino al prossimo poll di CacheInvalidationBus, come le altre cache.
+ * 
+ * Metriche: cocktail.id-index.lookups{esito=bitmap|negativa|database}
+ */
+@Component
+public class CocktailIdIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CocktailIdIndex.class);
+
+    private final CocktailRepository cocktailRepository;
+    private final boolean enabled;
+    private final long ttlMillis;
+
+    private final BitSet esistenti = new BitSet();
+    private final Map<Long, Long> mancanti;
+    private boolean caricato;
+    private long massimo;
+    private long generazione;
+
+    private final Counter scartatiBitmap;
+    private final Counter scartatiNegativa;
+    private final Counter database;
+
+    public CocktailIdIndex(CocktailRepository cocktailRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${cocktail.id-index.enabled:true}") boolean enabled,
+                           @Value("${cocktail.id-index.negative-ttl-ms:5000}") long ttlMillis,
+                           @Value("${cocktail.id-index.negative-max-entries:10000}") int maxMancanti) {
+        this.cocktailRepository = cocktailRepository;
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+        // LRU come CocktailCache: ID mancante -> istante di scadenza
+        this.mancanti = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > maxMancanti;
+            }
+        };
+        this.scartatiBitmap = contatore(meterRegistry, "bitmap");
+        this.scartatiNegativa = contatore(meterRegistry, "negativa");
+        this.database = contatore(meterRegistry, "database");
+    }
+
+    /**
+     * Carica gli ID esistenti all'avvio
+     * I CREATE arrivati durante il caricamento restano accesi (OR con la bitmap letta).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void carica() {
+        if (!enabled) {
+            return;
+        }
+        List<Long> ids = cocktailRepository.findAllIds();
+        synchronized (this) {
+            for (Long id : ids) {
+                accendi(id);
+            }
+            caricato = true;
+        }
+        log.info("Indice ID cocktail caricato: {} ID, massimo {}", ids.size(), massimo);
+    }
+
+    /**
+     * @param id ID del cocktail
+     * @return false se il cocktail sicuramente non esiste (niente query),
+     *         true se può esistere e va letto dal database
+     */
+    public boolean puoEsistere(Long id) {
+        Counter esito = verifica(id);
+        esito.increment();
+        return esito == database;
+    }
+
+    private synchronized Counter verifica(Long id) {
+        if (!enabled || id == null) {
+            return database;
+        }
+        if (id <= 0) {
+            return scartatiBitmap;
+        }
+        Long scadenza = mancanti.get(id);
+        if (scadenza != null) {
+            if (scadenza > System.currentTimeMillis()) {
+                return scartatiNegativa;
+            }
+            mancanti.remove(id);
+        }
+        // Fuori dalla bitmap (non ancora caricata, oltre il massimo): decide il database
+        if (!caricato || id > massimo) {
+            return database;
+        }
+        return esistenti.get((int) (long) id) ? database : scartatiBitmap;
+    }
+
+    /**
+     * @return generazione corrente (da leggere prima della query, vedi segnaMancante)
+     */
+    public synchronized long generazione() {
+        return generazione;
+    }
+
+    /**
+     * Ricorda per un TTL breve un ID non trovato nel database
+     * Ignorato se nel frattempo è arrivato un CREATE (generazione cambiata).
+     * @param id ID cercato
+     * @param generazioneLettura valore di generazione() letto prima della query
+     */
+    public synchronized void segnaMancante(Long id, long generazioneLettura) {
+        if (enabled && id != null && generazione == generazioneLettura) {
+            mancanti.put(id, System.currentTimeMillis() + ttlMillis);
+        }
+    }
+
+    /**
+     * Aggiorna la bitmap dopo il commit (o alla ricezione da un'altra istanza)
+     */
+    @EventListener
+    public synchronized void onCatalogChange(CatalogChangeEvent evento) {
+        if (evento.entita() != CatalogChangeEvent.Entita.COCKTAIL || evento.entitaId() == null) {
+            return;
+        }
+        if (evento.operazione() == CatalogChangeEvent.Operazione.CREATE) {
+            generazione++;
+            mancanti.remove(evento.entitaId());
+            accendi(evento.entitaId());
+        } else if (evento.operazione() == CatalogChangeEvent.Operazione.DELETE
+                && evento.entitaId() <= Integer.MAX_VALUE) {
+            esistenti.clear((int) (long) evento.entitaId());
+        }
+    }
+
+    private void accendi(Long id) {
+        if (id > 0 && id <= Integer.MAX_VALUE) {
+            esistenti.set((int) (long) id);
+            massimo = Math.max(massimo, id);
+        }
+    }
+
+    public synchronized int size() {
+        return esistenti.cardinality();
+    }
+
+    private static Counter contatore(MeterRegistry meterRegistry, String esito) {
+        return Counter.builder("cocktail.id-index.lookups")
+                .description("Controlli di esistenza degli ID cocktail prima della lettura dal database")
+                .tag("esito", esito)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,451 @@
+package com.cocktail.cocktailproject.cache;
+
+import com.cocktail.cocktailproject.event.CatalogChangeEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ResponseCacheFilter - Cache delle risposte complete per le GET anonime del catalogo
+ *
+ * Le GET pubbliche su /api/cocktails/** e /api/ingredients/** sono uguali per tutti
+ * gli utenti anonimi: la prima risposta 200 viene salvata già serializzata, le
+ * successive vengono servite dal filtro senza passare da controller, service e Jackson.
+ *
+ * Come funziona:
+ * - chiave: path + parametri della query ordinati per nome (?size=10&page=0 = ?page=0&size=10)
+ * - per ogni risposta si salvano i byte JSON e, sopra cocktail.response-cache.min-gzip-bytes,
+ *   anche la variante gzip già compressa (compressione massima, fatta una sola volta)
+ * - ETag, Last-Modified e Cache-Control del controller vengono salvati e riusati:
+ *   If-None-Match / If-Modified-Since ricevono 304 direttamente dal filtro
+ * - Vary: Accept-Encoding e Origin (CORS), uguale su MISS e HIT: la stessa URL ha due
+ *   rappresentazioni. La variante gzip ha un ETag proprio, quello della risposta con il
+ *   suffisso "-gz" (W/"12-40" → W/"12-40-gz"): If-None-Match accetta entrambi (sui MISS
+ *   arriva al controller senza suffisso), If-Match toglie il suffisso prima del confronto
+ *   (senzaSuffissoGzip)
+ * - brotli non è disponibile nel JDK: si usa solo gzip
+ * - le richieste con Authorization non usano la cache
+ * - le risposte con Cache-Control no-store o private non vengono salvate
+ *   (es. /api/cocktails/{id}/also-liked, che cambia con i preferiti e non con il catalogo)
+ * - invalidata (svuotata) a ogni CatalogChangeEvent del catalogo, locale o remoto;
+ *   una risposta calcolata prima di un'invalidazione non viene salvata (generazione)
+ *
+ * Metriche: cocktail.response-cache.requests{esito=hit|miss|bypass}, cocktail.response-cache.entries
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String[] PREFISSI = {"/api/cocktails", "/api/ingredients"};
+
+    // Suffisso dell'ETag della variante gzip, dentro le virgolette
+    private static final String SUFFISSO_GZIP = "-gz";
+
+    // Sempre presenti in Vary: codifica (variante gzip) e CORS
+    private static final String[] VARY = {HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ORIGIN};
+
+    private final boolean enabled;
+    private final int maxBodyBytes;
+    private final int minGzipBytes;
+
+    private final Map<String, Voce> voci;
+    private long generazione;
+
+    private final Counter hit;
+    private final Counter miss;
+    private final Counter bypass;
+
+    public ResponseCacheFilter(@Value("${cocktail.response-cache.enabled:true}") boolean enabled,
+                               @Value("${cocktail.response-cache.max-entries:2000}") int maxEntries,
+                               @Value("${cocktail.response-cache.max-body-bytes:524288}") int maxBodyBytes,
+                               @Value("${cocktail.response-cache.min-gzip-bytes:512}") int minGzipBytes,
+                               MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxBodyBytes = maxBodyBytes;
+        this.minGzipBytes = minGzipBytes;
+        // LRU come CocktailCache
+        this.voci = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Voce> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hit = contatore(meterRegistry, "hit");
+        this.miss = contatore(meterRegistry, "miss");
+        this.bypass = contatore(meterRegistry, "bypass");
+        Gauge.builder("cocktail.response-cache.entries", this, ResponseCacheFilter::size)
+                .description("Risposte presenti nella cache HTTP")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !"GET".equals(request.getMethod())) {
+            return true;
+        }
+        String path = path(request);
+        return Arrays.stream(PREFISSI).noneMatch(path::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (request.getHeader(HttpHeaders.AUTHORIZATION) != null) {
+            bypass.increment();
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String chiave = chiave(request);
+        Voce voce = get(chiave);
+        if (voce != null) {
+            hit.increment();
+            response.setHeader("X-Cache", "HIT");
+            servi(voce, request, response);
+            return;
+        }
+
+        miss.increment();
+        long generazioneIniziale = generazione();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        // Il controller conosce solo l'ETag identity: un If-None-Match con l'ETag della
+        // variante gzip (ricevuto su un HIT prima che la cache fosse svuotata) gli arriva senza suffisso
+        chain.doFilter(new IfNoneMatchSenzaSuffissoGzip(request), wrapper);
+
+        if (wrapper.getStatus() == HttpServletResponse.SC_NOT_MODIFIED && wrapper.getHeader(HttpHeaders.ETAG) != null
+                && accettaGzip(request) && ifNoneMatchGzip(request)) {
+            // 304 per la variante gzip che il client ha già: stesso ETag di un HIT
+            wrapper.setHeader(HttpHeaders.ETAG, etagGzip(wrapper.getHeader(HttpHeaders.ETAG)));
+        }
+
+        byte[] body = wrapper.getContentAsByteArray();
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || body.length > maxBodyBytes
+                || wrapper.getHeader(HttpHeaders.SET_COOKIE) != null || nonMemorizzabile(wrapper)) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        voce = new Voce(body,
+                body.length >= minGzipBytes ? gzip(body) : null,
+                wrapper.getContentType(),
+                wrapper.getHeader(HttpHeaders.ETAG),
+                wrapper.getHeader(HttpHeaders.LAST_MODIFIED),
+                wrapper.getHeader(HttpHeaders.CACHE_CONTROL),
+                vary(wrapper.getHeaders(HttpHeaders.VARY)));
+        putIfGeneration(chiave, voce, generazioneIniziale);
+
+        // Il controller ha già impostato gli header: si completano Vary ed ETag
+        // e si scrive il body, eventualmente compresso
+        response.setHeader("X-Cache", "MISS");
+        response.setHeader(HttpHeaders.VARY, voce.vary());
+        scriviBody(voce, request, response);
+    }
+
+    /**
+     * Svuota la cache a ogni modifica confermata del catalogo
+     */
+    @EventListener
+    public void onCatalogChange(CatalogChangeEvent evento) {
+        if (evento.isCatalogo()) {
+            clear();
+        }
+    }
+
+    public synchronized void clear() {
+        voci.clear();
+        generazione++;
+    }
+
+    public synchronized int size() {
+        return voci.size();
+    }
+
+    private synchronized Voce get(String chiave) {
+        return voci.get(chiave);
+    }
+
+    private synchronized long generazione() {
+        return generazione;
+    }
+
+    private synchronized void putIfGeneration(String chiave, Voce voce, long generazioneAttesa) {
+        if (generazione == generazioneAttesa) {
+            voci.put(chiave, voce);
+        }
+    }
+
+    /**
+     * Risposta completa da una voce in cache (304 se il client ha già questa versione)
+     */
+    private void servi(Voce voce, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Stesso Vary della risposta salvata (MISS)
+        response.setHeader(HttpHeaders.VARY, voce.vary());
+        if (voce.etag() != null) {
+            response.setHeader(HttpHeaders.ETAG, usaGzip(voce, request) ? etagGzip(voce.etag()) : voce.etag());
+        }
+        if (voce.lastModified() != null) {
+            response.setHeader(HttpHeaders.LAST_MODIFIED, voce.lastModified());
+        }
+        if (voce.cacheControl() != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, voce.cacheControl());
+        }
+        // Stessa policy CORS dei controller (@CrossOrigin(origins = "*"))
+        if (request.getHeader(HttpHeaders.ORIGIN) != null) {
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, "ETag, Last-Modified");
+        }
+        if (nonModificato(voce, request)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        if (voce.contentType() != null) {
+            response.setContentType(voce.contentType());
+        }
+        scriviBody(voce, request, response);
+    }
+
+    private void scriviBody(Voce voce, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        byte[] body = voce.body();
+        if (usaGzip(voce, request)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            if (voce.etag() != null) {
+                response.setHeader(HttpHeaders.ETAG, etagGzip(voce.etag()));
+            }
+            body = voce.gzip();
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        response.flushBuffer();
+    }
+
+    /**
+     * If-None-Match (confronto debole, come per le GET) o, in sua assenza, If-Modified-Since
+     */
+    private boolean nonModificato(Voce voce, HttpServletRequest request) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            if (voce.etag() == null) {
+                return false;
+            }
+            String attuale = senzaWeak(voce.etag());
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.equals("*") || senzaWeak(senzaSuffissoGzip(tag)).equals(attuale)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (voce.lastModified() != null) {
+            try {
+                long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+                long lastModified = parseData(voce.lastModified());
+                return ifModifiedSince != -1 && lastModified != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static long parseData(String data) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.LAST_MODIFIED, data);
+        return headers.getLastModified();
+    }
+
+    private static String senzaWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    /**
+     * ETag della variante gzip: "12-v3" → "12-v3-gz", W/"12-40" → W/"12-40-gz"
+     */
+    private static String etagGzip(String etag) {
+        return etag.endsWith("\"") ? etag.substring(0, etag.length() - 1) + SUFFISSO_GZIP + "\"" : etag;
+    }
+
+    /**
+     * ETag della risposta identity da quello di una delle due varianti ("12-v3-gz" → "12-v3")
+     * Da usare prima di confrontare un If-Match con la versione corrente.
+     */
+    public static String senzaSuffissoGzip(String etag) {
+        String fine = SUFFISSO_GZIP + "\"";
+        return etag.endsWith(fine) ? etag.substring(0, etag.length() - fine.length()) + "\"" : etag;
+    }
+
+    private static boolean ifNoneMatchGzip(HttpServletRequest request) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            if (!tag.trim().equals(senzaSuffissoGzip(tag.trim()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Valori di Vary del controller (es. quelli aggiunti dal supporto CORS) più Accept-Encoding e Origin
+     */
+    private static String vary(Collection<String> header) {
+        Map<String, String> valori = new LinkedHashMap<>();
+        for (String riga : header) {
+            for (String valore : riga.split(",")) {
+                if (!valore.isBlank()) {
+                    valori.putIfAbsent(valore.trim().toLowerCase(Locale.ROOT), valore.trim());
+                }
+            }
+        }
+        for (String valore : VARY) {
+            valori.putIfAbsent(valore.toLowerCase(Locale.ROOT), valore);
+        }
+        return String.join(", ", valori.values());
+    }
+
+    private static boolean usaGzip(Voce voce, HttpServletRequest request) {
+        return voce.gzip() != null && accettaGzip(request);
+    }
+
+    /**
+     * Come una cache condivisa: niente no-store né private
+     */
+    private static boolean nonMemorizzabile(HttpServletResponse response) {
+        String cacheControl = response.getHeader(HttpHeaders.CACHE_CONTROL);
+        if (cacheControl == null) {
+            return false;
+        }
+        String valore = cacheControl.toLowerCase(Locale.ROOT);
+        return valore.contains("no-store") || valore.contains("private");
+    }
+
+    private static boolean accettaGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String codifica : acceptEncoding.split(",")) {
+            String[] parti = codifica.trim().split(";");
+            if (parti[0].trim().equalsIgnoreCase("gzip")) {
+                // gzip;q=0 = rifiutato esplicitamente
+                return !(parti.length > 1 && parti[1].trim().replace(" ", "").matches("q=0(\\.0*)?"));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Chiave normalizzata: path + parametri ordinati per nome (valori nell'ordine ricevuto)
+     */
+    private static String chiave(HttpServletRequest request) {
+        StringBuilder chiave = new StringBuilder(path(request));
+        char separatore = '?';
+        for (Map.Entry<String, String[]> parametro : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            for (String valore : parametro.getValue()) {
+                chiave.append(separatore)
+                        .append(URLEncoder.encode(parametro.getKey(), StandardCharsets.UTF_8))
+                        .append('=')
+                        .append(URLEncoder.encode(valore, StandardCharsets.UTF_8));
+                separatore = '&';
+            }
+        }
+        return chiave.toString();
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(body);
+        } catch (IOException e) {
+            return null;
+        }
+        byte[] compresso = out.toByteArray();
+        // Variante inutile se non riduce la dimensione
+        return compresso.length < body.length ? compresso : null;
+    }
+
+    private static Counter contatore(MeterRegistry meterRegistry, String esito) {
+        return Counter.builder("cocktail.response-cache.requests")
+                .description("Richieste GET anonime del catalogo per esito della cache HTTP")
+                .tag("esito", esito)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Richiesta passata al controller su un MISS: If-None-Match con i tag senza suffisso gzip
+     * (stessa corrispondenza di nonModificato sui HIT)
+     */
+    private static class IfNoneMatchSenzaSuffissoGzip extends HttpServletRequestWrapper {
+
+        private IfNoneMatchSenzaSuffissoGzip(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String nome) {
+            String valore = super.getHeader(nome);
+            return valore != null && HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(nome) ? senzaSuffissi(valore) : valore;
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String nome) {
+            Enumeration<String> valori = super.getHeaders(nome);
+            if (valori == null || !HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(nome)) {
+                return valori;
+            }
+            List<String> mappati = Collections.list(valori).stream().map(IfNoneMatchSenzaSuffissoGzip::senzaSuffissi).toList();
+            return Collections.enumeration(mappati);
+        }
+
+        private static String senzaSuffissi(String ifNoneMatch) {
+            return Arrays.stream(ifNoneMatch.split(","))
+                    .map(tag -> senzaSuffissoGzip(tag.trim()))
+                    .collect(Collectors.joining(", "));
+        }
+    }
+
+    /**
+     * Risposta salvata: body, variante gzip (può essere null) e header da riprodurre
+     */
+    private record Voce(byte[] body, byte[] gzip, String contentType,
+                        String etag, String lastModified, String cacheControl, String vary) {
+    }
+}
@@ -0,0 +1,155 @@
+package com.cocktail.cocktailproject.cache;
+
+import com.cocktail.cocktailproject.dto.PaginaStimataDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * SearchCache - Cache dei risultati di ricerca per nome (solo gli ID della pagina + totale)
+ * 
+ * Come funziona:
+ * - chiave: testo normalizzato (trim, spazi compattati, minuscolo, senza accenti)
+ *   + pagina + dimensione + ordinamento + generazione del catalogo
+ * - la generazione (CatalogGeneration) cambia a ogni modifica del catalogo, locale
+ *   o remota: le voci vecchie diventano irraggiungibili in O(1) ed escono dall'LRU
+ * - la generazione va letta PRIMA di eseguire la query (vedi CocktailService.searchByName):
+ *   un risultato calcolato durante una modifica finisce sotto la generazione vecchia
+ * - le ricette si ricavano poi dagli ID con il percorso normale (cache per ID, read model)
+ * - pagine con totale esatto (count=exact) e stimato (count=estimate) sono voci distinte
+ * 
+ * Conteggi per le ricerche con totale stimato (vedi PaginaStimataDTO): una voce per
+ * ambito + testo + generazione, valida per tutte le pagine, contata al massimo fino a
+ * cocktail.search-cache.count-limit + 1 risultati.
+ * 
+ * Metriche: cocktail.search-cache.requests{esito=hit|miss}
+ */
+@Component
+public class SearchCache {
+
+    private static final Pattern ACCENTI = Pattern.compile("\\p{M}+");
+    private static final Pattern SPAZI = Pattern.compile("\\s+");
+
+    private final Map<String, Risultato> voci;
+    private final int limiteConteggio;
+    private final Counter hit;
+    private final Counter miss;
+
+    public SearchCache(@Value("${cocktail.search-cache.max-entries:5000}") int maxEntries,
+                       @Value("${cocktail.search-cache.count-limit:1000}") int limiteConteggio,
+                       MeterRegistry meterRegistry) {
+        this.limiteConteggio = limiteConteggio;
+        // LRU come CocktailCache
+        this.voci = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Risultato> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hit = contatore(meterRegistry, "hit");
+        this.miss = contatore(meterRegistry, "miss");
+    }
+
+    /**
+     * Normalizza il testo cercato: "  Négroni  Sbagliato " → "negroni sbagliato"
+     * (con la collation accent/case-insensitive di MySQL la LIKE trova le stesse righe)
+     */
+    public static String normalizza(String testo) {
+        if (testo == null) {
+            return "";
+        }
+        String senzaAccenti = ACCENTI.matcher(Normalizer.normalize(testo, Normalizer.Form.NFD)).replaceAll("");
+        return SPAZI.matcher(senzaAccenti.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param testo Testo già normalizzato
+     * @param pageable Pagina richiesta
+     * @param generazione Generazione del catalogo letta prima della query
+     * @param esatto true per la pagina con COUNT esatto, false per quella con totale stimato
+     * @return la pagina di ID in cache (PaginaStimataDTO se non esatta), o null se assente
+     */
+    public Page<Long> get(String testo, Pageable pageable, long generazione, boolean esatto) {
+        Risultato risultato;
+        synchronized (this) {
+            risultato = voci.get(chiave(testo, pageable, generazione, esatto));
+        }
+        if (risultato == null) {
+            miss.increment();
+            return null;
+        }
+        hit.increment();
+        return esatto
+                ? new PageImpl<>(risultato.ids(), pageable, risultato.totale())
+                : new PaginaStimataDTO<>(risultato.ids(), pageable, risultato.totale(), risultato.stimato());
+    }
+
+    /**
+     * Salva la pagina di ID sotto la generazione letta prima della query
+     */
+    public void put(String testo, Pageable pageable, long generazione, boolean esatto, Page<Long> pagina) {
+        Risultato risultato = new Risultato(List.copyOf(pagina.getContent()), pagina.getTotalElements(),
+                pagina instanceof PaginaStimataDTO<Long> stimata && stimata.isTotaleStimato());
+        synchronized (this) {
+            voci.put(chiave(testo, pageable, generazione, esatto), risultato);
+        }
+    }
+
+    /**
+     * Numero di risultati di una ricerca, contato al massimo fino a limiteConteggio() + 1
+     * @param ambito Tipo di ricerca (es. "cocktail", "ingredienti")
+     * @param testo Testo già normalizzato
+     * @param generazione Generazione del catalogo letta prima della query
+     * @param conta Esegue il conteggio con il LIMIT ricevuto (solo se non in cache)
+     */
+    public long conteggio(String ambito, String testo, long generazione, IntToLongFunction conta) {
+        String chiave = "conteggio|" + ambito + "|" + generazione + "|" + testo;
+        Risultato risultato;
+        synchronized (this) {
+            risultato = voci.get(chiave);
+        }
+        if (risultato != null) {
+            return risultato.totale();
+        }
+        long contati = conta.applyAsLong(limiteConteggio + 1);
+        synchronized (this) {
+            voci.put(chiave, new Risultato(List.of(), contati, contati > limiteConteggio));
+        }
+        return contati;
+    }
+
+    public int limiteConteggio() {
+        return limiteConteggio;
+    }
+
+    public synchronized int size() {
+        return voci.size();
+    }
+
+    private static String chiave(String testo, Pageable pageable, long generazione, boolean esatto) {
+        return generazione + "|" + (esatto ? "esatto" : "stimato") + "|" + pageable.getPageNumber() + "|"
+                + pageable.getPageSize() + "|" + pageable.getSort() + "|" + testo;
+    }
+
+    private static Counter contatore(MeterRegistry meterRegistry, String esito) {
+        return Counter.builder("cocktail.search-cache.requests")
+                .description("Ricerche per nome servite dalla cache degli ID")
+                .tag("esito", esito)
+                .register(meterRegistry);
+    }
+
+    private record Risultato(List<Long> ids, long totale, boolean stimato) {
+    }
+}
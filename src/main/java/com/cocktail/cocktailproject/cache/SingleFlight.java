@@ -0,0 +1,96 @@
+package com.cocktail.cocktailproject.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * SingleFlight - Coalescenza delle letture concorrenti identiche
+ * 
+ * Quando molte richieste chiedono lo stesso dato nello stesso momento (es. un
+ * cocktail in evidenza appena uscito dalla cache), solo la prima esegue la
+ * lettura sul database; le altre aspettano e ricevono lo stesso risultato
+ * (o la stessa eccezione). Appena la lettura termina la chiave viene liberata:
+ * non è una cache, le richieste successive ricalcolano (o trovano la cache
+ * che il primo chiamante ha popolato).
+ * 
+ * I risultati sono condivisi tra i chiamanti e non vanno modificati.
+ * 
+ * Metriche: cocktail.singleflight.calls{gruppo, esito=leader|coalesced}, cocktail.singleflight.in-flight
+ */
+@Component
+public class SingleFlight {
+
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CompletableFuture<Object>> inCorso = new ConcurrentHashMap<>();
+    private final Map<String, Counter> contatori = new ConcurrentHashMap<>();
+
+    public SingleFlight(@Value("${cocktail.singleflight.enabled:true}") boolean enabled,
+                        MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("cocktail.singleflight.in-flight", inCorso, Map::size)
+                .description("Letture in corso con chiamanti potenzialmente in attesa")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Esegue il calcolo, o aspetta quello già in corso per la stessa chiave
+     * @param gruppo Tipo di lettura (usato anche come tag delle metriche), es: "cocktail"
+     * @param chiave Chiave della lettura all'interno del gruppo (deve identificare il risultato)
+     * @param calcolo Lettura da eseguire
+     * @return il risultato, calcolato da questo chiamante o da quello arrivato per primo
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T esegui(String gruppo, Object chiave, Supplier<T> calcolo) {
+        if (!enabled) {
+            return calcolo.get();
+        }
+        String k = gruppo + ':' + chiave;
+        CompletableFuture<Object> mio = new CompletableFuture<>();
+        CompletableFuture<Object> esistente = inCorso.putIfAbsent(k, mio);
+        if (esistente != null) {
+            contatore(gruppo, "coalesced").increment();
+            try {
+                return (T) esistente.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                if (e.getCause() instanceof Error err) {
+                    throw err;
+                }
+                throw e;
+            }
+        }
+
+        contatore(gruppo, "leader").increment();
+        try {
+            T risultato = calcolo.get();
+            mio.complete(risultato);
+            return risultato;
+        } catch (RuntimeException | Error e) {
+            mio.completeExceptionally(e);
+            throw e;
+        } finally {
+            inCorso.remove(k, mio);
+        }
+    }
+
+    private Counter contatore(String gruppo, String esito) {
+        return contatori.computeIfAbsent(gruppo + ':' + esito, k -> Counter.builder("cocktail.singleflight.calls")
+                .description("Letture eseguite (leader) o condivise con una già in corso (coalesced)")
+                .tag("gruppo", gruppo)
+                .tag("esito", esito)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,136 @@
+package com.cocktail.cocktailproject.config;
+
+import org.keycloak.representations.AccessTokenResponse;
+import org.keycloak.representations.idm.CredentialRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.ClassMetadata;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.util.ClassUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * NativeHints - Hint di reflection, proxy e risorse per l'immagine nativa (profilo Maven "native")
+ *
+ * In un eseguibile GraalVM reflection, proxy JDK e risorse funzionano solo per ciò che è
+ * dichiarato in build. L'elaborazione AOT di Spring copre già i bean (SecurityConfig compresa:
+ * catene di filtri e JwtAuthenticationConverter sono codice generato, i claim JWT li legge
+ * Nimbus senza binding), le entity JPA, i repository, i tipi dichiarati dai controller e le
+ * migrazioni Flyway in db/migration. Qui il resto, letto dal classpath in fase di build:
+ * - DTO ed entity (getter/setter generati da Lombok): binding Jackson anche per i tipi
+ *   serializzati a mano (documenti del read model, risposta /token di Keycloak) o restituiti
+ *   come ResponseEntity<?>, costruttori per le espressioni JPQL "SELECT new ...DTO(...)"
+ * - client admin Keycloak (RESTEasy): proxy JDK di ogni interfaccia di risorsa
+ *   (interfaccia + ResteasyClientProxy), rappresentazioni JSON usate da KeycloakUserService,
+ *   provider JAX-RS elencati in META-INF/services, messaggi jboss-logging (_$bundle, _$logger)
+ *
+ * Registrato da StartupConfig; con -Pfast-startup gli hint vengono generati ma la JVM li ignora.
+ */
+public class NativeHints implements RuntimeHintsRegistrar {
+
+    private static final String PACKAGE_APPLICAZIONE = "com/cocktail/cocktailproject";
+
+    private static final String PROXY_RESTEASY = "org.jboss.resteasy.client.jaxrs.internal.proxy.ResteasyClientProxy";
+
+    // Letti da RESTEasy / jakarta.ws.rs come risorse, le classi elencate istanziate per nome
+    private static final List<String> SERVIZI_JAX_RS = List.of(
+            "META-INF/services/jakarta.ws.rs.ext.Providers",
+            "META-INF/services/jakarta.ws.rs.ext.RuntimeDelegate",
+            "META-INF/services/jakarta.ws.rs.client.ClientBuilder");
+
+    private final BindingReflectionHintsRegistrar binding = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // DTO ed entity
+        for (String classe : classi(classLoader, false,
+                PACKAGE_APPLICAZIONE + "/dto/*.class", PACKAGE_APPLICAZIONE + "/entity/*.class")) {
+            binding.registerReflectionHints(hints.reflection(), ClassUtils.resolveClassName(classe, classLoader));
+        }
+
+        // Keycloak: interfacce di risorsa (anche quelle restituite dai sub-resource locator) e token
+        for (String risorsa : classi(classLoader, true,
+                "org/keycloak/admin/client/resource/*.class", "org/keycloak/admin/client/token/*.class")) {
+            hints.proxies().registerJdkProxy(TypeReference.of(risorsa), TypeReference.of(PROXY_RESTEASY));
+            hints.reflection().registerType(TypeReference.of(risorsa), MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        binding.registerReflectionHints(hints.reflection(), UserRepresentation.class, CredentialRepresentation.class,
+                RoleRepresentation.class, AccessTokenResponse.class);
+
+        // RESTEasy: provider e implementazioni JAX-RS
+        for (String servizio : SERVIZI_JAX_RS) {
+            hints.resources().registerPattern(servizio);
+            for (String provider : righe(classLoader, servizio)) {
+                if (ClassUtils.isPresent(provider, classLoader)) {
+                    hints.reflection().registerType(TypeReference.of(provider), MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+                }
+            }
+        }
+        for (String messaggi : classi(classLoader, false,
+                "org/jboss/resteasy/**/*_$bundle.class", "org/jboss/resteasy/**/*_$logger.class")) {
+            hints.reflection().registerType(TypeReference.of(messaggi),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.ACCESS_DECLARED_FIELDS);
+        }
+    }
+
+    /**
+     * Nomi delle classi trovate sul classpath (senza caricarle)
+     * @param soloInterfacce true per scartare classi ed enum
+     * @param pattern Pattern Ant dei file .class (es. "org/keycloak/admin/client/resource/*.class")
+     */
+    private static List<String> classi(ClassLoader classLoader, boolean soloInterfacce, String... pattern) {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+        MetadataReaderFactory metadati = new CachingMetadataReaderFactory(resolver);
+        List<String> classi = new ArrayList<>();
+        try {
+            for (String p : pattern) {
+                for (Resource file : resolver.getResources("classpath*:" + p)) {
+                    ClassMetadata classe = metadati.getMetadataReader(file).getClassMetadata();
+                    if (!soloInterfacce || classe.isInterface()) {
+                        classi.add(classe.getClassName());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Scansione del classpath fallita: " + e.getMessage(), e);
+        }
+        return classi;
+    }
+
+    /**
+     * Classi elencate in un file META-INF/services (tutti i jar), senza commenti e righe vuote
+     */
+    private static List<String> righe(ClassLoader classLoader, String servizio) {
+        List<String> righe = new ArrayList<>();
+        try {
+            for (URL url : Collections.list(classLoader.getResources(servizio))) {
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                    reader.lines()
+                            .map(riga -> riga.replaceFirst("#.*", "").trim())
+                            .filter(riga -> !riga.isEmpty())
+                            .forEach(righe::add);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Lettura di " + servizio + " fallita: " + e.getMessage(), e);
+        }
+        return righe;
+    }
+}
@@ -22,7 +22,7 @@ import org.springframework.web.client.RestTemplate;
  * 
  * 2. protectedSecurityFilterChain (Order 2) - Autenticazione JWT obbligatoria:
  *    - GET /api/cocktails (pubblica)
- *    - POST/PUT/DELETE /api/cocktails → Solo admin
+ *    - POST/PUT/PATCH/DELETE /api/cocktails → Solo admin
  */@Configuration
 @EnableMethodSecurity
 public class SecurityConfig {
@@ -44,18 +44,22 @@ public class SecurityConfig {
                         "/swagger-ui/**",
                         "/swagger-ui.html",
                         "/v3/api-docs/**",
+                        "/openapi.json",
                         "/swagger-resources/**",
                         "/webjars/**"
                 ).permitAll()
 
                 // GET cocktails PUBBLICI
                 .requestMatchers(HttpMethod.GET, "/api/cocktails/**").permitAll()
+                // Multi-get in POST (solo lettura) PUBBLICO come la variante GET
+                .requestMatchers(HttpMethod.POST, "/api/cocktails/batch").permitAll()
 
                 // POST cocktails PROTETTA (utenti autenticati)
                 .requestMatchers(HttpMethod.POST, "/api/cocktails/**").authenticated()
 
                 //  ENDPOINT PROTETTI (Admin)
                 .requestMatchers(HttpMethod.PUT, "/api/cocktails/**").hasRole("SOLDIER")
+                .requestMatchers(HttpMethod.PATCH, "/api/cocktails/**").hasRole("SOLDIER")
                 .requestMatchers(HttpMethod.DELETE, "/api/cocktails/**").hasRole("SOLDIER")
 
                 // GET ingredients PUBBLICI
@@ -63,6 +67,9 @@ public class SecurityConfig {
                 // DELETE ingredients PROTETTA (utenti autenticati)
                 .requestMatchers(HttpMethod.DELETE, "/api/ingredients/**").hasRole("SOLDIER")
 
+                // Manutenzione (read model, ecc.) → solo admin
+                .requestMatchers("/api/admin/**").hasRole("SOLDIER")
+
                 // Favoriti → utenti autenticati
                 .requestMatchers("/api/favoriti/**").authenticated()
 
@@ -109,6 +116,9 @@ public class SecurityConfig {
             com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
             false
         );
+        // Date java.time (es. aggiornatoIl) in formato ISO nei documenti del read model
+        mapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+        mapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         return mapper;
     }
 
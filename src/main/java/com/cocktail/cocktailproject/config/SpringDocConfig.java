@@ -8,6 +8,7 @@ import io.swagger.v3.oas.models.info.License;
 import io.swagger.v3.oas.models.security.SecurityRequirement;
 import io.swagger.v3.oas.models.security.SecurityScheme;
 import io.swagger.v3.oas.models.servers.Server;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -25,8 +26,12 @@ import java.util.List;
  * 3. Clicca "Authorize" in Swagger UI
  * 4. Incolla il token (senza prefisso "Bearer")
  * 5. Il token verrà automaticamente incluso in tutte le richieste protette
+ * 
+ * Attiva solo con springdoc acceso (non nel profilo prod): in produzione si serve il
+ * documento generato in fase di build, /openapi.json (vedi OpenApiDocumentTest).
  */
 @Configuration
+@ConditionalOnProperty(name = "springdoc.api-docs.enabled", matchIfMissing = true)
 public class SpringDocConfig {
 
     @Bean
@@ -0,0 +1,46 @@
+package com.cocktail.cocktailproject.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.flyway.autoconfigure.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.env.Environment;
+
+/**
+ * StartupConfig - Esecuzione di addestramento dell'archivio CDS (profilo Maven "fast-startup")
+ *
+ * Il Dockerfile avvia l'applicazione una volta in fase di build, senza database, con
+ * -XX:ArchiveClassesAtExit e spring.context.exit=onRefresh: le classi caricate durante la
+ * creazione del contesto finiscono in un archivio class-data-sharing usato dagli avvii successivi.
+ *
+ * Con cocktail.startup.training-run=true le migrazioni Flyway vengono saltate. La proprietà è
+ * letta a runtime: funziona anche con le definizioni dei bean generate da AOT, dove
+ * spring.flyway.enabled è già stato valutato in build.
+ *
+ * Inizializzazione differita: il client admin Keycloak (KeycloakUserService) è @Lazy;
+ * springdoc è spento del tutto nel profilo prod (application-prod.properties).
+ *
+ * Immagine nativa (profilo Maven "native"): gli hint di reflection/risorse sono in NativeHints.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHints.class)
+public class StartupConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupConfig.class);
+
+    /**
+     * Migrazioni Flyway all'avvio, saltate nell'esecuzione di addestramento
+     */
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(Environment environment) {
+        return flyway -> {
+            if (environment.getProperty("cocktail.startup.training-run", Boolean.class, false)) {
+                logger.info("Esecuzione di addestramento: migrazioni Flyway saltate");
+                return;
+            }
+            flyway.migrate();
+        };
+    }
+}
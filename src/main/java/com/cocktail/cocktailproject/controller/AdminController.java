@@ -0,0 +1,67 @@
+package com.cocktail.cocktailproject.controller;
+
+import com.cocktail.cocktailproject.dto.ReadModelCheckDTO;
+import com.cocktail.cocktailproject.service.CocktailReadModelService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * AdminController - Endpoint di manutenzione riservati agli admin (ruolo SOLDIER)
+ * 
+ * Responsabilità:
+ * - Ricostruzione del read model delle ricette
+ * - Verifica di consistenza del read model rispetto alle tabelle
+ */
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin(origins = "*")
+@Tag(name = "Admin", description = "API di manutenzione riservate agli admin")
+@SecurityRequirement(name = "bearerAuth")
+public class AdminController {
+
+    private final CocktailReadModelService readModelService;
+
+    public AdminController(CocktailReadModelService readModelService) {
+        this.readModelService = readModelService;
+    }
+
+    /**
+     * POST /api/admin/read-model/rebuild - Ricostruisce il read model di tutto il catalogo
+     */
+    @Operation(summary = "Ricostruisci il read model", description = "Rigenera il documento di ogni cocktail e rimuove i documenti orfani")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Read model ricostruito"),
+            @ApiResponse(responseCode = "403", description = "Ruolo SOLDIER richiesto")
+    })
+    @PostMapping("/read-model/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildReadModel() {
+        long scritti = readModelService.ricostruisciTutto();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("documenti", scritti);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * GET /api/admin/read-model/check - Verifica la consistenza del read model
+     */
+    @Operation(summary = "Verifica il read model", description = "Confronta ogni documento con la ricetta ricostruita dalle tabelle " +
+            "e riporta documenti mancanti, obsoleti e orfani")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Verifica completata"),
+            @ApiResponse(responseCode = "403", description = "Ruolo SOLDIER richiesto")
+    })
+    @GetMapping("/read-model/check")
+    public ResponseEntity<ReadModelCheckDTO> checkReadModel() {
+        return ResponseEntity.ok(readModelService.verificaConsistenza());
+    }
+}
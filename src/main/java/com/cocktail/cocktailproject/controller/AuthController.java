@@ -12,6 +12,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -34,7 +35,9 @@ import java.util.stream.Collectors;
 @Tag(name = "Authentication", description = "API per autenticazione e registrazione utenti")
 public class AuthController {
 
+    // Proxy lazy: il servizio (e il client admin Keycloak) viene creato alla prima login/registrazione
     @Autowired
+    @Lazy
     private KeycloakUserService keycloakUserService;
 
     /**
@@ -0,0 +1,84 @@
+package com.cocktail.cocktailproject.controller;
+
+import com.cocktail.cocktailproject.dto.CatalogChangePageDTO;
+import com.cocktail.cocktailproject.service.ChangeFeedService;
+import com.cocktail.cocktailproject.service.ChangeStreamService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * ChangeController - Feed delle modifiche al catalogo per la sincronizzazione incrementale
+ * 
+ * Pensato per cache edge e indicizzatori: invece di rileggere tutto il catalogo
+ * leggono solo le modifiche successive all'ultimo seq ricevuto.
+ * Richiede autenticazione JWT.
+ */
+@RestController
+@RequestMapping("/api/changes")
+@CrossOrigin(origins = "*")
+@Tag(name = "Changes", description = "Feed delle modifiche al catalogo (outbox transazionale)")
+@SecurityRequirement(name = "bearerAuth")
+public class ChangeController {
+
+    // Numero massimo di modifiche per pagina
+    private static final int MAX_LIMIT = 1000;
+
+    private final ChangeFeedService changeFeedService;
+    private final ChangeStreamService changeStreamService;
+
+    public ChangeController(ChangeFeedService changeFeedService, ChangeStreamService changeStreamService) {
+        this.changeFeedService = changeFeedService;
+        this.changeStreamService = changeStreamService;
+    }
+
+    /**
+     * GET /api/changes?since=0&limit=100 - Modifiche successive a un numero di sequenza
+     */
+    @Operation(summary = "Leggi le modifiche del catalogo", description = "Restituisce le modifiche con seq > since in ordine. " +
+            "Usare ultimoSeq della risposta come since della chiamata successiva")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pagina di modifiche"),
+            @ApiResponse(responseCode = "400", description = "Parametri non validi")
+    })
+    @GetMapping
+    public ResponseEntity<CatalogChangePageDTO> getChanges(
+            @Parameter(description = "Ultimo seq già letto (0 per partire dall'inizio)")
+            @RequestParam(defaultValue = "0") long since,
+            @Parameter(description = "Numero massimo di modifiche (default 100, max " + MAX_LIMIT + ")")
+            @RequestParam(defaultValue = "100") int limit) {
+        if (since < 0 || limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(changeFeedService.leggi(since, limit));
+    }
+
+    /**
+     * GET /api/changes/stream?since=0 - Stream SSE delle modifiche
+     * Ogni evento ha nome "change" e id uguale al seq.
+     */
+    @Operation(summary = "Stream delle modifiche (SSE)", description = "Apre uno stream Server-Sent-Events con le modifiche successive a since " +
+            "e quelle future. L'id di ogni evento è il seq da usare per riconnettersi")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream aperto"),
+            @ApiResponse(responseCode = "400", description = "Parametri non validi")
+    })
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(
+            @Parameter(description = "Ultimo seq già ricevuto (default: solo modifiche future)")
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long cursore = since != null ? since : lastEventId != null ? lastEventId : changeFeedService.ultimoSeq();
+        if (cursore < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(changeStreamService.sottoscrivi(cursore));
+    }
+}
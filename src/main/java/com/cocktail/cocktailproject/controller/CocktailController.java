@@ -1,9 +1,25 @@
 package com.cocktail.cocktailproject.controller;
 
+import com.cocktail.cocktailproject.cache.CatalogGeneration;
+import com.cocktail.cocktailproject.cache.ResponseCacheFilter;
+import com.cocktail.cocktailproject.dto.CocktailBatchDTO;
 import com.cocktail.cocktailproject.dto.CocktailDTO;
+import com.cocktail.cocktailproject.dto.CocktailFiltroDTO;
+import com.cocktail.cocktailproject.dto.CocktailRaccomandatoDTO;
+import com.cocktail.cocktailproject.dto.CocktailRisultatoTestoDTO;
+import com.cocktail.cocktailproject.dto.CocktailSimileDTO;
+import com.cocktail.cocktailproject.dto.CocktailVersioneDTO;
+import com.cocktail.cocktailproject.dto.ConflittoVersioneDTO;
 import com.cocktail.cocktailproject.dto.CreateCocktailRequestDTO;
 import com.cocktail.cocktailproject.dto.IngredientiDTO;
+import com.cocktail.cocktailproject.dto.StepModificaDTO;
+import com.cocktail.cocktailproject.dto.StepPatchDTO;
+import com.cocktail.cocktailproject.service.CocktailFacetService;
+import com.cocktail.cocktailproject.service.CocktailFieldSelection;
+import com.cocktail.cocktailproject.service.CocktailRecommendationService;
 import com.cocktail.cocktailproject.service.CocktailService;
+import com.cocktail.cocktailproject.service.CocktailSimilarityService;
+import com.cocktail.cocktailproject.service.CocktailTextSearchService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,87 +28,336 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.ZoneId;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * CocktailController - Endpoint REST per gestione dei cocktail.
  * Contiene operazioni CRUD e ricerca con paginazione.
+ * 
+ * Richieste condizionali (If-None-Match / If-Modified-Since → 304):
+ * - GET /{id}: ETag forte dalla versione e Last-Modified dal timestamp di modifica del cocktail
+ * - liste e ricerche: ETag debole dalla generazione del catalogo
+ * Il confronto avviene prima di caricare qualsiasi ricetta.
+ * 
+ * Aggiornamenti condizionali: PUT /{id} con If-Match (ETag letto dal GET) → 412 se
+ * il cocktail è cambiato nel frattempo, con lo stato attuale nel body.
  */
 @RestController
 @RequestMapping("/api/cocktails")
-@CrossOrigin(origins = "*")
+// ETag esposto ai client browser: serve per If-None-Match e If-Match
+@CrossOrigin(origins = "*", exposedHeaders = {"ETag", "Last-Modified"})
 @Tag(name = "Cocktail", description = "API per la gestione dei cocktail")
 public class CocktailController {
 
     @Autowired
     private CocktailService cocktailService;
 
+    @Autowired
+    private CocktailFacetService cocktailFacetService;
+
+    @Autowired
+    private CocktailSimilarityService cocktailSimilarityService;
+
+    @Autowired
+    private CocktailRecommendationService cocktailRecommendationService;
+
+    @Autowired
+    private CocktailTextSearchService cocktailTextSearchService;
+
+    @Autowired
+    private CatalogGeneration catalogGeneration;
+
+    private static final String VIEW_SUMMARY = "summary";
+
+    // Valori di ?count= sulle ricerche per nome (vedi PaginaStimataDTO)
+    static final String COUNT_ESTIMATE = "estimate";
+    static final String COUNT_EXACT = "exact";
+
+    // Numero massimo di ID accettati da una singola richiesta batch
+    private static final int MAX_BATCH_IDS = 500;
+
+    // Numero massimo di cocktail restituiti da /{id}/similar, /{id}/also-liked e /search/text
+    private static final int MAX_SIMILI = 50;
+
     /**
      * GET /api/cocktails - Ottiene tutti i cocktail con paginazione
      * @param page numero pagina (default 0)
      * @param size numero cocktail per pagina (default 10)
+     * @param view "summary" per la vista compatta (id, nome, tempo) senza ricetta
+     * @param fields campi da restituire (es: id,nome,preparazione.ingrediente), ha precedenza su view
+     * @param sort ordinamento tra quelli serviti da un indice (CocktailService.ORDINAMENTI)
      */
-    @Operation(summary = "Ottieni tutti i cocktail", description = "Restituisce una lista paginata di cocktail disponibili nel sistema")
+    @Operation(summary = "Ottieni tutti i cocktail", description = "Restituisce una lista paginata di cocktail disponibili nel sistema. " +
+            "Con view=summary restituisce solo id, nome e tempo di preparazione (senza step della ricetta). " +
+            "Con fields=... restituisce solo i campi indicati e legge dal database solo le colonne necessarie. " +
+            "Ordinamenti (sort): id (default), nome, tempoPreparazioneMinutes, created (più recenti prima), " +
+            "popularity (più salvati nei preferiti prima, risposta non memorizzabile)")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Lista paginata di cocktail recuperata con successo")
+            @ApiResponse(responseCode = "200", description = "Lista paginata di cocktail recuperata con successo"),
+            @ApiResponse(responseCode = "304", description = "Catalogo invariato rispetto all'ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Valore di view, fields o sort non supportato")
     })
     @GetMapping
-    public ResponseEntity<Page<CocktailDTO>> getAllCocktails(
+    public ResponseEntity<Page<?>> getAllCocktails(
             @Parameter(description = "Numero della pagina (base 0)")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Numero di cocktail per pagina (default 10)")
-            @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<CocktailDTO> cocktails = cocktailService.getAllCocktails(pageable);
-        return ResponseEntity.ok(cocktails);
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Vista della risposta: 'full' (default) o 'summary'")
+            @RequestParam(required = false) String view,
+            @Parameter(description = "Campi da restituire, separati da virgola (es: id,nome,preparazione.ingrediente)")
+            @RequestParam(required = false) String fields,
+            @Parameter(description = "Ordinamento: id (default), nome, tempoPreparazioneMinutes, created, popularity")
+            @RequestParam(defaultValue = "id") String sort,
+            WebRequest request) {
+        // Solo ordinamenti serviti da un indice: gli altri costringerebbero il database a ordinare tutto il catalogo
+        Sort ordinamento = CocktailService.ORDINAMENTI.get(sort);
+        if (ordinamento == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        Pageable pageable = PageRequest.of(page, size, ordinamento);
+        Supplier<Page<?>> pagina;
+        if (fields != null) {
+            try {
+                CocktailFieldSelection selezione = CocktailFieldSelection.parse(fields);
+                pagina = () -> cocktailService.getAllCocktails(selezione, pageable);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        } else if (isSummaryView(view)) {
+            pagina = () -> cocktailService.getAllCocktailSummaries(pageable);
+        } else if (view == null || view.equalsIgnoreCase("full")) {
+            pagina = () -> cocktailService.getAllCocktails(pageable);
+        } else {
+            return ResponseEntity.badRequest().build();
+        }
+        if (CocktailService.PER_POPOLARITA.equals(sort)) {
+            // I preferiti non fanno parte della generazione del catalogo: niente ETag né cache
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(pagina.get());
+        }
+        return conEtag(request, catalogGeneration.etag(), pagina);
     }
 
     /**
      * GET /api/cocktails/{id} - Ottiene un cocktail per ID
+     * @param fields campi da restituire (opzionale, es: nome,preparazione)
      */
-    @Operation(summary = "Ottieni cocktail per ID", description = "Restituisce un cocktail specifico basato sul suo ID")
+    @Operation(summary = "Ottieni cocktail per ID", description = "Restituisce un cocktail specifico basato sul suo ID. " +
+            "Con fields=... restituisce solo i campi indicati")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Cocktail trovato e restituito"),
+            @ApiResponse(responseCode = "304", description = "Cocktail invariato rispetto a If-None-Match / If-Modified-Since"),
+            @ApiResponse(responseCode = "400", description = "Valore di fields non supportato"),
             @ApiResponse(responseCode = "404", description = "Cocktail non trovato")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<CocktailDTO> getCocktailById(
+    public ResponseEntity<?> getCocktailById(
             @Parameter(description = "ID del cocktail da recuperare")
-            @PathVariable Long id) {
-        Optional<CocktailDTO> cocktail = cocktailService.getCocktailById(id);
-        return cocktail.map(ResponseEntity::ok)
+            @PathVariable Long id,
+            @Parameter(description = "Campi da restituire, separati da virgola (es: id,nome,preparazione.ingrediente)")
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        CocktailFieldSelection selezione = null;
+        if (fields != null) {
+            try {
+                selezione = CocktailFieldSelection.parse(fields);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        // Due colonne lette per chiave primaria: se il client è aggiornato, 304 senza caricare la ricetta
+        Optional<CocktailVersioneDTO> versione = cocktailService.getVersione(id);
+        if (versione.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        long lastModified = versione.get().getAggiornatoIl().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (request.checkNotModified(etagCocktail(id, versione.get().getVersione()), lastModified)) {
+            return null;
+        }
+        Optional<?> cocktail = selezione != null
+                ? cocktailService.getCocktailById(id, selezione)
+                : cocktailService.getCocktailAggiornato(id, versione.get().getVersione());
+        return cocktail.<ResponseEntity<?>>map(body -> ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(body))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /**
+     * GET /api/cocktails/batch?ids=1,2,3 - Ottiene più cocktail in una sola chiamata
+     * 
+     * Evita una chiamata GET /api/cocktails/{id} per ogni ID.
+     * L'ordine della risposta rispetta l'ordine degli ID richiesti, gli ID
+     * inesistenti vengono riportati in "mancanti".
+     */
+    @Operation(summary = "Ottieni più cocktail per ID", description = "Restituisce i cocktail con gli ID indicati (max " + MAX_BATCH_IDS + "), " +
+            "nello stesso ordine della richiesta, più la lista degli ID non trovati")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cocktail trovati e ID mancanti"),
+            @ApiResponse(responseCode = "400", description = "Lista ID vuota o troppo lunga")
+    })
+    @GetMapping("/batch")
+    public ResponseEntity<CocktailBatchDTO> getCocktailsBatch(
+            @Parameter(description = "ID dei cocktail separati da virgola (es: 1,2,3)")
+            @RequestParam List<Long> ids) {
+        return batch(ids);
+    }
+
+    /**
+     * POST /api/cocktails/batch - Variante del multi-get per liste di ID lunghe
+     * 
+     * Esempio request: [1, 2, 3]
+     */
+    @Operation(summary = "Ottieni più cocktail per ID (POST)", description = "Come GET /api/cocktails/batch ma con gli ID nel body, " +
+            "utile per liste che non entrano nella query string")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cocktail trovati e ID mancanti"),
+            @ApiResponse(responseCode = "400", description = "Lista ID vuota o troppo lunga")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<CocktailBatchDTO> postCocktailsBatch(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Lista di ID dei cocktail", required = true)
+            @RequestBody List<Long> ids) {
+        return batch(ids);
+    }
+
     /**
      * GET /api/cocktails/search?nome=xxx - Cerca cocktail per nome con paginazione
      * @param nome nome da cercare
      * @param page numero pagina (default 0)
      * @param size numero cocktail per pagina (default 10)
+     * @param view "summary" per la vista compatta (id, nome, tempo) senza ricetta
+     * @param fields campi da restituire (es: id,nome), ha precedenza su view
+     * @param count "estimate" (default) per il totale stimato senza COUNT esatto, "exact" per il COUNT esatto
      */
-    @Operation(summary = "Cerca cocktail per nome", description = "Restituisce una lista paginata di cocktail che corrispondono al nome ricercato")
+    @Operation(summary = "Cerca cocktail per nome", description = "Restituisce una lista paginata di cocktail che corrispondono al nome ricercato. " +
+            "Con view=summary restituisce solo id, nome e tempo di preparazione; con fields=... solo i campi indicati. " +
+            "Con count=estimate (default) il totale è esatto sull'ultima pagina, altrimenti contato fino a un limite: " +
+            "oltre il limite totaleStimato è true (\"1000+\"). Con count=exact il totale è sempre esatto (più lento)")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Ricerca completata, lista paginata di cocktail restituita")
+            @ApiResponse(responseCode = "200", description = "Ricerca completata, lista paginata di cocktail restituita"),
+            @ApiResponse(responseCode = "304", description = "Catalogo invariato rispetto all'ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Valore di view, fields o count non supportato")
     })
     @GetMapping("/search")
-    public ResponseEntity<Page<CocktailDTO>> searchByName(
+    public ResponseEntity<Page<?>> searchByName(
             @Parameter(description = "Nome del cocktail da cercare")
             @RequestParam String nome,
             @Parameter(description = "Numero della pagina (base 0)")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Numero di cocktail per pagina (default 10)")
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Vista della risposta: 'full' (default) o 'summary'")
+            @RequestParam(required = false) String view,
+            @Parameter(description = "Campi da restituire, separati da virgola (es: id,nome)")
+            @RequestParam(required = false) String fields,
+            @Parameter(description = "Calcolo del totale: 'estimate' (default) o 'exact'")
+            @RequestParam(defaultValue = COUNT_ESTIMATE) String count,
+            WebRequest request) {
+        if (!count.equalsIgnoreCase(COUNT_ESTIMATE) && !count.equalsIgnoreCase(COUNT_EXACT)) {
+            return ResponseEntity.badRequest().build();
+        }
+        boolean esatto = count.equalsIgnoreCase(COUNT_EXACT);
+        Pageable pageable = PageRequest.of(page, size);
+        String etag = catalogGeneration.etag();
+        if (fields != null) {
+            try {
+                CocktailFieldSelection selezione = CocktailFieldSelection.parse(fields);
+                return conEtag(request, etag, () -> cocktailService.searchByName(nome, selezione, pageable, esatto));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        if (isSummaryView(view)) {
+            return conEtag(request, etag, () -> cocktailService.searchSummariesByName(nome, pageable, esatto));
+        }
+        if (view != null && !view.equalsIgnoreCase("full")) {
+            return ResponseEntity.badRequest().build();
+        }
+        return conEtag(request, etag, () -> cocktailService.searchByName(nome, pageable, esatto));
+    }
+
+    /**
+     * GET /api/cocktails/search/text?q=xxx - Ricerca testuale su descrizione e note
+     * 
+     * Esempio: /api/cocktails/search/text?q=agrumato con menta fresca
+     * Ordinamento per similarità del coseno TF-IDF, con stop word e stemming italiani
+     * ("limoni" trova anche "limone"). Servito dall'indice in memoria.
+     */
+    @Operation(summary = "Ricerca testuale su descrizione e note", description = "Restituisce i cocktail la cui descrizione e le cui note " +
+            "sono più simili al testo cercato (TF-IDF, similarità del coseno), dal più pertinente")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Risultati della ricerca (anche vuota)"),
+            @ApiResponse(responseCode = "304", description = "Catalogo invariato rispetto all'ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Testo vuoto o valore di limit non valido")
+    })
+    @GetMapping("/search/text")
+    public ResponseEntity<List<CocktailRisultatoTestoDTO>> searchText(
+            @Parameter(description = "Testo da cercare in descrizione e note")
+            @RequestParam String q,
+            @Parameter(description = "Numero massimo di risultati (1-" + MAX_SIMILI + ", default 10)")
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest request) {
+        if (q.isBlank() || limit < 1 || limit > MAX_SIMILI) {
+            return ResponseEntity.badRequest().build();
+        }
+        return conEtag(request, catalogGeneration.etag(), () -> cocktailTextSearchService.cerca(q, limit));
+    }
+
+    /**
+     * GET /api/cocktails/filter - Filtro a faccette
+     * 
+     * Esempio: /api/cocktails/filter?include=gin,campari&exclude=soda&tempoMax=5
+     * Restituisce la pagina di risultati (vista compatta) e, per ogni ingrediente,
+     * quanti cocktail del risultato lo contengono. Servito dall'indice in memoria.
+     */
+    @Operation(summary = "Filtra cocktail per ingredienti, tempo e nome", description = "Restituisce i cocktail che contengono tutti gli ingredienti in include, " +
+            "nessuno di quelli in exclude, con tempo di preparazione tra tempoMin e tempoMax e nome contenente il testo indicato, " +
+            "più i conteggi per ingrediente sull'intero risultato (faccette)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Risultati e faccette"),
+            @ApiResponse(responseCode = "304", description = "Catalogo invariato rispetto all'ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Range di tempo non valido")
+    })
+    @GetMapping("/filter")
+    public ResponseEntity<CocktailFiltroDTO> filter(
+            @Parameter(description = "Ingredienti richiesti, separati da virgola (tutti devono essere presenti)")
+            @RequestParam(required = false) List<String> include,
+            @Parameter(description = "Ingredienti da escludere, separati da virgola")
+            @RequestParam(required = false) List<String> exclude,
+            @Parameter(description = "Tempo minimo di preparazione in minuti (incluso)")
+            @RequestParam(required = false) Integer tempoMin,
+            @Parameter(description = "Tempo massimo di preparazione in minuti (incluso)")
+            @RequestParam(required = false) Integer tempoMax,
+            @Parameter(description = "Testo da cercare nel nome del cocktail")
+            @RequestParam(required = false) String nome,
+            @Parameter(description = "Numero della pagina (base 0)")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Numero di cocktail per pagina (default 10)")
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest request) {
+        if (tempoMin != null && tempoMax != null && tempoMin > tempoMax) {
+            return ResponseEntity.badRequest().build();
+        }
         Pageable pageable = PageRequest.of(page, size);
-        Page<CocktailDTO> cocktails = cocktailService.searchByName(nome, pageable);
-        return ResponseEntity.ok(cocktails);
+        return conEtag(request, catalogGeneration.etag(),
+                () -> cocktailFacetService.filtra(include, exclude, tempoMin, tempoMax, nome, pageable));
     }
 
     /**
@@ -131,22 +396,31 @@ public class CocktailController {
     /**
      * PUT /api/cocktails/{id} - Aggiorna un cocktail
      */
-    @Operation(summary = "Aggiorna un cocktail", description = "Aggiorna i dati di un cocktail esistente")
+    @Operation(summary = "Aggiorna un cocktail", description = "Aggiorna i dati di un cocktail esistente. " +
+            "Con If-Match (ETag letto da GET /api/cocktails/{id}) l'aggiornamento avviene solo se il cocktail non è cambiato nel frattempo")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Cocktail aggiornato con successo"),
+            @ApiResponse(responseCode = "200", description = "Cocktail aggiornato con successo (nuovo ETag nella risposta)"),
             @ApiResponse(responseCode = "404", description = "Cocktail non trovato"),
-            @ApiResponse(responseCode = "400", description = "Dati non validi")
+            @ApiResponse(responseCode = "400", description = "Dati non validi"),
+            @ApiResponse(responseCode = "409", description = "Modifica concorrente senza If-Match: stato attuale nel body",
+                    content = @Content(schema = @Schema(implementation = ConflittoVersioneDTO.class))),
+            @ApiResponse(responseCode = "412", description = "If-Match non corrisponde alla versione attuale: stato attuale e nuovo ETag nel body",
+                    content = @Content(schema = @Schema(implementation = ConflittoVersioneDTO.class)))
     })
     @PutMapping("/{id}")
-    public ResponseEntity<CocktailDTO> updateCocktail(
+    public ResponseEntity<?> updateCocktail(
             @Parameter(description = "ID del cocktail da aggiornare")
             @PathVariable Long id,
+            @Parameter(description = "ETag della versione su cui si basa la modifica (es: \"12-v3\")")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Dati aggiornati del cocktail", required = true)
             @RequestBody CocktailDTO cocktailDTO) {
         try {
-            Optional<CocktailDTO> updated = cocktailService.updateCocktail(id, cocktailDTO);
-            return updated.map(ResponseEntity::ok)
+            Optional<CocktailDTO> updated = cocktailService.updateCocktail(id, cocktailDTO, versioniDaIfMatch(id, ifMatch));
+            return updated.<ResponseEntity<?>>map(dto -> ResponseEntity.ok().eTag(etagCocktail(id, dto.getVersione())).body(dto))
                     .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (OptimisticLockingFailureException e) {
+            return conflitto(id, ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         } catch (Exception e) {
@@ -157,6 +431,132 @@ public class CocktailController {
         }
     }
 
+    /**
+     * PUT /api/cocktails/{id}/steps - Sostituisce gli step della ricetta
+     * 
+     * Vengono scritte solo le differenze rispetto agli step esistenti
+     * (lo step è identificato dall'ingrediente).
+     * 
+     * Esempio request:
+     * [
+     *   { "ingrediente": "gin", "quantita": 30, "unita": "ml", "istruzione": "Versare il gin" },
+     *   { "ingrediente": "tonica", "quantita": 100, "unita": "ml", "istruzione": "Completare con tonica" }
+     * ]
+     */
+    @Operation(summary = "Sostituisci gli step della ricetta", description = "Sostituisce la lista degli step (nell'ordine indicato). " +
+            "Solo gli step aggiunti, modificati, spostati o rimossi vengono scritti. Supporta If-Match")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ricetta aggiornata (nuovo ETag nella risposta)"),
+            @ApiResponse(responseCode = "400", description = "Meno di 2 step, ingredienti duplicati o mancanti"),
+            @ApiResponse(responseCode = "404", description = "Cocktail non trovato"),
+            @ApiResponse(responseCode = "409", description = "Modifica concorrente senza If-Match: stato attuale nel body",
+                    content = @Content(schema = @Schema(implementation = ConflittoVersioneDTO.class))),
+            @ApiResponse(responseCode = "412", description = "If-Match non corrisponde alla versione attuale",
+                    content = @Content(schema = @Schema(implementation = ConflittoVersioneDTO.class)))
+    })
+    @PutMapping("/{id}/steps")
+    public ResponseEntity<?> replaceSteps(
+            @Parameter(description = "ID del cocktail")
+            @PathVariable Long id,
+            @Parameter(description = "ETag della versione su cui si basa la modifica (es: \"12-v3\")")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Step della ricetta nell'ordine desiderato", required = true)
+            @RequestBody List<StepModificaDTO> steps) {
+        return modificaRicetta(id, ifMatch,
+                () -> cocktailService.sostituisciStep(id, steps, versioniDaIfMatch(id, ifMatch)));
+    }
+
+    /**
+     * PATCH /api/cocktails/{id}/steps - Modifica parziale degli step
+     * 
+     * Esempio request:
+     * { "steps": [ { "ingrediente": "gin", "quantita": 40 } ], "rimuovi": [ "tonica" ], "ordine": [ "gin" ] }
+     */
+    @Operation(summary = "Modifica parzialmente gli step della ricetta", description = "Modifica i campi indicati degli step, " +
+            "aggiunge in fondo gli ingredienti nuovi, rimuove quelli in 'rimuovi' e riordina secondo 'ordine'. " +
+            "Solo le differenze vengono scritte. Supporta If-Match")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ricetta aggiornata (nuovo ETag nella risposta)"),
+            @ApiResponse(responseCode = "400", description = "Modifica non valida (es. ingrediente non presente, meno di 2 step)"),
+            @ApiResponse(responseCode = "404", description = "Cocktail non trovato"),
+            @ApiResponse(responseCode = "409", description = "Modifica concorrente senza If-Match: stato attuale nel body",
+                    content = @Content(schema = @Schema(implementation = ConflittoVersioneDTO.class))),
+            @ApiResponse(responseCode = "412", description = "If-Match non corrisponde alla versione attuale",
+                    content = @Content(schema = @Schema(implementation = ConflittoVersioneDTO.class)))
+    })
+    @PatchMapping("/{id}/steps")
+    public ResponseEntity<?> patchSteps(
+            @Parameter(description = "ID del cocktail")
+            @PathVariable Long id,
+            @Parameter(description = "ETag della versione su cui si basa la modifica (es: \"12-v3\")")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Modifiche agli step", required = true)
+            @RequestBody StepPatchDTO patch) {
+        return modificaRicetta(id, ifMatch,
+                () -> cocktailService.modificaStep(id, patch, versioniDaIfMatch(id, ifMatch)));
+    }
+
+    /**
+     * GET /api/cocktails/{id}/similar - Cocktail con gli ingredienti più simili
+     * 
+     * Similarità di Jaccard tra gli insiemi di ingredienti, calcolata esattamente
+     * sui candidati trovati dall'indice MinHash / LSH in memoria.
+     */
+    @Operation(summary = "Cocktail simili per ingredienti", description = "Restituisce i cocktail con gli ingredienti più simili (indice di Jaccard), " +
+            "dal più simile. Vengono considerati i cocktail con similarità indicativamente superiore a 0.5")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista dei cocktail simili (anche vuota)"),
+            @ApiResponse(responseCode = "304", description = "Catalogo invariato rispetto all'ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Valore di limit non valido"),
+            @ApiResponse(responseCode = "404", description = "Cocktail non trovato")
+    })
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<CocktailSimileDTO>> getSimilar(
+            @Parameter(description = "ID del cocktail")
+            @PathVariable Long id,
+            @Parameter(description = "Numero massimo di risultati (1-" + MAX_SIMILI + ", default 10)")
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest request) {
+        if (limit < 1 || limit > MAX_SIMILI) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (request.checkNotModified(catalogGeneration.etag())) {
+            return null;
+        }
+        return cocktailSimilarityService.simili(id, limit)
+                .map(simili -> ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(simili))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /api/cocktails/{id}/also-liked - "Chi ha salvato questo ha salvato anche..."
+     * 
+     * Servito dalla matrice delle co-occorrenze nei preferiti, in memoria.
+     * Cambia con i preferiti degli utenti: Cache-Control no-store (nessuna cache condivisa).
+     */
+    @Operation(summary = "Cocktail salvati insieme a questo", description = "Restituisce i cocktail che compaiono più spesso nei preferiti " +
+            "degli utenti che hanno salvato questo cocktail; punteggio = numero di utenti che hanno salvato entrambi")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista dei cocktail (anche vuota)"),
+            @ApiResponse(responseCode = "400", description = "Valore di limit non valido"),
+            @ApiResponse(responseCode = "404", description = "Cocktail non trovato")
+    })
+    @GetMapping("/{id}/also-liked")
+    public ResponseEntity<List<CocktailRaccomandatoDTO>> getAlsoLiked(
+            @Parameter(description = "ID del cocktail")
+            @PathVariable Long id,
+            @Parameter(description = "Numero massimo di risultati (1-" + MAX_SIMILI + ", default 10)")
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_SIMILI) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (cocktailService.getVersione(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore())
+                .body(cocktailRecommendationService.ancheApprezzati(id, limit));
+    }
+
     /**
      * DELETE /api/cocktails/{id} - Elimina un cocktail
      */
@@ -175,9 +575,99 @@ public class CocktailController {
         return ResponseEntity.notFound().build();
     }
 
-    
+    /**
+     * Valida la lista di ID ed esegue il multi-get
+     */
+    private ResponseEntity<CocktailBatchDTO> batch(List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_BATCH_IDS || ids.contains(null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(cocktailService.getCocktailsByIds(ids));
+    }
 
+    /**
+     * Risponde 304 se l'ETag del client coincide, altrimenti carica il body
+     * (il supplier viene eseguito solo dopo il confronto)
+     * @return null se la risposta 304 è già stata preparata da checkNotModified
+     */
+    private <T> ResponseEntity<T> conEtag(WebRequest request, String etag, Supplier<T> body) {
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(body.get());
+    }
+
+    /**
+     * ETag forte di un cocktail: ID + versione (es: "12-v3")
+     */
+    private String etagCocktail(Long id, Long versione) {
+        return "\"" + id + "-v" + versione + "\"";
+    }
+
+    /**
+     * Estrae dall'header If-Match le versioni accettate per il cocktail
+     * @return null se l'header manca o è "*" (nessuna precondizione sulla versione),
+     *         altrimenti le versioni degli ETag che si riferiscono a questo cocktail
+     *         (vuota se nessun ETag è valido: la PUT fallirà con 412)
+     */
+    private Set<Long> versioniDaIfMatch(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<Long> versioni = new HashSet<>();
+        String prefisso = "\"" + id + "-v";
+        for (String tag : ifMatch.split(",")) {
+            // ETag della variante gzip servita da ResponseCacheFilter: stessa versione
+            tag = ResponseCacheFilter.senzaSuffissoGzip(tag.trim());
+            // If-Match usa il confronto forte: gli ETag deboli non corrispondono mai
+            if (tag.startsWith(prefisso) && tag.endsWith("\"") && tag.length() > prefisso.length() + 1) {
+                try {
+                    versioni.add(Long.parseLong(tag.substring(prefisso.length(), tag.length() - 1)));
+                } catch (NumberFormatException e) {
+                    // ETag non nostro: ignorato
+                }
+            }
+        }
+        return versioni;
+    }
 
+    /**
+     * Esegue una modifica della ricetta e traduce il risultato in risposta HTTP
+     * (200 con nuovo ETag, 404, 400, 412/409 con lo stato attuale)
+     */
+    private ResponseEntity<?> modificaRicetta(Long id, String ifMatch, Supplier<Optional<CocktailDTO>> modifica) {
+        try {
+            return modifica.get()
+                    .<ResponseEntity<?>>map(dto -> ResponseEntity.ok().eTag(etagCocktail(id, dto.getVersione())).body(dto))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (OptimisticLockingFailureException e) {
+            return conflitto(id, ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 
+    /**
+     * Risposta di conflitto con lo stato attuale del cocktail, per riapplicare le modifiche e ritentare
+     */
+    private ResponseEntity<?> conflitto(Long id, HttpStatus status) {
+        Optional<CocktailVersioneDTO> versione = cocktailService.getVersione(id);
+        if (versione.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Long attuale = versione.get().getVersione();
+        String etag = etagCocktail(id, attuale);
+        CocktailDTO cocktail = cocktailService.getCocktailAggiornato(id, attuale).orElse(null);
+        ConflittoVersioneDTO body = new ConflittoVersioneDTO(
+                "Il cocktail è stato modificato da un'altra richiesta: riapplicare le modifiche e ritentare con If-Match: " + etag,
+                attuale, etag, cocktail);
+        return ResponseEntity.status(status).eTag(etag).body(body);
+    }
 
+    /**
+     * Verifica se il client ha richiesto la vista compatta (view=summary)
+     */
+    private boolean isSummaryView(String view) {
+        return VIEW_SUMMARY.equalsIgnoreCase(view);
+    }
 }
@@ -1,6 +1,10 @@
 package com.cocktail.cocktailproject.controller;
 
 import com.cocktail.cocktailproject.dto.CocktailDTO;
+import com.cocktail.cocktailproject.dto.CocktailRaccomandatoDTO;
+import com.cocktail.cocktailproject.dto.VoceListaSpesaDTO;
+import com.cocktail.cocktailproject.service.CocktailRecommendationService;
+import com.cocktail.cocktailproject.service.CocktailFieldSelection;
 import com.cocktail.cocktailproject.service.FavoritiService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -35,6 +39,12 @@ public class FavoritiController {
     @Autowired
     private FavoritiService favoritiService;
     
+    @Autowired
+    private CocktailRecommendationService cocktailRecommendationService;
+    
+    // Numero massimo di cocktail consigliati per richiesta
+    private static final int MAX_RACCOMANDAZIONI = 50;
+    
     /**
      * POST /api/favoriti/{cocktailId} - Aggiungi un cocktail ai favoriti
      */
@@ -113,10 +123,12 @@ public class FavoritiController {
     
     /**
      * GET /api/favoriti - Ottieni tutti i cocktail preferiti
+     * Con ?fields=... restituisce solo i campi indicati
      */
     @Operation(
         summary = "Ottieni i cocktail preferiti",
-        description = "Richiede autenticazione JWT. Restituisce la lista completa dei cocktail nei favoriti dell'utente autenticato."
+        description = "Richiede autenticazione JWT. Restituisce la lista completa dei cocktail nei favoriti dell'utente autenticato. " +
+                     "Con fields=... (es: id,nome) restituisce solo i campi indicati."
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -124,15 +136,72 @@ public class FavoritiController {
             description = "Lista dei cocktail preferiti recuperata con successo",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = CocktailDTO.class))
         ),
+        @ApiResponse(responseCode = "400", description = "Valore di fields non supportato"),
         @ApiResponse(responseCode = "401", description = "Token JWT non valido o mancante")
     })
     @GetMapping
-    public ResponseEntity<List<CocktailDTO>> getPreferiti(Authentication authentication) {
+    public ResponseEntity<List<?>> getPreferiti(
+            @Parameter(description = "Campi da restituire, separati da virgola (es: id,nome,preparazione.ingrediente)")
+            @RequestParam(required = false) String fields,
+            Authentication authentication) {
         String userId = getUserIdFromToken(authentication);
+        if (fields != null) {
+            try {
+                return ResponseEntity.ok(favoritiService.getPreferiti(userId, CocktailFieldSelection.parse(fields)));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
         List<CocktailDTO> preferiti = favoritiService.getPreferiti(userId);
         return ResponseEntity.ok(preferiti);
     }
     
+    /**
+     * GET /api/favoriti/recommendations - Cocktail consigliati in base ai preferiti dell'utente
+     * Servito dalla matrice delle co-occorrenze in memoria (nessuna lettura di user_favoriti)
+     */
+    @Operation(
+        summary = "Cocktail consigliati",
+        description = "Richiede autenticazione JWT. Restituisce i cocktail salvati più spesso dagli utenti con preferiti in comune, " +
+                     "esclusi quelli già nei favoriti; punteggio = somma delle co-occorrenze con i preferiti dell'utente."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lista dei cocktail consigliati (vuota se l'utente non ha preferiti)"),
+        @ApiResponse(responseCode = "400", description = "Valore di limit non valido"),
+        @ApiResponse(responseCode = "401", description = "Token JWT non valido o mancante")
+    })
+    @GetMapping("/recommendations")
+    public ResponseEntity<List<CocktailRaccomandatoDTO>> getRaccomandazioni(
+            @Parameter(description = "Numero massimo di risultati (1-" + MAX_RACCOMANDAZIONI + ", default 10)")
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication authentication) {
+        if (limit < 1 || limit > MAX_RACCOMANDAZIONI) {
+            return ResponseEntity.badRequest().build();
+        }
+        String userId = getUserIdFromToken(authentication);
+        return ResponseEntity.ok(cocktailRecommendationService.raccomandazioni(userId, limit));
+    }
+    
+    /**
+     * GET /api/favoriti/shopping-list - Lista della spesa dei cocktail preferiti
+     * Quantità sommate per ingrediente con una sola query; ml, cl, l e oz vengono convertiti in ml
+     */
+    @Operation(
+        summary = "Lista della spesa dei preferiti",
+        description = "Richiede autenticazione JWT. Restituisce le quantità totali di ogni ingrediente necessarie per tutti " +
+                     "i cocktail nei favoriti. Le unità di volume (ml, cl, l, oz) sono convertite in ml e unite; " +
+                     "le altre unità restano separate."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lista della spesa (vuota se l'utente non ha preferiti)"),
+        @ApiResponse(responseCode = "401", description = "Token JWT non valido o mancante")
+    })
+    @GetMapping("/shopping-list")
+    public ResponseEntity<List<VoceListaSpesaDTO>> getListaSpesa(Authentication authentication) {
+        String userId = getUserIdFromToken(authentication);
+        return ResponseEntity.ok(favoritiService.getListaSpesa(userId));
+    }
+    
     /**
      * GET /api/favoriti/check/{cocktailId} - Verifica se un cocktail è nei favoriti
      */
@@ -1,5 +1,6 @@
 package com.cocktail.cocktailproject.controller;
 
+import com.cocktail.cocktailproject.cache.CatalogGeneration;
 import com.cocktail.cocktailproject.dto.IngredientiDTO;
 import com.cocktail.cocktailproject.service.IngredientService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,9 +15,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -28,6 +31,8 @@ import java.util.Optional;
  * - Espone API separate dagli endpoint dei cocktail
  * - Fornisce operazioni di lettura e cancellazione degli ingredienti
  * - Usa la paginazione per evitare payload troppo grandi
+ * - Liste e ricerche con ETag debole (generazione del catalogo): 304 se invariate
+ * - Ordinamento per utilizzi (numero di cocktail che usano l'ingrediente)
  */
 @RestController
 @RequestMapping("/api/ingredients")
@@ -35,39 +40,63 @@ import java.util.Optional;
 @Tag(name = "Ingredient", description = "API per la gestione degli ingredienti")
 public class IngredientController {
 
+    // Numero massimo di ingredienti restituiti da /top
+    private static final int MAX_TOP = 50;
+
     private final IngredientService ingredientService;
+    private final CatalogGeneration catalogGeneration;
 
     /**
      * Costruttore con injection del service.
      */
-    public IngredientController(IngredientService ingredientService) {
+    public IngredientController(IngredientService ingredientService, CatalogGeneration catalogGeneration) {
         this.ingredientService = ingredientService;
+        this.catalogGeneration = catalogGeneration;
     }
 
     /**
      * GET /api/ingredients - Restituisce una lista paginata di ingredienti.
      */
-    @Operation(summary =  "Ottieni tutti gli ingredienti disponibili", description = "Restituisce una lista paginata di tutti gli ingredienti presenti nel sistema")
+    @Operation(summary =  "Ottieni tutti gli ingredienti disponibili", description = "Restituisce una lista paginata di tutti gli ingredienti presenti nel sistema. " +
+            "Ordinamenti (sort): id (default), nome, created (più recenti prima), usage o popularity " +
+            "(numero di cocktail che usano l'ingrediente, decrescente)")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Lista paginata ingredienti restituita con successo")
+            @ApiResponse(responseCode = "200", description = "Lista paginata ingredienti restituita con successo"),
+            @ApiResponse(responseCode = "304", description = "Catalogo invariato rispetto all'ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Valore di sort non supportato")
     })
     @GetMapping
     public ResponseEntity<Page<IngredientiDTO>> getAllIngredients(
             @Parameter(description = "Numero della pagina (base 0)")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Numero di ingredienti per pagina (default 10)")
-            @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Ordinamento: id (default), nome, created, usage, popularity")
+            @RequestParam(defaultValue = "id") String sort,
+            WebRequest request) {
+        // Solo ordinamenti serviti da un indice: gli altri costringerebbero il database a ordinare tutta la tabella
+        Sort ordinamento = IngredientService.ORDINAMENTI.get(sort);
+        if (ordinamento == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        // ETag letto prima dei dati: la risposta non è mai più vecchia della generazione dichiarata
+        if (request.checkNotModified(catalogGeneration.etag())) {
+            return null;
+        }
+        Pageable pageable = PageRequest.of(page, size, ordinamento);
         Page<IngredientiDTO> ingredients = ingredientService.getAllIngredients(pageable);
-        return ResponseEntity.ok(ingredients);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(ingredients);
     }
 
     /**
      * GET /api/ingredients/search?nome=xxx - Cerca ingredienti per nome con paginazione.
      */
-    @Operation(summary = "Cerca ingredienti per nome", description = "Restituisce una lista paginata di ingredienti che corrispondono al nome ricercato (ricerca parziale case-insensitive)")
+    @Operation(summary = "Cerca ingredienti per nome", description = "Restituisce una lista paginata di ingredienti che corrispondono al nome ricercato (ricerca parziale case-insensitive). " +
+            "Con count=estimate (default) il totale può essere stimato (totaleStimato), con count=exact è sempre esatto")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Ricerca completata, lista paginata di ingredienti restituita")
+            @ApiResponse(responseCode = "200", description = "Ricerca completata, lista paginata di ingredienti restituita"),
+            @ApiResponse(responseCode = "304", description = "Catalogo invariato rispetto all'ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Valore di count non supportato")
     })
     @GetMapping("/search")
     public ResponseEntity<Page<IngredientiDTO>> searchByName(
@@ -76,10 +105,45 @@ public class IngredientController {
             @Parameter(description = "Numero della pagina (base 0)")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Numero di ingredienti per pagina (default 10)")
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Calcolo del totale: 'estimate' (default) o 'exact'")
+            @RequestParam(defaultValue = CocktailController.COUNT_ESTIMATE) String count,
+            WebRequest request) {
+        if (!count.equalsIgnoreCase(CocktailController.COUNT_ESTIMATE) && !count.equalsIgnoreCase(CocktailController.COUNT_EXACT)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (request.checkNotModified(catalogGeneration.etag())) {
+            return null;
+        }
         Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
-        Page<IngredientiDTO> ingredients = ingredientService.searchByName(nome, pageable);
-        return ResponseEntity.ok(ingredients);
+        Page<IngredientiDTO> ingredients = ingredientService.searchByName(nome, pageable,
+                count.equalsIgnoreCase(CocktailController.COUNT_EXACT));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(ingredients);
+    }
+
+    /**
+     * GET /api/ingredients/top?limit=10 - Ingredienti usati nel maggior numero di cocktail
+     * Legge il contatore utilizzi tramite l'indice (utilizzi DESC, id), senza contare gli step
+     */
+    @Operation(summary = "Ingredienti più usati", description = "Restituisce gli ingredienti usati nel maggior numero di cocktail, " +
+            "dal più usato (a parità, ID crescente)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista degli ingredienti più usati"),
+            @ApiResponse(responseCode = "304", description = "Catalogo invariato rispetto all'ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Valore di limit non valido")
+    })
+    @GetMapping("/top")
+    public ResponseEntity<List<IngredientiDTO>> getTopIngredients(
+            @Parameter(description = "Numero massimo di ingredienti (1-" + MAX_TOP + ", default 10)")
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest request) {
+        if (limit < 1 || limit > MAX_TOP) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (request.checkNotModified(catalogGeneration.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(ingredientService.getTopIngredients(limit));
     }
 
     /**
@@ -0,0 +1,23 @@
+package com.cocktail.cocktailproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * CatalogChangeDTO - Una modifica del catalogo esposta da /api/changes
+ * 
+ * Es: { "seq": 42, "entita": "COCKTAIL", "entitaId": 7, "operazione": "UPDATE", ... }
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChangeDTO {
+    private Long seq;
+    private String entita;
+    private Long entitaId;
+    private String operazione;
+    private LocalDateTime creatoIl;
+}
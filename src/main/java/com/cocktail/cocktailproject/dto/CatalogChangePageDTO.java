@@ -0,0 +1,23 @@
+package com.cocktail.cocktailproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * CatalogChangePageDTO - Pagina di modifiche restituita da GET /api/changes
+ * 
+ * - changes: modifiche con seq > since, in ordine
+ * - ultimoSeq: valore da passare come "since" alla chiamata successiva
+ * - altre: true se ci sono altre modifiche da leggere subito
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChangePageDTO {
+    private List<CatalogChangeDTO> changes;
+    private long ultimoSeq;
+    private boolean altre;
+}
@@ -0,0 +1,21 @@
+package com.cocktail.cocktailproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * CocktailBatchDTO - Risposta del multi-get GET/POST /api/cocktails/batch
+ * 
+ * - cocktails: cocktail trovati, nello stesso ordine degli ID richiesti
+ * - mancanti: ID richiesti che non esistono
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CocktailBatchDTO {
+    private List<CocktailDTO> cocktails;
+    private List<Long> mancanti;
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -22,6 +23,10 @@ public class CocktailDTO {
     private String descrizione;
     private Integer tempoPreparazioneMinutes;
     private String note;
+    // Ultima modifica (sola lettura: ignorato negli aggiornamenti)
+    private LocalDateTime aggiornatoIl;
+    // Versione corrente (sola lettura: per gli aggiornamenti condizionali usare If-Match con l'ETag)
+    private Long versione;
     private List<StepPreparazioneDTO> preparazione;
 
     /**
@@ -0,0 +1,37 @@
+package com.cocktail.cocktailproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * CocktailFiltroDTO - Risposta di GET /api/cocktails/filter
+ * 
+ * Contiene la pagina di risultati (vista compatta) e, per ogni ingrediente presente
+ * nei cocktail che soddisfano il filtro, quanti di questi cocktail lo contengono.
+ * I conteggi si riferiscono all'intero insieme dei risultati, non solo alla pagina.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CocktailFiltroDTO {
+    private List<CocktailSummaryDTO> risultati;
+    private long totale;
+    private int pagina;
+    private int dimensione;
+    private List<FaccettaDTO> faccette;
+
+    /**
+     * Conteggio di un ingrediente nei risultati del filtro
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FaccettaDTO {
+        private Long ingredienteId;
+        private String ingrediente;
+        private int conteggio;
+    }
+}
@@ -0,0 +1,22 @@
+package com.cocktail.cocktailproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * CocktailRaccomandatoDTO - Cocktail consigliato in base ai preferiti degli utenti
+ * 
+ * punteggio:
+ * - /api/cocktails/{id}/also-liked: utenti che hanno nei preferiti entrambi i cocktail
+ * - /api/favoriti/recommendations: somma delle co-occorrenze con i preferiti dell'utente
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CocktailRaccomandatoDTO {
+    private Long id;
+    private String nome;
+    private Integer tempoPreparazioneMinutes;
+    private long punteggio;
+}
@@ -0,0 +1,20 @@
+package com.cocktail.cocktailproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * CocktailRisultatoTestoDTO - Risultato della ricerca testuale (GET /api/cocktails/search/text)
+ * 
+ * punteggio: similarità del coseno tra query e descrizione + note (TF-IDF), da 0 a 1.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CocktailRisultatoTestoDTO {
+    private Long id;
+    private String nome;
+    private Integer tempoPreparazioneMinutes;
+    private double punteggio;
+}
@@ -0,0 +1,21 @@
+package com.cocktail.cocktailproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * CocktailSimileDTO - Cocktail simile per ingredienti (GET /api/cocktails/{id}/similar)
+ * 
+ * similarita: indice di Jaccard tra gli insiemi di ingredienti
+ * (ingredienti in comune / ingredienti totali dei due cocktail), da 0 a 1.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CocktailSimileDTO {
+    private Long id;
+    private String nome;
+    private Integer tempoPreparazioneMinutes;
+    private double similarita;
+}
@@ -0,0 +1,21 @@
+package com.cocktail.cocktailproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * CocktailSummaryDTO - Vista compatta di un cocktail per le liste
+ * 
+ * Contiene solo i campi mostrati nelle schermate elenco (id, nome, tempo).
+ * Viene popolato direttamente dalla query (constructor projection) senza
+ * leggere le colonne TEXT né le tabelle preparazione/ingredienti.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CocktailSummaryDTO {
+    private Long id;
+    private String nome;
+    private Integer tempoPreparazioneMinutes;
+}
@@ -0,0 +1,21 @@
+package com.cocktail.cocktailproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * CocktailVersioneDTO - Versione e ultima modifica di un cocktail
+ * 
+ * Letto con una proiezione sulla chiave primaria per le richieste condizionali
+ * (ETag / Last-Modified) senza caricare la ricetta.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CocktailVersioneDTO {
+    private Long versione;
+    private LocalDateTime aggiornatoIl;
+}
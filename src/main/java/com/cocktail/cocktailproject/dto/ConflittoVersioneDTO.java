@@ -0,0 +1,21 @@
+package com.cocktail.cocktailproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ConflittoVersioneDTO - Body delle risposte 412/409 su PUT /api/cocktails/{id}
+ * 
+ * Contiene lo stato attuale del cocktail e il suo ETag: il client può riapplicare
+ * le proprie modifiche su "attuale" e ripetere la PUT con If-Match: etag.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConflittoVersioneDTO {
+    private String messaggio;
+    private Long versioneAttuale;
+    private String etag;
+    private CocktailDTO attuale;
+}
@@ -4,12 +4,18 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+/**
+ * IngredientiDTO - Ingrediente del catalogo
+ * 
+ * utilizzi: numero di cocktail che usano l'ingrediente
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class IngredientiDTO {
     private Long id;
     private String nome;
+    private long utilizzi;
 
     public IngredientiDTO(String nome, Long id) {
         this.nome = nome;
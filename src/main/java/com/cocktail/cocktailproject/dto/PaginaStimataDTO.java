@@ -0,0 +1,62 @@
+package com.cocktail.cocktailproject.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * PaginaStimataDTO - Pagina di una ricerca per nome con totale calcolato senza COUNT esatto
+ *
+ * Le ricerche per nome usano una LIKE '%testo%' che nessun indice può servire: il COUNT
+ * esatto costa quanto la query dei risultati. Con count=estimate (default) il totale si ricava così:
+ * - ultima pagina (o pagina non piena): offset + risultati, esatto e senza query in più
+ * - altrimenti: conteggio limitato a limite + 1 righe (LIMIT), in cache per testo e
+ *   generazione del catalogo (vedi SearchCache.conteggio)
+ * Oltre il limite totalElements vale limite + 1 e totaleStimato è true: il client mostra "1000+".
+ *
+ * Serializzata come le altre pagine, con il campo aggiuntivo "totaleStimato".
+ */
+public class PaginaStimataDTO<T> extends PageImpl<T> {
+
+    private final boolean totaleStimato;
+
+    public PaginaStimataDTO(List<T> content, Pageable pageable, long total, boolean totaleStimato) {
+        super(content, pageable, total);
+        this.totaleStimato = totaleStimato;
+    }
+
+    /**
+     * true se totalElements è un limite inferiore (i risultati sono più del limite di conteggio)
+     */
+    public boolean isTotaleStimato() {
+        return totaleStimato;
+    }
+
+    @Override
+    public <U> PaginaStimataDTO<U> map(Function<? super T, ? extends U> converter) {
+        return new PaginaStimataDTO<>(getContent().stream().<U>map(converter).toList(), getPageable(),
+                getTotalElements(), totaleStimato);
+    }
+
+    /**
+     * Costruisce la pagina da una Slice (risultati letti senza COUNT)
+     * @param slice Risultati della pagina (con l'informazione se esiste la pagina successiva)
+     * @param limite Limite del conteggio
+     * @param conteggio Numero di risultati contati al massimo fino a limite + 1 (chiamato solo se serve)
+     */
+    public static <T> PaginaStimataDTO<T> da(Slice<T> slice, long limite, LongSupplier conteggio) {
+        long offset = slice.getPageable().isPaged() ? slice.getPageable().getOffset() : 0;
+        long visti = offset + slice.getNumberOfElements();
+        if (!slice.hasNext() && (slice.hasContent() || offset == 0)) {
+            return new PaginaStimataDTO<>(slice.getContent(), slice.getPageable(), visti, false);
+        }
+        // Pagina piena con altri risultati dopo, o pagina oltre la fine: serve il conteggio
+        long contati = conteggio.getAsLong();
+        long totale = slice.hasNext() ? Math.max(contati, visti + 1) : contati;
+        return new PaginaStimataDTO<>(slice.getContent(), slice.getPageable(), totale, contati > limite);
+    }
+}
@@ -0,0 +1,27 @@
+package com.cocktail.cocktailproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * ReadModelCheckDTO - Esito della verifica di consistenza del read model delle ricette
+ * 
+ * - controllati: numero di cocktail verificati
+ * - mancanti: cocktail senza documento nel read model
+ * - obsoleti: cocktail il cui documento non corrisponde più ai dati delle tabelle
+ * - orfani: documenti di cocktail che non esistono più
+ * - consistente: true se non ci sono differenze
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadModelCheckDTO {
+    private long controllati;
+    private List<Long> mancanti;
+    private List<Long> obsoleti;
+    private List<Long> orfani;
+    private boolean consistente;
+}
@@ -0,0 +1,27 @@
+package com.cocktail.cocktailproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * StepModificaDTO - Uno step nella modifica della ricetta
+ * 
+ * Lo step è identificato dall'ingrediente (una ricetta non contiene due volte
+ * lo stesso ingrediente). Nella PUT rappresenta lo step completo, nella PATCH
+ * i campi null restano invariati.
+ * 
+ * Esempio JSON:
+ * { "ingrediente": "gin", "quantita": 30, "unita": "ml", "istruzione": "Versare il gin" }
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StepModificaDTO {
+    private String ingrediente;
+    private BigDecimal quantita;
+    private String unita;
+    private String istruzione;
+}
@@ -0,0 +1,30 @@
+package com.cocktail.cocktailproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * StepPatchDTO - Modifica parziale degli step di una ricetta (PATCH /api/cocktails/{id}/steps)
+ * 
+ * - steps: step da modificare (solo i campi non null) o da aggiungere in fondo
+ * - rimuovi: ingredienti da togliere dalla ricetta
+ * - ordine: nuovo ordine degli ingredienti (quelli non elencati seguono nell'ordine attuale)
+ * 
+ * Esempio JSON:
+ * {
+ *   "steps": [ { "ingrediente": "gin", "quantita": 30 }, { "ingrediente": "soda", "quantita": 50, "unita": "ml" } ],
+ *   "rimuovi": [ "tonica" ],
+ *   "ordine": [ "soda", "gin" ]
+ * }
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StepPatchDTO {
+    private List<StepModificaDTO> steps;
+    private List<String> rimuovi;
+    private List<String> ordine;
+}
@@ -0,0 +1,33 @@
+package com.cocktail.cocktailproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * VoceListaSpesaDTO - Una riga della lista della spesa dei preferiti
+ * 
+ * Quantità totale di un ingrediente in una unità, sommata su tutti gli step
+ * dei cocktail preferiti dell'utente. Le unità di volume (ml, cl, l, oz) sono
+ * convertite in ml; le altre restano come scritte nella ricetta.
+ * quantita è null se nessuno step indica una quantità (es. "q.b.").
+ * 
+ * Esempio:
+ * {
+ *   "ingredienteId": 1,
+ *   "ingrediente": "Tequila",
+ *   "quantita": 109.15,
+ *   "unita": "ml"
+ * }
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoceListaSpesaDTO {
+    private Long ingredienteId;
+    private String ingrediente;
+    private BigDecimal quantita;
+    private String unita;
+}
@@ -0,0 +1,57 @@
+package com.cocktail.cocktailproject.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity CatalogChange - Una modifica del catalogo registrata nell'outbox transazionale
+ * 
+ * Tabella: catalog_change
+ * 
+ * Campi:
+ * - seq: Numero di sequenza crescente (auto-incrementale), usato come cursore dai consumatori
+ * - entita: Tipo di entità modificata (COCKTAIL, INGREDIENTE, FAVORITO)
+ * - entitaId: ID dell'entità modificata (per FAVORITO è l'ID del cocktail, l'utente non viene esposto)
+ * - operazione: Tipo di modifica (CREATE, UPDATE, DELETE)
+ * - origine: ID dell'istanza dell'applicazione che ha fatto la modifica (non esposto)
+ * - creatoIl: Timestamp del database al momento del commit
+ * 
+ * Come funziona:
+ * - Le righe vengono inserite da ChangeFeedService con un'unica batch INSERT
+ *   subito prima del commit della transazione che ha fatto la modifica
+ * - GET /api/changes?since=<seq> e lo stream SSE leggono le righe con seq > since
+ * - Le righe più vecchie della retention vengono eliminate da un job schedulato
+ */
+@Entity
+@Table(name = "catalog_change", indexes = {
+        @Index(name = "idx_change_creato_il", columnList = "creato_il")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "seq")
+    private Long seq;
+
+    @Column(name = "entita", nullable = false, length = 30)
+    private String entita;
+
+    @Column(name = "entita_id", nullable = false)
+    private Long entitaId;
+
+    @Column(name = "operazione", nullable = false, length = 20)
+    private String operazione;
+
+    @Column(name = "origine", nullable = false, length = 64)
+    private String origine;
+
+    @Column(name = "creato_il", nullable = false)
+    private LocalDateTime creatoIl;
+}
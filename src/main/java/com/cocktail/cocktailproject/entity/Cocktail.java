@@ -4,6 +4,9 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
 
 /**
  * Entity Cocktail - Rappresenta un cocktail nel database
@@ -16,6 +19,19 @@ import lombok.NoArgsConstructor;
  * - descrizione: Descrizione dettagliata (TEXT, opzionale)
  * - tempoPreparazioneMinutes: Tempo di preparazione in minuti (opzionale)
  * - note: Note aggiuntive (TEXT, opzionale)
+ * - aggiornatoIl: Ultima modifica della ricetta (Last-Modified)
+ * - versione: Versione per il locking ottimistico (ETag, If-Match sugli aggiornamenti)
+ * - preferiti: Numero di utenti che hanno il cocktail nei preferiti (contatore denormalizzato)
+ * 
+ * Indici per gli ordinamenti delle liste (CocktailService.ORDINAMENTI):
+ * - nome, tempo di preparazione, preferiti (popolarità), più l'ID per una paginazione stabile
+ * - i più recenti usano la chiave primaria (ID auto-incrementale = ordine di creazione)
+ * 
+ * Contatore preferiti:
+ * - aggiornato con UPDATE atomici (+1 / -1) da FavoritiService, senza cambiare la versione
+ * - escluso dagli UPDATE dell'entity: un salvataggio del cocktail non sovrascrive
+ *   incrementi concorrenti con un valore letto prima
+ * - riallineato in blocco da FavoritiService.riconciliaPreferiti (all'avvio e periodicamente)
  * 
  * Relazioni:
  * - 1:N con Preparazione (un cocktail ha molti step di preparazione)
@@ -23,7 +39,11 @@ import lombok.NoArgsConstructor;
  * - 1:N con UserFavorito (un cocktail può essere nei preferiti di molti utenti)
  */
 @Entity
-@Table(name = "cocktail")
+@Table(name = "cocktail", indexes = {
+        @Index(name = "idx_cocktail_nome", columnList = "nome, id"),
+        @Index(name = "idx_cocktail_tempo", columnList = "tempo_preparazione_minutes, id"),
+        @Index(name = "idx_cocktail_preferiti", columnList = "preferiti DESC, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -44,4 +64,19 @@ public class Cocktail {
 
     @Column(name = "note", columnDefinition = "TEXT")
     private String note;
+
+    // Aggiornato da tutte le scritture che cambiano la ricetta (anche solo gli step)
+    @Column(name = "aggiornato_il", nullable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)")
+    private LocalDateTime aggiornatoIl;
+
+    // Incrementata da Hibernate a ogni UPDATE (WHERE versione = ?): due modifiche
+    // concorrenti non si sovrascrivono, la seconda fallisce con un conflitto
+    @Version
+    @Column(name = "versione", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long versione;
+
+    @ColumnDefault("0")
+    @Column(name = "preferiti", nullable = false, updatable = false)
+    private long preferiti;
 }
@@ -0,0 +1,43 @@
+package com.cocktail.cocktailproject.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity CocktailReadModel - Documento della ricetta già pronto per la lettura (read model)
+ * 
+ * Tabella: cocktail_read_model
+ * 
+ * Campi:
+ * - cocktailId: Chiave primaria, uguale all'ID del cocktail
+ * - documento: CocktailDTO completo serializzato in JSON (cocktail + step + ingredienti)
+ * - aggiornatoIl: Timestamp dell'ultima rigenerazione
+ * 
+ * Come funziona:
+ * - Viene scritto nella stessa transazione delle scritture sul cocktail
+ *   (create/update in CocktailService, delete ingrediente in IngredientService)
+ * - Le letture (dettaglio e liste) leggono un solo record per cocktail,
+ *   senza join tra cocktail, preparazione e ingredienti
+ * - Può essere ricostruito per intero con CocktailReadModelService.ricostruisciTutto()
+ */
+@Entity
+@Table(name = "cocktail_read_model")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CocktailReadModel {
+
+    @Id
+    @Column(name = "cocktail_id")
+    private Long cocktailId;
+
+    @Column(name = "documento", nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String documento;
+
+    @Column(name = "aggiornato_il", nullable = false)
+    private LocalDateTime aggiornatoIl;
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 /**
  * Entity Ingrediente - Catalogo degli ingredienti disponibili nel sistema
@@ -13,6 +14,17 @@ import lombok.NoArgsConstructor;
  * Campi:
  * - id: Chiave primaria auto-incrementale
  * - nome: Nome ingrediente (max 150 caratteri, obbligatorio, UNIQUE)
+ * - utilizzi: Numero di cocktail che usano l'ingrediente (contatore denormalizzato)
+ * 
+ * Contatore utilizzi:
+ * - aggiornato con UPDATE atomici (+1 / -1) da CocktailService quando vengono
+ *   inseriti o eliminati step di preparazione, nella stessa transazione
+ * - escluso dagli UPDATE dell'entity (non sovrascrive incrementi concorrenti)
+ * - riallineato in blocco da IngredientService.riconciliaUtilizzi (all'avvio e periodicamente)
+ * - indice (utilizzi DESC, id) per ?sort=usage e /api/ingredients/top senza ordinamenti in memoria
+ * 
+ * Ordinamenti delle liste (IngredientService.ORDINAMENTI): per nome usa l'indice UNIQUE del nome,
+ * per ID e più recenti la chiave primaria
  * 
  * Vincoli:
  * - Il nome deve essere univoco (non possono esistere due ingredienti con lo stesso nome)
@@ -25,7 +37,9 @@ import lombok.NoArgsConstructor;
  * perché possono essere riutilizzati in altri cocktail.
  */
 @Entity
-@Table(name = "ingredienti")
+@Table(name = "ingredienti", indexes = {
+        @Index(name = "idx_ingredienti_utilizzi", columnList = "utilizzi DESC, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -37,4 +51,8 @@ public class Ingrediente {
 
     @Column(name = "nome", nullable = false, unique = true, length = 150)
     private String nome;
+
+    @ColumnDefault("0")
+    @Column(name = "utilizzi", nullable = false, updatable = false)
+    private long utilizzi;
 }
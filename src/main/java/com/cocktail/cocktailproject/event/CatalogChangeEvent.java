@@ -0,0 +1,37 @@
+package com.cocktail.cocktailproject.event;
+
+/**
+ * CatalogChangeEvent - Evento applicativo pubblicato dopo il commit di una modifica
+ * 
+ * Viene pubblicato da ChangeFeedService per ogni modifica registrata nell'outbox
+ * (tabella catalog_change), solo dopo che la transazione è stata confermata.
+ * Le modifiche fatte dalle altre istanze arrivano con remoto = true,
+ * pubblicate da CacheInvalidationBus dopo averle lette dall'outbox.
+ * Cache e indici in memoria lo ascoltano con @EventListener per aggiornarsi.
+ * 
+ * @param entita Tipo di entità modificata
+ * @param entitaId ID dell'entità (per FAVORITO è l'ID del cocktail)
+ * @param operazione Tipo di modifica
+ * @param remoto true se la modifica è stata fatta da un'altra istanza
+ */
+public record CatalogChangeEvent(Entita entita, Long entitaId, Operazione operazione, boolean remoto) {
+
+    public enum Entita {
+        COCKTAIL,
+        INGREDIENTE,
+        FAVORITO
+    }
+
+    public enum Operazione {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    /**
+     * true per le modifiche che cambiano il catalogo pubblico (cocktail e ingredienti)
+     */
+    public boolean isCatalogo() {
+        return entita == Entita.COCKTAIL || entita == Entita.INGREDIENTE;
+    }
+}
@@ -0,0 +1,17 @@
+package com.cocktail.cocktailproject.event;
+
+/**
+ * PreferitoEvent - Evento applicativo per l'aggiunta o la rimozione di un preferito
+ * 
+ * Pubblicato da FavoritiService dentro la transazione; chi lo ascolta con
+ * @TransactionalEventListener lo riceve solo dopo il commit.
+ * A differenza di CatalogChangeEvent (FAVORITO) porta anche l'utente,
+ * necessario per aggiornare i modelli per utente (raccomandazioni).
+ * Non viene propagato alle altre istanze.
+ * 
+ * @param keycloakUserId UUID utente (claim 'sub')
+ * @param cocktailId ID del cocktail
+ * @param aggiunto true se aggiunto ai preferiti, false se rimosso
+ */
+public record PreferitoEvent(String keycloakUserId, Long cocktailId, boolean aggiunto) {
+}
@@ -0,0 +1,134 @@
+package com.cocktail.cocktailproject.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * V2 - Colonne, tabelle e indici aggiunti allo schema iniziale (V1)
+ *
+ * I database creati prima di Flyway sono stati completati da Hibernate (ddl-auto=update)
+ * in momenti diversi: a seconda della versione dell'app con cui sono partiti alcune di
+ * queste colonne, tabelle e indici esistono già, altri no. MySQL non ha
+ * "ADD COLUMN IF NOT EXISTS" né "CREATE INDEX IF NOT EXISTS": ogni oggetto viene
+ * creato solo se DatabaseMetaData non lo trova, così lo stesso script va bene su un
+ * database nuovo, su uno fermo allo schema creato dal vecchio init.sql e su uno già
+ * toccato da ddl-auto=update.
+ *
+ * Migrazione Java registrata come bean: Flyway la riceve da Spring Boot insieme agli
+ * script di spring.flyway.locations (niente scansione del classpath, va bene anche
+ * nell'immagine nativa).
+ */
+@Component
+public class V2__SchemaCatalogo extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        DatabaseMetaData metadati = connection.getMetaData();
+        try (Statement sql = connection.createStatement()) {
+
+            // cocktail: ETag / Last-Modified, locking ottimistico, sort=popularity
+            aggiungiColonna(sql, metadati, "cocktail", "aggiornato_il",
+                    "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)");
+            aggiungiColonna(sql, metadati, "cocktail", "versione", "BIGINT NOT NULL DEFAULT 0");
+            aggiungiColonna(sql, metadati, "cocktail", "preferiti", "BIGINT NOT NULL DEFAULT 0");
+            // Ordinamenti ammessi per ?sort= (vedi CocktailService.ORDINAMENTI)
+            creaIndice(sql, metadati, "cocktail", "idx_cocktail_nome", "nome, id");
+            creaIndice(sql, metadati, "cocktail", "idx_cocktail_tempo", "tempo_preparazione_minutes, id");
+            creaIndice(sql, metadati, "cocktail", "idx_cocktail_preferiti", "preferiti DESC, id");
+
+            // ingredienti: sort=usage, /top
+            aggiungiColonna(sql, metadati, "ingredienti", "utilizzi", "BIGINT NOT NULL DEFAULT 0");
+            creaIndice(sql, metadati, "ingredienti", "idx_ingredienti_utilizzi", "utilizzi DESC, id");
+
+            // user_favoriti: nei database creati dal vecchio init.sql esiste solo dopo il primo avvio (ddl-auto=update)
+            aggiungiColonna(sql, metadati, "user_favoriti", "created_at",
+                    "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)");
+
+            // preparazione: step di uno o più cocktail in ordine di esecuzione
+            // (findByCocktailIdOrderByStepOrderAsc, findByCocktailIdInOrderByCocktailIdAscStepOrderAsc)
+            // senza filesort, e cocktail che usano un ingrediente / conteggio degli utilizzi
+            // (COUNT(DISTINCT cocktail_id) ... GROUP BY ingrediente_id) con indice coprente.
+            // I nuovi indici servono anche alle foreign key: quelli a colonna singola vengono
+            // eliminati dopo averli creati
+            creaIndice(sql, metadati, "preparazione", "idx_prep_cocktail_step", "cocktail_id, step_order");
+            eliminaIndice(sql, metadati, "preparazione", "idx_prep_cocktail");
+            creaIndice(sql, metadati, "preparazione", "idx_prep_ingrediente_cocktail", "ingrediente_id, cocktail_id");
+            eliminaIndice(sql, metadati, "preparazione", "idx_prep_ingrediente");
+
+            // Read model delle ricette: un documento JSON per cocktail
+            // (cocktail + step + ingredienti), popolato all'avvio dell'app
+            sql.execute("CREATE TABLE IF NOT EXISTS cocktail_read_model ("
+                    + "cocktail_id BIGINT PRIMARY KEY, "
+                    + "documento MEDIUMTEXT NOT NULL, "
+                    + "aggiornato_il DATETIME(6) NOT NULL)");
+
+            // Outbox delle modifiche al catalogo: seq è il cursore di GET /api/changes?since=<seq>,
+            // origine l'istanza che ha scritto la modifica (bus di invalidazione delle cache)
+            sql.execute("CREATE TABLE IF NOT EXISTS catalog_change ("
+                    + "seq BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "entita VARCHAR(30) NOT NULL, "
+                    + "entita_id BIGINT NOT NULL, "
+                    + "operazione VARCHAR(20) NOT NULL, "
+                    + "origine VARCHAR(64) NOT NULL, "
+                    + "creato_il DATETIME(6) NOT NULL)");
+            creaIndice(sql, metadati, "catalog_change", "idx_change_creato_il", "creato_il");
+
+            // Contatori denormalizzati: ricalcolati sempre, anche dove le colonne esistevano già
+            sql.execute("UPDATE ingredienti i SET utilizzi = "
+                    + "(SELECT COUNT(DISTINCT p.cocktail_id) FROM preparazione p WHERE p.ingrediente_id = i.id)");
+            sql.execute("UPDATE cocktail c SET preferiti = "
+                    + "(SELECT COUNT(*) FROM user_favoriti f WHERE f.cocktail_id = c.id)");
+        }
+    }
+
+    private static void aggiungiColonna(Statement sql, DatabaseMetaData metadati, String tabella,
+                                        String colonna, String definizione) throws SQLException {
+        try (ResultSet colonne = metadati.getColumns(catalogo(metadati), schema(metadati), tabella, colonna)) {
+            if (colonne.next()) {
+                return;
+            }
+        }
+        sql.execute("ALTER TABLE " + tabella + " ADD COLUMN " + colonna + " " + definizione);
+    }
+
+    private static void creaIndice(Statement sql, DatabaseMetaData metadati, String tabella,
+                                   String indice, String colonne) throws SQLException {
+        if (!esisteIndice(metadati, tabella, indice)) {
+            sql.execute("CREATE INDEX " + indice + " ON " + tabella + " (" + colonne + ")");
+        }
+    }
+
+    private static void eliminaIndice(Statement sql, DatabaseMetaData metadati, String tabella,
+                                      String indice) throws SQLException {
+        if (esisteIndice(metadati, tabella, indice)) {
+            sql.execute("DROP INDEX " + indice + " ON " + tabella);
+        }
+    }
+
+    private static boolean esisteIndice(DatabaseMetaData metadati, String tabella, String indice) throws SQLException {
+        try (ResultSet indici = metadati.getIndexInfo(catalogo(metadati), schema(metadati), tabella, false, true)) {
+            while (indici.next()) {
+                if (indice.equalsIgnoreCase(indici.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String catalogo(DatabaseMetaData metadati) throws SQLException {
+        return metadati.getConnection().getCatalog();
+    }
+
+    private static String schema(DatabaseMetaData metadati) throws SQLException {
+        return metadati.getConnection().getSchema();
+    }
+}
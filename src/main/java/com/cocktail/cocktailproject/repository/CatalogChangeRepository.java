@@ -0,0 +1,64 @@
+package com.cocktail.cocktailproject.repository;
+
+import com.cocktail.cocktailproject.entity.CatalogChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * CatalogChangeRepository - Accesso ai dati dell'outbox catalog_change
+ * 
+ * Le insert NON passano da qui: ChangeFeedService le scrive con una batch JDBC
+ * (con IDENTITY Hibernate non può raggruppare le insert).
+ * 
+ * Query custom:
+ * - Lettura delle modifiche successive a un numero di sequenza
+ * - Pulizia delle modifiche più vecchie della retention
+ */
+@Repository
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    /**
+     * Modifiche con seq > since, in ordine di sequenza
+     * 
+     * Esclude le righe scritte negli ultimi settleMicros microsecondi: due transazioni
+     * concorrenti possono confermarsi in ordine diverso dal seq, e la finestra evita
+     * che un consumatore salti una riga con seq più basso confermata subito dopo.
+     * 
+     * @param since Ultimo seq già letto dal consumatore
+     * @param settleMicros Finestra di assestamento in microsecondi
+     * @param limit Numero massimo di righe
+     * @return Lista di modifiche ordinate per seq
+     */
+    @Query(value = "SELECT * FROM catalog_change WHERE seq > :since " +
+                   "AND creato_il < TIMESTAMPADD(MICROSECOND, -:settleMicros, CURRENT_TIMESTAMP(6)) " +
+                   "ORDER BY seq LIMIT :limit", nativeQuery = true)
+    List<CatalogChange> findSince(@Param("since") long since,
+                                  @Param("settleMicros") long settleMicros,
+                                  @Param("limit") int limit);
+
+    /**
+     * @return seq dell'ultima modifica registrata, null se l'outbox è vuoto
+     */
+    @Query("SELECT MAX(c.seq) FROM CatalogChange c")
+    Long findMaxSeq();
+
+    /**
+     * Elimina al massimo "limit" modifiche più vecchie di "ore" ore
+     * Cancellazione a blocchi per non tenere lock lunghi sulla tabella
+     * 
+     * @param ore Retention in ore
+     * @param limit Numero massimo di righe da eliminare
+     * @return Numero di righe eliminate
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM catalog_change WHERE creato_il < TIMESTAMPADD(HOUR, -:ore, CURRENT_TIMESTAMP(6)) LIMIT :limit",
+           nativeQuery = true)
+    int deleteOlderThan(@Param("ore") int ore, @Param("limit") int limit);
+}
@@ -0,0 +1,40 @@
+package com.cocktail.cocktailproject.repository;
+
+import com.cocktail.cocktailproject.entity.CocktailReadModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * CocktailReadModelRepository - Accesso ai dati della tabella cocktail_read_model
+ * 
+ * Operazioni automatiche (da JpaRepository):
+ * - findAllById(ids): documenti di più cocktail con una lookup per chiave primaria
+ * - findAll(pageable): pagina di documenti (range scan sulla chiave primaria)
+ * - save / deleteById: mantenuti da CocktailReadModelService
+ * 
+ * Query custom:
+ * - Elenco di tutti gli ID presenti (per la verifica di consistenza)
+ * - Eliminazione dei documenti orfani (ricostruzione completa)
+ * - Scrittura in blocco senza merge (vedi CocktailReadModelRepositoryCustom)
+ */
+@Repository
+public interface CocktailReadModelRepository extends JpaRepository<CocktailReadModel, Long>, CocktailReadModelRepositoryCustom {
+
+    /**
+     * @return ID di tutti i cocktail che hanno un documento nel read model
+     */
+    @Query("SELECT r.cocktailId FROM CocktailReadModel r")
+    List<Long> findAllCocktailIds();
+
+    /**
+     * Elimina i documenti dei cocktail che non esistono più (una sola DELETE)
+     * @return numero di documenti eliminati
+     */
+    @Modifying
+    @Query("DELETE FROM CocktailReadModel r WHERE r.cocktailId NOT IN (SELECT c.id FROM Cocktail c)")
+    int deleteOrfani();
+}
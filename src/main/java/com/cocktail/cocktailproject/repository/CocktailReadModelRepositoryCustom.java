@@ -0,0 +1,25 @@
+package com.cocktail.cocktailproject.repository;
+
+import com.cocktail.cocktailproject.entity.CocktailReadModel;
+
+import java.util.List;
+
+/**
+ * CocktailReadModelRepositoryCustom - Scrittura in blocco dei documenti del read model
+ * 
+ * Usato dalla ricostruzione completa (CocktailReadModelService.ricostruisciTutto):
+ * il documento ha un ID assegnato, quindi save/saveAll farebbero una merge
+ * (una SELECT per documento prima di ogni INSERT/UPDATE).
+ */
+public interface CocktailReadModelRepositoryCustom {
+
+    /**
+     * Inserisce o sostituisce i documenti (nella transazione corrente)
+     * 
+     * Un solo batch JDBC di INSERT ... ON DUPLICATE KEY UPDATE, senza passare
+     * dal persistence context: eventuali entity già caricate non vengono aggiornate.
+     * 
+     * @param documenti Documenti da scrivere
+     */
+    void sostituisciTutti(List<CocktailReadModel> documenti);
+}
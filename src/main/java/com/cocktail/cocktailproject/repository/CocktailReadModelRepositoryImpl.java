@@ -0,0 +1,38 @@
+package com.cocktail.cocktailproject.repository;
+
+import com.cocktail.cocktailproject.entity.CocktailReadModel;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Implementazione della scrittura in blocco del read model con JdbcTemplate
+ * 
+ * Con rewriteBatchedStatements=true (spring.datasource.url) il driver MySQL
+ * invia il batch come una sola INSERT multi-riga.
+ */
+public class CocktailReadModelRepositoryImpl implements CocktailReadModelRepositoryCustom {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO cocktail_read_model (cocktail_id, documento, aggiornato_il) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE documento = VALUES(documento), aggiornato_il = VALUES(aggiornato_il)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CocktailReadModelRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void sostituisciTutti(List<CocktailReadModel> documenti) {
+        if (documenti.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, documenti, documenti.size(), (ps, documento) -> {
+            ps.setLong(1, documento.getCocktailId());
+            ps.setString(2, documento.getDocumento());
+            ps.setTimestamp(3, Timestamp.valueOf(documento.getAggiornatoIl()));
+        });
+    }
+}
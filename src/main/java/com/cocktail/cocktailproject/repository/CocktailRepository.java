@@ -1,12 +1,22 @@
 package com.cocktail.cocktailproject.repository;
 
+import com.cocktail.cocktailproject.dto.CocktailSummaryDTO;
+import com.cocktail.cocktailproject.dto.CocktailVersioneDTO;
 import com.cocktail.cocktailproject.entity.Cocktail;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * CocktailRepository - Accesso ai dati della tabella cocktail
@@ -20,9 +30,12 @@ import java.util.List;
  * 
  * Query custom:
  * - Ricerca per nome con supporto paginazione
+ * - Proiezioni "summary" (solo id, nome, tempo) per le liste
+ * - Colonne selezionate dinamicamente per ?fields= (vedi CocktailRepositoryCustom)
+ * - Versione e ultima modifica per le richieste condizionali (ETag / Last-Modified)
  */
 @Repository
-public interface CocktailRepository extends JpaRepository<Cocktail, Long> {
+public interface CocktailRepository extends JpaRepository<Cocktail, Long>, CocktailRepositoryCustom {
     
     /**
      * Cerca cocktail per nome (case-insensitive, ricerca parziale) - senza paginazione
@@ -38,4 +51,136 @@ public interface CocktailRepository extends JpaRepository<Cocktail, Long> {
      * @return Pagina di risultati
      */
     Page<Cocktail> findByNomeContainingIgnoreCase(String nome, Pageable pageable);
+
+    /**
+     * Lista compatta di tutti i cocktail (solo id, nome, tempo di preparazione)
+     * Seleziona solo le colonne necessarie: nessuna colonna TEXT, nessun join
+     * @param pageable Parametri di paginazione
+     * @return Pagina di CocktailSummaryDTO
+     */
+    @Query(value = "SELECT new com.cocktail.cocktailproject.dto.CocktailSummaryDTO(c.id, c.nome, c.tempoPreparazioneMinutes) FROM Cocktail c",
+           countQuery = "SELECT COUNT(c) FROM Cocktail c")
+    Page<CocktailSummaryDTO> findAllSummaries(Pageable pageable);
+
+    /**
+     * Ricerca per nome in versione compatta (case-insensitive, ricerca parziale)
+     * @param nome Stringa da cercare nel nome
+     * @param pageable Parametri di paginazione
+     * @return Pagina di CocktailSummaryDTO
+     */
+    @Query(value = "SELECT new com.cocktail.cocktailproject.dto.CocktailSummaryDTO(c.id, c.nome, c.tempoPreparazioneMinutes) FROM Cocktail c " +
+                   "WHERE LOWER(c.nome) LIKE LOWER(CONCAT('%', :nome, '%'))",
+           countQuery = "SELECT COUNT(c) FROM Cocktail c WHERE LOWER(c.nome) LIKE LOWER(CONCAT('%', :nome, '%'))")
+    Page<CocktailSummaryDTO> findSummariesByNome(@Param("nome") String nome, Pageable pageable);
+
+    /**
+     * Come findSummariesByNome, senza COUNT (legge pageSize + 1 righe per sapere se c'è una pagina successiva)
+     */
+    @Query("SELECT new com.cocktail.cocktailproject.dto.CocktailSummaryDTO(c.id, c.nome, c.tempoPreparazioneMinutes) FROM Cocktail c " +
+           "WHERE LOWER(c.nome) LIKE LOWER(CONCAT('%', :nome, '%'))")
+    Slice<CocktailSummaryDTO> findSliceSummariesByNome(@Param("nome") String nome, Pageable pageable);
+
+    /**
+     * Vista compatta (id, nome, tempo) dei cocktail indicati, in ordine qualsiasi
+     * @param ids ID dei cocktail
+     * @return Lista di CocktailSummaryDTO (gli ID inesistenti vengono ignorati)
+     */
+    @Query("SELECT new com.cocktail.cocktailproject.dto.CocktailSummaryDTO(c.id, c.nome, c.tempoPreparazioneMinutes) FROM Cocktail c WHERE c.id IN :ids")
+    List<CocktailSummaryDTO> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * ID dei cocktail in una pagina (legge solo la chiave primaria)
+     * @param pageable Parametri di paginazione
+     * @return Pagina di ID
+     */
+    @Query(value = "SELECT c.id FROM Cocktail c", countQuery = "SELECT COUNT(c) FROM Cocktail c")
+    Page<Long> findAllIds(Pageable pageable);
+
+    /**
+     * Blocco di cocktail successivi a un ID (paginazione per chiave, ricostruzione del read model)
+     * @param id Ultimo ID del blocco precedente (0 per il primo)
+     * @param limit Dimensione del blocco
+     * @return Cocktail con ID maggiore, in ordine di ID
+     */
+    List<Cocktail> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Tutti gli ID dei cocktail (per l'indice in memoria degli ID esistenti)
+     * @return Lista di ID
+     */
+    @Query("SELECT c.id FROM Cocktail c")
+    List<Long> findAllIds();
+
+    /**
+     * ID dei cocktail il cui nome contiene la stringa (case-insensitive), paginati
+     * @param nome Stringa da cercare nel nome
+     * @param pageable Parametri di paginazione
+     * @return Pagina di ID
+     */
+    @Query(value = "SELECT c.id FROM Cocktail c WHERE LOWER(c.nome) LIKE LOWER(CONCAT('%', :nome, '%'))",
+           countQuery = "SELECT COUNT(c) FROM Cocktail c WHERE LOWER(c.nome) LIKE LOWER(CONCAT('%', :nome, '%'))")
+    Page<Long> findIdsByNome(@Param("nome") String nome, Pageable pageable);
+
+    /**
+     * Come findIdsByNome, senza COUNT (legge pageSize + 1 righe per sapere se c'è una pagina successiva)
+     */
+    @Query("SELECT c.id FROM Cocktail c WHERE LOWER(c.nome) LIKE LOWER(CONCAT('%', :nome, '%'))")
+    Slice<Long> findSliceIdsByNome(@Param("nome") String nome, Pageable pageable);
+
+    /**
+     * Primi ID che corrispondono alla ricerca per nome, fino al limite (conteggio limitato)
+     * @param nome Stringa da cercare nel nome
+     * @param limit Numero massimo di ID letti
+     */
+    @Query("SELECT c.id FROM Cocktail c WHERE LOWER(c.nome) LIKE LOWER(CONCAT('%', :nome, '%'))")
+    List<Long> findPrimiIdsByNome(@Param("nome") String nome, Limit limit);
+
+    /**
+     * Versione e timestamp di ultima modifica di un cocktail (due colonne per chiave primaria)
+     * Usato per rispondere 304 senza caricare la ricetta.
+     * @param id ID del cocktail
+     * @return Optional con versione e timestamp, vuoto se il cocktail non esiste
+     */
+    @Query("SELECT new com.cocktail.cocktailproject.dto.CocktailVersioneDTO(c.versione, c.aggiornatoIl) FROM Cocktail c WHERE c.id = :id")
+    Optional<CocktailVersioneDTO> findVersioneById(@Param("id") Long id);
+
+    /**
+     * Segna come modificati più cocktail con un solo UPDATE (nuova versione e timestamp)
+     * Usato quando cambiano gli step ma non la riga del cocktail (es. ingrediente eliminato):
+     * un If-Match con la versione precedente deve fallire.
+     * @param ids ID dei cocktail
+     * @param ora Nuovo timestamp
+     * @return numero di righe aggiornate
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Cocktail c SET c.aggiornatoIl = :ora, c.versione = c.versione + 1 WHERE c.id IN :ids")
+    int segnaModificati(@Param("ids") Collection<Long> ids, @Param("ora") LocalDateTime ora);
+
+    /**
+     * Aggiunge delta al contatore preferiti di un cocktail (UPDATE atomico, versione invariata)
+     * @param id ID del cocktail
+     * @param delta +1 per un preferito aggiunto, -1 per uno rimosso
+     * @return numero di righe aggiornate
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Cocktail c SET c.preferiti = c.preferiti + :delta WHERE c.id = :id")
+    int aggiornaPreferiti(@Param("id") Long id, @Param("delta") long delta);
+
+    /**
+     * ID e contatore preferiti di tutti i cocktail (per la riconciliazione)
+     * @return Righe [id, preferiti]
+     */
+    @Query("SELECT c.id, c.preferiti FROM Cocktail c")
+    List<Object[]> findAllPreferiti();
+
+    /**
+     * Imposta il contatore preferiti solo se vale ancora il valore letto
+     * @param id ID del cocktail
+     * @param letto Valore letto durante la riconciliazione
+     * @param preferiti Valore ricalcolato
+     * @return 1 se aggiornato, 0 altrimenti
+     */
+    @Modifying
+    @Query("UPDATE Cocktail c SET c.preferiti = :preferiti WHERE c.id = :id AND c.preferiti = :letto")
+    int correggiPreferiti(@Param("id") Long id, @Param("letto") long letto, @Param("preferiti") long preferiti);
 }
@@ -0,0 +1,59 @@
+package com.cocktail.cocktailproject.repository;
+
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * CocktailRepositoryCustom - Query con colonne selezionate dinamicamente
+ * 
+ * Usato dalle sparse fieldsets (?fields=): la SELECT contiene solo gli
+ * attributi richiesti, così le colonne TEXT e la tabella preparazione
+ * vengono lette solo quando servono.
+ * 
+ * Ogni Tuple espone i valori con alias uguale al nome dell'attributo.
+ */
+public interface CocktailRepositoryCustom {
+
+    /**
+     * Pagina di cocktail con solo le colonne indicate
+     * @param colonne Attributi di Cocktail da selezionare (es: "id", "nome")
+     * @param nome Filtro sul nome (ricerca parziale case-insensitive), null per nessun filtro
+     * @param pageable Parametri di paginazione
+     * @return Pagina di Tuple
+     */
+    Page<Tuple> findColonne(Set<String> colonne, String nome, Pageable pageable);
+
+    /**
+     * Come findColonne, senza COUNT: legge pageSize + 1 righe per sapere se c'è una pagina successiva
+     * @param colonne Attributi di Cocktail da selezionare
+     * @param nome Filtro sul nome, null per nessun filtro
+     * @param pageable Parametri di paginazione
+     * @return Slice di Tuple
+     */
+    Slice<Tuple> findSliceColonne(Set<String> colonne, String nome, Pageable pageable);
+
+    /**
+     * Cocktail con gli ID indicati, con solo le colonne indicate
+     * @param colonne Attributi di Cocktail da selezionare
+     * @param ids ID dei cocktail
+     * @return Lista di Tuple (ordine non garantito)
+     */
+    List<Tuple> findColonneByIds(Set<String> colonne, Collection<Long> ids);
+
+    /**
+     * Step di preparazione di più cocktail in una sola query, con solo i campi indicati
+     * Il join con ingredienti viene fatto solo se è richiesto il campo "ingrediente".
+     * Ogni Tuple contiene sempre "cocktailId" e "stepOrder".
+     * 
+     * @param campiStep Campi dello step (stepOrder, ingrediente, quantita, unita, istruzione)
+     * @param cocktailIds ID dei cocktail
+     * @return Lista di Tuple ordinata per cocktail e step
+     */
+    List<Tuple> findColonneStep(Set<String> campiStep, Collection<Long> cocktailIds);
+}
@@ -0,0 +1,154 @@
+package com.cocktail.cocktailproject.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * CocktailRepositoryImpl - Implementazione delle query a colonne dinamiche
+ * 
+ * I nomi delle colonne arrivano da una whitelist: ogni attributo viene
+ * verificato prima di essere inserito nella JPQL.
+ */
+public class CocktailRepositoryImpl implements CocktailRepositoryCustom {
+
+    private static final Set<String> ATTRIBUTI_COCKTAIL =
+            Set.of("id", "nome", "descrizione", "tempoPreparazioneMinutes", "note", "aggiornatoIl", "versione");
+
+    // Attributi ammessi nell'ORDER BY (il contatore preferiti non è un campo selezionabile)
+    private static final Set<String> ORDINABILI_COCKTAIL =
+            Set.of("id", "nome", "tempoPreparazioneMinutes", "aggiornatoIl", "preferiti");
+
+    // Campo dello step -> espressione JPQL
+    private static final Map<String, String> ATTRIBUTI_STEP = Map.of(
+            "stepOrder", "p.stepOrder",
+            "ingrediente", "i.nome",
+            "quantita", "p.quantita",
+            "unita", "p.unita",
+            "istruzione", "p.istruzione"
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Tuple> findColonne(Set<String> colonne, String nome, Pageable pageable) {
+        String where = nome != null ? " WHERE LOWER(c.nome) LIKE LOWER(CONCAT('%', :nome, '%'))" : "";
+
+        TypedQuery<Tuple> query = entityManager.createQuery(
+                "SELECT " + selectCocktail(colonne) + " FROM Cocktail c" + where + orderBy(pageable.getSort()),
+                Tuple.class);
+        TypedQuery<Long> countQuery = entityManager.createQuery(
+                "SELECT COUNT(c) FROM Cocktail c" + where, Long.class);
+        if (nome != null) {
+            query.setParameter("nome", nome);
+            countQuery.setParameter("nome", nome);
+        }
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<Tuple> content = query.getResultList();
+        return new PageImpl<>(content, pageable, countQuery.getSingleResult());
+    }
+
+    @Override
+    public Slice<Tuple> findSliceColonne(Set<String> colonne, String nome, Pageable pageable) {
+        String where = nome != null ? " WHERE LOWER(c.nome) LIKE LOWER(CONCAT('%', :nome, '%'))" : "";
+
+        TypedQuery<Tuple> query = entityManager.createQuery(
+                "SELECT " + selectCocktail(colonne) + " FROM Cocktail c" + where + orderBy(pageable.getSort()),
+                Tuple.class);
+        if (nome != null) {
+            query.setParameter("nome", nome);
+        }
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(query.getResultList(), pageable, false);
+        }
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize() + 1);
+        List<Tuple> content = query.getResultList();
+        boolean altre = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(altre ? content.subList(0, pageable.getPageSize()) : content, pageable, altre);
+    }
+
+    @Override
+    public List<Tuple> findColonneByIds(Set<String> colonne, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return entityManager.createQuery(
+                        "SELECT " + selectCocktail(colonne) + " FROM Cocktail c WHERE c.id IN :ids", Tuple.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    @Override
+    public List<Tuple> findColonneStep(Set<String> campiStep, Collection<Long> cocktailIds) {
+        if (cocktailIds.isEmpty()) {
+            return List.of();
+        }
+        StringBuilder select = new StringBuilder("p.cocktailId AS cocktailId, p.stepOrder AS stepOrder");
+        for (String campo : campiStep) {
+            String espressione = ATTRIBUTI_STEP.get(campo);
+            if (espressione == null) {
+                throw new IllegalArgumentException("Campo dello step non supportato: " + campo);
+            }
+            if (!campo.equals("stepOrder")) {
+                select.append(", ").append(espressione).append(" AS ").append(campo);
+            }
+        }
+        String join = campiStep.contains("ingrediente") ? " JOIN Ingrediente i ON i.id = p.ingredienteId" : "";
+
+        return entityManager.createQuery(
+                        "SELECT " + select + " FROM Preparazione p" + join +
+                        " WHERE p.cocktailId IN :ids ORDER BY p.cocktailId, p.stepOrder", Tuple.class)
+                .setParameter("ids", cocktailIds)
+                .getResultList();
+    }
+
+    /**
+     * Costruisce la lista di colonne "c.attr AS attr" verificando la whitelist
+     */
+    private String selectCocktail(Set<String> colonne) {
+        for (String colonna : colonne) {
+            if (!ATTRIBUTI_COCKTAIL.contains(colonna)) {
+                throw new IllegalArgumentException("Campo non supportato: " + colonna);
+            }
+        }
+        return colonne.stream()
+                .map(colonna -> "c." + colonna + " AS " + colonna)
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * ORDER BY dal Sort del Pageable (solo attributi in whitelist), default per id
+     * per avere una paginazione stabile
+     */
+    private String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return " ORDER BY c.id";
+        }
+        return sort.stream()
+                .map(order -> {
+                    if (!ORDINABILI_COCKTAIL.contains(order.getProperty())) {
+                        throw new IllegalArgumentException("Ordinamento non supportato: " + order.getProperty());
+                    }
+                    return "c." + order.getProperty() + (order.isAscending() ? " ASC" : " DESC");
+                })
+                .collect(Collectors.joining(", ", " ORDER BY ", ""));
+    }
+}
@@ -1,11 +1,18 @@
 package com.cocktail.cocktailproject.repository;
 
 import com.cocktail.cocktailproject.entity.Ingrediente;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -19,6 +26,7 @@ import java.util.Optional;
  * 
  * Query custom:
  * - Ricerca per nome esatto e case-insensitive
+ * - Aggiornamento e lettura del contatore utilizzi
  */
 @Repository
 public interface IngredienteRepository extends JpaRepository<Ingrediente, Long> {
@@ -37,4 +45,47 @@ public interface IngredienteRepository extends JpaRepository<Ingrediente, Long>
      * @return Pagina di ingredienti che corrispondono alla ricerca
      */
     Page<Ingrediente> findByNomeContainingIgnoreCase(String nome, Pageable pageable);
+
+    /**
+     * Ricerca per nome parziale senza COUNT (legge pageSize + 1 righe per sapere se c'è una pagina successiva)
+     */
+    @Query("SELECT i FROM Ingrediente i WHERE LOWER(i.nome) LIKE LOWER(CONCAT('%', :nome, '%'))")
+    Slice<Ingrediente> findSliceByNome(@Param("nome") String nome, Pageable pageable);
+
+    /**
+     * Primi ID che corrispondono alla ricerca per nome, fino al limite (conteggio limitato)
+     * @param nome Stringa da cercare nel nome
+     * @param limit Numero massimo di ID letti
+     */
+    @Query("SELECT i.id FROM Ingrediente i WHERE LOWER(i.nome) LIKE LOWER(CONCAT('%', :nome, '%'))")
+    List<Long> findPrimiIdsByNome(@Param("nome") String nome, Limit limit);
+
+    /**
+     * Aggiunge delta al contatore utilizzi degli ingredienti indicati (UPDATE atomico)
+     * @param ids ID degli ingredienti
+     * @param delta +1 per step inseriti, -1 per step eliminati
+     * @return numero di righe aggiornate
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Ingrediente i SET i.utilizzi = i.utilizzi + :delta WHERE i.id IN :ids")
+    int aggiornaUtilizzi(@Param("ids") Collection<Long> ids, @Param("delta") long delta);
+
+    /**
+     * ID e contatore utilizzi di tutti gli ingredienti (per la riconciliazione)
+     * @return Righe [id, utilizzi]
+     */
+    @Query("SELECT i.id, i.utilizzi FROM Ingrediente i")
+    List<Object[]> findAllUtilizzi();
+
+    /**
+     * Imposta il contatore utilizzi solo se vale ancora il valore letto
+     * (una modifica concorrente nel frattempo fa saltare la correzione)
+     * @param id ID dell'ingrediente
+     * @param letto Valore letto durante la riconciliazione
+     * @param utilizzi Valore ricalcolato
+     * @return 1 se aggiornato, 0 altrimenti
+     */
+    @Modifying
+    @Query("UPDATE Ingrediente i SET i.utilizzi = :utilizzi WHERE i.id = :id AND i.utilizzi = :letto")
+    int correggiUtilizzi(@Param("id") Long id, @Param("letto") long letto, @Param("utilizzi") long utilizzi);
 }
@@ -1,9 +1,13 @@
 package com.cocktail.cocktailproject.repository;
 
+import com.cocktail.cocktailproject.dto.VoceListaSpesaDTO;
 import com.cocktail.cocktailproject.entity.Preparazione;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,9 +21,11 @@ import java.util.List;
  * Query custom:
  * - Ricerca step per cocktail con ordinamento
  * - Cancellazione di tutti gli step di un cocktail
+ * - Quantità aggregate per ingrediente sui preferiti di un utente (lista della spesa)
+ * - Scritture minime in batch per la modifica degli step (vedi PreparazioneRepositoryCustom)
  */
 @Repository
-public interface PreparazioneRepository extends JpaRepository<Preparazione, Long> {
+public interface PreparazioneRepository extends JpaRepository<Preparazione, Long>, PreparazioneRepositoryCustom {
     
     /**
      * Ottieni tutti gli step di preparazione di un cocktail, ordinati per numero step
@@ -27,6 +33,13 @@ public interface PreparazioneRepository extends JpaRepository<Preparazione, Long
      * @return Lista di step ordinati (step 1, step 2, step 3, ...)
      */
     List<Preparazione> findByCocktailIdOrderByStepOrderAsc(Long cocktailId);
+
+    /**
+     * Ottieni gli step di più cocktail con una sola query (set-based)
+     * @param cocktailIds ID dei cocktail
+     * @return Lista di step ordinati per cocktail e numero step
+     */
+    List<Preparazione> findByCocktailIdInOrderByCocktailIdAscStepOrderAsc(Collection<Long> cocktailIds);
     
     /**
      * Elimina tutti gli step di preparazione di un cocktail
@@ -36,6 +49,35 @@ public interface PreparazioneRepository extends JpaRepository<Preparazione, Long
      */
     void deleteByCocktailId(Long cocktailId);
 
+    /**
+     * ID degli ingredienti usati negli step di un cocktail
+     * Usato per aggiornare il contatore utilizzi prima di eliminare il cocktail
+     *
+     * @param cocktailId ID del cocktail
+     * @return Lista di ID ingredienti (un cocktail non ripete lo stesso ingrediente)
+     */
+    @Query("SELECT p.ingredienteId FROM Preparazione p WHERE p.cocktailId = :cocktailId")
+    List<Long> findIngredienteIdsByCocktailId(@Param("cocktailId") Long cocktailId);
+
+    /**
+     * Numero di cocktail che usano ogni ingrediente, con una sola query raggruppata
+     * Usato dalla riconciliazione del contatore utilizzi
+     *
+     * @return Righe [ingredienteId, numero di cocktail]
+     */
+    @Query("SELECT p.ingredienteId, COUNT(DISTINCT p.cocktailId) FROM Preparazione p GROUP BY p.ingredienteId")
+    List<Object[]> contaUtilizziPerIngrediente();
+
+    /**
+     * ID dei cocktail che usano un ingrediente in almeno uno step
+     * Usato per sapere quali ricette cambiano quando l'ingrediente viene eliminato
+     *
+     * @param ingredienteId ID dell'ingrediente
+     * @return Lista di ID cocktail (senza duplicati)
+     */
+    @Query("SELECT DISTINCT p.cocktailId FROM Preparazione p WHERE p.ingredienteId = :ingredienteId")
+    List<Long> findCocktailIdsByIngredienteId(@Param("ingredienteId") Long ingredienteId);
+
     /**
      * Elimina tutti gli step che usano un determinato ingrediente
      * Usato prima di eliminare un ingrediente
@@ -43,4 +85,18 @@ public interface PreparazioneRepository extends JpaRepository<Preparazione, Long
      * @param ingredienteId ID dell'ingrediente
      */
     void deleteByIngredienteId(Long ingredienteId);
+
+    /**
+     * Quantità totali per ingrediente e unità sui cocktail preferiti di un utente
+     * Una sola query raggruppata: nessun caricamento di cocktail o step.
+     * Le unità non sono ancora normalizzate (vedi FavoritiService.getListaSpesa)
+     *
+     * @param keycloakUserId UUID utente da JWT (claim 'sub')
+     * @return Una riga per (ingrediente, unità così come scritta nella ricetta)
+     */
+    @Query("SELECT new com.cocktail.cocktailproject.dto.VoceListaSpesaDTO(p.ingredienteId, i.nome, SUM(p.quantita), p.unita) " +
+           "FROM Preparazione p JOIN Ingrediente i ON i.id = p.ingredienteId " +
+           "WHERE p.cocktailId IN (SELECT f.cocktail.id FROM UserFavorito f WHERE f.keycloakUserId = :userId) " +
+           "GROUP BY p.ingredienteId, i.nome, p.unita")
+    List<VoceListaSpesaDTO> sommaQuantitaPreferiti(@Param("userId") String keycloakUserId);
 }
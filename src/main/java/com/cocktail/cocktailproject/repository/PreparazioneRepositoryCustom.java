@@ -0,0 +1,38 @@
+package com.cocktail.cocktailproject.repository;
+
+import com.cocktail.cocktailproject.entity.Preparazione;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PreparazioneRepositoryCustom - Scritture minime sugli step di una ricetta
+ * 
+ * Usato dalla modifica degli step (PUT/PATCH /api/cocktails/{id}/steps):
+ * il service calcola la differenza tra gli step esistenti e quelli richiesti,
+ * qui vengono eseguite solo le scritture necessarie, in batch JDBC.
+ */
+public interface PreparazioneRepositoryCustom {
+
+    /**
+     * Applica la differenza calcolata sugli step (nella transazione corrente)
+     * 
+     * - eliminazioni: una DELETE ... WHERE id IN (...)
+     * - aggiornamenti: UPDATE di quantità/unità/istruzione, in un solo batch
+     * - nuoviOrdini: rinumerazione di step_order con UNA UPDATE ... CASE id
+     * - inserimenti: INSERT in un solo batch
+     * 
+     * Il persistence context viene svuotato prima (flush) e pulito dopo (clear):
+     * le letture successive vedono gli step aggiornati.
+     * 
+     * @param inserimenti Nuovi step (id null)
+     * @param aggiornamenti Step esistenti con il nuovo contenuto (id valorizzato)
+     * @param nuoviOrdini ID step -> nuovo step_order (solo quelli che cambiano)
+     * @param eliminazioni ID degli step da eliminare
+     */
+    void applicaModifiche(List<Preparazione> inserimenti,
+                          List<Preparazione> aggiornamenti,
+                          Map<Long, Integer> nuoviOrdini,
+                          Collection<Long> eliminazioni);
+}
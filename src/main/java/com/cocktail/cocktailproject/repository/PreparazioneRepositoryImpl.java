@@ -0,0 +1,100 @@
+package com.cocktail.cocktailproject.repository;
+
+import com.cocktail.cocktailproject.entity.Preparazione;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementazione delle scritture minime sugli step con JdbcTemplate
+ * 
+ * Le INSERT passano da JDBC perché con ID IDENTITY Hibernate non può
+ * raggrupparle in batch (deve leggere ogni ID generato).
+ */
+public class PreparazioneRepositoryImpl implements PreparazioneRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO preparazione (cocktail_id, ingrediente_id, quantita, unita, step_order, istruzione) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+            "UPDATE preparazione SET quantita = ?, unita = ?, istruzione = ? WHERE id = ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PreparazioneRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void applicaModifiche(List<Preparazione> inserimenti,
+                                 List<Preparazione> aggiornamenti,
+                                 Map<Long, Integer> nuoviOrdini,
+                                 Collection<Long> eliminazioni) {
+        entityManager.flush();
+
+        if (!eliminazioni.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM preparazione WHERE id IN (" + segnaposti(eliminazioni.size()) + ")",
+                    eliminazioni.toArray());
+        }
+
+        if (!aggiornamenti.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, aggiornamenti, aggiornamenti.size(), (ps, step) -> {
+                ps.setBigDecimal(1, step.getQuantita());
+                ps.setString(2, step.getUnita());
+                if (step.getIstruzione() != null) {
+                    ps.setString(3, step.getIstruzione());
+                } else {
+                    ps.setNull(3, Types.VARCHAR);
+                }
+                ps.setLong(4, step.getId());
+            });
+        }
+
+        if (!nuoviOrdini.isEmpty()) {
+            // Una sola UPDATE per tutta la rinumerazione:
+            // SET step_order = CASE id WHEN ? THEN ? ... END WHERE id IN (...)
+            StringBuilder sql = new StringBuilder("UPDATE preparazione SET step_order = CASE id");
+            List<Object> parametri = new ArrayList<>(nuoviOrdini.size() * 3);
+            nuoviOrdini.forEach((id, ordine) -> {
+                sql.append(" WHEN ? THEN ?");
+                parametri.add(id);
+                parametri.add(ordine);
+            });
+            sql.append(" END WHERE id IN (").append(segnaposti(nuoviOrdini.size())).append(")");
+            parametri.addAll(nuoviOrdini.keySet());
+            jdbcTemplate.update(sql.toString(), parametri.toArray());
+        }
+
+        if (!inserimenti.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserimenti, inserimenti.size(), (ps, step) -> {
+                ps.setLong(1, step.getCocktailId());
+                ps.setLong(2, step.getIngredienteId());
+                ps.setBigDecimal(3, step.getQuantita());
+                ps.setString(4, step.getUnita());
+                ps.setInt(5, step.getStepOrder());
+                if (step.getIstruzione() != null) {
+                    ps.setString(6, step.getIstruzione());
+                } else {
+                    ps.setNull(6, Types.VARCHAR);
+                }
+            });
+        }
+
+        entityManager.clear();
+    }
+
+    private static String segnaposti(int n) {
+        return String.join(", ", Collections.nCopies(n, "?"));
+    }
+}
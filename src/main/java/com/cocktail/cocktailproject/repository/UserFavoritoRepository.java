@@ -2,6 +2,8 @@ package com.cocktail.cocktailproject.repository;
 
 import com.cocktail.cocktailproject.entity.UserFavorito;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -22,6 +24,7 @@ import java.util.Optional;
  * - Ricerca favoriti per utente
  * - Verifica esistenza favorito
  * - Conteggio favoriti per utente
+ * - Conteggio per cocktail (riconciliazione della popolarità)
  * - Cancellazione per cocktail
  */
 @Repository
@@ -33,6 +36,16 @@ public interface UserFavoritoRepository extends JpaRepository<UserFavorito, Long
      * @return Lista di tutti i favoriti dell'utente
      */
     List<UserFavorito> findByKeycloakUserId(String keycloakUserId);
+
+    /**
+     * ID dei cocktail preferiti di un utente, in ordine di inserimento
+     * Legge solo la colonna cocktail_id (nessun caricamento dei cocktail)
+     *
+     * @param keycloakUserId UUID utente da JWT (claim 'sub')
+     * @return Lista di ID cocktail
+     */
+    @Query("SELECT f.cocktail.id FROM UserFavorito f WHERE f.keycloakUserId = :userId ORDER BY f.id")
+    List<Long> findCocktailIdsByKeycloakUserId(@Param("userId") String keycloakUserId);
     
     /**
      * Verifica se un cocktail è già nei favoriti di un utente
@@ -63,6 +76,15 @@ public interface UserFavoritoRepository extends JpaRepository<UserFavorito, Long
      */
     long countByKeycloakUserId(String keycloakUserId);
     
+    /**
+     * Numero di utenti che hanno ogni cocktail nei preferiti, con una sola query raggruppata
+     * Usato dalla riconciliazione del contatore preferiti dei cocktail
+     * 
+     * @return Righe [cocktailId, numero di utenti]
+     */
+    @Query("SELECT f.cocktail.id, COUNT(f) FROM UserFavorito f GROUP BY f.cocktail.id")
+    List<Object[]> contaPerCocktail();
+    
     /**
      * Elimina tutti i favoriti associati a un cocktail
      * 
@@ -0,0 +1,238 @@
+package com.cocktail.cocktailproject.service;
+
+import com.cocktail.cocktailproject.cache.CatalogGeneration;
+import com.cocktail.cocktailproject.dto.CatalogChangeDTO;
+import com.cocktail.cocktailproject.dto.CatalogChangePageDTO;
+import com.cocktail.cocktailproject.entity.CatalogChange;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent;
+import com.cocktail.cocktailproject.repository.CatalogChangeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * ChangeFeedService - Outbox transazionale delle modifiche al catalogo
+ * 
+ * Come funziona:
+ * - I service (CocktailService, IngredientService, FavoritiService) chiamano registra()
+ *   durante le loro transazioni
+ * - Le modifiche vengono accumulate in memoria (senza duplicati) e scritte con
+ *   UNA batch INSERT subito prima del commit: una sola andata al database per transazione
+ * - Se la transazione fallisce non viene scritto nulla (stesso commit dei dati)
+ * - Dopo il commit viene pubblicato un CatalogChangeEvent per ogni modifica,
+ *   usato da cache e indici in memoria; poi il seq più alto scritto passa a
+ *   CatalogGeneration (ETag di liste e ricerche)
+ * 
+ * Le modifiche sono lette da GET /api/changes e dallo stream SSE (ChangeStreamService)
+ * e vengono eliminate dopo cocktail.changes.retention-hours ore.
+ */
+@Service
+public class ChangeFeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO catalog_change (entita, entita_id, operazione, origine, creato_il) VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP(6))";
+
+    // Righe eliminate per ogni DELETE del job di pulizia
+    private static final int PRUNE_BATCH = 5000;
+
+    // Chiave della risorsa legata alla transazione corrente (buffer delle modifiche)
+    private static final Object BUFFER_KEY = new Object();
+
+    private final CatalogChangeRepository changeRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogGeneration catalogGeneration;
+
+    @Value("${cocktail.changes.settle-ms:500}")
+    private long settleMs;
+
+    // Identifica questa istanza nelle righe dell'outbox (default: UUID casuale a ogni avvio)
+    @Value("${cocktail.node-id:#{T(java.util.UUID).randomUUID().toString()}}")
+    private String nodeId;
+
+    @Value("${cocktail.changes.retention-hours:168}")
+    private int retentionHours;
+
+    public ChangeFeedService(CatalogChangeRepository changeRepository,
+                             JdbcTemplate jdbcTemplate,
+                             ApplicationEventPublisher eventPublisher,
+                             CatalogGeneration catalogGeneration) {
+        this.changeRepository = changeRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.catalogGeneration = catalogGeneration;
+    }
+
+    /**
+     * Registra una modifica nella transazione corrente
+     * Senza transazione attiva la modifica viene scritta e pubblicata subito.
+     * 
+     * @param entita Tipo di entità
+     * @param entitaId ID dell'entità (per FAVORITO l'ID del cocktail)
+     * @param operazione Tipo di modifica
+     */
+    public void registra(CatalogChangeEvent.Entita entita, Long entitaId, CatalogChangeEvent.Operazione operazione) {
+        CatalogChangeEvent evento = new CatalogChangeEvent(entita, entitaId, operazione, false);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            long seq = scrivi(List.of(evento));
+            pubblica(List.of(evento), seq);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<CatalogChangeEvent> buffer = (Set<CatalogChangeEvent>) TransactionSynchronizationManager.getResource(BUFFER_KEY);
+        if (buffer == null) {
+            Set<CatalogChangeEvent> nuovoBuffer = new LinkedHashSet<>();
+            AtomicLong seqScritto = new AtomicLong();
+            TransactionSynchronizationManager.bindResource(BUFFER_KEY, nuovoBuffer);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    seqScritto.set(scrivi(nuovoBuffer));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(BUFFER_KEY);
+                    if (status == STATUS_COMMITTED) {
+                        pubblica(nuovoBuffer, seqScritto.get());
+                    }
+                }
+            });
+            buffer = nuovoBuffer;
+        }
+        buffer.add(evento);
+    }
+
+    /**
+     * Legge le modifiche successive a un numero di sequenza
+     * @param since Ultimo seq già letto (0 per partire dall'inizio della retention)
+     * @param limit Numero massimo di modifiche
+     * @return pagina di modifiche con il cursore per la chiamata successiva
+     */
+    public CatalogChangePageDTO leggi(long since, int limit) {
+        List<CatalogChangeDTO> changes = leggiModifiche(since, limit);
+        long ultimoSeq = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq();
+        return new CatalogChangePageDTO(changes, ultimoSeq, changes.size() == limit);
+    }
+
+    /**
+     * Come leggi() ma restituisce solo la lista (usato dallo stream SSE)
+     */
+    public List<CatalogChangeDTO> leggiModifiche(long since, int limit) {
+        return changeRepository.findSince(since, settleMs * 1000, limit).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return ID di questa istanza, scritto nella colonna origine dell'outbox
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @return finestra di assestamento in millisecondi (vedi CatalogChangeRepository.findSince)
+     */
+    public long getSettleMs() {
+        return settleMs;
+    }
+
+    /**
+     * @return seq dell'ultima modifica registrata (0 se l'outbox è vuoto)
+     */
+    public long ultimoSeq() {
+        Long max = changeRepository.findMaxSeq();
+        return max != null ? max : 0L;
+    }
+
+    /**
+     * Job di retention: elimina a blocchi le modifiche più vecchie di cocktail.changes.retention-hours
+     */
+    @Scheduled(fixedDelayString = "${cocktail.changes.prune-interval-ms:3600000}",
+               initialDelayString = "${cocktail.changes.prune-interval-ms:3600000}")
+    public void pulisci() {
+        int totale = 0;
+        int eliminate;
+        do {
+            eliminate = changeRepository.deleteOlderThan(retentionHours, PRUNE_BATCH);
+            totale += eliminate;
+        } while (eliminate == PRUNE_BATCH);
+        if (totale > 0) {
+            logger.info("Outbox catalog_change: eliminate {} modifiche più vecchie di {} ore", totale, retentionHours);
+        }
+    }
+
+    /**
+     * Scrive le modifiche con una sola batch INSERT
+     * @return seq più alto generato (0 se non c'è nulla da scrivere)
+     */
+    private long scrivi(Set<CatalogChangeEvent> eventi) {
+        return scrivi(new ArrayList<>(eventi));
+    }
+
+    private long scrivi(List<CatalogChangeEvent> eventi) {
+        if (eventi.isEmpty()) {
+            return 0;
+        }
+        GeneratedKeyHolder chiavi = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, new String[] {"seq"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        CatalogChangeEvent evento = eventi.get(i);
+                        ps.setString(1, evento.entita().name());
+                        ps.setLong(2, evento.entitaId());
+                        ps.setString(3, evento.operazione().name());
+                        ps.setString(4, nodeId);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return eventi.size();
+                    }
+                }, chiavi);
+        // Una chiave per riga; il nome della colonna dipende dal driver (MySQL: GENERATED_KEY)
+        return chiavi.getKeyList().stream()
+                .mapToLong(chiave -> ((Number) chiave.values().iterator().next()).longValue())
+                .max()
+                .orElse(0);
+    }
+
+    /**
+     * Pubblica gli eventi di una transazione confermata, poi dichiara applicato il suo seq
+     * (un ETag nuovo non accompagna mai cache e indici vecchi)
+     */
+    private void pubblica(Iterable<CatalogChangeEvent> eventi, long seq) {
+        for (CatalogChangeEvent evento : eventi) {
+            eventPublisher.publishEvent(evento);
+        }
+        catalogGeneration.applicata(seq);
+    }
+
+    private CatalogChangeDTO convertToDTO(CatalogChange change) {
+        return new CatalogChangeDTO(change.getSeq(), change.getEntita(), change.getEntitaId(),
+                change.getOperazione(), change.getCreatoIl());
+    }
+}
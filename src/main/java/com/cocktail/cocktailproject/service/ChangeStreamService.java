@@ -0,0 +1,169 @@
+package com.cocktail.cocktailproject.service;
+
+import com.cocktail.cocktailproject.dto.CatalogChangeDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ChangeStreamService - Stream Server-Sent-Events delle modifiche al catalogo
+ * 
+ * Come funziona:
+ * - Ogni sottoscrizione ha il proprio cursore (ultimo seq inviato)
+ * - Ogni cocktail.changes.stream-poll-ms millisecondi legge dall'outbox le modifiche
+ *   successive al cursore di ogni gruppo di sottoscrittori con lo stesso cursore
+ *   (i client allineati sono un solo gruppo: una query per tutti)
+ * - Gli invii non avvengono sul thread dello scheduler ma su un pool dedicato
+ *   (cocktail.changes.stream-threads), un task per sottoscrizione: un client lento
+ *   blocca solo il proprio invio, e finché è in corso viene saltato dai cicli successivi
+ * - Un client in ritardo (riconnesso con un Last-Event-ID vecchio) recupera a blocchi
+ *   di POLL_BATCH nel proprio task, senza rallentare i client allineati
+ * - Leggere dall'outbox (e non dagli eventi locali) fa sì che lo stream contenga
+ *   anche le modifiche fatte dalle altre istanze dell'applicazione
+ * 
+ * Ogni evento SSE ha id = seq, così un client può riconnettersi con since = ultimo id.
+ */
+@Service
+public class ChangeStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeStreamService.class);
+
+    // Modifiche lette dall'outbox per ogni ciclo di polling
+    private static final int POLL_BATCH = 500;
+
+    private final ChangeFeedService changeFeedService;
+    private final List<Sottoscrizione> sottoscrizioni = new CopyOnWriteArrayList<>();
+
+    // Pool degli invii SSE, separato dallo scheduler condiviso dagli altri job
+    private final ThreadPoolTaskExecutor invii;
+
+    @Value("${cocktail.changes.stream-timeout-ms:1800000}")
+    private long streamTimeoutMs;
+
+    public ChangeStreamService(ChangeFeedService changeFeedService,
+                               @Value("${cocktail.changes.stream-threads:4}") int streamThreads) {
+        this.changeFeedService = changeFeedService;
+        this.invii = new ThreadPoolTaskExecutor();
+        invii.setCorePoolSize(streamThreads);
+        invii.setMaxPoolSize(streamThreads);
+        invii.setThreadNamePrefix("change-stream-");
+        invii.initialize();
+    }
+
+    /**
+     * Apre una nuova sottoscrizione allo stream
+     * @param since Ultimo seq già ricevuto dal client (le modifiche successive vengono inviate subito)
+     * @return SseEmitter da restituire dal controller
+     */
+    public SseEmitter sottoscrivi(long since) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Sottoscrizione sottoscrizione = new Sottoscrizione(emitter, since);
+        emitter.onCompletion(() -> sottoscrizioni.remove(sottoscrizione));
+        emitter.onTimeout(() -> sottoscrizioni.remove(sottoscrizione));
+        emitter.onError(e -> sottoscrizioni.remove(sottoscrizione));
+        sottoscrizioni.add(sottoscrizione);
+        return emitter;
+    }
+
+    /**
+     * Ciclo di polling: una query sull'outbox per ogni cursore distinto tra le
+     * sottoscrizioni libere, poi un task di invio per sottoscrizione
+     */
+    @Scheduled(fixedDelayString = "${cocktail.changes.stream-poll-ms:1000}")
+    public void inoltra() {
+        if (sottoscrizioni.isEmpty()) {
+            return;
+        }
+        Map<Long, List<Sottoscrizione>> perCursore = new HashMap<>();
+        for (Sottoscrizione sottoscrizione : sottoscrizioni) {
+            // Invio ancora in corso (client lento o in recupero): ci pensa il suo task
+            if (!sottoscrizione.inInvio.get()) {
+                perCursore.computeIfAbsent(sottoscrizione.cursore, c -> new ArrayList<>()).add(sottoscrizione);
+            }
+        }
+        perCursore.forEach((cursore, gruppo) -> {
+            List<CatalogChangeDTO> modifiche = changeFeedService.leggiModifiche(cursore, POLL_BATCH);
+            if (modifiche.isEmpty()) {
+                return;
+            }
+            for (Sottoscrizione sottoscrizione : gruppo) {
+                if (sottoscrizione.inInvio.compareAndSet(false, true)) {
+                    invii.execute(() -> invia(sottoscrizione, modifiche));
+                }
+            }
+        });
+    }
+
+    /**
+     * Invia le modifiche a una sottoscrizione; se il blocco era pieno continua a leggere
+     * dal suo cursore finché non è allineata
+     */
+    private void invia(Sottoscrizione sottoscrizione, List<CatalogChangeDTO> modifiche) {
+        try {
+            while (true) {
+                for (CatalogChangeDTO modifica : modifiche) {
+                    if (modifica.getSeq() > sottoscrizione.cursore) {
+                        sottoscrizione.emitter.send(SseEmitter.event()
+                                .id(String.valueOf(modifica.getSeq()))
+                                .name("change")
+                                .data(modifica));
+                        sottoscrizione.cursore = modifica.getSeq();
+                    }
+                }
+                if (modifiche.size() < POLL_BATCH || !sottoscrizioni.contains(sottoscrizione)) {
+                    return;
+                }
+                modifiche = changeFeedService.leggiModifiche(sottoscrizione.cursore, POLL_BATCH);
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Sottoscrizione SSE chiusa: {}", e.getMessage());
+            sottoscrizioni.remove(sottoscrizione);
+            sottoscrizione.emitter.completeWithError(e);
+        } catch (RuntimeException e) {
+            // Errore di lettura dell'outbox: si riprova al ciclo successivo dallo stesso cursore
+            logger.warn("Invio SSE interrotto: {}", e.getMessage());
+        } finally {
+            sottoscrizione.inInvio.set(false);
+        }
+    }
+
+    @PreDestroy
+    void chiudi() {
+        invii.shutdown();
+    }
+
+    /**
+     * @return numero di sottoscrizioni SSE attive
+     */
+    public int sottoscrizioniAttive() {
+        return sottoscrizioni.size();
+    }
+
+    /**
+     * Un client collegato allo stream con il suo cursore
+     */
+    private static class Sottoscrizione {
+        private final SseEmitter emitter;
+        private volatile long cursore;
+        // true mentre un task di invio lavora su questa sottoscrizione
+        private final AtomicBoolean inInvio = new AtomicBoolean();
+
+        private Sottoscrizione(SseEmitter emitter, long cursore) {
+            this.emitter = emitter;
+            this.cursore = cursore;
+        }
+    }
+}
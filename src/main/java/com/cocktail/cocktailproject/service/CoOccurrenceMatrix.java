@@ -0,0 +1,359 @@
+package com.cocktail.cocktailproject.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * CoOccurrenceMatrix - Matrice sparsa delle co-occorrenze tra cocktail nei preferiti
+ *
+ * conteggio(a, b) = numero di utenti che hanno entrambi i cocktail a e b nei preferiti.
+ *
+ * Come funziona:
+ * - una riga per cocktail, con mappa primitiva int → int (indirizzamento aperto,
+ *   nessun Integer per cella): le righe contengono solo i cocktail con conteggio > 0
+ * - i preferiti di ogni utente sono tenuti in memoria: aggiungere o rimuovere un
+ *   preferito aggiorna solo le righe dei cocktail di quell'utente (O(preferiti))
+ * - aggiungi/rimuovi sono idempotenti (semantica di insieme): ripetere un'operazione
+ *   già applicata non cambia i conteggi
+ *
+ * Non thread-safe: CocktailRecommendationService serializza gli accessi.
+ */
+class CoOccurrenceMatrix {
+
+    private final Map<Integer, Riga> righe = new HashMap<>();
+    private final Map<String, Set<Integer>> preferiti = new HashMap<>();
+
+    /**
+     * Cocktail con il relativo punteggio (co-occorrenze)
+     */
+    record Conteggio(int cocktailId, long punteggio) {
+    }
+
+    /**
+     * Aggiunge un preferito
+     * @return false se era già presente (nessuna modifica)
+     */
+    boolean aggiungi(String utente, int cocktailId) {
+        Set<Integer> insieme = preferiti.computeIfAbsent(utente, k -> new HashSet<>());
+        if (!insieme.add(cocktailId)) {
+            return false;
+        }
+        for (int altro : insieme) {
+            if (altro != cocktailId) {
+                incrementa(cocktailId, altro, 1);
+                incrementa(altro, cocktailId, 1);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rimuove un preferito
+     * @return false se non era presente (nessuna modifica)
+     */
+    boolean rimuovi(String utente, int cocktailId) {
+        Set<Integer> insieme = preferiti.get(utente);
+        if (insieme == null || !insieme.remove(cocktailId)) {
+            return false;
+        }
+        for (int altro : insieme) {
+            incrementa(cocktailId, altro, -1);
+            incrementa(altro, cocktailId, -1);
+        }
+        if (insieme.isEmpty()) {
+            preferiti.remove(utente);
+        }
+        return true;
+    }
+
+    /**
+     * Elimina un cocktail da tutti i preferiti e dalla matrice (cocktail cancellato)
+     */
+    void rimuoviCocktail(int cocktailId) {
+        Riga riga = righe.remove(cocktailId);
+        if (riga != null) {
+            riga.perOgni((altro, conteggio) -> {
+                Riga rigaAltro = righe.get(altro);
+                if (rigaAltro != null) {
+                    rigaAltro.incrementa(cocktailId, -conteggio);
+                    if (rigaAltro.vuota()) {
+                        righe.remove(altro);
+                    }
+                }
+            });
+        }
+        preferiti.values().removeIf(insieme -> insieme.remove(cocktailId) && insieme.isEmpty());
+    }
+
+    /**
+     * Cocktail che compaiono più spesso nei preferiti insieme a quello indicato
+     */
+    List<Conteggio> ancheApprezzati(int cocktailId, int limite) {
+        Riga riga = righe.get(cocktailId);
+        if (riga == null) {
+            return List.of();
+        }
+        Migliori migliori = new Migliori(limite);
+        riga.perOgni(migliori::offri);
+        return migliori.risultato();
+    }
+
+    /**
+     * Raccomandazioni per un utente: somma delle righe dei suoi preferiti,
+     * esclusi i cocktail che ha già
+     */
+    List<Conteggio> raccomandazioni(String utente, int limite) {
+        Set<Integer> insieme = preferiti.get(utente);
+        if (insieme == null) {
+            return List.of();
+        }
+        Riga somma = new Riga();
+        for (int preferito : insieme) {
+            Riga riga = righe.get(preferito);
+            if (riga != null) {
+                riga.perOgni(somma::incrementa);
+            }
+        }
+        Migliori migliori = new Migliori(limite);
+        somma.perOgni((cocktailId, punteggio) -> {
+            if (!insieme.contains(cocktailId)) {
+                migliori.offri(cocktailId, punteggio);
+            }
+        });
+        return migliori.risultato();
+    }
+
+    /**
+     * Aggiunge tutti i preferiti di un utente (costruzione completa)
+     */
+    void aggiungiUtente(String utente, int[] cocktailIds) {
+        for (int cocktailId : cocktailIds) {
+            aggiungi(utente, cocktailId);
+        }
+    }
+
+    /**
+     * Unisce una matrice costruita su un altro gruppo di utenti (fase di combine del fork-join)
+     * I due gruppi di utenti devono essere disgiunti.
+     */
+    void unisci(CoOccurrenceMatrix altra) {
+        altra.righe.forEach((cocktailId, riga) -> {
+            Riga destinazione = righe.get(cocktailId);
+            if (destinazione == null) {
+                righe.put(cocktailId, riga);
+            } else {
+                riga.perOgni(destinazione::incrementa);
+            }
+        });
+        preferiti.putAll(altra.preferiti);
+    }
+
+    /**
+     * Costruisce la matrice da zero in parallelo (ForkJoinPool comune tramite parallel stream):
+     * ogni sotto-task conta le coppie di un gruppo di utenti, poi le matrici parziali vengono unite
+     * @param perUtente preferiti di ogni utente
+     */
+    static CoOccurrenceMatrix costruisci(Map<String, int[]> perUtente) {
+        return perUtente.entrySet().parallelStream().collect(
+                CoOccurrenceMatrix::new,
+                (matrice, voce) -> matrice.aggiungiUtente(voce.getKey(), voce.getValue()),
+                CoOccurrenceMatrix::unisci);
+    }
+
+    int utenti() {
+        return preferiti.size();
+    }
+
+    /**
+     * Conteggio di una coppia di cocktail (per i test)
+     */
+    int conteggio(int a, int b) {
+        Riga riga = righe.get(a);
+        return riga == null ? 0 : riga.get(b);
+    }
+
+    /**
+     * Tutte le celle non nulle, riga → colonna → conteggio (per i test)
+     */
+    Map<Integer, Map<Integer, Integer>> celle() {
+        Map<Integer, Map<Integer, Integer>> celle = new HashMap<>();
+        righe.forEach((cocktailId, riga) -> riga.perOgni((altro, conteggio) ->
+                celle.computeIfAbsent(cocktailId, k -> new HashMap<>()).put(altro, conteggio)));
+        return celle;
+    }
+
+    private void incrementa(int riga, int colonna, int delta) {
+        Riga r = righe.computeIfAbsent(riga, k -> new Riga());
+        r.incrementa(colonna, delta);
+        if (r.vuota()) {
+            righe.remove(riga);
+        }
+    }
+
+    @FunctionalInterface
+    interface IntIntConsumer {
+        void accept(int chiave, int valore);
+    }
+
+    /**
+     * Mappa int → int a indirizzamento aperto (sonda lineare, cancellazione con
+     * backward shift, niente tombstone). La chiave 0 indica uno slot libero:
+     * gli ID dei cocktail partono da 1. I valori arrivati a 0 vengono rimossi.
+     */
+    static final class Riga {
+
+        private int[] chiavi = new int[8];
+        private int[] valori = new int[8];
+        private int dimensione;
+
+        void incrementa(int chiave, int delta) {
+            int maschera = chiavi.length - 1;
+            int slot = hash(chiave) & maschera;
+            while (chiavi[slot] != 0) {
+                if (chiavi[slot] == chiave) {
+                    valori[slot] += delta;
+                    if (valori[slot] <= 0) {
+                        elimina(slot);
+                    }
+                    return;
+                }
+                slot = (slot + 1) & maschera;
+            }
+            if (delta <= 0) {
+                return;
+            }
+            chiavi[slot] = chiave;
+            valori[slot] = delta;
+            if (++dimensione * 4 > chiavi.length * 3) {
+                raddoppia();
+            }
+        }
+
+        boolean vuota() {
+            return dimensione == 0;
+        }
+
+        /**
+         * Valore di una chiave, 0 se assente
+         */
+        int get(int chiave) {
+            int maschera = chiavi.length - 1;
+            for (int slot = hash(chiave) & maschera; chiavi[slot] != 0; slot = (slot + 1) & maschera) {
+                if (chiavi[slot] == chiave) {
+                    return valori[slot];
+                }
+            }
+            return 0;
+        }
+
+        int size() {
+            return dimensione;
+        }
+
+        /**
+         * Slot della tabella (per i test)
+         */
+        int capacita() {
+            return chiavi.length;
+        }
+
+        /**
+         * Slot in cui si trova una chiave, -1 se assente (per i test)
+         */
+        int slot(int chiave) {
+            for (int slot = 0; slot < chiavi.length; slot++) {
+                if (chiavi[slot] == chiave) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        void perOgni(IntIntConsumer azione) {
+            for (int slot = 0; slot < chiavi.length; slot++) {
+                if (chiavi[slot] != 0) {
+                    azione.accept(chiavi[slot], valori[slot]);
+                }
+            }
+        }
+
+        private void elimina(int slot) {
+            int maschera = chiavi.length - 1;
+            int libero = slot;
+            for (int i = (slot + 1) & maschera; chiavi[i] != 0; i = (i + 1) & maschera) {
+                int ideale = hash(chiavi[i]) & maschera;
+                // Sposta l'elemento nel buco se la sua posizione ideale non cade in (libero, i]
+                boolean traLiberoEI = libero <= i
+                        ? ideale > libero && ideale <= i
+                        : ideale > libero || ideale <= i;
+                if (!traLiberoEI) {
+                    chiavi[libero] = chiavi[i];
+                    valori[libero] = valori[i];
+                    libero = i;
+                }
+            }
+            chiavi[libero] = 0;
+            valori[libero] = 0;
+            dimensione--;
+        }
+
+        private void raddoppia() {
+            int[] vecchieChiavi = chiavi;
+            int[] vecchiValori = valori;
+            chiavi = new int[vecchieChiavi.length * 2];
+            valori = new int[vecchieChiavi.length * 2];
+            int maschera = chiavi.length - 1;
+            for (int i = 0; i < vecchieChiavi.length; i++) {
+                if (vecchieChiavi[i] != 0) {
+                    int slot = hash(vecchieChiavi[i]) & maschera;
+                    while (chiavi[slot] != 0) {
+                        slot = (slot + 1) & maschera;
+                    }
+                    chiavi[slot] = vecchieChiavi[i];
+                    valori[slot] = vecchiValori[i];
+                }
+            }
+        }
+
+        static int hash(int chiave) {
+            int h = chiave * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * Top-k per punteggio decrescente (a parità, ID crescente)
+     */
+    private static final class Migliori {
+
+        private static final Comparator<Conteggio> ORDINE = Comparator.comparingLong(Conteggio::punteggio)
+                .thenComparing(Comparator.comparingInt(Conteggio::cocktailId).reversed());
+
+        private final int limite;
+        private final PriorityQueue<Conteggio> coda;
+
+        Migliori(int limite) {
+            this.limite = limite;
+            this.coda = new PriorityQueue<>(limite + 1, ORDINE);
+        }
+
+        void offri(int cocktailId, long punteggio) {
+            coda.add(new Conteggio(cocktailId, punteggio));
+            if (coda.size() > limite) {
+                coda.poll();
+            }
+        }
+
+        List<Conteggio> risultato() {
+            List<Conteggio> risultato = new ArrayList<>(coda);
+            risultato.sort(ORDINE.reversed());
+            return risultato;
+        }
+    }
+}
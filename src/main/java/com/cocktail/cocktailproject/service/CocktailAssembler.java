@@ -0,0 +1,91 @@
+package com.cocktail.cocktailproject.service;
+
+import com.cocktail.cocktailproject.dto.CocktailDTO;
+import com.cocktail.cocktailproject.entity.Cocktail;
+import com.cocktail.cocktailproject.entity.Ingrediente;
+import com.cocktail.cocktailproject.entity.Preparazione;
+import com.cocktail.cocktailproject.repository.IngredienteRepository;
+import com.cocktail.cocktailproject.repository.PreparazioneRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * CocktailAssembler - Costruisce i CocktailDTO completi (cocktail + step + nomi ingredienti)
+ * 
+ * Separato da CocktailService perché serve sia al service sia al read model
+ * (CocktailReadModelService), che rigenera i documenti delle ricette.
+ */
+@Component
+public class CocktailAssembler {
+
+    private final IngredienteRepository ingredienteRepository;
+    private final PreparazioneRepository preparazioneRepository;
+
+    public CocktailAssembler(IngredienteRepository ingredienteRepository,
+                             PreparazioneRepository preparazioneRepository) {
+        this.ingredienteRepository = ingredienteRepository;
+        this.preparazioneRepository = preparazioneRepository;
+    }
+
+    /**
+     * Converte più entity Cocktail in DTO con query set-based
+     * 
+     * Qualunque sia il numero di cocktail, esegue al massimo 2 query:
+     * - tutti gli step dei cocktail (WHERE cocktail_id IN ...)
+     * - tutti gli ingredienti usati (WHERE id IN ...)
+     * 
+     * @param cocktails Entity dal database
+     * @return DTO nello stesso ordine delle entity
+     */
+    public List<CocktailDTO> toDTOs(List<Cocktail> cocktails) {
+        if (cocktails.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = cocktails.stream().map(Cocktail::getId).collect(Collectors.toList());
+
+        // Carica gli step di tutti i cocktail, raggruppati per cocktail (già ordinati per step)
+        Map<Long, List<Preparazione>> stepPerCocktail = preparazioneRepository
+                .findByCocktailIdInOrderByCocktailIdAscStepOrderAsc(ids).stream()
+                .collect(Collectors.groupingBy(Preparazione::getCocktailId, LinkedHashMap::new, Collectors.toList()));
+
+        // Carica tutti gli ingredienti una volta sola (evita N+1 query problem)
+        Set<Long> ingredienteIds = stepPerCocktail.values().stream()
+                .flatMap(List::stream)
+                .map(Preparazione::getIngredienteId)
+                .collect(Collectors.toSet());
+        Map<Long, String> ingredientiMap = new HashMap<>();
+        for (Ingrediente ingrediente : ingredienteRepository.findAllById(ingredienteIds)) {
+            ingredientiMap.put(ingrediente.getId(), ingrediente.getNome());
+        }
+
+        List<CocktailDTO> risultato = new ArrayList<>(cocktails.size());
+        for (Cocktail cocktail : cocktails) {
+            CocktailDTO dto = new CocktailDTO();
+            dto.setId(cocktail.getId());
+            dto.setNome(cocktail.getNome());
+            dto.setDescrizione(cocktail.getDescrizione());
+            dto.setTempoPreparazioneMinutes(cocktail.getTempoPreparazioneMinutes());
+            dto.setNote(cocktail.getNote());
+            dto.setAggiornatoIl(cocktail.getAggiornatoIl());
+            dto.setVersione(cocktail.getVersione());
+
+            // Converte ogni step in StepPreparazioneDTO
+            List<CocktailDTO.StepPreparazioneDTO> stepsDTO = stepPerCocktail
+                    .getOrDefault(cocktail.getId(), List.of()).stream()
+                    .map(step -> new CocktailDTO.StepPreparazioneDTO(
+                            step.getStepOrder(),
+                            ingredientiMap.getOrDefault(step.getIngredienteId(), "Ingrediente sconosciuto"),
+                            step.getQuantita() != null ? step.getQuantita().toString() : null,
+                            step.getUnita(),
+                            step.getIstruzione()
+                    ))
+                    .collect(Collectors.toList());
+
+            dto.setPreparazione(stepsDTO);
+            risultato.add(dto);
+        }
+        return risultato;
+    }
+}
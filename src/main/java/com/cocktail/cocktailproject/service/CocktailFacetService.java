@@ -0,0 +1,320 @@
+package com.cocktail.cocktailproject.service;
+
+import com.cocktail.cocktailproject.cache.SearchCache;
+import com.cocktail.cocktailproject.dto.CocktailFiltroDTO;
+import com.cocktail.cocktailproject.dto.CocktailSummaryDTO;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent.Entita;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent.Operazione;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * CocktailFacetService - Filtro a faccette sui cocktail servito da un indice in memoria
+ * 
+ * Indice (costruito dalle tabelle cocktail / preparazione / ingredienti):
+ * - ingrediente → bitmap (BitSet) degli ID dei cocktail che lo usano
+ * - tempo di preparazione → bitmap, in una TreeMap ordinata per tempo (range con subMap)
+ * - per ogni cocktail: nome, nome normalizzato, tempo e ID degli ingredienti
+ * 
+ * Filtro: AND delle bitmap degli ingredienti inclusi, ANDNOT di quelle escluse,
+ * AND con l'OR delle bitmap nel range di tempo, poi il filtro sul nome.
+ * Faccette: per ogni ingrediente, cardinalità dell'intersezione con il risultato.
+ * Nessuna query al database per richiesta.
+ * 
+ * Aggiornamento incrementale: ogni CatalogChangeEvent su un cocktail (anche da altre
+ * istanze) rilegge solo le righe di quel cocktail; gli aggiornamenti sono serializzati
+ * e ogni rilettura avviene dopo il commit, quindi l'ultima applicata è la più recente.
+ * L'indice viene caricato all'avvio (o alla prima richiesta, se arriva prima).
+ */
+@Service
+public class CocktailFacetService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CocktailFacetService.class);
+
+    private static final String RIGHE_SQL =
+            "SELECT c.id, c.nome, c.tempo_preparazione_minutes, i.id AS ingrediente_id, i.nome AS ingrediente " +
+            "FROM cocktail c " +
+            "LEFT JOIN preparazione p ON p.cocktail_id = c.id " +
+            "LEFT JOIN ingredienti i ON i.id = p.ingrediente_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Serializza caricamento e aggiornamenti (letture dal database comprese)
+    private final Object aggiornamenti = new Object();
+    private volatile boolean caricato;
+
+    // Stato dell'indice, protetto da "this"
+    private final BitSet tutti = new BitSet();
+    private final Map<Long, BitSet> perIngrediente = new HashMap<>();
+    private final Map<Long, String> nomiIngredienti = new HashMap<>();
+    private final Map<String, Long> idIngredienti = new HashMap<>();
+    private final TreeMap<Integer, BitSet> perTempo = new TreeMap<>();
+    private final Map<Integer, Voce> cocktail = new HashMap<>();
+
+    public CocktailFacetService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Filtra i cocktail e calcola le faccette per ingrediente sull'intero risultato
+     * 
+     * @param includi Ingredienti che devono essere tutti presenti (nome, case-insensitive)
+     * @param escludi Ingredienti che non devono essere presenti
+     * @param tempoMin Tempo minimo di preparazione in minuti (incluso), null = nessun limite
+     * @param tempoMax Tempo massimo di preparazione in minuti (incluso), null = nessun limite
+     * @param nome Testo da cercare nel nome (normalizzato come la ricerca per nome)
+     * @param pageable Pagina di risultati, in ordine di ID
+     * @return Risultati della pagina, totale e faccette
+     * @throws IllegalArgumentException se tempoMin > tempoMax
+     */
+    public CocktailFiltroDTO filtra(List<String> includi, List<String> escludi,
+                                    Integer tempoMin, Integer tempoMax, String nome, Pageable pageable) {
+        if (tempoMin != null && tempoMax != null && tempoMin > tempoMax) {
+            throw new IllegalArgumentException("tempoMin non può essere maggiore di tempoMax");
+        }
+        assicuraCaricato();
+        String testo = nome == null ? "" : SearchCache.normalizza(nome);
+
+        synchronized (this) {
+            BitSet risultato = (BitSet) tutti.clone();
+            for (String ingrediente : valori(includi)) {
+                BitSet usati = bitmapIngrediente(ingrediente);
+                if (usati == null) {
+                    risultato.clear();
+                    break;
+                }
+                risultato.and(usati);
+            }
+            for (String ingrediente : valori(escludi)) {
+                BitSet usati = bitmapIngrediente(ingrediente);
+                if (usati != null) {
+                    risultato.andNot(usati);
+                }
+            }
+            if (tempoMin != null || tempoMax != null) {
+                BitSet nelRange = new BitSet();
+                perTempo.subMap(tempoMin != null ? tempoMin : Integer.MIN_VALUE, true,
+                                tempoMax != null ? tempoMax : Integer.MAX_VALUE, true)
+                        .values()
+                        .forEach(nelRange::or);
+                risultato.and(nelRange);
+            }
+            if (!testo.isEmpty()) {
+                for (int id = risultato.nextSetBit(0); id >= 0; id = risultato.nextSetBit(id + 1)) {
+                    if (!cocktail.get(id).nomeNormalizzato().contains(testo)) {
+                        risultato.clear(id);
+                    }
+                }
+            }
+
+            return new CocktailFiltroDTO(pagina(risultato, pageable), risultato.cardinality(),
+                    pageable.getPageNumber(), pageable.getPageSize(), faccette(risultato));
+        }
+    }
+
+    /**
+     * Carica l'indice all'avvio dell'applicazione
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        assicuraCaricato();
+    }
+
+    /**
+     * Aggiorna l'indice dopo il commit di una modifica (o alla ricezione da un'altra istanza)
+     * Le modifiche a un ingrediente arrivano anche come UPDATE dei cocktail coinvolti.
+     * Eseguito prima di CatalogGeneration: un ETag nuovo non accompagna mai l'indice vecchio.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogChange(CatalogChangeEvent evento) {
+        if (!evento.isCatalogo() || evento.entitaId() == null) {
+            return;
+        }
+        synchronized (aggiornamenti) {
+            if (!caricato) {
+                // Il caricamento iniziale leggerà già questa modifica
+                return;
+            }
+            if (evento.entita() == Entita.INGREDIENTE) {
+                if (evento.operazione() == Operazione.DELETE) {
+                    rimuoviIngrediente(evento.entitaId());
+                }
+                return;
+            }
+            List<Riga> righe = jdbcTemplate.query(RIGHE_SQL + " WHERE c.id = ?", this::mappaRiga, evento.entitaId());
+            synchronized (this) {
+                rimuoviCocktail(evento.entitaId());
+                indicizza(righe);
+            }
+        }
+    }
+
+    private void assicuraCaricato() {
+        if (caricato) {
+            return;
+        }
+        synchronized (aggiornamenti) {
+            if (caricato) {
+                return;
+            }
+            List<Riga> righe = jdbcTemplate.query(RIGHE_SQL, this::mappaRiga);
+            synchronized (this) {
+                indicizza(righe);
+            }
+            caricato = true;
+            logger.info("Indice faccette caricato: {} cocktail, {} ingredienti", cocktail.size(), perIngrediente.size());
+        }
+    }
+
+    private Riga mappaRiga(ResultSet rs, int rowNum) throws SQLException {
+        int tempo = rs.getInt("tempo_preparazione_minutes");
+        Integer tempoPreparazione = rs.wasNull() ? null : tempo;
+        long ingredienteId = rs.getLong("ingrediente_id");
+        Long ingrediente = rs.wasNull() ? null : ingredienteId;
+        return new Riga(rs.getLong("id"), rs.getString("nome"), tempoPreparazione, ingrediente, rs.getString("ingrediente"));
+    }
+
+    /**
+     * Aggiunge all'indice le righe lette (una per step, o una sola per cocktail senza step)
+     */
+    private void indicizza(List<Riga> righe) {
+        Map<Long, List<Riga>> perCocktail = new LinkedHashMap<>();
+        for (Riga riga : righe) {
+            perCocktail.computeIfAbsent(riga.cocktailId(), k -> new ArrayList<>()).add(riga);
+        }
+        for (List<Riga> righeCocktail : perCocktail.values()) {
+            Riga prima = righeCocktail.get(0);
+            if (prima.cocktailId() > Integer.MAX_VALUE) {
+                logger.warn("Cocktail {} fuori dal range dell'indice faccette", prima.cocktailId());
+                continue;
+            }
+            int id = (int) prima.cocktailId();
+            Set<Long> ingredienti = new LinkedHashSet<>();
+            for (Riga riga : righeCocktail) {
+                if (riga.ingredienteId() != null) {
+                    ingredienti.add(riga.ingredienteId());
+                    perIngrediente.computeIfAbsent(riga.ingredienteId(), k -> new BitSet()).set(id);
+                    nomiIngredienti.put(riga.ingredienteId(), riga.ingrediente());
+                    idIngredienti.put(chiaveIngrediente(riga.ingrediente()), riga.ingredienteId());
+                }
+            }
+            tutti.set(id);
+            if (prima.tempo() != null) {
+                perTempo.computeIfAbsent(prima.tempo(), k -> new BitSet()).set(id);
+            }
+            cocktail.put(id, new Voce(prima.nome(), SearchCache.normalizza(prima.nome()), prima.tempo(), ingredienti));
+        }
+    }
+
+    private synchronized void rimuoviCocktail(long cocktailId) {
+        if (cocktailId > Integer.MAX_VALUE) {
+            return;
+        }
+        int id = (int) cocktailId;
+        Voce voce = cocktail.remove(id);
+        if (voce == null) {
+            return;
+        }
+        tutti.clear(id);
+        if (voce.tempo() != null) {
+            BitSet conTempo = perTempo.get(voce.tempo());
+            conTempo.clear(id);
+            if (conTempo.isEmpty()) {
+                perTempo.remove(voce.tempo());
+            }
+        }
+        for (Long ingredienteId : voce.ingredienti()) {
+            BitSet usati = perIngrediente.get(ingredienteId);
+            if (usati != null) {
+                usati.clear(id);
+                if (usati.isEmpty()) {
+                    rimuoviIngrediente(ingredienteId);
+                }
+            }
+        }
+    }
+
+    private synchronized void rimuoviIngrediente(Long ingredienteId) {
+        perIngrediente.remove(ingredienteId);
+        String nome = nomiIngredienti.remove(ingredienteId);
+        if (nome != null) {
+            idIngredienti.remove(chiaveIngrediente(nome), ingredienteId);
+        }
+    }
+
+    private BitSet bitmapIngrediente(String nome) {
+        Long id = idIngredienti.get(chiaveIngrediente(nome));
+        return id == null ? null : perIngrediente.get(id);
+    }
+
+    private List<CocktailSummaryDTO> pagina(BitSet risultato, Pageable pageable) {
+        List<CocktailSummaryDTO> pagina = new ArrayList<>(pageable.getPageSize());
+        long daSaltare = pageable.getOffset();
+        for (int id = risultato.nextSetBit(0); id >= 0 && pagina.size() < pageable.getPageSize();
+             id = risultato.nextSetBit(id + 1)) {
+            if (daSaltare > 0) {
+                daSaltare--;
+                continue;
+            }
+            Voce voce = cocktail.get(id);
+            pagina.add(new CocktailSummaryDTO((long) id, voce.nome(), voce.tempo()));
+        }
+        return pagina;
+    }
+
+    /**
+     * Conteggi per ingrediente sull'intero risultato, dal più frequente
+     */
+    private List<CocktailFiltroDTO.FaccettaDTO> faccette(BitSet risultato) {
+        List<CocktailFiltroDTO.FaccettaDTO> faccette = new ArrayList<>();
+        if (risultato.isEmpty()) {
+            return faccette;
+        }
+        BitSet intersezione = new BitSet();
+        for (Map.Entry<Long, BitSet> voce : perIngrediente.entrySet()) {
+            intersezione.clear();
+            intersezione.or(voce.getValue());
+            intersezione.and(risultato);
+            int conteggio = intersezione.cardinality();
+            if (conteggio > 0) {
+                faccette.add(new CocktailFiltroDTO.FaccettaDTO(voce.getKey(), nomiIngredienti.get(voce.getKey()), conteggio));
+            }
+        }
+        faccette.sort(Comparator.comparingInt(CocktailFiltroDTO.FaccettaDTO::getConteggio).reversed()
+                .thenComparing(CocktailFiltroDTO.FaccettaDTO::getIngrediente));
+        return faccette;
+    }
+
+    private static List<String> valori(List<String> nomi) {
+        if (nomi == null) {
+            return List.of();
+        }
+        return nomi.stream().filter(n -> n != null && !n.isBlank()).toList();
+    }
+
+    /**
+     * Gli ingredienti si confrontano come in findByNomeIgnoreCase
+     */
+    private static String chiaveIngrediente(String nome) {
+        return nome.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Riga(long cocktailId, String nome, Integer tempo, Long ingredienteId, String ingrediente) {
+    }
+
+    private record Voce(String nome, String nomeNormalizzato, Integer tempo, Set<Long> ingredienti) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.cocktail.cocktailproject.service;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * CocktailFieldSelection - Piano di lettura derivato dal parametro ?fields=
+ * 
+ * Esempio: fields=id,nome,preparazione.ingrediente
+ * - campi cocktail: id, nome
+ * - step: solo stepOrder (sempre incluso per l'ordinamento) e ingrediente
+ * 
+ * Il piano decide la forma delle query, non solo il JSON in uscita:
+ * - senza "preparazione" la query sugli step non viene eseguita
+ * - senza "descrizione"/"note" le colonne TEXT non vengono lette
+ * - senza "preparazione.ingrediente" non si fa il join con ingredienti
+ * 
+ * "preparazione" da solo equivale a tutti i campi dello step.
+ */
+public class CocktailFieldSelection {
+
+    /** Campi del cocktail selezionabili (nomi degli attributi dell'entity) */
+    public static final List<String> CAMPI_COCKTAIL =
+            List.of("id", "nome", "descrizione", "tempoPreparazioneMinutes", "note", "aggiornatoIl", "versione");
+
+    /** Campi dello step selezionabili (nomi delle proprietà di StepPreparazioneDTO) */
+    public static final List<String> CAMPI_STEP =
+            List.of("stepOrder", "ingrediente", "quantita", "unita", "istruzione");
+
+    private static final String PREPARAZIONE = "preparazione";
+
+    private final Set<String> campiCocktail;
+    private final Set<String> campiStep;
+
+    private CocktailFieldSelection(Set<String> campiCocktail, Set<String> campiStep) {
+        this.campiCocktail = Collections.unmodifiableSet(campiCocktail);
+        this.campiStep = Collections.unmodifiableSet(campiStep);
+    }
+
+    /**
+     * Interpreta il parametro fields (lista separata da virgole)
+     * @param fields es. "id,nome,preparazione.ingrediente"
+     * @return piano di lettura
+     * @throws IllegalArgumentException Se il parametro è vuoto o contiene campi sconosciuti
+     */
+    public static CocktailFieldSelection parse(String fields) {
+        if (fields == null || fields.trim().isEmpty()) {
+            throw new IllegalArgumentException("Il parametro fields non può essere vuoto");
+        }
+        Set<String> campiCocktail = new LinkedHashSet<>();
+        Set<String> campiStep = new LinkedHashSet<>();
+
+        for (String raw : fields.split(",")) {
+            String campo = raw.trim();
+            if (campo.isEmpty()) {
+                continue;
+            }
+            if (campo.equals(PREPARAZIONE)) {
+                campiStep.addAll(CAMPI_STEP);
+            } else if (campo.startsWith(PREPARAZIONE + ".")) {
+                String campoStep = campo.substring(PREPARAZIONE.length() + 1);
+                if (!CAMPI_STEP.contains(campoStep)) {
+                    throw new IllegalArgumentException("Campo dello step non supportato: " + campo);
+                }
+                campiStep.add(campoStep);
+            } else if (CAMPI_COCKTAIL.contains(campo)) {
+                campiCocktail.add(campo);
+            } else {
+                throw new IllegalArgumentException("Campo non supportato: " + campo);
+            }
+        }
+        if (campiCocktail.isEmpty() && campiStep.isEmpty()) {
+            throw new IllegalArgumentException("Il parametro fields non contiene campi validi");
+        }
+        // stepOrder serve sempre per ordinare gli step
+        if (!campiStep.isEmpty()) {
+            campiStep.add("stepOrder");
+        }
+        return new CocktailFieldSelection(campiCocktail, campiStep);
+    }
+
+    /**
+     * Colonne del cocktail da selezionare.
+     * L'id viene sempre letto (serve per collegare gli step) ma esposto solo se richiesto.
+     */
+    public Set<String> colonneCocktail() {
+        Set<String> colonne = new LinkedHashSet<>();
+        colonne.add("id");
+        colonne.addAll(campiCocktail);
+        return colonne;
+    }
+
+    public Set<String> getCampiCocktail() {
+        return campiCocktail;
+    }
+
+    public Set<String> getCampiStep() {
+        return campiStep;
+    }
+
+    /** true se serve la query sulla tabella preparazione */
+    public boolean richiedePreparazione() {
+        return !campiStep.isEmpty();
+    }
+
+    /** true se serve il join con la tabella ingredienti */
+    public boolean richiedeIngredienti() {
+        return campiStep.contains("ingrediente");
+    }
+}
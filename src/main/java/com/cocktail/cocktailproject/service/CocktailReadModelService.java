@@ -0,0 +1,252 @@
+package com.cocktail.cocktailproject.service;
+
+import com.cocktail.cocktailproject.dto.CocktailDTO;
+import com.cocktail.cocktailproject.dto.ReadModelCheckDTO;
+import com.cocktail.cocktailproject.entity.Cocktail;
+import com.cocktail.cocktailproject.entity.CocktailReadModel;
+import com.cocktail.cocktailproject.repository.CocktailReadModelRepository;
+import com.cocktail.cocktailproject.repository.CocktailRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * CocktailReadModelService - Gestione del read model delle ricette (stile CQRS)
+ * 
+ * Responsabilità:
+ * - Scrivere il documento JSON di una ricetta quando il cocktail cambia
+ *   (chiamato dentro la transazione della scrittura)
+ * - Leggere i documenti per ID con una sola query per chiave primaria
+ * - Ricostruire l'intero read model (comando di rebuild)
+ * - Verificare la consistenza tra read model e tabelle normalizzate
+ * 
+ * All'avvio, se il numero di documenti non coincide con il numero di cocktail
+ * (o se cocktail.read-model.rebuild-on-startup=true), il read model viene ricostruito.
+ */
+@Service
+public class CocktailReadModelService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CocktailReadModelService.class);
+
+    // Numero di cocktail elaborati per ogni blocco durante rebuild e verifica
+    private static final int BATCH_SIZE = 500;
+
+    private final CocktailReadModelRepository readModelRepository;
+    private final CocktailRepository cocktailRepository;
+    private final CocktailAssembler cocktailAssembler;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${cocktail.read-model.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    public CocktailReadModelService(CocktailReadModelRepository readModelRepository,
+                                    CocktailRepository cocktailRepository,
+                                    CocktailAssembler cocktailAssembler,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager) {
+        this.readModelRepository = readModelRepository;
+        this.cocktailRepository = cocktailRepository;
+        this.cocktailAssembler = cocktailAssembler;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Salva (o sostituisce) il documento di una ricetta già assemblata
+     * @param dto Ricetta completa
+     */
+    @Transactional
+    public void salva(CocktailDTO dto) {
+        readModelRepository.save(new CocktailReadModel(dto.getId(), serializza(dto), LocalDateTime.now()));
+    }
+
+    /**
+     * Rigenera i documenti dei cocktail indicati leggendo le tabelle normalizzate
+     * I cocktail che non esistono più vengono rimossi dal read model.
+     * 
+     * @param cocktailIds ID dei cocktail da rigenerare
+     */
+    @Transactional
+    public void aggiorna(Collection<Long> cocktailIds) {
+        if (cocktailIds.isEmpty()) {
+            return;
+        }
+        List<Cocktail> cocktails = cocktailRepository.findAllById(cocktailIds);
+        Set<Long> esistenti = new HashSet<>();
+        List<CocktailReadModel> documenti = new ArrayList<>(cocktails.size());
+        LocalDateTime adesso = LocalDateTime.now();
+        for (CocktailDTO dto : cocktailAssembler.toDTOs(cocktails)) {
+            esistenti.add(dto.getId());
+            documenti.add(new CocktailReadModel(dto.getId(), serializza(dto), adesso));
+        }
+        readModelRepository.saveAll(documenti);
+
+        List<Long> rimossi = cocktailIds.stream()
+                .filter(id -> !esistenti.contains(id))
+                .collect(Collectors.toList());
+        if (!rimossi.isEmpty()) {
+            readModelRepository.deleteAllByIdInBatch(rimossi);
+        }
+    }
+
+    /**
+     * Rimuove il documento di un cocktail eliminato
+     * @param cocktailId ID del cocktail
+     */
+    @Transactional
+    public void rimuovi(Long cocktailId) {
+        readModelRepository.deleteAllByIdInBatch(List.of(cocktailId));
+    }
+
+    /**
+     * Legge i documenti di più cocktail con una lookup per chiave primaria
+     * I documenti assenti o non leggibili non compaiono nel risultato
+     * (il chiamante li ricostruisce dalle tabelle normalizzate).
+     * 
+     * @param cocktailIds ID dei cocktail
+     * @return mappa ID -> ricetta
+     */
+    public Map<Long, CocktailDTO> leggi(Collection<Long> cocktailIds) {
+        Map<Long, CocktailDTO> risultato = new HashMap<>();
+        if (cocktailIds.isEmpty()) {
+            return risultato;
+        }
+        for (CocktailReadModel documento : readModelRepository.findAllById(cocktailIds)) {
+            try {
+                risultato.put(documento.getCocktailId(),
+                        objectMapper.readValue(documento.getDocumento(), CocktailDTO.class));
+            } catch (JsonProcessingException e) {
+                logger.warn("Documento del read model non leggibile per il cocktail {}: {}",
+                        documento.getCocktailId(), e.getMessage());
+            }
+        }
+        return risultato;
+    }
+
+    /**
+     * Ricostruisce l'intero read model a blocchi di BATCH_SIZE cocktail
+     * e rimuove i documenti orfani.
+     * 
+     * Una transazione per blocco (da non chiamare dentro una transazione):
+     * il persistence context di ogni blocco viene chiuso a fine blocco, le entity
+     * lette non si accumulano e i lock durano quanto un blocco. I documenti sono
+     * scritti con un batch JDBC di upsert (sostituisciTutti), senza merge.
+     * Paginazione per chiave: un cocktail eliminato durante la ricostruzione non
+     * fa saltare quelli successivi.
+     * 
+     * @return numero di documenti scritti
+     */
+    public long ricostruisciTutto() {
+        long scritti = 0;
+        long ultimoId = 0;
+        int letti;
+        do {
+            long dopoId = ultimoId;
+            List<Long> blocco = transactionTemplate.execute(status -> ricostruisciBlocco(dopoId));
+            letti = blocco.size();
+            scritti += letti;
+            if (letti > 0) {
+                ultimoId = blocco.get(letti - 1);
+            }
+        } while (letti == BATCH_SIZE);
+
+        Integer orfani = transactionTemplate.execute(status -> readModelRepository.deleteOrfani());
+        logger.info("Read model ricostruito: {} documenti scritti, {} orfani rimossi", scritti, orfani);
+        return scritti;
+    }
+
+    /**
+     * Riscrive i documenti dei BATCH_SIZE cocktail successivi a un ID
+     * @return ID dei cocktail del blocco, in ordine crescente
+     */
+    private List<Long> ricostruisciBlocco(long dopoId) {
+        List<Cocktail> cocktails = cocktailRepository.findByIdGreaterThanOrderByIdAsc(dopoId, Limit.of(BATCH_SIZE));
+        LocalDateTime adesso = LocalDateTime.now();
+        List<CocktailReadModel> documenti = new ArrayList<>(cocktails.size());
+        for (CocktailDTO dto : cocktailAssembler.toDTOs(cocktails)) {
+            documenti.add(new CocktailReadModel(dto.getId(), serializza(dto), adesso));
+        }
+        readModelRepository.sostituisciTutti(documenti);
+        return cocktails.stream().map(Cocktail::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Confronta ogni documento del read model con la ricetta ricostruita dalle tabelle
+     * Operazione di sola lettura: non corregge nulla (usare ricostruisciTutto o aggiorna).
+     * 
+     * @return report con documenti mancanti, obsoleti e orfani
+     */
+    @Transactional(readOnly = true)
+    public ReadModelCheckDTO verificaConsistenza() {
+        List<Long> mancanti = new ArrayList<>();
+        List<Long> obsoleti = new ArrayList<>();
+        Set<Long> esistenti = new HashSet<>();
+        long controllati = 0;
+
+        Pageable pageable = PageRequest.of(0, BATCH_SIZE, Sort.by("id"));
+        Page<Cocktail> pagina;
+        do {
+            pagina = cocktailRepository.findAll(pageable);
+            List<CocktailDTO> attesi = cocktailAssembler.toDTOs(pagina.getContent());
+            Map<Long, CocktailDTO> salvati = leggi(attesi.stream().map(CocktailDTO::getId).collect(Collectors.toList()));
+            for (CocktailDTO atteso : attesi) {
+                controllati++;
+                esistenti.add(atteso.getId());
+                CocktailDTO salvato = salvati.get(atteso.getId());
+                if (salvato == null) {
+                    mancanti.add(atteso.getId());
+                } else if (!salvato.equals(atteso)) {
+                    obsoleti.add(atteso.getId());
+                }
+            }
+            pageable = pagina.nextPageable();
+        } while (pagina.hasNext());
+
+        List<Long> orfani = readModelRepository.findAllCocktailIds().stream()
+                .filter(id -> !esistenti.contains(id))
+                .collect(Collectors.toList());
+
+        boolean consistente = mancanti.isEmpty() && obsoleti.isEmpty() && orfani.isEmpty();
+        return new ReadModelCheckDTO(controllati, mancanti, obsoleti, orfani, consistente);
+    }
+
+    /**
+     * All'avvio ricostruisce il read model se è incompleto (es: dati inseriti dal vecchio init.sql o da db/dati-esempio)
+     * o se richiesto esplicitamente con cocktail.read-model.rebuild-on-startup=true
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void verificaAllAvvio() {
+        long cocktail = cocktailRepository.count();
+        long documenti = readModelRepository.count();
+        if (rebuildOnStartup || cocktail != documenti) {
+            logger.info("Ricostruzione del read model all'avvio ({} cocktail, {} documenti)", cocktail, documenti);
+            ricostruisciTutto();
+        }
+    }
+
+    private String serializza(CocktailDTO dto) {
+        try {
+            return objectMapper.writeValueAsString(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossibile serializzare il cocktail " + dto.getId(), e);
+        }
+    }
+}
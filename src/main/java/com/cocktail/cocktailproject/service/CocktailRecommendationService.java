@@ -0,0 +1,206 @@
+package com.cocktail.cocktailproject.service;
+
+import com.cocktail.cocktailproject.dto.CocktailRaccomandatoDTO;
+import com.cocktail.cocktailproject.dto.CocktailSummaryDTO;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent.Entita;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent.Operazione;
+import com.cocktail.cocktailproject.event.PreferitoEvent;
+import com.cocktail.cocktailproject.repository.CocktailRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * CocktailRecommendationService - "Chi ha salvato questo ha salvato anche..." e consigli per utente
+ *
+ * Modello item-item: matrice delle co-occorrenze tra cocktail nei preferiti (CoOccurrenceMatrix),
+ * tenuta in memoria. Le richieste non leggono mai user_favoriti.
+ *
+ * Aggiornamento:
+ * - preferiti aggiunti/rimossi su questa istanza: PreferitoEvent dopo il commit,
+ *   aggiornamento incrementale delle sole righe dei cocktail dell'utente
+ * - cocktail eliminato: rimosso dalla matrice e dai preferiti in memoria
+ * - preferiti cambiati su altre istanze (CatalogChangeEvent FAVORITO remoto, senza utente):
+ *   la matrice viene ricostruita al prossimo ciclo (cocktail.recommendations.rebuild-ms)
+ *
+ * Ricostruzione completa: all'avvio e quando serve, con una lettura di user_favoriti e
+ * il conteggio delle coppie in parallelo (fork-join). Le operazioni incrementali arrivate
+ * durante la ricostruzione vengono riapplicate alla nuova matrice (sono idempotenti).
+ */
+@Service
+public class CocktailRecommendationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CocktailRecommendationService.class);
+
+    private static final String PREFERITI_SQL = "SELECT keycloak_user_id, cocktail_id FROM user_favoriti";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CocktailRepository cocktailRepository;
+
+    // Serializza le ricostruzioni complete
+    private final Object ricostruzione = new Object();
+    private final AtomicBoolean sporco = new AtomicBoolean();
+
+    // Stato protetto da "this"
+    private CoOccurrenceMatrix matrice = new CoOccurrenceMatrix();
+    private List<PreferitoEvent> inAttesa;
+
+    public CocktailRecommendationService(JdbcTemplate jdbcTemplate, CocktailRepository cocktailRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cocktailRepository = cocktailRepository;
+    }
+
+    /**
+     * Cocktail salvati più spesso insieme a quello indicato
+     * @param cocktailId ID del cocktail
+     * @param limite Numero massimo di risultati
+     * @return Cocktail con punteggio = utenti che hanno salvato entrambi, dal più alto
+     */
+    public List<CocktailRaccomandatoDTO> ancheApprezzati(Long cocktailId, int limite) {
+        if (cocktailId == null || cocktailId <= 0 || cocktailId > Integer.MAX_VALUE) {
+            return List.of();
+        }
+        List<CoOccurrenceMatrix.Conteggio> conteggi;
+        synchronized (this) {
+            conteggi = matrice.ancheApprezzati((int) (long) cocktailId, limite);
+        }
+        return idrata(conteggi);
+    }
+
+    /**
+     * Cocktail consigliati a un utente in base ai suoi preferiti (esclusi quelli che ha già)
+     * @param keycloakUserId UUID utente (claim 'sub')
+     * @param limite Numero massimo di risultati
+     * @return Cocktail con punteggio = somma delle co-occorrenze con i preferiti, dal più alto
+     */
+    public List<CocktailRaccomandatoDTO> raccomandazioni(String keycloakUserId, int limite) {
+        List<CoOccurrenceMatrix.Conteggio> conteggi;
+        synchronized (this) {
+            conteggi = matrice.raccomandazioni(keycloakUserId, limite);
+        }
+        return idrata(conteggi);
+    }
+
+    /**
+     * Aggiornamento incrementale dopo il commit dell'aggiunta/rimozione di un preferito
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPreferito(PreferitoEvent evento) {
+        if (evento.cocktailId() == null || evento.cocktailId() > Integer.MAX_VALUE) {
+            return;
+        }
+        applica(matrice, evento);
+        if (inAttesa != null) {
+            inAttesa.add(evento);
+        }
+    }
+
+    /**
+     * Cocktail eliminati (i preferiti vengono cancellati con loro) e preferiti cambiati altrove
+     */
+    @EventListener
+    public void onCatalogChange(CatalogChangeEvent evento) {
+        if (evento.entita() == Entita.FAVORITO && evento.remoto()) {
+            sporco.set(true);
+        } else if (evento.entita() == Entita.COCKTAIL && evento.operazione() == Operazione.DELETE
+                && evento.entitaId() != null && evento.entitaId() <= Integer.MAX_VALUE) {
+            synchronized (this) {
+                matrice.rimuoviCocktail((int) (long) evento.entitaId());
+                if (inAttesa != null) {
+                    // La ricostruzione in corso potrebbe aver letto i preferiti prima della cancellazione
+                    sporco.set(true);
+                }
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ricostruisci();
+    }
+
+    /**
+     * Ricostruisce la matrice se nel frattempo sono cambiati preferiti su altre istanze
+     */
+    @Scheduled(fixedDelayString = "${cocktail.recommendations.rebuild-ms:60000}")
+    public void ricostruisciSeNecessario() {
+        if (sporco.getAndSet(false)) {
+            ricostruisci();
+        }
+    }
+
+    /**
+     * Ricostruzione completa da user_favoriti
+     */
+    public void ricostruisci() {
+        synchronized (ricostruzione) {
+            synchronized (this) {
+                inAttesa = new ArrayList<>();
+            }
+            long inizio = System.currentTimeMillis();
+            Map<String, List<Integer>> letti = new HashMap<>();
+            jdbcTemplate.query(PREFERITI_SQL, rs -> {
+                long cocktailId = rs.getLong("cocktail_id");
+                if (cocktailId <= Integer.MAX_VALUE) {
+                    letti.computeIfAbsent(rs.getString("keycloak_user_id"), k -> new ArrayList<>()).add((int) cocktailId);
+                }
+            });
+            Map<String, int[]> perUtente = new HashMap<>();
+            letti.forEach((utente, ids) -> perUtente.put(utente, ids.stream().mapToInt(Integer::intValue).toArray()));
+            CoOccurrenceMatrix nuova = CoOccurrenceMatrix.costruisci(perUtente);
+
+            synchronized (this) {
+                inAttesa.forEach(evento -> applica(nuova, evento));
+                inAttesa = null;
+                matrice = nuova;
+            }
+            logger.info("Matrice co-occorrenze preferiti ricostruita: {} utenti in {} ms",
+                    nuova.utenti(), System.currentTimeMillis() - inizio);
+        }
+    }
+
+    private static void applica(CoOccurrenceMatrix matrice, PreferitoEvent evento) {
+        int cocktailId = (int) (long) evento.cocktailId();
+        if (evento.aggiunto()) {
+            matrice.aggiungi(evento.keycloakUserId(), cocktailId);
+        } else {
+            matrice.rimuovi(evento.keycloakUserId(), cocktailId);
+        }
+    }
+
+    /**
+     * Aggiunge nome e tempo con una query per chiave primaria, mantenendo l'ordine del punteggio
+     */
+    private List<CocktailRaccomandatoDTO> idrata(List<CoOccurrenceMatrix.Conteggio> conteggi) {
+        if (conteggi.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, CocktailSummaryDTO> perId = cocktailRepository.findSummariesByIds(
+                        conteggi.stream().map(c -> (long) c.cocktailId()).toList())
+                .stream()
+                .collect(Collectors.toMap(CocktailSummaryDTO::getId, Function.identity()));
+        List<CocktailRaccomandatoDTO> risultato = new ArrayList<>(conteggi.size());
+        for (CoOccurrenceMatrix.Conteggio conteggio : conteggi) {
+            CocktailSummaryDTO dati = perId.get((long) conteggio.cocktailId());
+            if (dati != null) {
+                risultato.add(new CocktailRaccomandatoDTO(dati.getId(), dati.getNome(),
+                        dati.getTempoPreparazioneMinutes(), conteggio.punteggio()));
+            }
+        }
+        return risultato;
+    }
+}
@@ -1,20 +1,43 @@
 package com.cocktail.cocktailproject.service;
 
+import com.cocktail.cocktailproject.cache.CatalogGeneration;
+import com.cocktail.cocktailproject.cache.CocktailCache;
+import com.cocktail.cocktailproject.cache.CocktailIdIndex;
+import com.cocktail.cocktailproject.cache.SearchCache;
+import com.cocktail.cocktailproject.cache.SingleFlight;
+import com.cocktail.cocktailproject.dto.CocktailBatchDTO;
 import com.cocktail.cocktailproject.dto.CocktailDTO;
+import com.cocktail.cocktailproject.dto.CocktailSummaryDTO;
+import com.cocktail.cocktailproject.dto.CocktailVersioneDTO;
 import com.cocktail.cocktailproject.dto.CreateCocktailRequestDTO;
+import com.cocktail.cocktailproject.dto.PaginaStimataDTO;
+import com.cocktail.cocktailproject.dto.StepModificaDTO;
+import com.cocktail.cocktailproject.dto.StepPatchDTO;
 import com.cocktail.cocktailproject.entity.Cocktail;
 import com.cocktail.cocktailproject.entity.Ingrediente;
 import com.cocktail.cocktailproject.entity.Preparazione;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent.Entita;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent.Operazione;
 import com.cocktail.cocktailproject.repository.CocktailRepository;
 import com.cocktail.cocktailproject.repository.IngredienteRepository;
 import com.cocktail.cocktailproject.repository.PreparazioneRepository;
 import com.cocktail.cocktailproject.repository.UserFavoritoRepository;
+import jakarta.persistence.Tuple;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -27,45 +50,177 @@ import java.util.stream.Collectors;
  * - Validazione dei dati in ingresso
  * - Gestione ingredienti e step di preparazione
  * - Cancellazioni cascata (preparazione + favoriti)
+ * - Ordinamenti ammessi per le liste, tutti serviti da un indice (ORDINAMENTI)
  */
 @Service
 public class CocktailService {
 
+    /** Valore di ?sort= per la popolarità (numero di utenti con il cocktail nei preferiti) */
+    public static final String PER_POPOLARITA = "popularity";
+
+    /**
+     * Ordinamenti ammessi per ?sort= sulle liste di cocktail. Ognuno coincide con un indice
+     * della tabella cocktail (vedi Cocktail): il database legge le righe nell'ordine
+     * dell'indice e si ferma alla pagina richiesta, senza ordinare il catalogo (filesort).
+     * "created" usa la chiave primaria: l'ID auto-incrementale segue l'ordine di creazione.
+     */
+    public static final Map<String, Sort> ORDINAMENTI = Map.of(
+            "id", Sort.by("id"),
+            "nome", Sort.by("nome", "id"),
+            "tempoPreparazioneMinutes", Sort.by("tempoPreparazioneMinutes", "id"),
+            "created", Sort.by(Sort.Order.desc("id")),
+            PER_POPOLARITA, Sort.by(Sort.Order.desc("preferiti"), Sort.Order.asc("id")));
+
     private final CocktailRepository cocktailRepository;
     private final IngredienteRepository ingredienteRepository;
     private final PreparazioneRepository preparazioneRepository;
     private final UserFavoritoRepository userFavoritoRepository;
+    private final CocktailCache cocktailCache;
+    private final CocktailAssembler cocktailAssembler;
+    private final CocktailReadModelService readModelService;
+    private final ChangeFeedService changeFeedService;
+    private final SingleFlight singleFlight;
+    private final SearchCache searchCache;
+    private final CatalogGeneration catalogGeneration;
+    private final CocktailIdIndex cocktailIdIndex;
 
     // Constructor Injection (Spring 4.3+): più testabile, immutabile e esplicito
     public CocktailService(
             CocktailRepository cocktailRepository,
             IngredienteRepository ingredienteRepository,
             PreparazioneRepository preparazioneRepository,
-            UserFavoritoRepository userFavoritoRepository) {
+            UserFavoritoRepository userFavoritoRepository,
+            CocktailCache cocktailCache,
+            CocktailAssembler cocktailAssembler,
+            CocktailReadModelService readModelService,
+            ChangeFeedService changeFeedService,
+            SingleFlight singleFlight,
+            SearchCache searchCache,
+            CatalogGeneration catalogGeneration,
+            CocktailIdIndex cocktailIdIndex) {
         this.cocktailRepository = cocktailRepository;
         this.ingredienteRepository = ingredienteRepository;
         this.preparazioneRepository = preparazioneRepository;
         this.userFavoritoRepository = userFavoritoRepository;
+        this.cocktailCache = cocktailCache;
+        this.cocktailAssembler = cocktailAssembler;
+        this.readModelService = readModelService;
+        this.changeFeedService = changeFeedService;
+        this.singleFlight = singleFlight;
+        this.searchCache = searchCache;
+        this.catalogGeneration = catalogGeneration;
+        this.cocktailIdIndex = cocktailIdIndex;
     }
 
     /**
      * Ottieni tutti i cocktail con paginazione (metodo raccomandato)
+     * Legge la pagina di ID dalla chiave primaria e le ricette dal read model.
      * @param pageable Parametri di paginazione (page, size, sort)
      * @return Pagina di cocktail con metadata (totalElements, totalPages, etc.)
      */
     public Page<CocktailDTO> getAllCocktails(Pageable pageable) {
-        return cocktailRepository.findAll(pageable)
-                .map(this::convertToDTO);
+        return hydratePage(cocktailRepository.findAllIds(pageable));
     }
 
     /**
-     * Ottieni un cocktail specifico per ID
+     * Ottieni tutti i cocktail in versione compatta (id, nome, tempo)
+     * Non carica gli step di preparazione né gli ingredienti
+     * @param pageable Parametri di paginazione
+     * @return Pagina di CocktailSummaryDTO
+     */
+    public Page<CocktailSummaryDTO> getAllCocktailSummaries(Pageable pageable) {
+        return cocktailRepository.findAllSummaries(pageable);
+    }
+
+    /**
+     * Ottieni un cocktail specifico per ID (prima dalla cache, poi dal database)
+     * Le richieste concorrenti per lo stesso ID mancante in cache condividono
+     * una sola lettura (SingleFlight), che ripopola la cache per tutte.
+     * Gli ID sicuramente inesistenti (CocktailIdIndex) non arrivano al database.
      * @param id ID univoco del cocktail
      * @return Optional contenente il cocktail se trovato, altrimenti vuoto
      */
     public Optional<CocktailDTO> getCocktailById(Long id) {
-        return cocktailRepository.findById(id)
-                .map(this::convertToDTO);
+        CocktailDTO cached = cocktailCache.get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (!cocktailIdIndex.puoEsistere(id)) {
+            return Optional.empty();
+        }
+        long generazione = cocktailIdIndex.generazione();
+        CocktailDTO cocktail = singleFlight.esegui("cocktail", id, () -> loadByIds(List.of(id)).get(id));
+        if (cocktail == null) {
+            cocktailIdIndex.segnaMancante(id, generazione);
+        }
+        return Optional.ofNullable(cocktail);
+    }
+
+    /**
+     * Ottieni un cocktail per ID, garantendo che non sia più vecchio della versione indicata
+     * 
+     * Se la copia in cache è precedente (modifica fatta da un'altra istanza e non
+     * ancora invalidata), viene scartata e riletta: l'ETag calcolato dal database
+     * non deve mai accompagnare una ricetta vecchia.
+     * 
+     * @param id ID del cocktail
+     * @param minima Versione letta dal database
+     * @return Optional contenente il cocktail se trovato
+     */
+    public Optional<CocktailDTO> getCocktailAggiornato(Long id, long minima) {
+        Optional<CocktailDTO> cocktail = getCocktailById(id);
+        if (cocktail.isPresent() && cocktail.get().getVersione() != null
+                && cocktail.get().getVersione() < minima) {
+            cocktailCache.evict(id);
+            return Optional.ofNullable(loadByIds(List.of(id)).get(id));
+        }
+        return cocktail;
+    }
+
+    /**
+     * Versione e timestamp di ultima modifica di un cocktail, senza caricare la ricetta
+     * Gli ID sicuramente inesistenti (CocktailIdIndex) non arrivano al database.
+     * @param id ID del cocktail
+     * @return Optional con versione e timestamp, vuoto se il cocktail non esiste
+     */
+    public Optional<CocktailVersioneDTO> getVersione(Long id) {
+        if (!cocktailIdIndex.puoEsistere(id)) {
+            return Optional.empty();
+        }
+        long generazione = cocktailIdIndex.generazione();
+        Optional<CocktailVersioneDTO> versione = cocktailRepository.findVersioneById(id);
+        if (versione.isEmpty()) {
+            cocktailIdIndex.segnaMancante(id, generazione);
+        }
+        return versione;
+    }
+
+    /**
+     * Ottieni più cocktail per ID in una sola operazione (multi-get)
+     * 
+     * - Gli ID già in cache vengono serviti senza toccare il database
+     * - I restanti vengono letti dal read model con una lookup per chiave primaria
+     * - L'ordine della risposta rispecchia l'ordine degli ID richiesti (duplicati rimossi)
+     * - Gli ID inesistenti vengono riportati in "mancanti"
+     * 
+     * @param ids ID richiesti
+     * @return CocktailBatchDTO con cocktail trovati e ID mancanti
+     */
+    public CocktailBatchDTO getCocktailsByIds(List<Long> ids) {
+        List<Long> richiesti = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, CocktailDTO> trovati = loadByIds(richiesti);
+
+        List<CocktailDTO> cocktails = new ArrayList<>(trovati.size());
+        List<Long> mancanti = new ArrayList<>();
+        for (Long id : richiesti) {
+            CocktailDTO dto = trovati.get(id);
+            if (dto != null) {
+                cocktails.add(dto);
+            } else {
+                mancanti.add(id);
+            }
+        }
+        return new CocktailBatchDTO(cocktails, mancanti);
     }
 
     /**
@@ -77,8 +232,130 @@ public class CocktailService {
      * @return Pagina di cocktail che corrispondono alla ricerca
      */
     public Page<CocktailDTO> searchByName(String nome, Pageable pageable) {
-        return cocktailRepository.findByNomeContainingIgnoreCase(nome, pageable)
-                .map(this::convertToDTO);
+        return searchByName(nome, pageable, true);
+    }
+
+    /**
+     * Cerca cocktail per nome scegliendo come calcolare il totale
+     * @param nome Stringa da cercare nel nome (case-insensitive, ricerca parziale)
+     * @param pageable Parametri di paginazione
+     * @param esatto true per il COUNT esatto, false per il totale stimato (vedi PaginaStimataDTO)
+     * @return Pagina di cocktail (PaginaStimataDTO se non esatto)
+     */
+    public Page<CocktailDTO> searchByName(String nome, Pageable pageable, boolean esatto) {
+        // Testo normalizzato: "Gin ", "gin" e "GÍN" condividono la stessa voce in cache
+        String testo = SearchCache.normalizza(nome);
+        // Generazione letta prima della query: un risultato calcolato durante una modifica resta irraggiungibile
+        long generazione = catalogGeneration.corrente();
+        Page<Long> ids = searchCache.get(testo, pageable, generazione, esatto);
+        if (ids == null) {
+            // Ricerche identiche concorrenti condividono la stessa query
+            String chiave = generazione + "|" + esatto + "|" + chiaveRicerca(testo, pageable);
+            ids = singleFlight.esegui("cocktail-search", chiave, () -> {
+                Page<Long> pagina = esatto
+                        ? cocktailRepository.findIdsByNome(testo, pageable)
+                        : conTotaleStimato(testo, generazione, cocktailRepository.findSliceIdsByNome(testo, pageable));
+                searchCache.put(testo, pageable, generazione, esatto, pagina);
+                return pagina;
+            });
+        }
+        return hydratePage(ids);
+    }
+
+    /**
+     * Cerca cocktail per nome in versione compatta (id, nome, tempo)
+     * @param nome Stringa da cercare nel nome (case-insensitive, ricerca parziale)
+     * @param pageable Parametri di paginazione
+     * @return Pagina di CocktailSummaryDTO
+     */
+    public Page<CocktailSummaryDTO> searchSummariesByName(String nome, Pageable pageable) {
+        return cocktailRepository.findSummariesByNome(nome, pageable);
+    }
+
+    /**
+     * Cerca cocktail per nome in versione compatta scegliendo come calcolare il totale
+     * @param esatto true per il COUNT esatto, false per il totale stimato (vedi PaginaStimataDTO)
+     */
+    public Page<CocktailSummaryDTO> searchSummariesByName(String nome, Pageable pageable, boolean esatto) {
+        // Stesso testo normalizzato di searchByName per entrambi i conteggi
+        String testo = SearchCache.normalizza(nome);
+        if (esatto) {
+            return searchSummariesByName(testo, pageable);
+        }
+        return conTotaleStimato(testo, catalogGeneration.corrente(),
+                cocktailRepository.findSliceSummariesByNome(testo, pageable));
+    }
+
+    /**
+     * Ottieni tutti i cocktail con solo i campi richiesti (?fields=)
+     * Le colonne lette e le tabelle toccate dipendono dal piano di selezione.
+     * @param selezione Piano dei campi richiesti
+     * @param pageable Parametri di paginazione
+     * @return Pagina di mappe campo -> valore
+     */
+    public Page<Map<String, Object>> getAllCocktails(CocktailFieldSelection selezione, Pageable pageable) {
+        Page<Tuple> righe = cocktailRepository.findColonne(selezione.colonneCocktail(), null, pageable);
+        List<Map<String, Object>> content = toFieldMaps(righe.getContent(), selezione);
+        return new PageImpl<>(content, pageable, righe.getTotalElements());
+    }
+
+    /**
+     * Cerca cocktail per nome con solo i campi richiesti (?fields=)
+     * @param nome Stringa da cercare nel nome (case-insensitive, ricerca parziale)
+     * @param selezione Piano dei campi richiesti
+     * @param pageable Parametri di paginazione
+     * @return Pagina di mappe campo -> valore
+     */
+    public Page<Map<String, Object>> searchByName(String nome, CocktailFieldSelection selezione, Pageable pageable) {
+        Page<Tuple> righe = cocktailRepository.findColonne(selezione.colonneCocktail(), nome, pageable);
+        List<Map<String, Object>> content = toFieldMaps(righe.getContent(), selezione);
+        return new PageImpl<>(content, pageable, righe.getTotalElements());
+    }
+
+    /**
+     * Cerca cocktail per nome con solo i campi richiesti, scegliendo come calcolare il totale
+     * @param esatto true per il COUNT esatto, false per il totale stimato (vedi PaginaStimataDTO)
+     */
+    public Page<Map<String, Object>> searchByName(String nome, CocktailFieldSelection selezione, Pageable pageable,
+                                                  boolean esatto) {
+        if (esatto) {
+            return searchByName(nome, selezione, pageable);
+        }
+        String testo = SearchCache.normalizza(nome);
+        PaginaStimataDTO<Tuple> righe = conTotaleStimato(testo, catalogGeneration.corrente(),
+                cocktailRepository.findSliceColonne(selezione.colonneCocktail(), testo, pageable));
+        List<Map<String, Object>> content = toFieldMaps(righe.getContent(), selezione);
+        return new PaginaStimataDTO<>(content, pageable, righe.getTotalElements(), righe.isTotaleStimato());
+    }
+
+    /**
+     * Ottieni un cocktail per ID con solo i campi richiesti (?fields=)
+     * @param id ID del cocktail
+     * @param selezione Piano dei campi richiesti
+     * @return Optional con la mappa campo -> valore, vuoto se non trovato
+     */
+    public Optional<Map<String, Object>> getCocktailById(Long id, CocktailFieldSelection selezione) {
+        return getCocktailsByIds(List.of(id), selezione).stream().findFirst();
+    }
+
+    /**
+     * Ottieni più cocktail per ID con solo i campi richiesti, nell'ordine degli ID
+     * Gli ID inesistenti vengono ignorati.
+     * @param ids ID dei cocktail
+     * @param selezione Piano dei campi richiesti
+     * @return Lista di mappe campo -> valore
+     */
+    public List<Map<String, Object>> getCocktailsByIds(List<Long> ids, CocktailFieldSelection selezione) {
+        List<Tuple> righe = cocktailRepository.findColonneByIds(selezione.colonneCocktail(), ids);
+        Map<Long, Tuple> perId = new HashMap<>();
+        for (Tuple riga : righe) {
+            perId.put(riga.get("id", Long.class), riga);
+        }
+        List<Tuple> ordinate = ids.stream()
+                .map(perId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return toFieldMaps(ordinate, selezione);
     }
 
     /**
@@ -116,6 +393,7 @@ public class CocktailService {
         cocktail.setDescrizione(requestDTO.getDescrizione());
         cocktail.setTempoPreparazioneMinutes(requestDTO.getTempoPreparazioneMinutes());
         cocktail.setNote(requestDTO.getNote());
+        cocktail.setAggiornatoIl(adesso());
         
         // Salva il cocktail
         Cocktail savedCocktail = cocktailRepository.save(cocktail);
@@ -149,6 +427,7 @@ public class CocktailService {
                 ingrediente = new Ingrediente();
                 ingrediente.setNome(nomeNormalizzato);
                 ingrediente = ingredienteRepository.save(ingrediente);
+                changeFeedService.registra(Entita.INGREDIENTE, ingrediente.getId(), Operazione.CREATE);
             }
             
             processedIngredients.add(ingrediente.getId());
@@ -157,7 +436,11 @@ public class CocktailService {
             Preparazione preparazione = new Preparazione();
             preparazione.setCocktailId(savedCocktail.getId());
             preparazione.setIngredienteId(ingrediente.getId());
-            preparazione.setQuantita(ingredienteStep.getQuantita());
+            // Stessa scala della colonna DECIMAL(8,2): il documento nel read model
+            // deve coincidere con quello riletto dal database
+            preparazione.setQuantita(ingredienteStep.getQuantita() != null
+                    ? ingredienteStep.getQuantita().setScale(2, RoundingMode.HALF_UP)
+                    : null);
             preparazione.setUnita(ingredienteStep.getUnita());
             preparazione.setStepOrder(stepOrder);
             
@@ -171,8 +454,13 @@ public class CocktailService {
             preparazioneRepository.save(preparazione);
             stepOrder++;
         }
+        ingredienteRepository.aggiornaUtilizzi(processedIngredients, 1);
         
-        return convertToDTO(savedCocktail);
+        // Scrive il documento della ricetta nel read model (stessa transazione)
+        CocktailDTO created = convertToDTO(savedCocktail);
+        readModelService.salva(created);
+        changeFeedService.registra(Entita.COCKTAIL, created.getId(), Operazione.CREATE);
+        return created;
     }
 
     /**
@@ -186,7 +474,23 @@ public class CocktailService {
     public CocktailDTO createCocktail(CocktailDTO cocktailDTO) {
         Cocktail cocktail = convertToEntity(cocktailDTO);
         Cocktail saved = cocktailRepository.save(cocktail);
-        return convertToDTO(saved);
+        CocktailDTO created = convertToDTO(saved);
+        readModelService.salva(created);
+        changeFeedService.registra(Entita.COCKTAIL, created.getId(), Operazione.CREATE);
+        return created;
+    }
+
+    /**
+     * Aggiorna un cocktail esistente senza precondizioni sulla versione
+     * (resta comunque protetto dal locking ottimistico tra lettura e scrittura)
+     * 
+     * @param id ID del cocktail da aggiornare
+     * @param cocktailDTO Dati da aggiornare (campi null vengono ignorati)
+     * @return Optional contenente il cocktail aggiornato, o vuoto se non trovato
+     */
+    @Transactional
+    public Optional<CocktailDTO> updateCocktail(Long id, CocktailDTO cocktailDTO) {
+        return updateCocktail(id, cocktailDTO, null);
     }
 
     /**
@@ -195,14 +499,26 @@ public class CocktailService {
      * Solo i campi non-null nel DTO vengono aggiornati.
      * Gli altri campi mantengono il valore precedente.
      * 
+     * Concorrenza ottimistica:
+     * - se versioniAttese non è null, la versione corrente deve essere una di queste (If-Match)
+     * - l'UPDATE include "WHERE versione = ?": una modifica concorrente confermata
+     *   tra la lettura e la scrittura fa fallire questa
+     * In entrambi i casi viene lanciata OptimisticLockingFailureException.
+     * 
      * @param id ID del cocktail da aggiornare
      * @param cocktailDTO Dati da aggiornare (campi null vengono ignorati)
+     * @param versioniAttese Versioni accettate (null = nessuna precondizione)
      * @return Optional contenente il cocktail aggiornato, o vuoto se non trovato
+     * @throws OptimisticLockingFailureException Se il cocktail è stato modificato da altri
      */
     @Transactional
-    public Optional<CocktailDTO> updateCocktail(Long id, CocktailDTO cocktailDTO) {
+    public Optional<CocktailDTO> updateCocktail(Long id, CocktailDTO cocktailDTO, Collection<Long> versioniAttese) {
         return cocktailRepository.findById(id)
                 .map(existing -> {
+                    if (versioniAttese != null && !versioniAttese.contains(existing.getVersione())) {
+                        throw new OptimisticLockingFailureException(
+                                "Il cocktail " + id + " è alla versione " + existing.getVersione());
+                    }
                     // Aggiorna solo i campi non-null ricevuti nel DTO
                     if (cocktailDTO.getNome() != null) {
                         existing.setNome(cocktailDTO.getNome());
@@ -216,11 +532,114 @@ public class CocktailService {
                     if (cocktailDTO.getNote() != null) {
                         existing.setNote(cocktailDTO.getNote());
                     }
-                    Cocktail updated = cocktailRepository.save(existing);
-                    return convertToDTO(updated);
+                    existing.setAggiornatoIl(adesso());
+                    // Flush subito: la nuova versione deve finire nel DTO e nel read model
+                    Cocktail updated = cocktailRepository.saveAndFlush(existing);
+                    CocktailDTO dto = convertToDTO(updated);
+                    readModelService.salva(dto);
+                    changeFeedService.registra(Entita.COCKTAIL, id, Operazione.UPDATE);
+                    return dto;
                 });
     }
 
+    /**
+     * Sostituisce gli step della ricetta con la lista indicata (PUT /api/cocktails/{id}/steps)
+     * 
+     * Non riscrive la ricetta: confronta la lista con gli step esistenti
+     * (stesso ingrediente = stesso step) e scrive solo le differenze:
+     * - step con ingrediente nuovo → INSERT
+     * - step con quantità/unità/istruzione cambiate → UPDATE
+     * - step spostati → una sola UPDATE di rinumerazione
+     * - ingredienti non più presenti → DELETE
+     * Se non cambia nulla non viene scritto niente (nemmeno la versione).
+     * 
+     * @param id ID del cocktail
+     * @param steps Step nell'ordine desiderato (minimo 2, ingredienti non ripetuti)
+     * @param versioniAttese Versioni accettate (If-Match), null = nessuna precondizione
+     * @return Optional con il cocktail aggiornato, vuoto se non trovato
+     * @throws IllegalArgumentException Se la lista non è valida
+     * @throws OptimisticLockingFailureException Se il cocktail è stato modificato da altri
+     */
+    @Transactional
+    public Optional<CocktailDTO> sostituisciStep(Long id, List<StepModificaDTO> steps, Collection<Long> versioniAttese) {
+        if (steps == null) {
+            throw new IllegalArgumentException("Lista degli step mancante");
+        }
+        return cocktailRepository.findById(id)
+                .map(cocktail -> applicaStep(cocktail, steps, versioniAttese));
+    }
+
+    /**
+     * Modifica parziale degli step della ricetta (PATCH /api/cocktails/{id}/steps)
+     * 
+     * Costruisce la lista finale a partire dagli step attuali e la applica con la
+     * stessa differenza minima di sostituisciStep.
+     * 
+     * @param id ID del cocktail
+     * @param patch Step da modificare/aggiungere, ingredienti da rimuovere, nuovo ordine
+     * @param versioniAttese Versioni accettate (If-Match), null = nessuna precondizione
+     * @return Optional con il cocktail aggiornato, vuoto se non trovato
+     * @throws IllegalArgumentException Se la modifica non è valida
+     * @throws OptimisticLockingFailureException Se il cocktail è stato modificato da altri
+     */
+    @Transactional
+    public Optional<CocktailDTO> modificaStep(Long id, StepPatchDTO patch, Collection<Long> versioniAttese) {
+        if (patch == null) {
+            throw new IllegalArgumentException("Modifica degli step mancante");
+        }
+        return cocktailRepository.findById(id).map(cocktail -> {
+            // Step attuali, nell'ordine della ricetta
+            LinkedHashMap<String, StepModificaDTO> risultato = new LinkedHashMap<>();
+            for (CocktailDTO.StepPreparazioneDTO step : convertToDTO(cocktail).getPreparazione()) {
+                risultato.put(step.getIngrediente(), new StepModificaDTO(step.getIngrediente(),
+                        step.getQuantita() != null ? new BigDecimal(step.getQuantita()) : null,
+                        step.getUnita(), step.getIstruzione()));
+            }
+
+            if (patch.getRimuovi() != null) {
+                for (String nome : patch.getRimuovi()) {
+                    if (risultato.remove(normalizzaIngrediente(nome)) == null) {
+                        throw new IllegalArgumentException("Ingrediente non presente nella ricetta: " + nome);
+                    }
+                }
+            }
+            if (patch.getSteps() != null) {
+                for (StepModificaDTO modifica : patch.getSteps()) {
+                    String nome = normalizzaIngrediente(modifica.getIngrediente());
+                    StepModificaDTO attuale = risultato.get(nome);
+                    if (attuale == null) {
+                        // Nuovo step in fondo alla ricetta
+                        risultato.put(nome, new StepModificaDTO(nome, modifica.getQuantita(),
+                                modifica.getUnita(), modifica.getIstruzione()));
+                    } else {
+                        if (modifica.getQuantita() != null) {
+                            attuale.setQuantita(modifica.getQuantita());
+                        }
+                        if (modifica.getUnita() != null) {
+                            attuale.setUnita(modifica.getUnita());
+                        }
+                        if (modifica.getIstruzione() != null) {
+                            attuale.setIstruzione(modifica.getIstruzione());
+                        }
+                    }
+                }
+            }
+
+            List<StepModificaDTO> finali = new ArrayList<>();
+            if (patch.getOrdine() != null) {
+                for (String nome : patch.getOrdine()) {
+                    StepModificaDTO step = risultato.remove(normalizzaIngrediente(nome));
+                    if (step == null) {
+                        throw new IllegalArgumentException("Ingrediente non presente nella ricetta: " + nome);
+                    }
+                    finali.add(step);
+                }
+            }
+            finali.addAll(risultato.values());
+            return applicaStep(cocktail, finali, versioniAttese);
+        });
+    }
+
     /**
      * Elimina un cocktail e tutti i dati correlati (cancellazione cascata)
      * 
@@ -239,15 +658,135 @@ public class CocktailService {
         if (cocktailRepository.existsById(id)) {
             // Prima elimina i favoriti associati
             userFavoritoRepository.deleteByCocktailId(id);
-            // Poi elimina la preparazione
+            // Poi elimina la preparazione (gli ingredienti perdono un utilizzo)
+            List<Long> ingredienti = preparazioneRepository.findIngredienteIdsByCocktailId(id);
             preparazioneRepository.deleteByCocktailId(id);
-            // Infine elimina il cocktail
+            if (!ingredienti.isEmpty()) {
+                ingredienteRepository.aggiornaUtilizzi(ingredienti, -1);
+            }
+            // Infine elimina il cocktail e il suo documento nel read model
             cocktailRepository.deleteById(id);
+            readModelService.rimuovi(id);
+            changeFeedService.registra(Entita.COCKTAIL, id, Operazione.DELETE);
             return true;
         }
         return false;
     }
 
+    /**
+     * Confronta gli step richiesti con quelli esistenti e scrive solo le differenze
+     * 
+     * La nuova versione del cocktail viene scritta PRIMA degli step: con una modifica
+     * concorrente già confermata l'UPDATE fallisce (locking ottimistico) e nessuno
+     * step viene toccato; altrimenti la riga del cocktail resta bloccata fino al commit.
+     */
+    private CocktailDTO applicaStep(Cocktail cocktail, List<StepModificaDTO> steps, Collection<Long> versioniAttese) {
+        if (versioniAttese != null && !versioniAttese.contains(cocktail.getVersione())) {
+            throw new OptimisticLockingFailureException(
+                    "Il cocktail " + cocktail.getId() + " è alla versione " + cocktail.getVersione());
+        }
+        if (steps.size() < 2) {
+            throw new IllegalArgumentException("Il cocktail deve contenere almeno 2 ingredienti");
+        }
+
+        // Step esistenti per ingrediente
+        List<Preparazione> esistenti = preparazioneRepository.findByCocktailIdOrderByStepOrderAsc(cocktail.getId());
+        Map<Long, String> nomiIngredienti = new HashMap<>();
+        ingredienteRepository.findAllById(esistenti.stream().map(Preparazione::getIngredienteId).collect(Collectors.toSet()))
+                .forEach(ing -> nomiIngredienti.put(ing.getId(), ing.getNome().toLowerCase()));
+        Map<String, Preparazione> perIngrediente = new HashMap<>();
+        for (Preparazione step : esistenti) {
+            perIngrediente.put(nomiIngredienti.get(step.getIngredienteId()), step);
+        }
+
+        List<Preparazione> inserimenti = new ArrayList<>();
+        List<Preparazione> aggiornamenti = new ArrayList<>();
+        Map<Long, Integer> nuoviOrdini = new LinkedHashMap<>();
+        Set<String> visti = new HashSet<>();
+        int stepOrder = 1;
+
+        for (StepModificaDTO richiesto : steps) {
+            String nome = normalizzaIngrediente(richiesto.getIngrediente());
+            if (!visti.add(nome)) {
+                throw new IllegalArgumentException("Ingrediente duplicato: " + richiesto.getIngrediente());
+            }
+            BigDecimal quantita = richiesto.getQuantita() != null
+                    ? richiesto.getQuantita().setScale(2, RoundingMode.HALF_UP)
+                    : null;
+
+            Preparazione esistente = perIngrediente.get(nome);
+            if (esistente == null) {
+                Ingrediente ingrediente = ingredienteRepository.findByNomeIgnoreCase(nome).orElseGet(() -> {
+                    Ingrediente nuovo = new Ingrediente();
+                    nuovo.setNome(nome);
+                    nuovo = ingredienteRepository.save(nuovo);
+                    changeFeedService.registra(Entita.INGREDIENTE, nuovo.getId(), Operazione.CREATE);
+                    return nuovo;
+                });
+                inserimenti.add(new Preparazione(null, cocktail.getId(), ingrediente.getId(), quantita,
+                        richiesto.getUnita(), stepOrder, richiesto.getIstruzione()));
+            } else {
+                boolean cambiato = !Objects.equals(richiesto.getUnita(), esistente.getUnita())
+                        || !Objects.equals(richiesto.getIstruzione(), esistente.getIstruzione())
+                        || (quantita == null ? esistente.getQuantita() != null
+                                             : esistente.getQuantita() == null || quantita.compareTo(esistente.getQuantita()) != 0);
+                if (cambiato) {
+                    aggiornamenti.add(new Preparazione(esistente.getId(), cocktail.getId(), esistente.getIngredienteId(),
+                            quantita, richiesto.getUnita(), esistente.getStepOrder(), richiesto.getIstruzione()));
+                }
+                if (esistente.getStepOrder() != stepOrder) {
+                    nuoviOrdini.put(esistente.getId(), stepOrder);
+                }
+            }
+            stepOrder++;
+        }
+
+        List<Preparazione> rimossi = perIngrediente.entrySet().stream()
+                .filter(e -> !visti.contains(e.getKey()))
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+        List<Long> eliminazioni = rimossi.stream().map(Preparazione::getId).collect(Collectors.toList());
+
+        if (inserimenti.isEmpty() && aggiornamenti.isEmpty() && nuoviOrdini.isEmpty() && eliminazioni.isEmpty()) {
+            return convertToDTO(cocktail);
+        }
+
+        cocktail.setAggiornatoIl(adesso());
+        Cocktail aggiornato = cocktailRepository.saveAndFlush(cocktail);
+        preparazioneRepository.applicaModifiche(inserimenti, aggiornamenti, nuoviOrdini, eliminazioni);
+        // Contatore utilizzi: +1 agli ingredienti aggiunti alla ricetta, -1 a quelli tolti
+        if (!inserimenti.isEmpty()) {
+            ingredienteRepository.aggiornaUtilizzi(
+                    inserimenti.stream().map(Preparazione::getIngredienteId).collect(Collectors.toList()), 1);
+        }
+        if (!rimossi.isEmpty()) {
+            ingredienteRepository.aggiornaUtilizzi(
+                    rimossi.stream().map(Preparazione::getIngredienteId).collect(Collectors.toList()), -1);
+        }
+
+        CocktailDTO dto = convertToDTO(aggiornato);
+        readModelService.salva(dto);
+        changeFeedService.registra(Entita.COCKTAIL, cocktail.getId(), Operazione.UPDATE);
+        return dto;
+    }
+
+    /**
+     * Chiave SingleFlight di una ricerca paginata (testo + pagina + ordinamento)
+     */
+    static String chiaveRicerca(String nome, Pageable pageable) {
+        return nome + '|' + pageable.getPageNumber() + '|' + pageable.getPageSize() + '|' + pageable.getSort();
+    }
+
+    /**
+     * Nome ingrediente normalizzato come in createCocktail (lowercase, trim)
+     */
+    private String normalizzaIngrediente(String nome) {
+        if (nome == null || nome.trim().isEmpty()) {
+            throw new IllegalArgumentException("Nome ingrediente mancante");
+        }
+        return nome.trim().toLowerCase();
+    }
+
     /**
      * Converte un'entity Cocktail in DTO per il client
      * 
@@ -259,40 +798,115 @@ public class CocktailService {
      * @return DTO completo pronto per il client
      */
     private CocktailDTO convertToDTO(Cocktail cocktail) {
-        CocktailDTO dto = new CocktailDTO();
-        dto.setId(cocktail.getId());
-        dto.setNome(cocktail.getNome());
-        dto.setDescrizione(cocktail.getDescrizione());
-        dto.setTempoPreparazioneMinutes(cocktail.getTempoPreparazioneMinutes());
-        dto.setNote(cocktail.getNote());
-        
-        // Carica gli step ordinati
-        List<Preparazione> steps = preparazioneRepository.findByCocktailIdOrderByStepOrderAsc(cocktail.getId());
-        
-        // Carica tutti gli ingredienti una volta sola (evita N+1 query problem)
-        Map<Long, String> ingredientiMap = new HashMap<>();
-        for (Preparazione step : steps) {
-            if (!ingredientiMap.containsKey(step.getIngredienteId())) {
-                String nomeIngrediente = ingredienteRepository.findById(step.getIngredienteId())
-                        .map(Ingrediente::getNome)
-                        .orElse("Ingrediente sconosciuto");
-                ingredientiMap.put(step.getIngredienteId(), nomeIngrediente);
+        return cocktailAssembler.toDTOs(List.of(cocktail)).get(0);
+    }
+
+    /**
+     * Carica le ricette complete per ID: cache, poi read model, poi tabelle normalizzate
+     * 
+     * Le ricette ricostruite dalle tabelle (documento assente nel read model)
+     * non vengono scritte qui: il read model viene riallineato dalle scritture
+     * o dal comando di rebuild.
+     * 
+     * @param ids ID dei cocktail
+     * @return mappa ID -> ricetta, senza gli ID inesistenti
+     */
+    private Map<Long, CocktailDTO> loadByIds(Collection<Long> ids) {
+        long generazione = cocktailCache.generazione();
+        Map<Long, CocktailDTO> trovati = new HashMap<>(cocktailCache.getAll(ids));
+
+        List<Long> daCaricare = ids.stream()
+                .filter(id -> !trovati.containsKey(id))
+                .collect(Collectors.toList());
+        if (daCaricare.isEmpty()) {
+            return trovati;
+        }
+        Map<Long, CocktailDTO> dalReadModel = readModelService.leggi(daCaricare);
+        List<Long> senzaDocumento = new ArrayList<>();
+        for (Long id : daCaricare) {
+            CocktailDTO dto = dalReadModel.get(id);
+            if (dto != null) {
+                cocktailCache.putIfGeneration(dto, generazione);
+                trovati.put(id, dto);
+            } else {
+                senzaDocumento.add(id);
             }
         }
-        
-        // Converte ogni step in StepPreparazioneDTO
-        List<CocktailDTO.StepPreparazioneDTO> stepsDTO = steps.stream()
-                .map(step -> new CocktailDTO.StepPreparazioneDTO(
-                        step.getStepOrder(),
-                        ingredientiMap.get(step.getIngredienteId()),
-                        step.getQuantita() != null ? step.getQuantita().toString() : null,
-                        step.getUnita(),
-                        step.getIstruzione()
-                ))
+        if (!senzaDocumento.isEmpty()) {
+            for (CocktailDTO dto : cocktailAssembler.toDTOs(cocktailRepository.findAllById(senzaDocumento))) {
+                cocktailCache.putIfGeneration(dto, generazione);
+                trovati.put(dto.getId(), dto);
+            }
+        }
+        return trovati;
+    }
+
+    /**
+     * Converte una pagina di ID in una pagina di ricette complete, mantenendo l'ordine
+     */
+    private Page<CocktailDTO> hydratePage(Page<Long> ids) {
+        Map<Long, CocktailDTO> ricette = loadByIds(ids.getContent());
+        List<CocktailDTO> content = ids.getContent().stream()
+                .map(ricette::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
-        
-        dto.setPreparazione(stepsDTO);
-        return dto;
+        if (ids instanceof PaginaStimataDTO<Long> stimata) {
+            return new PaginaStimataDTO<>(content, ids.getPageable(), ids.getTotalElements(), stimata.isTotaleStimato());
+        }
+        return new PageImpl<>(content, ids.getPageable(), ids.getTotalElements());
+    }
+
+    /**
+     * Totale di una ricerca per nome letta come Slice: conteggio limitato, in cache per testo e generazione
+     */
+    private <T> PaginaStimataDTO<T> conTotaleStimato(String testo, long generazione, Slice<T> slice) {
+        return PaginaStimataDTO.da(slice, searchCache.limiteConteggio(),
+                () -> searchCache.conteggio("cocktail", testo, generazione,
+                        limite -> cocktailRepository.findPrimiIdsByNome(testo, Limit.of(limite)).size()));
+    }
+
+    /**
+     * Converte le righe lette con colonne dinamiche in mappe con i soli campi richiesti
+     * 
+     * Gli step (se richiesti) vengono caricati con UNA query per tutta la pagina,
+     * con join sugli ingredienti solo se serve il nome dell'ingrediente.
+     * 
+     * @param righe Righe del cocktail (contengono sempre "id")
+     * @param selezione Piano dei campi richiesti
+     * @return Lista di mappe nello stesso ordine delle righe
+     */
+    private List<Map<String, Object>> toFieldMaps(List<Tuple> righe, CocktailFieldSelection selezione) {
+        Map<Long, List<Map<String, Object>>> stepPerCocktail = new HashMap<>();
+        if (selezione.richiedePreparazione() && !righe.isEmpty()) {
+            List<Long> ids = righe.stream().map(r -> r.get("id", Long.class)).collect(Collectors.toList());
+            for (Tuple step : cocktailRepository.findColonneStep(selezione.getCampiStep(), ids)) {
+                Map<String, Object> stepMap = new LinkedHashMap<>();
+                for (String campo : selezione.getCampiStep()) {
+                    Object valore = step.get(campo);
+                    // Stesso formato di StepPreparazioneDTO (quantità come stringa)
+                    if (campo.equals("quantita") && valore != null) {
+                        valore = valore.toString();
+                    }
+                    stepMap.put(campo, valore);
+                }
+                stepPerCocktail.computeIfAbsent(step.get("cocktailId", Long.class), k -> new ArrayList<>())
+                        .add(stepMap);
+            }
+        }
+
+        List<Map<String, Object>> risultato = new ArrayList<>(righe.size());
+        for (Tuple riga : righe) {
+            Map<String, Object> cocktail = new LinkedHashMap<>();
+            for (String campo : selezione.getCampiCocktail()) {
+                cocktail.put(campo, riga.get(campo));
+            }
+            if (selezione.richiedePreparazione()) {
+                cocktail.put("preparazione",
+                        stepPerCocktail.getOrDefault(riga.get("id", Long.class), List.of()));
+            }
+            risultato.add(cocktail);
+        }
+        return risultato;
     }
 
     /**
@@ -306,8 +920,17 @@ public class CocktailService {
         cocktail.setDescrizione(dto.getDescrizione());
         cocktail.setTempoPreparazioneMinutes(dto.getTempoPreparazioneMinutes());
         cocktail.setNote(dto.getNote());
+        cocktail.setAggiornatoIl(adesso());
         return cocktail;
     }
 
+    /**
+     * Timestamp corrente con la precisione della colonna DATETIME(6)
+     * (il documento nel read model deve coincidere con quello riletto dal database)
+     */
+    static LocalDateTime adesso() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
     
 }
\ No newline at end of file
@@ -0,0 +1,174 @@
+package com.cocktail.cocktailproject.service;
+
+import com.cocktail.cocktailproject.dto.CocktailSimileDTO;
+import com.cocktail.cocktailproject.dto.CocktailSummaryDTO;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent.Entita;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * CocktailSimilarityService - Cocktail simili per ingredienti (MinHash / LSH)
+ * 
+ * Mantiene in memoria un MinHashIndex degli insiemi di ingredienti (tabella preparazione)
+ * e i dati compatti dei cocktail (nome, tempo) per rispondere senza query al database.
+ * 
+ * Aggiornamento: come CocktailFacetService, ogni CatalogChangeEvent su un cocktail
+ * (creazione, modifica, eliminazione, anche da altre istanze) rilegge solo gli step di
+ * quel cocktail; le modifiche a un ingrediente arrivano come UPDATE dei cocktail coinvolti.
+ * L'indice viene caricato all'avvio (o alla prima richiesta, se arriva prima).
+ */
+@Service
+public class CocktailSimilarityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CocktailSimilarityService.class);
+
+    private static final String RIGHE_SQL =
+            "SELECT c.id, c.nome, c.tempo_preparazione_minutes, p.ingrediente_id " +
+            "FROM cocktail c LEFT JOIN preparazione p ON p.cocktail_id = c.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MinHashIndex indice;
+
+    // Serializza caricamento e aggiornamenti (letture dal database comprese)
+    private final Object aggiornamenti = new Object();
+    private volatile boolean caricato;
+
+    // Nome e tempo dei cocktail indicizzati, protetto da "this" come l'indice
+    private final Map<Integer, CocktailSummaryDTO> cocktail = new HashMap<>();
+
+    public CocktailSimilarityService(JdbcTemplate jdbcTemplate,
+                                     @Value("${cocktail.similar.max-candidates:2000}") int maxCandidati,
+                                     @Value("${cocktail.similar.exact-scan-max:50000}") int sogliaScansioneEsatta) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.indice = new MinHashIndex(maxCandidati, sogliaScansioneEsatta);
+    }
+
+    /**
+     * Cocktail più simili per ingredienti, dal più simile
+     * @param id ID del cocktail di partenza
+     * @param limite Numero massimo di risultati
+     * @return Optional vuoto se il cocktail non esiste
+     */
+    public Optional<List<CocktailSimileDTO>> simili(Long id, int limite) {
+        assicuraCaricato();
+        if (id == null || id <= 0 || id > Integer.MAX_VALUE) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            List<MinHashIndex.Simile> simili = indice.simili((int) (long) id, limite);
+            if (simili == null) {
+                return Optional.empty();
+            }
+            List<CocktailSimileDTO> risultato = new ArrayList<>(simili.size());
+            for (MinHashIndex.Simile simile : simili) {
+                CocktailSummaryDTO dati = cocktail.get(simile.id());
+                risultato.add(new CocktailSimileDTO(dati.getId(), dati.getNome(),
+                        dati.getTempoPreparazioneMinutes(), simile.jaccard()));
+            }
+            return Optional.of(risultato);
+        }
+    }
+
+    /**
+     * Carica l'indice all'avvio dell'applicazione
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        assicuraCaricato();
+    }
+
+    /**
+     * Aggiorna l'indice dopo il commit di una modifica a un cocktail
+     * Eseguito prima di CatalogGeneration: un ETag nuovo non accompagna mai l'indice vecchio.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogChange(CatalogChangeEvent evento) {
+        if (evento.entita() != Entita.COCKTAIL || evento.entitaId() == null || evento.entitaId() > Integer.MAX_VALUE) {
+            return;
+        }
+        synchronized (aggiornamenti) {
+            if (!caricato) {
+                // Il caricamento iniziale leggerà già questa modifica
+                return;
+            }
+            Map<Integer, Voce> letti = leggi(RIGHE_SQL + " WHERE c.id = ?", evento.entitaId());
+            synchronized (this) {
+                int id = (int) (long) evento.entitaId();
+                indice.rimuovi(id);
+                cocktail.remove(id);
+                indicizza(letti);
+            }
+        }
+    }
+
+    private void assicuraCaricato() {
+        if (caricato) {
+            return;
+        }
+        synchronized (aggiornamenti) {
+            if (caricato) {
+                return;
+            }
+            Map<Integer, Voce> letti = leggi(RIGHE_SQL);
+            synchronized (this) {
+                indicizza(letti);
+            }
+            caricato = true;
+            logger.info("Indice similarità caricato: {} cocktail", letti.size());
+        }
+    }
+
+    /**
+     * Legge cocktail e ingredienti raggruppando le righe (una per step) per cocktail
+     */
+    private Map<Integer, Voce> leggi(String sql, Object... parametri) {
+        Map<Integer, Voce> letti = new LinkedHashMap<>();
+        RowCallbackHandler handler = rs -> {
+            long cocktailId = rs.getLong("id");
+            if (cocktailId > Integer.MAX_VALUE) {
+                return;
+            }
+            Voce voce = letti.get((int) cocktailId);
+            if (voce == null) {
+                int tempo = rs.getInt("tempo_preparazione_minutes");
+                Integer tempoPreparazione = rs.wasNull() ? null : tempo;
+                voce = new Voce(new CocktailSummaryDTO(cocktailId, rs.getString("nome"), tempoPreparazione),
+                        new ArrayList<>());
+                letti.put((int) cocktailId, voce);
+            }
+            long ingrediente = rs.getLong("ingrediente_id");
+            if (!rs.wasNull()) {
+                voce.ingredienti().add(ingrediente);
+            }
+        };
+        jdbcTemplate.query(sql, handler, parametri);
+        return letti;
+    }
+
+    private void indicizza(Map<Integer, Voce> letti) {
+        letti.forEach((id, voce) -> {
+            indice.aggiungi(id, voce.ingredienti().stream().mapToLong(Long::longValue).toArray());
+            cocktail.put(id, voce.dati());
+        });
+    }
+
+    private record Voce(CocktailSummaryDTO dati, List<Long> ingredienti) {
+    }
+}
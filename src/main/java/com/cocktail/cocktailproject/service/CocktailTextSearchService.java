@@ -0,0 +1,146 @@
+package com.cocktail.cocktailproject.service;
+
+import com.cocktail.cocktailproject.dto.CocktailRisultatoTestoDTO;
+import com.cocktail.cocktailproject.dto.CocktailSummaryDTO;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent.Entita;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CocktailTextSearchService - Ricerca testuale su descrizione e note dei cocktail
+ * 
+ * Mantiene in memoria un TextSearchIndex (TF-IDF, stop word e stemming italiani) e i
+ * dati compatti dei cocktail (nome, tempo): le ricerche non interrogano il database.
+ * 
+ * Aggiornamento: come CocktailFacetService, ogni CatalogChangeEvent su un cocktail
+ * (creazione, modifica, eliminazione, anche da altre istanze) rilegge solo la riga di
+ * quel cocktail. L'indice viene caricato all'avvio (o alla prima richiesta, se arriva prima).
+ */
+@Service
+public class CocktailTextSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CocktailTextSearchService.class);
+
+    private static final String COCKTAIL_SQL =
+            "SELECT id, nome, tempo_preparazione_minutes, descrizione, note FROM cocktail";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TextSearchIndex indice = new TextSearchIndex();
+
+    // Serializza caricamento e aggiornamenti (letture dal database comprese)
+    private final Object aggiornamenti = new Object();
+    private volatile boolean caricato;
+
+    // Nome e tempo dei cocktail indicizzati, protetto da "this" come l'indice
+    private final Map<Integer, CocktailSummaryDTO> cocktail = new HashMap<>();
+
+    public CocktailTextSearchService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Cocktail con descrizione e note più simili al testo cercato
+     * @param testo Testo della query
+     * @param limite Numero massimo di risultati
+     * @return Risultati dal punteggio più alto (vuoto se la query contiene solo stop word)
+     */
+    public List<CocktailRisultatoTestoDTO> cerca(String testo, int limite) {
+        assicuraCaricato();
+        synchronized (this) {
+            List<CocktailRisultatoTestoDTO> risultato = new ArrayList<>();
+            for (TextSearchIndex.Risultato trovato : indice.cerca(testo, limite)) {
+                CocktailSummaryDTO dati = cocktail.get(trovato.id());
+                risultato.add(new CocktailRisultatoTestoDTO(dati.getId(), dati.getNome(),
+                        dati.getTempoPreparazioneMinutes(), trovato.punteggio()));
+            }
+            return risultato;
+        }
+    }
+
+    /**
+     * Carica l'indice all'avvio dell'applicazione
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        assicuraCaricato();
+    }
+
+    /**
+     * Aggiorna l'indice dopo il commit di una modifica a un cocktail
+     * Eseguito prima di CatalogGeneration: un ETag nuovo non accompagna mai l'indice vecchio.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogChange(CatalogChangeEvent evento) {
+        if (evento.entita() != Entita.COCKTAIL || evento.entitaId() == null || evento.entitaId() > Integer.MAX_VALUE) {
+            return;
+        }
+        synchronized (aggiornamenti) {
+            if (!caricato) {
+                // Il caricamento iniziale leggerà già questa modifica
+                return;
+            }
+            List<Documento> letti = jdbcTemplate.query(COCKTAIL_SQL + " WHERE id = ?", this::mappaRiga, evento.entitaId());
+            synchronized (this) {
+                int id = (int) (long) evento.entitaId();
+                indice.rimuovi(id);
+                cocktail.remove(id);
+                indicizza(letti);
+            }
+        }
+    }
+
+    private void assicuraCaricato() {
+        if (caricato) {
+            return;
+        }
+        synchronized (aggiornamenti) {
+            if (caricato) {
+                return;
+            }
+            List<Documento> letti = jdbcTemplate.query(COCKTAIL_SQL, this::mappaRiga);
+            synchronized (this) {
+                indicizza(letti);
+            }
+            caricato = true;
+            logger.info("Indice testuale caricato: {} cocktail", letti.size());
+        }
+    }
+
+    private Documento mappaRiga(ResultSet rs, int rowNum) throws SQLException {
+        long id = rs.getLong("id");
+        int tempo = rs.getInt("tempo_preparazione_minutes");
+        Integer tempoPreparazione = rs.wasNull() ? null : tempo;
+        String descrizione = rs.getString("descrizione");
+        String note = rs.getString("note");
+        String testo = (descrizione == null ? "" : descrizione) + "\n" + (note == null ? "" : note);
+        return new Documento(new CocktailSummaryDTO(id, rs.getString("nome"), tempoPreparazione), testo);
+    }
+
+    private void indicizza(List<Documento> letti) {
+        for (Documento documento : letti) {
+            long id = documento.dati().getId();
+            if (id <= Integer.MAX_VALUE) {
+                indice.aggiungi((int) id, documento.testo());
+                cocktail.put((int) id, documento.dati());
+            }
+        }
+    }
+
+    private record Documento(CocktailSummaryDTO dati, String testo) {
+    }
+}
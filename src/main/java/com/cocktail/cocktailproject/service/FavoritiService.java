@@ -1,15 +1,36 @@
 package com.cocktail.cocktailproject.service;
 
+import com.cocktail.cocktailproject.cache.CocktailIdIndex;
 import com.cocktail.cocktailproject.dto.CocktailDTO;
+import com.cocktail.cocktailproject.dto.VoceListaSpesaDTO;
 import com.cocktail.cocktailproject.entity.Cocktail;
 import com.cocktail.cocktailproject.entity.UserFavorito;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent.Entita;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent.Operazione;
+import com.cocktail.cocktailproject.event.PreferitoEvent;
 import com.cocktail.cocktailproject.repository.CocktailRepository;
+import com.cocktail.cocktailproject.repository.PreparazioneRepository;
 import com.cocktail.cocktailproject.repository.UserFavoritoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -25,10 +46,23 @@ import java.util.stream.Collectors;
  * Vincoli:
  * - Un utente non può aggiungere lo stesso cocktail due volte ai preferiti
  * - Se un cocktail viene eliminato, i favoriti associati vengono cancellati in cascata
+ * 
+ * Popolarità:
+ * - ogni aggiunta/rimozione aggiorna anche il contatore cocktail.preferiti nella stessa
+ *   transazione (ordinamento ?sort=popularity di /api/cocktails)
  */
 @Service
 public class FavoritiService {
     
+    private static final Logger logger = LoggerFactory.getLogger(FavoritiService.class);
+    
+    // Fattori di conversione in ml delle unità di volume (chiave: unità in minuscolo)
+    private static final Map<String, BigDecimal> MILLILITRI = Map.of(
+            "ml", BigDecimal.ONE,
+            "cl", BigDecimal.TEN,
+            "l", new BigDecimal("1000"),
+            "oz", new BigDecimal("29.5735"));
+    
     @Autowired
     private UserFavoritoRepository favoritiRepository;
     
@@ -38,6 +72,18 @@ public class FavoritiService {
     @Autowired
     private CocktailService cocktailService;
     
+    @Autowired
+    private ChangeFeedService changeFeedService;
+    
+    @Autowired
+    private PreparazioneRepository preparazioneRepository;
+    
+    @Autowired
+    private CocktailIdIndex cocktailIdIndex;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * Aggiunge un cocktail ai favoriti dell'utente
      * @param keycloakUserId UUID utente da JWT (claim 'sub')
@@ -45,9 +91,8 @@ public class FavoritiService {
      */
     @Transactional
     public void aggiungiPreferito(String keycloakUserId, Long cocktailId) {
-        // Verifica che il cocktail esista
-        Cocktail cocktail = cocktailRepository.findById(cocktailId)
-                .orElseThrow(() -> new RuntimeException("Cocktail non trovato con ID: " + cocktailId));
+        // Verifica che il cocktail esista (gli ID sicuramente inesistenti non arrivano al database)
+        Cocktail cocktail = trovaCocktail(cocktailId);
         
         // Verifica se già nei favoriti
         if (favoritiRepository.existsByKeycloakUserIdAndCocktailId(keycloakUserId, cocktailId)) {
@@ -59,6 +104,27 @@ public class FavoritiService {
         favorito.setKeycloakUserId(keycloakUserId);
         favorito.setCocktail(cocktail);
         favoritiRepository.save(favorito);
+        cocktailRepository.aggiornaPreferiti(cocktailId, 1);
+        changeFeedService.registra(Entita.FAVORITO, cocktailId, Operazione.CREATE);
+        eventPublisher.publishEvent(new PreferitoEvent(keycloakUserId, cocktailId, true));
+    }
+    
+    /**
+     * Legge il cocktail da aggiungere ai favoriti, consultando prima CocktailIdIndex
+     * @param cocktailId ID del cocktail
+     * @return il cocktail
+     * @throws RuntimeException se il cocktail non esiste
+     */
+    private Cocktail trovaCocktail(Long cocktailId) {
+        Optional<Cocktail> cocktail = Optional.empty();
+        if (cocktailIdIndex.puoEsistere(cocktailId)) {
+            long generazione = cocktailIdIndex.generazione();
+            cocktail = cocktailRepository.findById(cocktailId);
+            if (cocktail.isEmpty()) {
+                cocktailIdIndex.segnaMancante(cocktailId, generazione);
+            }
+        }
+        return cocktail.orElseThrow(() -> new RuntimeException("Cocktail non trovato con ID: " + cocktailId));
     }
     
     /**
@@ -73,6 +139,9 @@ public class FavoritiService {
                 .orElseThrow(() -> new RuntimeException("Favorito non trovato"));
         
         favoritiRepository.delete(favorito);
+        cocktailRepository.aggiornaPreferiti(cocktailId, -1);
+        changeFeedService.registra(Entita.FAVORITO, cocktailId, Operazione.DELETE);
+        eventPublisher.publishEvent(new PreferitoEvent(keycloakUserId, cocktailId, false));
     }
     
     /**
@@ -90,6 +159,95 @@ public class FavoritiService {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Ottiene i cocktail preferiti di un utente con solo i campi richiesti (?fields=)
+     * Legge gli ID dei favoriti e poi i cocktail con query set-based (niente N+1)
+     * 
+     * @param keycloakUserId UUID utente da JWT (claim 'sub')
+     * @param selezione Piano dei campi richiesti
+     * @return Lista di mappe campo -> valore, nell'ordine di inserimento nei favoriti
+     */
+    public List<Map<String, Object>> getPreferiti(String keycloakUserId, CocktailFieldSelection selezione) {
+        List<Long> cocktailIds = favoritiRepository.findCocktailIdsByKeycloakUserId(keycloakUserId);
+        return cocktailService.getCocktailsByIds(cocktailIds, selezione);
+    }
+    
+    /**
+     * Lista della spesa: quantità totali per ingrediente sui cocktail preferiti
+     * 
+     * Il database somma le quantità per (ingrediente, unità) con una sola query raggruppata;
+     * qui le unità di volume (ml, cl, l, oz, senza distinzione di maiuscole) vengono
+     * convertite in ml e unite, così "2 oz" e "30 ml" dello stesso ingrediente diventano
+     * una sola riga. Le altre unità restano separate.
+     * 
+     * @param keycloakUserId UUID utente da JWT (claim 'sub')
+     * @return Righe ordinate per nome ingrediente e unità (vuota se non ci sono preferiti)
+     */
+    public List<VoceListaSpesaDTO> getListaSpesa(String keycloakUserId) {
+        Map<List<Object>, VoceListaSpesaDTO> voci = new LinkedHashMap<>();
+        for (VoceListaSpesaDTO riga : preparazioneRepository.sommaQuantitaPreferiti(keycloakUserId)) {
+            String unita = riga.getUnita() == null ? null : riga.getUnita().trim().toLowerCase(Locale.ROOT);
+            BigDecimal quantita = riga.getQuantita();
+            BigDecimal fattore = unita == null ? null : MILLILITRI.get(unita);
+            if (fattore != null) {
+                unita = "ml";
+                quantita = quantita == null ? null : quantita.multiply(fattore);
+            }
+            BigDecimal daSommare = quantita;
+            voci.merge(List.of(riga.getIngredienteId(), Objects.toString(unita, "")),
+                    new VoceListaSpesaDTO(riga.getIngredienteId(), riga.getIngrediente(), quantita, unita),
+                    (voce, nuova) -> {
+                        if (daSommare != null) {
+                            voce.setQuantita(voce.getQuantita() == null ? daSommare : voce.getQuantita().add(daSommare));
+                        }
+                        return voce;
+                    });
+        }
+        List<VoceListaSpesaDTO> risultato = new ArrayList<>(voci.values());
+        for (VoceListaSpesaDTO voce : risultato) {
+            if (voce.getQuantita() != null) {
+                voce.setQuantita(voce.getQuantita().setScale(2, RoundingMode.HALF_UP));
+            }
+        }
+        risultato.sort(Comparator.comparing(VoceListaSpesaDTO::getIngrediente, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(VoceListaSpesaDTO::getUnita, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return risultato;
+    }
+    
+    /**
+     * Ricalcola in blocco il contatore preferiti dei cocktail e corregge le righe che non coincidono
+     * 
+     * Stesso schema di IngredientService.riconciliaUtilizzi: una query raggruppata su
+     * user_favoriti e una lettura dei contatori nello stesso snapshot, correzione
+     * condizionata al valore letto. Eseguita all'avvio e ogni
+     * cocktail.favorites.popularity-reconcile-ms.
+     * 
+     * @return numero di cocktail corretti
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${cocktail.favorites.popularity-reconcile-ms:3600000}",
+               initialDelayString = "${cocktail.favorites.popularity-reconcile-ms:3600000}")
+    @Transactional
+    public int riconciliaPreferiti() {
+        Map<Long, Long> contati = new HashMap<>();
+        for (Object[] riga : favoritiRepository.contaPerCocktail()) {
+            contati.put((Long) riga[0], (Long) riga[1]);
+        }
+        int corretti = 0;
+        for (Object[] riga : cocktailRepository.findAllPreferiti()) {
+            Long id = (Long) riga[0];
+            long letto = (Long) riga[1];
+            long atteso = contati.getOrDefault(id, 0L);
+            if (letto != atteso && cocktailRepository.correggiPreferiti(id, letto, atteso) == 1) {
+                corretti++;
+            }
+        }
+        if (corretti > 0) {
+            logger.info("Contatore preferiti cocktail: corretti {} cocktail", corretti);
+        }
+        return corretti;
+    }
+    
     /**
      * Verifica se un cocktail è nei favoriti di un utente
      * @param keycloakUserId UUID utente da JWT (claim 'sub')
@@ -119,9 +277,8 @@ public class FavoritiService {
      */
     @Transactional
     public boolean togglePreferito(String keycloakUserId, Long cocktailId) {
-        // Verifica che il cocktail esista
-        Cocktail cocktail = cocktailRepository.findById(cocktailId)
-                .orElseThrow(() -> new RuntimeException("Cocktail non trovato con ID: " + cocktailId));
+        // Verifica che il cocktail esista (gli ID sicuramente inesistenti non arrivano al database)
+        Cocktail cocktail = trovaCocktail(cocktailId);
         
         // Controlla se è già nei favoriti
         Optional<UserFavorito> esistente = favoritiRepository
@@ -130,6 +287,9 @@ public class FavoritiService {
         if (esistente.isPresent()) {
             // Rimuovi dai favoriti
             favoritiRepository.delete(esistente.get());
+            cocktailRepository.aggiornaPreferiti(cocktailId, -1);
+            changeFeedService.registra(Entita.FAVORITO, cocktailId, Operazione.DELETE);
+            eventPublisher.publishEvent(new PreferitoEvent(keycloakUserId, cocktailId, false));
             return false;  // false = rimosso
         } else {
             // Aggiungi ai favoriti
@@ -137,6 +297,9 @@ public class FavoritiService {
             favorito.setKeycloakUserId(keycloakUserId);
             favorito.setCocktail(cocktail);
             favoritiRepository.save(favorito);
+            cocktailRepository.aggiornaPreferiti(cocktailId, 1);
+            changeFeedService.registra(Entita.FAVORITO, cocktailId, Operazione.CREATE);
+            eventPublisher.publishEvent(new PreferitoEvent(keycloakUserId, cocktailId, true));
             return true;  // true = aggiunto
         }
     }
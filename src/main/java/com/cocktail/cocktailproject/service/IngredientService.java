@@ -1,14 +1,33 @@
 package com.cocktail.cocktailproject.service;
 
+import com.cocktail.cocktailproject.cache.CatalogGeneration;
+import com.cocktail.cocktailproject.cache.SearchCache;
+import com.cocktail.cocktailproject.cache.SingleFlight;
 import com.cocktail.cocktailproject.dto.IngredientiDTO;
+import com.cocktail.cocktailproject.dto.PaginaStimataDTO;
 import com.cocktail.cocktailproject.entity.Ingrediente;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent.Entita;
+import com.cocktail.cocktailproject.event.CatalogChangeEvent.Operazione;
+import com.cocktail.cocktailproject.repository.CocktailRepository;
 import com.cocktail.cocktailproject.repository.IngredienteRepository;
 import com.cocktail.cocktailproject.repository.PreparazioneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * IngredientService - Logica di business per la gestione degli ingredienti.
  *
@@ -16,20 +35,59 @@ import org.springframework.transaction.annotation.Transactional;
  * - Fornire operazioni di lettura (paginata) degli ingredienti
  * - Eseguire cancellazioni in sicurezza rimuovendo prima gli step di preparazione collegati
  * - Effettuare conversioni essenziali Entity -> DTO
+ * - Ordinamento per utilizzi e riconciliazione del contatore (vedi Ingrediente.utilizzi)
  */
 @Service
 public class IngredientService {
 
+    private static final Logger logger = LoggerFactory.getLogger(IngredientService.class);
+
+    /**
+     * Ordinamento per numero di cocktail che usano l'ingrediente (a parità, ID crescente):
+     * coincide con l'indice idx_ingredienti_utilizzi
+     */
+    public static final Sort PER_UTILIZZI = Sort.by(Sort.Order.desc("utilizzi"), Sort.Order.asc("id"));
+
+    /**
+     * Ordinamenti ammessi per ?sort= sulla lista degli ingredienti, ognuno servito da un indice
+     * della tabella ingredienti (vedi Ingrediente). "popularity" è sinonimo di "usage";
+     * "created" usa la chiave primaria (ID auto-incrementale = ordine di creazione).
+     */
+    public static final Map<String, Sort> ORDINAMENTI = Map.of(
+            "id", Sort.by("id"),
+            "nome", Sort.by("nome"),
+            "created", Sort.by(Sort.Order.desc("id")),
+            "usage", PER_UTILIZZI,
+            "popularity", PER_UTILIZZI);
+
     private final IngredienteRepository ingredienteRepository;
     private final PreparazioneRepository preparazioneRepository;
+    private final CocktailRepository cocktailRepository;
+    private final CocktailReadModelService readModelService;
+    private final ChangeFeedService changeFeedService;
+    private final SingleFlight singleFlight;
+    private final SearchCache searchCache;
+    private final CatalogGeneration catalogGeneration;
 
     /**
      * Costruttore con dependency injection dei repository.
      */
     public IngredientService(IngredienteRepository ingredienteRepository,
-                             PreparazioneRepository preparazioneRepository) {
+                             PreparazioneRepository preparazioneRepository,
+                             CocktailRepository cocktailRepository,
+                             CocktailReadModelService readModelService,
+                             ChangeFeedService changeFeedService,
+                             SingleFlight singleFlight,
+                             SearchCache searchCache,
+                             CatalogGeneration catalogGeneration) {
         this.ingredienteRepository = ingredienteRepository;
         this.preparazioneRepository = preparazioneRepository;
+        this.cocktailRepository = cocktailRepository;
+        this.readModelService = readModelService;
+        this.changeFeedService = changeFeedService;
+        this.singleFlight = singleFlight;
+        this.searchCache = searchCache;
+        this.catalogGeneration = catalogGeneration;
     }
 
     /**
@@ -49,8 +107,80 @@ public class IngredientService {
      * @return pagina di IngredientiDTO che corrispondono alla ricerca
      */
     public Page<IngredientiDTO> searchByName(String nome, Pageable pageable) {
-        return ingredienteRepository.findByNomeContainingIgnoreCase(nome, pageable)
-                .map(this::convertToDTO);
+        // Ricerche identiche concorrenti condividono la stessa query
+        return singleFlight.esegui("ingredient-search", CocktailService.chiaveRicerca(nome, pageable),
+                () -> ingredienteRepository.findByNomeContainingIgnoreCase(nome, pageable)
+                        .map(this::convertToDTO));
+    }
+
+    /**
+     * Cerca ingredienti per nome scegliendo come calcolare il totale
+     * @param nome Stringa da cercare nel nome dell'ingrediente
+     * @param pageable parametri di paginazione
+     * @param esatto true per il COUNT esatto, false per il totale stimato (vedi PaginaStimataDTO)
+     * @return pagina di IngredientiDTO (PaginaStimataDTO se non esatto)
+     */
+    public Page<IngredientiDTO> searchByName(String nome, Pageable pageable, boolean esatto) {
+        String testo = SearchCache.normalizza(nome);
+        if (esatto) {
+            return searchByName(testo, pageable);
+        }
+        long generazione = catalogGeneration.corrente();
+        return singleFlight.esegui("ingredient-search-estimate", generazione + "|" + CocktailService.chiaveRicerca(testo, pageable),
+                () -> PaginaStimataDTO.da(ingredienteRepository.findSliceByNome(testo, pageable),
+                        searchCache.limiteConteggio(),
+                        () -> searchCache.conteggio("ingredienti", testo, generazione,
+                                limite -> ingredienteRepository.findPrimiIdsByNome(testo, Limit.of(limite)).size()))
+                        .map(this::convertToDTO));
+    }
+
+    /**
+     * Ingredienti usati nel maggior numero di cocktail
+     * @param limite numero massimo di ingredienti
+     * @return lista ordinata per utilizzi decrescenti
+     */
+    public List<IngredientiDTO> getTopIngredients(int limite) {
+        return ingredienteRepository.findAll(PageRequest.of(0, limite, PER_UTILIZZI))
+                .map(this::convertToDTO)
+                .getContent();
+    }
+
+    /**
+     * Ricalcola in blocco il contatore utilizzi e corregge le righe che non coincidono
+     * 
+     * Una query raggruppata su preparazione e una lettura dei contatori, nello stesso
+     * snapshot della transazione (REPEATABLE READ su MySQL). La correzione è condizionata
+     * al valore letto: se nel frattempo una modifica concorrente ha già aggiornato il
+     * contatore, la riga viene lasciata alla prossima esecuzione.
+     * Eseguita all'avvio (contatori nuovi o scritti da versioni precedenti) e ogni
+     * cocktail.ingredients.usage-reconcile-ms.
+     * 
+     * @return numero di ingredienti corretti
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${cocktail.ingredients.usage-reconcile-ms:3600000}",
+               initialDelayString = "${cocktail.ingredients.usage-reconcile-ms:3600000}")
+    @Transactional
+    public int riconciliaUtilizzi() {
+        Map<Long, Long> contati = new HashMap<>();
+        for (Object[] riga : preparazioneRepository.contaUtilizziPerIngrediente()) {
+            contati.put((Long) riga[0], (Long) riga[1]);
+        }
+        int corretti = 0;
+        for (Object[] riga : ingredienteRepository.findAllUtilizzi()) {
+            Long id = (Long) riga[0];
+            long letto = (Long) riga[1];
+            long atteso = contati.getOrDefault(id, 0L);
+            if (letto != atteso && ingredienteRepository.correggiUtilizzi(id, letto, atteso) == 1) {
+                // Liste ordinate per utilizzi: cache ed ETag vanno invalidati
+                changeFeedService.registra(Entita.INGREDIENTE, id, Operazione.UPDATE);
+                corretti++;
+            }
+        }
+        if (corretti > 0) {
+            logger.info("Contatore utilizzi ingredienti: corretti {} ingredienti", corretti);
+        }
+        return corretti;
     }
 
     /**
@@ -63,9 +193,21 @@ public class IngredientService {
         if (!ingredienteRepository.existsById(id)) {
             return false;
         }
+        // Cocktail le cui ricette cambiano con la cancellazione
+        List<Long> cocktailCoinvolti = preparazioneRepository.findCocktailIdsByIngredienteId(id);
         // Cancella gli step di preparazione che referenziano l'ingrediente, poi elimina l'ingrediente
         preparazioneRepository.deleteByIngredienteId(id);
         ingredienteRepository.deleteById(id);
+        // Le ricette coinvolte cambiano: nuova versione e timestamp (ETag / Last-Modified)
+        if (!cocktailCoinvolti.isEmpty()) {
+            cocktailRepository.segnaModificati(cocktailCoinvolti, CocktailService.adesso());
+        }
+        // Rigenera nel read model le ricette coinvolte (stessa transazione)
+        readModelService.aggiorna(cocktailCoinvolti);
+        // Registra la cancellazione e le ricette cambiate nel feed delle modifiche
+        changeFeedService.registra(Entita.INGREDIENTE, id, Operazione.DELETE);
+        cocktailCoinvolti.forEach(cocktailId ->
+                changeFeedService.registra(Entita.COCKTAIL, cocktailId, Operazione.UPDATE));
         return true;
     }
 
@@ -73,6 +215,6 @@ public class IngredientService {
      * Conversione minimale dell'entity Ingrediente in DTO.
      */
     private IngredientiDTO convertToDTO(Ingrediente ingrediente) {
-        return new IngredientiDTO(ingrediente.getId(), ingrediente.getNome());
+        return new IngredientiDTO(ingrediente.getId(), ingrediente.getNome(), ingrediente.getUtilizzi());
     }
 }
@@ -18,6 +18,7 @@ import org.keycloak.representations.idm.UserRepresentation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
@@ -51,8 +52,10 @@ import java.util.List;
  * - Le credenziali admin Keycloak sono in application.properties
  * - Il realm di destinazione è configurabile
  * - Supporta client con o senza client_secret
+ * - Creato alla prima richiesta (@Lazy): login e registrazione sono rari rispetto all'avvio
  */
 @Service
+@Lazy
 public class KeycloakUserService {
 
     @Value("${keycloak.admin.server-url}")
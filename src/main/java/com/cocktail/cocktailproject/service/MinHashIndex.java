@@ -0,0 +1,373 @@
+package com.cocktail.cocktailproject.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * MinHashIndex - Indice MinHash / LSH degli insiemi di ingredienti dei cocktail
+ *
+ * Come funziona:
+ * - firma MinHash di 64 valori per cocktail (minimo di 64 funzioni hash sugli ID ingrediente):
+ *   la probabilità che due firme coincidano in una posizione è la similarità di Jaccard
+ * - la firma è divisa in 16 bande da 4 valori: i cocktail con almeno una banda identica
+ *   finiscono nello stesso bucket e diventano candidati (soglia di circa 0.5)
+ * - i candidati vengono ri-ordinati con la Jaccard esatta sugli insiemi ordinati
+ * - fino a sogliaScansioneEsatta cocktail non si usa LSH: la Jaccard esatta con tutti costa
+ *   pochi millisecondi (circa 1 ms a 10.000 cocktail, 5 ms a 50.000) e trova anche i vicini
+ *   sotto la soglia delle bande, che con cataloghi piccoli sono la maggior parte
+ *   (recall@10 di LSH circa 0.4 a 10.000 cocktail, vedi MinHashIndexBenchmark)
+ *
+ * Strutture primitive (niente Long / HashMap per bucket), per reggere il milione di cocktail:
+ * - insiemi[id]: ingredienti ordinati del cocktail (gli ID cocktail sono densi, auto-increment)
+ * - tabella a indirizzamento aperto chiave di banda → testa di una lista concatenata di ID
+ * La firma non viene conservata: alla rimozione viene ricalcolata dall'insieme.
+ *
+ * Non thread-safe: CocktailSimilarityService serializza gli accessi.
+ * Le funzioni hash sono fisse: tutte le istanze costruiscono gli stessi bucket.
+ */
+class MinHashIndex {
+
+    static final int BANDE = 16;
+    static final int RIGHE = 4;
+    private static final int FUNZIONI = BANDE * RIGHE;
+    private static final long[] SEMI = new long[FUNZIONI];
+
+    static {
+        long seme = 0x5DEECE66DL;
+        for (int i = 0; i < FUNZIONI; i++) {
+            seme += 0x9E3779B97F4A7C15L;
+            SEMI[i] = mescola(seme);
+        }
+    }
+
+    private final int maxCandidati;
+    private final int sogliaScansioneEsatta;
+
+    private long[][] insiemi = new long[1024][];
+    private int dimensione;
+
+    // Bucket: chiave di banda (0 = slot libero) → testa della lista in nodoCocktail/nodoSuccessivo
+    private long[] chiavi = new long[1024];
+    private int[] teste = new int[1024];
+    private int chiaviUsate;
+
+    private int[] nodoCocktail = new int[1024];
+    private int[] nodoSuccessivo = new int[1024];
+    private int nodi;
+    private int nodoLibero = -1;
+
+    /**
+     * @param maxCandidati Numero massimo di candidati ri-ordinati per richiesta
+     *                     (limita la latenza quando molti cocktail condividono un bucket)
+     * @param sogliaScansioneEsatta Fino a questo numero di cocktail la ricerca confronta
+     *                              tutti i cocktail invece dei soli candidati LSH (0 = sempre LSH)
+     */
+    MinHashIndex(int maxCandidati, int sogliaScansioneEsatta) {
+        this.maxCandidati = maxCandidati;
+        this.sogliaScansioneEsatta = sogliaScansioneEsatta;
+    }
+
+    /**
+     * Risultato di una ricerca: ID del cocktail simile e Jaccard esatta
+     */
+    record Simile(int id, double jaccard) {
+    }
+
+    /**
+     * Aggiunge (o sostituisce) un cocktail
+     * @param id ID del cocktail
+     * @param ingredienti ID degli ingredienti (anche non ordinati o duplicati)
+     */
+    void aggiungi(int id, long[] ingredienti) {
+        rimuovi(id);
+        long[] insieme = Arrays.stream(ingredienti).sorted().distinct().toArray();
+        if (id >= insiemi.length) {
+            insiemi = Arrays.copyOf(insiemi, Math.max(id + 1, insiemi.length * 2));
+        }
+        insiemi[id] = insieme;
+        dimensione++;
+        if (insieme.length == 0) {
+            return;
+        }
+        long[] firma = firma(insieme);
+        for (int banda = 0; banda < BANDE; banda++) {
+            inserisciNelBucket(chiaveBanda(banda, firma), id);
+        }
+    }
+
+    /**
+     * Rimuove un cocktail (nessun effetto se non presente)
+     */
+    void rimuovi(int id) {
+        if (id >= insiemi.length || insiemi[id] == null) {
+            return;
+        }
+        long[] insieme = insiemi[id];
+        insiemi[id] = null;
+        dimensione--;
+        if (insieme.length == 0) {
+            return;
+        }
+        long[] firma = firma(insieme);
+        for (int banda = 0; banda < BANDE; banda++) {
+            rimuoviDalBucket(chiaveBanda(banda, firma), id);
+        }
+    }
+
+    boolean contiene(int id) {
+        return id < insiemi.length && insiemi[id] != null;
+    }
+
+    int size() {
+        return dimensione;
+    }
+
+    /**
+     * Cocktail più simili per ingredienti (Jaccard esatta sui candidati LSH,
+     * o su tutti i cocktail fino a sogliaScansioneEsatta)
+     * @param id ID del cocktail di partenza
+     * @param limite Numero massimo di risultati
+     * @return risultati in ordine di similarità decrescente (a parità, ID crescente),
+     *         null se il cocktail non è nell'indice
+     */
+    List<Simile> simili(int id, int limite) {
+        if (!contiene(id)) {
+            return null;
+        }
+        long[] insieme = insiemi[id];
+        if (insieme.length == 0) {
+            return List.of();
+        }
+        Comparator<Simile> ordine = Comparator.comparingDouble(Simile::jaccard)
+                .thenComparing(Comparator.comparingInt(Simile::id).reversed());
+        PriorityQueue<Simile> migliori = new PriorityQueue<>(limite + 1, ordine);
+        if (scansioneEsatta()) {
+            for (int altro = 0; altro < insiemi.length; altro++) {
+                if (altro != id && insiemi[altro] != null) {
+                    confronta(insieme, altro, migliori, limite);
+                }
+            }
+        } else {
+            for (int candidato : candidati(id, firma(insieme))) {
+                confronta(insieme, candidato, migliori, limite);
+            }
+        }
+        List<Simile> risultato = new ArrayList<>(migliori);
+        risultato.sort(ordine.reversed());
+        return risultato;
+    }
+
+    /**
+     * true se le ricerche confrontano tutti i cocktail (catalogo entro la soglia)
+     */
+    boolean scansioneEsatta() {
+        return dimensione <= sogliaScansioneEsatta;
+    }
+
+    private void confronta(long[] insieme, int altro, PriorityQueue<Simile> migliori, int limite) {
+        double jaccard = jaccard(insieme, insiemi[altro]);
+        if (jaccard > 0) {
+            migliori.add(new Simile(altro, jaccard));
+            if (migliori.size() > limite) {
+                migliori.poll();
+            }
+        }
+    }
+
+    /**
+     * Numero di candidati LSH per un cocktail (per il benchmark)
+     */
+    int contaCandidati(int id) {
+        return contiene(id) && insiemi[id].length > 0 ? candidati(id, firma(insiemi[id])).size() : 0;
+    }
+
+    /**
+     * Nodi delle liste allocati finora, liberi compresi (per i test)
+     */
+    int nodiAllocati() {
+        return nodi;
+    }
+
+    /**
+     * Chiavi di banda nella tabella, comprese quelle rimaste senza cocktail (per i test)
+     */
+    int chiaviInTabella() {
+        return chiaviUsate;
+    }
+
+    /**
+     * Jaccard esatta tra due insiemi ordinati senza duplicati
+     */
+    static double jaccard(long[] a, long[] b) {
+        int i = 0;
+        int j = 0;
+        int comuni = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                comuni++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        int unione = a.length + b.length - comuni;
+        return unione == 0 ? 0 : (double) comuni / unione;
+    }
+
+    private Set<Integer> candidati(int id, long[] firma) {
+        Set<Integer> candidati = new HashSet<>();
+        for (int banda = 0; banda < BANDE && candidati.size() < maxCandidati; banda++) {
+            int slot = cerca(chiaveBanda(banda, firma));
+            if (slot < 0) {
+                continue;
+            }
+            for (int nodo = teste[slot]; nodo >= 0 && candidati.size() < maxCandidati; nodo = nodoSuccessivo[nodo]) {
+                if (nodoCocktail[nodo] != id) {
+                    candidati.add(nodoCocktail[nodo]);
+                }
+            }
+        }
+        return candidati;
+    }
+
+    private static long[] firma(long[] insieme) {
+        long[] firma = new long[FUNZIONI];
+        Arrays.fill(firma, Long.MAX_VALUE);
+        for (long ingrediente : insieme) {
+            for (int f = 0; f < FUNZIONI; f++) {
+                long h = mescola(ingrediente ^ SEMI[f]);
+                if (h < firma[f]) {
+                    firma[f] = h;
+                }
+            }
+        }
+        return firma;
+    }
+
+    private static long chiaveBanda(int banda, long[] firma) {
+        long h = SEMI[banda];
+        for (int r = 0; r < RIGHE; r++) {
+            h = mescola(h ^ firma[banda * RIGHE + r]);
+        }
+        // 0 indica uno slot libero
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * Finalizzatore di SplitMix64: buona distribuzione dei bit a costo minimo
+     */
+    private static long mescola(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+
+    // --- Tabella dei bucket ---
+
+    private int cerca(long chiave) {
+        int maschera = chiavi.length - 1;
+        for (int slot = (int) mescola(chiave) & maschera; chiavi[slot] != 0; slot = (slot + 1) & maschera) {
+            if (chiavi[slot] == chiave) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void inserisciNelBucket(long chiave, int id) {
+        int slot = cerca(chiave);
+        if (slot < 0) {
+            if ((chiaviUsate + 1) * 4L > chiavi.length * 3L) {
+                ridimensiona();
+            }
+            int maschera = chiavi.length - 1;
+            slot = (int) mescola(chiave) & maschera;
+            while (chiavi[slot] != 0) {
+                slot = (slot + 1) & maschera;
+            }
+            chiavi[slot] = chiave;
+            teste[slot] = -1;
+            chiaviUsate++;
+        }
+        int nodo = nuovoNodo();
+        nodoCocktail[nodo] = id;
+        nodoSuccessivo[nodo] = teste[slot];
+        teste[slot] = nodo;
+    }
+
+    private void rimuoviDalBucket(long chiave, int id) {
+        int slot = cerca(chiave);
+        if (slot < 0) {
+            return;
+        }
+        int precedente = -1;
+        for (int nodo = teste[slot]; nodo >= 0; precedente = nodo, nodo = nodoSuccessivo[nodo]) {
+            if (nodoCocktail[nodo] == id) {
+                if (precedente < 0) {
+                    teste[slot] = nodoSuccessivo[nodo];
+                } else {
+                    nodoSuccessivo[precedente] = nodoSuccessivo[nodo];
+                }
+                nodoSuccessivo[nodo] = nodoLibero;
+                nodoLibero = nodo;
+                // Le chiavi con lista vuota restano fino al prossimo ridimensionamento
+                return;
+            }
+        }
+    }
+
+    private int nuovoNodo() {
+        if (nodoLibero >= 0) {
+            int nodo = nodoLibero;
+            nodoLibero = nodoSuccessivo[nodo];
+            return nodo;
+        }
+        if (nodi == nodoCocktail.length) {
+            nodoCocktail = Arrays.copyOf(nodoCocktail, nodi * 2);
+            nodoSuccessivo = Arrays.copyOf(nodoSuccessivo, nodi * 2);
+        }
+        return nodi++;
+    }
+
+    /**
+     * Raddoppia la tabella (se serve) scartando le chiavi rimaste senza cocktail
+     */
+    private void ridimensiona() {
+        long[] vecchieChiavi = chiavi;
+        int[] vecchieTeste = teste;
+        int attive = 0;
+        for (int slot = 0; slot < vecchieChiavi.length; slot++) {
+            if (vecchieChiavi[slot] != 0 && vecchieTeste[slot] >= 0) {
+                attive++;
+            }
+        }
+        int capacita = vecchieChiavi.length;
+        while ((attive + 1) * 2L > capacita) {
+            capacita *= 2;
+        }
+        chiavi = new long[capacita];
+        teste = new int[capacita];
+        chiaviUsate = 0;
+        int maschera = capacita - 1;
+        for (int vecchio = 0; vecchio < vecchieChiavi.length; vecchio++) {
+            if (vecchieChiavi[vecchio] == 0 || vecchieTeste[vecchio] < 0) {
+                continue;
+            }
+            int slot = (int) mescola(vecchieChiavi[vecchio]) & maschera;
+            while (chiavi[slot] != 0) {
+                slot = (slot + 1) & maschera;
+            }
+            chiavi[slot] = vecchieChiavi[vecchio];
+            teste[slot] = vecchieTeste[vecchio];
+            chiaviUsate++;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.cocktail.cocktailproject.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * TextSearchIndex - Indice TF-IDF in memoria per la ricerca testuale (descrizione e note)
+ *
+ * Analisi del testo (uguale per documenti e query):
+ * - minuscolo, accenti rimossi, token alfanumerici
+ * - stop word italiane scartate
+ * - stemming leggero per l'italiano (algoritmo di Savoy: rimuove le desinenze di
+ *   genere e numero, es. "limoni" / "limone" → "limon")
+ *
+ * Strutture primitive:
+ * - indice invertito: termine → posting list (int[] documenti, float[] tf), df = lunghezza
+ * - per documento: termini (int[]), tf (float[]) e norma del vettore TF-IDF
+ *
+ * Punteggio: similarità del coseno tra i vettori TF-IDF di query e documento,
+ * con tf = 1 + log(occorrenze) e idf = log(1 + N / df). Si accumulano solo le posting
+ * dei termini della query. Le norme dei documenti dipendono dall'idf: vengono
+ * ricalcolate tutte quando il numero di documenti cambia di oltre il 10%.
+ *
+ * Non thread-safe: CocktailTextSearchService serializza gli accessi.
+ */
+class TextSearchIndex {
+
+    private static final Pattern NON_ALFANUMERICI = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern ACCENTI = Pattern.compile("\\p{M}+");
+
+    private static final Set<String> STOP_WORD = Set.of(
+            "a", "ad", "al", "alla", "alle", "allo", "ai", "agli", "all", "anche", "avere", "c", "che", "chi",
+            "ci", "come", "con", "contro", "cui", "da", "dal", "dalla", "dalle", "dallo", "dai", "dagli", "dall",
+            "de", "degli", "dei", "del", "della", "delle", "dello", "dell", "di", "dove", "e", "ed", "era", "essere",
+            "fa", "fino", "gli", "ha", "hanno", "ho", "i", "il", "in", "io", "l", "la", "le", "lei", "li", "lo",
+            "loro", "lui", "ma", "mi", "mio", "ne", "negli", "nei", "nel", "nella", "nelle", "nello", "nell", "noi",
+            "non", "o", "per", "perche", "piu", "poi", "quale", "quando", "quanto", "quella", "quelle", "quelli",
+            "quello", "questa", "queste", "questi", "questo", "se", "sei", "si", "sia", "siamo", "sono", "sta",
+            "su", "sua", "sue", "sugli", "sui", "sul", "sulla", "sulle", "sullo", "sull", "suo", "suoi", "ti",
+            "tra", "tu", "tutti", "tutto", "un", "una", "uno", "va", "voi", "gia", "molto", "senza", "ogni");
+
+    // Vocabolario e indice invertito
+    private final Map<String, Integer> vocabolario = new HashMap<>();
+    private int[][] postingDocumenti = new int[256][];
+    private float[][] postingTf = new float[256][];
+    private int[] postingDimensione = new int[256];
+
+    // Documenti (indicizzati per ID cocktail)
+    private int[][] documentoTermini = new int[1024][];
+    private float[][] documentoTf = new float[1024][];
+    private float[] documentoNorma = new float[1024];
+    private int documenti;
+    private int documentiAlCalcolo;
+
+    // Accumulatore dei punteggi e documenti toccati, riusati tra le query
+    private float[] punteggi = new float[1024];
+    private int[] toccati = new int[1024];
+
+    /**
+     * Risultato di una ricerca: ID del documento e similarità del coseno (0-1)
+     */
+    record Risultato(int id, double punteggio) {
+    }
+
+    /**
+     * Aggiunge (o sostituisce) un documento
+     * @param id ID del cocktail
+     * @param testo Testo da indicizzare (null ammesso)
+     */
+    void aggiungi(int id, String testo) {
+        rimuovi(id);
+        Map<Integer, Integer> occorrenze = new HashMap<>();
+        for (String termine : analizza(testo)) {
+            occorrenze.merge(vocabolario.computeIfAbsent(termine, t -> nuovoTermine()), 1, Integer::sum);
+        }
+        if (id >= documentoTermini.length) {
+            int capacita = Math.max(id + 1, documentoTermini.length * 2);
+            documentoTermini = Arrays.copyOf(documentoTermini, capacita);
+            documentoTf = Arrays.copyOf(documentoTf, capacita);
+            documentoNorma = Arrays.copyOf(documentoNorma, capacita);
+        }
+        int[] termini = new int[occorrenze.size()];
+        float[] tf = new float[occorrenze.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> voce : occorrenze.entrySet()) {
+            termini[i] = voce.getKey();
+            tf[i] = (float) (1 + Math.log(voce.getValue()));
+            aggiungiPosting(termini[i], id, tf[i]);
+            i++;
+        }
+        documentoTermini[id] = termini;
+        documentoTf[id] = tf;
+        documenti++;
+        if (Math.abs(documenti - documentiAlCalcolo) * 10L > documentiAlCalcolo) {
+            ricalcolaNorme();
+        } else {
+            documentoNorma[id] = norma(id);
+        }
+    }
+
+    /**
+     * Rimuove un documento (nessun effetto se non presente)
+     */
+    void rimuovi(int id) {
+        if (id >= documentoTermini.length || documentoTermini[id] == null) {
+            return;
+        }
+        for (int termine : documentoTermini[id]) {
+            rimuoviPosting(termine, id);
+        }
+        documentoTermini[id] = null;
+        documentoTf[id] = null;
+        documentoNorma[id] = 0;
+        documenti--;
+    }
+
+    int size() {
+        return documenti;
+    }
+
+    /**
+     * Documenti più simili alla query, dal punteggio più alto (a parità, ID crescente)
+     * @param query Testo della query (analizzato come i documenti)
+     * @param limite Numero massimo di risultati
+     */
+    List<Risultato> cerca(String query, int limite) {
+        Map<Integer, Integer> occorrenze = new HashMap<>();
+        for (String termine : analizza(query)) {
+            Integer id = vocabolario.get(termine);
+            if (id != null && postingDimensione[id] > 0) {
+                occorrenze.merge(id, 1, Integer::sum);
+            }
+        }
+        if (occorrenze.isEmpty()) {
+            return List.of();
+        }
+        if (punteggi.length < documentoTermini.length) {
+            punteggi = new float[documentoTermini.length];
+        }
+
+        // Accumula q·d sulle sole posting dei termini della query
+        int numeroToccati = 0;
+        double normaQuery = 0;
+        for (Map.Entry<Integer, Integer> voce : occorrenze.entrySet()) {
+            int termine = voce.getKey();
+            double idf = idf(termine);
+            double pesoQuery = (1 + Math.log(voce.getValue())) * idf;
+            normaQuery += pesoQuery * pesoQuery;
+            int[] docs = postingDocumenti[termine];
+            float[] tf = postingTf[termine];
+            for (int p = 0; p < postingDimensione[termine]; p++) {
+                int doc = docs[p];
+                if (punteggi[doc] == 0) {
+                    if (numeroToccati == toccati.length) {
+                        toccati = Arrays.copyOf(toccati, numeroToccati * 2);
+                    }
+                    toccati[numeroToccati++] = doc;
+                }
+                punteggi[doc] += (float) (pesoQuery * tf[p] * idf);
+            }
+        }
+        normaQuery = Math.sqrt(normaQuery);
+
+        Comparator<Risultato> ordine = Comparator.comparingDouble(Risultato::punteggio)
+                .thenComparing(Comparator.comparingInt(Risultato::id).reversed());
+        PriorityQueue<Risultato> migliori = new PriorityQueue<>(limite + 1, ordine);
+        for (int i = 0; i < numeroToccati; i++) {
+            int doc = toccati[i];
+            double coseno = Math.min(1.0, punteggi[doc] / (normaQuery * documentoNorma[doc]));
+            punteggi[doc] = 0;
+            // Coda piena: si crea il risultato solo se batte il peggiore tenuto finora
+            if (migliori.size() == limite) {
+                Risultato peggiore = migliori.peek();
+                if (coseno < peggiore.punteggio() || (coseno == peggiore.punteggio() && doc > peggiore.id())) {
+                    continue;
+                }
+            }
+            migliori.add(new Risultato(doc, coseno));
+            if (migliori.size() > limite) {
+                migliori.poll();
+            }
+        }
+        List<Risultato> risultato = new ArrayList<>(migliori);
+        risultato.sort(ordine.reversed());
+        return risultato;
+    }
+
+    /**
+     * Tokenizzazione, stop word e stemming (stessa analisi per documenti e query)
+     */
+    static List<String> analizza(String testo) {
+        List<String> termini = new ArrayList<>();
+        if (testo == null || testo.isBlank()) {
+            return termini;
+        }
+        String normalizzato = ACCENTI.matcher(Normalizer.normalize(testo.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+                .replaceAll("");
+        for (String token : NON_ALFANUMERICI.split(normalizzato)) {
+            if (token.length() > 1 && !STOP_WORD.contains(token)) {
+                termini.add(stem(token));
+            }
+        }
+        return termini;
+    }
+
+    /**
+     * Stemmer leggero per l'italiano (J. Savoy): solo desinenze di genere e numero
+     */
+    static String stem(String parola) {
+        int n = parola.length();
+        if (n < 6) {
+            return parola;
+        }
+        char ultima = parola.charAt(n - 1);
+        char penultima = parola.charAt(n - 2);
+        return switch (ultima) {
+            case 'e' -> parola.substring(0, penultima == 'i' || penultima == 'h' ? n - 2 : n - 1);
+            case 'i' -> parola.substring(0, penultima == 'h' || penultima == 'i' ? n - 2 : n - 1);
+            case 'a', 'o' -> parola.substring(0, penultima == 'i' ? n - 2 : n - 1);
+            default -> parola;
+        };
+    }
+
+    private double idf(int termine) {
+        return Math.log(1 + (double) documenti / postingDimensione[termine]);
+    }
+
+    private float norma(int doc) {
+        double somma = 0;
+        int[] termini = documentoTermini[doc];
+        float[] tf = documentoTf[doc];
+        for (int i = 0; i < termini.length; i++) {
+            double peso = tf[i] * idf(termini[i]);
+            somma += peso * peso;
+        }
+        // Documento senza termini: nessuna posting, la norma non viene mai usata
+        return (float) Math.sqrt(somma);
+    }
+
+    private void ricalcolaNorme() {
+        for (int doc = 0; doc < documentoTermini.length; doc++) {
+            if (documentoTermini[doc] != null) {
+                documentoNorma[doc] = norma(doc);
+            }
+        }
+        documentiAlCalcolo = documenti;
+    }
+
+    private int nuovoTermine() {
+        int id = vocabolario.size();
+        if (id == postingDocumenti.length) {
+            postingDocumenti = Arrays.copyOf(postingDocumenti, id * 2);
+            postingTf = Arrays.copyOf(postingTf, id * 2);
+            postingDimensione = Arrays.copyOf(postingDimensione, id * 2);
+        }
+        postingDocumenti[id] = new int[4];
+        postingTf[id] = new float[4];
+        return id;
+    }
+
+    private void aggiungiPosting(int termine, int doc, float tf) {
+        int dimensione = postingDimensione[termine];
+        if (dimensione == postingDocumenti[termine].length) {
+            postingDocumenti[termine] = Arrays.copyOf(postingDocumenti[termine], dimensione * 2);
+            postingTf[termine] = Arrays.copyOf(postingTf[termine], dimensione * 2);
+        }
+        postingDocumenti[termine][dimensione] = doc;
+        postingTf[termine][dimensione] = tf;
+        postingDimensione[termine] = dimensione + 1;
+    }
+
+    /**
+     * Rimuove il documento dalla posting list spostando al suo posto l'ultimo elemento
+     * (l'ordine delle posting non conta)
+     */
+    private void rimuoviPosting(int termine, int doc) {
+        int[] docs = postingDocumenti[termine];
+        int ultimo = postingDimensione[termine] - 1;
+        for (int p = 0; p <= ultimo; p++) {
+            if (docs[p] == doc) {
+                docs[p] = docs[ultimo];
+                postingTf[termine][p] = postingTf[termine][ultimo];
+                postingDimensione[termine] = ultimo;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+-- ============================================
+-- DATI DI ESEMPIO (solo profilo dev, vedi application-dev.properties)
+-- 5 cocktail con i relativi ingredienti e step.
+-- Migrazione ripetibile, eseguita dopo quelle versionate: righe con ID
+-- espliciti e INSERT IGNORE, i dati già presenti non vengono toccati
+-- ============================================
+
+-- ============================================
+-- DATI: Inserimento cocktail
+-- ============================================
+INSERT IGNORE INTO cocktail (id, nome, descrizione, tempo_preparazione_minutes)
+VALUES
+(1, 'Last Word', 'Cocktail del Proibizionismo a base di gin e Chartreuse.', 2),
+(2, 'Paper Plane', 'Cocktail moderno equilibrato tra amaro e agrumi.', 2),
+(3, 'Jungle Bird', 'Unico tiki drink con Campari, nato negli anni 70.', 3),
+(4, 'Naked & Famous', 'Twist contemporaneo con mezcal, giallo e amaro.', 2),
+(5, 'Corpse Reviver #2', 'Classico rigenerante con gin, Cointreau e assenzio.', 3);
+
+-- ============================================
+-- DATI: Inserimento ingredienti
+-- Elenco completo degli ingredienti utilizzati
+-- nei cocktail del database
+-- ============================================
+INSERT IGNORE INTO ingredienti (id, nome)
+VALUES
+(1, 'Gin'),                      -- Distillato base
+(2, 'Chartreuse Verde'),         -- Liquore alle erbe francese
+(3, 'Maraschino'),               -- Liquore di ciliegie
+(4, 'Succo di Lime'),            -- Agrume fresco
+(5, 'Amaro Nonino'),             -- Amaro italiano dolce
+(6, 'Bourbon'),                  -- Whiskey americano
+(7, 'Succo di Limone'),          -- Agrume fresco
+(8, 'Aperol'),                   -- Aperitivo italiano
+(9, 'Rum Scuro Giamaicano'),     -- Rum invecchiato
+(10, 'Campari'),                 -- Bitter italiano
+(11, 'Succo di Ananas'),         -- Frutta tropicale
+(12, 'Sciroppo di Zucchero'),    -- Dolcificante
+(13, 'Mezcal'),                  -- Distillato messicano affumicato
+(14, 'Chartreuse Gialla'),       -- Liquore alle erbe più dolce
+(15, 'Cointreau'),               -- Liquore all'arancia
+(16, 'Lillet Blanc'),            -- Aperitivo vino bianco
+(17, 'Assenzio');                -- Distillato all'anice
+
+-- ============================================
+-- DATI: Preparazione cocktail
+-- Ogni record è uno STEP della ricetta,
+-- ordinato per step_order
+-- ============================================
+
+-- COCKTAIL #1: Last Word
+INSERT IGNORE INTO preparazione (id, cocktail_id, ingrediente_id, quantita, unita, step_order, istruzione)
+VALUES
+(1, 1, 1, 25, 'ml', 1, 'Versare il gin nello shaker con ghiaccio.'),
+(2, 1, 2, 25, 'ml', 2, 'Aggiungere Chartreuse verde.'),
+(3, 1, 3, 25, 'ml', 3, 'Aggiungere liquore Maraschino.'),
+(4, 1, 7, 25, 'ml', 4, 'Aggiungere succo di limone fresco e shakerare.');
+
+-- COCKTAIL #2: Paper Plane
+INSERT IGNORE INTO preparazione (id, cocktail_id, ingrediente_id, quantita, unita, step_order, istruzione)
+VALUES
+(5, 2, 5, 25, 'ml', 1, 'Versare Amaro Nonino nello shaker.'),
+(6, 2, 6, 25, 'ml', 2, 'Aggiungere bourbon.'),
+(7, 2, 8, 25, 'ml', 3, 'Aggiungere Aperol.'),
+(8, 2, 7, 25, 'ml', 4, 'Aggiungere succo di limone fresco e shakerare.');
+
+-- COCKTAIL #3: Jungle Bird
+INSERT IGNORE INTO preparazione (id, cocktail_id, ingrediente_id, quantita, unita, step_order, istruzione)
+VALUES
+(9, 3, 9, 45, 'ml', 1, 'Versare rum scuro nello shaker.'),
+(10, 3, 10, 15, 'ml', 2, 'Aggiungere Campari.'),
+(11, 3, 11, 45, 'ml', 3, 'Aggiungere succo di ananas.'),
+(12, 3, 7, 15, 'ml', 4, 'Aggiungere succo di limone fresco.'),
+(13, 3, 12, 10, 'ml', 5, 'Aggiungere sciroppo di zucchero e shakerare.');
+
+-- COCKTAIL #4: Naked & Famous
+INSERT IGNORE INTO preparazione (id, cocktail_id, ingrediente_id, quantita, unita, step_order, istruzione)
+VALUES
+(14, 4, 13, 22.5, 'ml', 1, 'Versare mezcal nello shaker.'),
+(15, 4, 8, 22.5, 'ml', 2, 'Aggiungere Aperol.'),
+(16, 4, 14, 22.5, 'ml', 3, 'Aggiungere Chartreuse gialla.'),
+(17, 4, 7, 22.5, 'ml', 4, 'Aggiungere succo di limone fresco e shakerare.');
+
+-- COCKTAIL #5: Corpse Reviver #2
+INSERT IGNORE INTO preparazione (id, cocktail_id, ingrediente_id, quantita, unita, step_order, istruzione)
+VALUES
+(18, 5, 1, 25, 'ml', 1, 'Versare gin nello shaker.'),
+(19, 5, 15, 25, 'ml', 2, 'Aggiungere Cointreau.'),
+(20, 5, 16, 25, 'ml', 3, 'Aggiungere Lillet Blanc.'),
+(21, 5, 7, 25, 'ml', 4, 'Aggiungere succo di limone fresco.'),
+(22, 5, 17, 2, 'dash', 5, 'Aggiungere un tocco di assenzio e shakerare.');
+
+-- ============================================
+-- Contatori derivati dai dati inseriti
+-- (poi mantenuti dall'applicazione)
+-- ============================================
+UPDATE ingredienti i
+SET utilizzi = (SELECT COUNT(DISTINCT p.cocktail_id) FROM preparazione p WHERE p.ingrediente_id = i.id);
+UPDATE cocktail c
+SET preferiti = (SELECT COUNT(*) FROM user_favoriti f WHERE f.cocktail_id = c.id);
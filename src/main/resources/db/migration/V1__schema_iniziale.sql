@@ -0,0 +1,81 @@
+-- ============================================
+-- V1 - SCHEMA INIZIALE
+-- Lo schema creato dal vecchio init.sql (senza dati): sui
+-- database nati da quello script questa versione viene solo
+-- registrata (spring.flyway.baseline-version=1).
+-- Le modifiche successive sono nella migrazione Java V2
+-- (migration/V2__SchemaCatalogo); i dati di esempio sono in
+-- db/dati-esempio, solo per il profilo dev.
+-- ============================================
+
+-- ============================================
+-- TABELLA: cocktail
+-- Contiene le informazioni di base sui cocktail
+-- ============================================
+CREATE TABLE cocktail (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  nome VARCHAR(150) NOT NULL,
+  descrizione TEXT,
+  tempo_preparazione_minutes INT,
+  note TEXT
+);
+
+-- ============================================
+-- TABELLA: ingredienti
+-- Contiene l'elenco di tutti gli ingredienti
+-- disponibili per preparare i cocktail
+-- ============================================
+CREATE TABLE ingredienti (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  nome VARCHAR(150) NOT NULL UNIQUE
+);
+
+-- ============================================
+-- TABELLA: preparazione
+-- Join table che collega cocktail e ingredienti.
+-- Ogni record rappresenta uno STEP della ricetta
+-- con quantità, unità di misura e istruzione
+-- ============================================
+CREATE TABLE preparazione (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  cocktail_id BIGINT NOT NULL,
+  ingrediente_id BIGINT NOT NULL,
+  quantita DECIMAL(8,2),
+  unita VARCHAR(30),
+  step_order INT NOT NULL,
+  istruzione TEXT,
+
+  -- Vincoli di integrità referenziale
+  CONSTRAINT fk_prep_cocktail FOREIGN KEY (cocktail_id)
+    REFERENCES cocktail(id) ON DELETE CASCADE,
+  CONSTRAINT fk_prep_ingrediente FOREIGN KEY (ingrediente_id)
+    REFERENCES ingredienti(id) ON DELETE RESTRICT
+);
+
+-- ============================================
+-- INDICI per migliorare le performance
+-- ============================================
+CREATE INDEX idx_prep_cocktail ON preparazione(cocktail_id);
+CREATE INDEX idx_prep_ingrediente ON preparazione(ingrediente_id);
+
+-- ============================================
+-- TABELLA: user_favoriti
+-- Gestisce i cocktail preferiti degli utenti
+-- L'ID utente viene estratto dal JWT token di Keycloak
+-- ============================================
+CREATE TABLE user_favoriti (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  keycloak_user_id VARCHAR(255) NOT NULL COMMENT 'UUID utente da Keycloak JWT (claim sub)',
+  cocktail_id BIGINT NOT NULL,
+
+  -- Vincoli di integrità referenziale
+  CONSTRAINT fk_favoriti_cocktail FOREIGN KEY (cocktail_id)
+    REFERENCES cocktail(id) ON DELETE CASCADE,
+
+  -- Evita duplicati: un utente può salvare lo stesso cocktail una sola volta
+  CONSTRAINT uk_user_cocktail UNIQUE (keycloak_user_id, cocktail_id)
+);
+
+-- Indici per performance
+CREATE INDEX idx_favoriti_user ON user_favoriti(keycloak_user_id);
+CREATE INDEX idx_favoriti_cocktail ON user_favoriti(cocktail_id);
@@ -0,0 +1,61 @@
+package com.cocktail.cocktailproject;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * OpenApiDocumentTest - Documento OpenAPI generato in fase di build
+ *
+ * In produzione (profilo prod) springdoc è spento: /openapi.json è il file statico
+ * src/main/resources/static/openapi.json, incluso nel jar. Questo test lo rigenera
+ * da springdoc (scansione dei controller, come /v3/api-docs) e fallisce se il file
+ * committato non corrisponde più al codice.
+ *
+ * Per aggiornarlo dopo aver cambiato controller o DTO:
+ *
+ *   mvn test -Dtest=OpenApiDocumentTest -Dopenapi.aggiorna=true
+ */
+@SpringBootTest
+class OpenApiDocumentTest {
+
+    private static final Path DOCUMENTO = Path.of("src/main/resources/static/openapi.json");
+
+    // Chiavi ordinate: il file non cambia se cambia solo l'ordine di scansione
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Test
+    void documentoStaticoAggiornato() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        String generato = mockMvc.perform(get("/v3/api-docs"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        JsonNode documento = MAPPER.readTree(generato);
+
+        if (Boolean.getBoolean("openapi.aggiorna")) {
+            Object ordinato = MAPPER.treeToValue(documento, Object.class);
+            Files.writeString(DOCUMENTO, MAPPER.writeValueAsString(ordinato) + "\n", StandardCharsets.UTF_8);
+        }
+        assertTrue(Files.exists(DOCUMENTO), "Documento OpenAPI mancante: " + DOCUMENTO);
+        assertEquals(documento, MAPPER.readTree(Files.readString(DOCUMENTO, StandardCharsets.UTF_8)),
+                "openapi.json non corrisponde ai controller: rigenerarlo con -Dopenapi.aggiorna=true");
+    }
+}
@@ -0,0 +1,256 @@
+package com.cocktail.cocktailproject.cache;
+
+import com.cocktail.cocktailproject.event.CatalogChangeEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * ResponseCacheFilterTest - HIT/MISS, 304, negoziazione gzip ed esclusioni della cache HTTP
+ *
+ * Il controller è sostituito da una FilterChain che scrive sempre la stessa risposta
+ * (body JSON, ETag, Cache-Control e Vary come li imposterebbe Spring), risponde 304 con
+ * checkNotModified come i controller e conta le chiamate.
+ */
+class ResponseCacheFilterTest {
+
+    private static final String ETAG = "W/\"7-42\"";
+
+    // Abbastanza lungo e ripetitivo da superare min-gzip-bytes e ridursi con gzip
+    private static final String BODY = "{\"content\":[" + "{\"id\":1,\"nome\":\"Negroni\"},".repeat(40) + "{}]}";
+
+    private ResponseCacheFilter filter;
+    private int chiamate;
+    private String cacheControl;
+
+    @BeforeEach
+    void setUp() {
+        filter = new ResponseCacheFilter(true, 100, 524288, 512, new SimpleMeterRegistry());
+        chiamate = 0;
+        cacheControl = "max-age=0, must-revalidate";
+    }
+
+    @Test
+    void primaRichiestaMissPoiHit() throws Exception {
+        MockHttpServletResponse miss = esegui(richiesta("/api/cocktails", "page", "0", "size", "10"));
+        MockHttpServletResponse hit = esegui(richiesta("/api/cocktails", "size", "10", "page", "0"));
+
+        assertEquals("MISS", miss.getHeader("X-Cache"));
+        assertEquals("HIT", hit.getHeader("X-Cache"));
+        assertEquals(1, chiamate);
+        assertEquals(200, hit.getStatus());
+        assertEquals(BODY, hit.getContentAsString());
+        assertEquals(ETAG, hit.getHeader(HttpHeaders.ETAG));
+        assertEquals(cacheControl, hit.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertNull(hit.getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void varyUgualeSuMissEHit() throws Exception {
+        MockHttpServletResponse miss = esegui(richiesta("/api/cocktails"));
+        MockHttpServletResponse hit = esegui(richiesta("/api/cocktails"));
+
+        assertEquals("Origin, Access-Control-Request-Method, Accept-Encoding", miss.getHeader(HttpHeaders.VARY));
+        assertEquals(miss.getHeaders(HttpHeaders.VARY), hit.getHeaders(HttpHeaders.VARY));
+    }
+
+    @Test
+    void ifNoneMatchSuHitRisponde304() throws Exception {
+        esegui(richiesta("/api/cocktails"));
+        MockHttpServletRequest condizionale = richiesta("/api/cocktails");
+        condizionale.addHeader(HttpHeaders.IF_NONE_MATCH, "\"altro\", " + ETAG);
+
+        MockHttpServletResponse risposta = esegui(condizionale);
+
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, risposta.getStatus());
+        assertEquals(0, risposta.getContentAsByteArray().length);
+        assertEquals(ETAG, risposta.getHeader(HttpHeaders.ETAG));
+        assertEquals("HIT", risposta.getHeader("X-Cache"));
+        assertEquals(1, chiamate);
+    }
+
+    @Test
+    void ifNoneMatchDiversoRisponde200() throws Exception {
+        esegui(richiesta("/api/cocktails"));
+        MockHttpServletRequest condizionale = richiesta("/api/cocktails");
+        condizionale.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"7-41\"");
+
+        MockHttpServletResponse risposta = esegui(condizionale);
+
+        assertEquals(200, risposta.getStatus());
+        assertEquals(BODY, risposta.getContentAsString());
+    }
+
+    @Test
+    void gzipConEtagProprioSuMissEHit() throws Exception {
+        MockHttpServletRequest primaGzip = richiesta("/api/cocktails");
+        primaGzip.addHeader(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8");
+        MockHttpServletResponse miss = esegui(primaGzip);
+
+        MockHttpServletRequest secondaGzip = richiesta("/api/cocktails");
+        secondaGzip.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        MockHttpServletResponse hit = esegui(secondaGzip);
+
+        for (MockHttpServletResponse risposta : new MockHttpServletResponse[] {miss, hit}) {
+            assertEquals("gzip", risposta.getHeader(HttpHeaders.CONTENT_ENCODING));
+            assertEquals("W/\"7-42-gz\"", risposta.getHeader(HttpHeaders.ETAG));
+            assertEquals(risposta.getContentAsByteArray().length, risposta.getContentLength());
+            assertArrayEquals(BODY.getBytes(StandardCharsets.UTF_8), gunzip(risposta.getContentAsByteArray()));
+        }
+        assertEquals(1, chiamate);
+    }
+
+    @Test
+    void gzipRifiutatoConQZero() throws Exception {
+        esegui(richiesta("/api/cocktails"));
+        for (String acceptEncoding : new String[] {"gzip;q=0", "gzip; q=0.0, identity", "deflate"}) {
+            MockHttpServletRequest request = richiesta("/api/cocktails");
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+
+            MockHttpServletResponse risposta = esegui(request);
+
+            assertNull(risposta.getHeader(HttpHeaders.CONTENT_ENCODING), acceptEncoding);
+            assertEquals(ETAG, risposta.getHeader(HttpHeaders.ETAG), acceptEncoding);
+            assertEquals(BODY, risposta.getContentAsString(), acceptEncoding);
+        }
+    }
+
+    @Test
+    void ifNoneMatchConEtagGzipRisponde304() throws Exception {
+        esegui(richiesta("/api/cocktails"));
+        MockHttpServletRequest condizionale = richiesta("/api/cocktails");
+        condizionale.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        condizionale.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"7-42-gz\"");
+
+        MockHttpServletResponse risposta = esegui(condizionale);
+
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, risposta.getStatus());
+        assertEquals("W/\"7-42-gz\"", risposta.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void ifNoneMatchConEtagGzipSuMissRisponde304() throws Exception {
+        MockHttpServletRequest primaGzip = richiesta("/api/cocktails");
+        primaGzip.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        String etagGzip = esegui(primaGzip).getHeader(HttpHeaders.ETAG);
+        // Cache svuotata (es. modifica a un ingrediente che non cambia questa risposta)
+        filter.clear();
+
+        MockHttpServletRequest condizionale = richiesta("/api/cocktails");
+        condizionale.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        condizionale.addHeader(HttpHeaders.IF_NONE_MATCH, etagGzip);
+        MockHttpServletResponse risposta = esegui(condizionale);
+
+        // Il controller confronta l'ETag identity: il suffisso gzip gli arriva già tolto
+        assertEquals(2, chiamate);
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, risposta.getStatus());
+        assertEquals(0, risposta.getContentAsByteArray().length);
+        assertEquals("W/\"7-42-gz\"", risposta.getHeader(HttpHeaders.ETAG));
+        assertEquals(0, filter.size());
+    }
+
+    @Test
+    void suffissoGzipRimossoPerIfMatch() {
+        assertEquals("\"12-v3\"", ResponseCacheFilter.senzaSuffissoGzip("\"12-v3-gz\""));
+        assertEquals("\"12-v3\"", ResponseCacheFilter.senzaSuffissoGzip("\"12-v3\""));
+        assertEquals("W/\"7-42\"", ResponseCacheFilter.senzaSuffissoGzip("W/\"7-42-gz\""));
+    }
+
+    @Test
+    void richiesteConAuthorizationNonUsanoLaCache() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = richiesta("/api/cocktails");
+            request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer token");
+
+            MockHttpServletResponse risposta = esegui(request);
+
+            assertNull(risposta.getHeader("X-Cache"));
+            assertEquals(BODY, risposta.getContentAsString());
+        }
+        assertEquals(2, chiamate);
+        assertEquals(0, filter.size());
+    }
+
+    @Test
+    void risposteNoStoreNonVengonoSalvate() throws Exception {
+        cacheControl = "no-store";
+        esegui(richiesta("/api/cocktails/1/also-liked"));
+        MockHttpServletResponse seconda = esegui(richiesta("/api/cocktails/1/also-liked"));
+
+        assertEquals(2, chiamate);
+        assertEquals(0, filter.size());
+        assertNull(seconda.getHeader("X-Cache"));
+        assertEquals(BODY, seconda.getContentAsString());
+    }
+
+    @Test
+    void modificaDelCatalogoSvuotaLaCache() throws Exception {
+        esegui(richiesta("/api/cocktails"));
+        filter.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Entita.FAVORITO, 1L,
+                CatalogChangeEvent.Operazione.CREATE, false));
+        assertEquals("HIT", esegui(richiesta("/api/cocktails")).getHeader("X-Cache"));
+
+        filter.onCatalogChange(new CatalogChangeEvent(CatalogChangeEvent.Entita.COCKTAIL, 1L,
+                CatalogChangeEvent.Operazione.UPDATE, true));
+        assertEquals("MISS", esegui(richiesta("/api/cocktails")).getHeader("X-Cache"));
+        assertEquals(2, chiamate);
+    }
+
+    @Test
+    void altrePathNonFiltrate() throws Exception {
+        esegui(richiesta("/api/favoriti"));
+        MockHttpServletResponse seconda = esegui(richiesta("/api/favoriti"));
+
+        assertNull(seconda.getHeader("X-Cache"));
+        assertEquals(2, chiamate);
+    }
+
+    private static MockHttpServletRequest richiesta(String path, String... parametri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        for (int i = 0; i < parametri.length; i += 2) {
+            request.addParameter(parametri[i], parametri[i + 1]);
+        }
+        return request;
+    }
+
+    private MockHttpServletResponse esegui(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain controller = (req, res) -> {
+            chiamate++;
+            HttpServletResponse http = (HttpServletResponse) res;
+            http.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+            http.addHeader(HttpHeaders.VARY, "Origin");
+            http.addHeader(HttpHeaders.VARY, "Access-Control-Request-Method");
+            if (new ServletWebRequest((HttpServletRequest) req, http).checkNotModified(ETAG)) {
+                return;
+            }
+            http.setContentType("application/json");
+            http.setHeader(HttpHeaders.ETAG, ETAG);
+            http.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+        };
+        filter.doFilter(request, response, controller);
+        return response;
+    }
+
+    private static byte[] gunzip(byte[] compresso) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compresso))) {
+            return in.readAllBytes();
+        }
+    }
+}
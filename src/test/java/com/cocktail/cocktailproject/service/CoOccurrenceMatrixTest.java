@@ -0,0 +1,220 @@
+package com.cocktail.cocktailproject.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CoOccurrenceMatrixTest - Conteggi, idempotenza, righe a indirizzamento aperto e costruzione parallela
+ *
+ * I conteggi attesi sono ricalcolati da zero sugli insiemi di preferiti di ogni utente.
+ */
+class CoOccurrenceMatrixTest {
+
+    private final CoOccurrenceMatrix matrice = new CoOccurrenceMatrix();
+
+    @Test
+    void aggiungiERimuoviIdempotenti() {
+        assertTrue(matrice.aggiungi("anna", 1));
+        assertTrue(matrice.aggiungi("anna", 2));
+        assertTrue(matrice.aggiungi("bruno", 1));
+        assertTrue(matrice.aggiungi("bruno", 2));
+        assertTrue(matrice.aggiungi("bruno", 3));
+        assertFalse(matrice.aggiungi("bruno", 3));
+
+        assertEquals(Map.of(
+                1, Map.of(2, 2, 3, 1),
+                2, Map.of(1, 2, 3, 1),
+                3, Map.of(1, 1, 2, 1)), matrice.celle());
+        assertEquals(List.of(new CoOccurrenceMatrix.Conteggio(2, 2), new CoOccurrenceMatrix.Conteggio(3, 1)),
+                matrice.ancheApprezzati(1, 10));
+        // Somma delle righe 1 e 2 di anna, senza i cocktail che ha già
+        assertEquals(List.of(new CoOccurrenceMatrix.Conteggio(3, 2)), matrice.raccomandazioni("anna", 10));
+
+        assertTrue(matrice.rimuovi("bruno", 1));
+        assertFalse(matrice.rimuovi("bruno", 1));
+        assertFalse(matrice.rimuovi("carla", 1));
+        assertEquals(1, matrice.conteggio(1, 2));
+        assertEquals(0, matrice.conteggio(1, 3));
+        assertEquals(1, matrice.conteggio(3, 2));
+
+        // Righe vuote e utenti senza preferiti spariscono
+        matrice.rimuovi("anna", 1);
+        matrice.rimuovi("anna", 2);
+        matrice.rimuovi("bruno", 2);
+        matrice.rimuovi("bruno", 3);
+        assertEquals(Map.of(), matrice.celle());
+        assertEquals(0, matrice.utenti());
+        assertEquals(List.of(), matrice.ancheApprezzati(1, 10));
+    }
+
+    @Test
+    void eliminazioneConCatenaCheAttraversaLaFine() {
+        CoOccurrenceMatrix.Riga riga = new CoOccurrenceMatrix.Riga();
+        int capacita = riga.capacita();
+        // Tre chiavi con posizione ideale nell'ultimo slot e una nel primo:
+        // occupano gli slot ultimo, 0, 1 e 2
+        List<Integer> ultime = chiaviConSlot(capacita - 1, 3, capacita);
+        int prima = chiaviConSlot(0, 1, capacita).get(0);
+        for (int chiave : ultime) {
+            riga.incrementa(chiave, chiave);
+        }
+        riga.incrementa(prima, prima);
+        assertEquals(List.of(capacita - 1, 0, 1), ultime.stream().map(riga::slot).toList());
+        assertEquals(2, riga.slot(prima));
+
+        // Eliminata la testa della catena: ogni elemento scala di uno, attraverso la fine della tabella
+        riga.incrementa(ultime.get(0), -ultime.get(0));
+        assertEquals(List.of(-1, capacita - 1, 0), ultime.stream().map(riga::slot).toList());
+        assertEquals(1, riga.slot(prima));
+        assertEquals(3, riga.size());
+        for (int chiave : List.of(ultime.get(1), ultime.get(2), prima)) {
+            assertEquals(chiave, riga.get(chiave));
+        }
+
+        // Eliminato un elemento a metà: "prima" torna nel suo slot ideale (0)
+        riga.incrementa(ultime.get(2), -ultime.get(2) - 5);
+        assertEquals(0, riga.slot(prima));
+        assertEquals(ultime.get(1), riga.get(ultime.get(1)));
+        assertEquals(prima, riga.get(prima));
+        assertEquals(0, riga.get(ultime.get(2)));
+        assertEquals(2, riga.size());
+    }
+
+    @Test
+    void rigaUgualeAUnaMappaDiRiferimento() {
+        // Inserimenti, decrementi a zero e raddoppi su poche chiavi: catene lunghe
+        CoOccurrenceMatrix.Riga riga = new CoOccurrenceMatrix.Riga();
+        Map<Integer, Integer> riferimento = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            int chiave = 1 + random.nextInt(300);
+            int delta = random.nextInt(3) == 0 ? -random.nextInt(3) - 1 : 1;
+            riga.incrementa(chiave, delta);
+            int valore = riferimento.getOrDefault(chiave, 0) + delta;
+            if (valore > 0) {
+                riferimento.put(chiave, valore);
+            } else {
+                riferimento.remove(chiave);
+            }
+            if (i % 500 == 0) {
+                assertUgualeA(riferimento, riga);
+            }
+        }
+        assertUgualeA(riferimento, riga);
+        assertTrue(riga.capacita() > 8);
+    }
+
+    @Test
+    void rimuoviCocktailLoTogliePerTuttiGliUtenti() {
+        matrice.aggiungiUtente("anna", new int[] {1, 2, 3});
+        matrice.aggiungiUtente("bruno", new int[] {1, 3});
+        matrice.aggiungiUtente("carla", new int[] {1});
+
+        matrice.rimuoviCocktail(1);
+
+        CoOccurrenceMatrix attesa = new CoOccurrenceMatrix();
+        attesa.aggiungiUtente("anna", new int[] {2, 3});
+        attesa.aggiungiUtente("bruno", new int[] {3});
+        assertEquals(attesa.celle(), matrice.celle());
+        assertEquals(2, matrice.utenti());
+        assertEquals(List.of(), matrice.ancheApprezzati(1, 10));
+        // Già tolto dai preferiti: rimuoverlo di nuovo non cambia nulla, riaggiungerlo sì
+        assertFalse(matrice.rimuovi("anna", 1));
+        assertTrue(matrice.aggiungi("bruno", 1));
+        assertEquals(1, matrice.conteggio(1, 3));
+        assertEquals(0, matrice.conteggio(1, 2));
+    }
+
+    @Test
+    void costruzioneParallelaUgualeAQuellaIncrementale() {
+        Random random = new Random(11);
+        Map<String, int[]> perUtente = new LinkedHashMap<>();
+        for (int utente = 0; utente < 3000; utente++) {
+            int[] cocktail = random.ints(random.nextInt(12), 1, 400).toArray();
+            perUtente.put("utente-" + utente, cocktail);
+        }
+
+        CoOccurrenceMatrix incrementale = new CoOccurrenceMatrix();
+        perUtente.forEach(incrementale::aggiungiUtente);
+        CoOccurrenceMatrix parallela = CoOccurrenceMatrix.costruisci(perUtente);
+
+        assertEquals(celleAttese(perUtente), incrementale.celle());
+        assertEquals(incrementale.celle(), parallela.celle());
+        assertEquals(incrementale.utenti(), parallela.utenti());
+        for (int cocktail = 1; cocktail < 400; cocktail += 37) {
+            assertEquals(incrementale.ancheApprezzati(cocktail, 10), parallela.ancheApprezzati(cocktail, 10));
+        }
+        assertEquals(incrementale.raccomandazioni("utente-5", 10), parallela.raccomandazioni("utente-5", 10));
+
+        // Dopo l'unione la matrice resta aggiornabile come quella incrementale
+        for (String utente : List.of("utente-5", "utente-6", "utente-7")) {
+            for (int cocktail : perUtente.get(utente)) {
+                assertEquals(incrementale.rimuovi(utente, cocktail), parallela.rimuovi(utente, cocktail));
+            }
+        }
+        assertEquals(incrementale.celle(), parallela.celle());
+        assertEquals(incrementale.utenti(), parallela.utenti());
+    }
+
+    @Test
+    void unisciSommaLeRigheDiGruppiDisgiunti() {
+        CoOccurrenceMatrix primi = new CoOccurrenceMatrix();
+        primi.aggiungiUtente("anna", new int[] {1, 2});
+        CoOccurrenceMatrix secondi = new CoOccurrenceMatrix();
+        secondi.aggiungiUtente("bruno", new int[] {1, 2, 3});
+
+        primi.unisci(secondi);
+
+        assertEquals(2, primi.conteggio(1, 2));
+        assertEquals(1, primi.conteggio(2, 3));
+        assertEquals(2, primi.utenti());
+        assertEquals(List.of(new CoOccurrenceMatrix.Conteggio(3, 2)), primi.raccomandazioni("anna", 10));
+    }
+
+    private static List<Integer> chiaviConSlot(int slot, int quante, int capacita) {
+        List<Integer> chiavi = new ArrayList<>();
+        for (int chiave = 1; chiavi.size() < quante; chiave++) {
+            if ((CoOccurrenceMatrix.Riga.hash(chiave) & (capacita - 1)) == slot) {
+                chiavi.add(chiave);
+            }
+        }
+        return chiavi;
+    }
+
+    private static void assertUgualeA(Map<Integer, Integer> riferimento, CoOccurrenceMatrix.Riga riga) {
+        Map<Integer, Integer> contenuto = new HashMap<>();
+        riga.perOgni(contenuto::put);
+        assertEquals(riferimento, contenuto);
+        assertEquals(riferimento.size(), riga.size());
+        riferimento.forEach((chiave, valore) -> assertEquals(valore, riga.get(chiave)));
+    }
+
+    /**
+     * Conteggi delle coppie calcolati da zero (insiemi senza duplicati)
+     */
+    private static Map<Integer, Map<Integer, Integer>> celleAttese(Map<String, int[]> perUtente) {
+        Map<Integer, Map<Integer, Integer>> celle = new HashMap<>();
+        for (int[] cocktail : perUtente.values()) {
+            int[] insieme = Arrays.stream(cocktail).distinct().toArray();
+            for (int a : insieme) {
+                for (int b : insieme) {
+                    if (a != b) {
+                        celle.computeIfAbsent(a, k -> new HashMap<>()).merge(b, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        return celle;
+    }
+}
@@ -0,0 +1,318 @@
+package com.cocktail.cocktailproject.service;
+
+import com.cocktail.cocktailproject.dto.StepModificaDTO;
+import com.cocktail.cocktailproject.dto.StepPatchDTO;
+import com.cocktail.cocktailproject.entity.Preparazione;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.Invocation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mockingDetails;
+
+/**
+ * CocktailServiceStepTest - Differenza minima degli step (PUT e PATCH /api/cocktails/{id}/steps)
+ *
+ * Su H2 in modalità MySQL con lo schema delle migrazioni Flyway. Il JdbcTemplate è uno spy:
+ * le scritture di PreparazioneRepositoryImpl.applicaModifiche vengono lette dalle chiamate
+ * registrate (DELETE, UPDATE dei valori, UPDATE di rinumerazione, INSERT) e confrontate
+ * con lo stato finale delle tabelle (step_order, valori, contatore utilizzi).
+ *
+ * Ricetta di partenza: Negroni = gin (1), vermut (2), campari (3), 30 ml ciascuno;
+ * il Martini usa gin e vermut, quindi entrambi partono da 2 utilizzi.
+ */
+@SpringBootTest
+class CocktailServiceStepTest {
+
+    @Autowired
+    private CocktailService cocktailService;
+
+    @MockitoSpyBean
+    private JdbcTemplate jdbcTemplate;
+
+    private long negroni;
+    private long martini;
+    private final Map<String, Long> ingredienti = new LinkedHashMap<>();
+    private final Map<String, Long> step = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        for (String nome : List.of("gin", "vermut", "campari", "soda")) {
+            ingredienti.put(nome, inserisci("INSERT INTO ingredienti (nome) VALUES (?)", nome));
+        }
+        negroni = inserisci("INSERT INTO cocktail (nome, tempo_preparazione_minutes) VALUES (?, 3)", "Negroni");
+        martini = inserisci("INSERT INTO cocktail (nome, tempo_preparazione_minutes) VALUES (?, 2)", "Martini");
+        int ordine = 1;
+        for (String nome : List.of("gin", "vermut", "campari")) {
+            step.put(nome, inserisci("INSERT INTO preparazione (cocktail_id, ingrediente_id, quantita, unita, step_order, istruzione) "
+                    + "VALUES (" + negroni + ", " + ingredienti.get(nome) + ", 30, 'ml', " + ordine++ + ", ?)", "Versare " + nome));
+        }
+        inserisci("INSERT INTO preparazione (cocktail_id, ingrediente_id, quantita, unita, step_order) VALUES ("
+                + martini + ", " + ingredienti.get("gin") + ", 60, 'ml', ?)", 1);
+        inserisci("INSERT INTO preparazione (cocktail_id, ingrediente_id, quantita, unita, step_order) VALUES ("
+                + martini + ", " + ingredienti.get("vermut") + ", 10, 'ml', ?)", 2);
+        jdbcTemplate.update("UPDATE ingredienti i SET utilizzi = "
+                + "(SELECT COUNT(DISTINCT p.cocktail_id) FROM preparazione p WHERE p.ingrediente_id = i.id)");
+        clearInvocations(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM preparazione");
+        jdbcTemplate.update("DELETE FROM cocktail_read_model");
+        jdbcTemplate.update("DELETE FROM cocktail");
+        jdbcTemplate.update("DELETE FROM ingredienti");
+    }
+
+    @Test
+    void riordinoConUnaSolaUpdateDiRinumerazione() {
+        cocktailService.sostituisciStep(negroni, List.of(
+                passo("campari", "30", "ml", "Versare campari"),
+                passo("gin", "30.00", "ml", "Versare gin"),
+                passo("vermut", "30", "ml", "Versare vermut")), null);
+
+        // Nessun valore cambiato (30 e 30.00 sono la stessa quantità): solo step_order
+        assertEquals(List.of("ORDINE " + ordini("campari", 1, "gin", 2, "vermut", 3)), scritture());
+        assertEquals(List.of("campari 1", "gin 2", "vermut 3"), ricetta());
+        assertEquals(1, versione());
+        assertUtilizzi(2, 2, 1, 0);
+    }
+
+    @Test
+    void nessunaDifferenzaNessunaScrittura() {
+        cocktailService.sostituisciStep(negroni, List.of(
+                passo("Gin", "30", "ml", "Versare gin"),
+                passo(" VERMUT ", "30", "ml", "Versare vermut"),
+                passo("campari", "30", "ml", "Versare campari")), null);
+
+        assertEquals(List.of(), scritture());
+        assertEquals(0, versione());
+    }
+
+    @Test
+    void rinumerazioneInsiemeAEliminazioniEInserimenti() {
+        cocktailService.sostituisciStep(negroni, List.of(
+                passo("campari", "25", "ml", "Versare campari"),
+                passo("soda", "100", "ml", null),
+                passo("angostura", "2", "dash", null)), null);
+
+        // Ordine delle istruzioni: DELETE, UPDATE dei valori, rinumerazione, INSERT
+        // (le righe eliminate liberano le posizioni prima che campari venga spostato)
+        assertEquals(List.of(
+                "DELETE " + List.of(step.get("gin"), step.get("vermut")),
+                "UPDATE " + List.of(step.get("campari")),
+                "ORDINE " + ordini("campari", 1),
+                "INSERT [soda 2, angostura 3]"), scritture());
+        assertEquals(List.of("campari 1 25.00 ml", "soda 2 100.00 ml", "angostura 3 2.00 dash"), ricettaConValori());
+        assertEquals(1, versione());
+        // -1 a gin e vermut (restano nel Martini), +1 a soda e all'ingrediente nuovo
+        assertUtilizzi(1, 1, 1, 1);
+        assertEquals(1L, utilizzi("angostura"));
+    }
+
+    @Test
+    void ingredienteRipetutoNellaStessaRichiestaRifiutato() {
+        assertThrows(IllegalArgumentException.class, () -> cocktailService.sostituisciStep(negroni, List.of(
+                passo("Angostura", "2", "dash", null),
+                passo("gin", "30", "ml", "Versare gin"),
+                passo(" angostura", "1", "dash", null)), null));
+
+        // Rifiutato prima di qualsiasi scrittura sugli step; l'ingrediente creato
+        // per il primo "Angostura" sparisce con il rollback
+        assertEquals(List.of(), scritture());
+        assertEquals(List.of("gin 1", "vermut 2", "campari 3"), ricetta());
+        assertEquals(0, versione());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ingredienti WHERE nome = 'angostura'", Integer.class));
+        assertUtilizzi(2, 2, 1, 0);
+    }
+
+    @Test
+    void patchConIngredienteRipetutoUnisceLeModifiche() {
+        cocktailService.modificaStep(negroni, new StepPatchDTO(List.of(
+                passo("Soda", "100", null, null),
+                passo("soda", null, "ml", "Completare con soda"),
+                passo("gin", "45", null, null),
+                passo("GIN", null, "cl", null)), null, null), null);
+
+        // Un solo step per ingrediente: la seconda modifica completa la prima
+        assertEquals(List.of(
+                "UPDATE " + List.of(step.get("gin")),
+                "INSERT [soda 4]"), scritture());
+        assertEquals(List.of("gin 1 45.00 cl Versare gin", "vermut 2 30.00 ml Versare vermut",
+                "campari 3 30.00 ml Versare campari", "soda 4 100.00 ml Completare con soda"), ricettaCompleta());
+        assertUtilizzi(2, 2, 1, 1);
+    }
+
+    @Test
+    void patchModificaSoloICampiIndicati() {
+        cocktailService.modificaStep(negroni, new StepPatchDTO(List.of(passo("gin", "45", null, null)), null, null), null);
+
+        // unita e istruzione non indicate: restano quelle attuali
+        assertEquals(List.of("UPDATE " + List.of(step.get("gin"))), scritture());
+        assertEquals(List.of("gin 1 45.00 ml Versare gin", "vermut 2 30.00 ml Versare vermut",
+                "campari 3 30.00 ml Versare campari"), ricettaCompleta());
+        assertEquals(1, versione());
+        assertUtilizzi(2, 2, 1, 0);
+    }
+
+    @Test
+    void putSostituisceAncheICampiNonIndicati() {
+        cocktailService.sostituisciStep(negroni, List.of(
+                passo("gin", "45", null, null),
+                passo("campari", "30", "ml", "Versare campari")), null);
+
+        // La stessa modifica via PUT azzera unita e istruzione ed elimina vermut
+        assertEquals(List.of(
+                "DELETE " + List.of(step.get("vermut")),
+                "UPDATE " + List.of(step.get("gin")),
+                "ORDINE " + ordini("campari", 2)), scritture());
+        assertEquals(List.of("gin 1 45.00 - -", "campari 2 30.00 ml Versare campari"), ricettaCompleta());
+        assertUtilizzi(2, 1, 1, 0);
+    }
+
+    @Test
+    void patchRimuoviAggiungiEOrdine() {
+        cocktailService.modificaStep(negroni, new StepPatchDTO(
+                List.of(passo("soda", "100", "ml", null)),
+                List.of("Vermut"),
+                List.of("campari")), null);
+
+        // campari in testa, poi gli step rimasti nell'ordine attuale, soda (nuovo) in fondo
+        assertEquals(List.of(
+                "DELETE " + List.of(step.get("vermut")),
+                "ORDINE " + ordini("campari", 1, "gin", 2),
+                "INSERT [soda 3]"), scritture());
+        assertEquals(List.of("campari 1", "gin 2", "soda 3"), ricetta());
+        assertEquals(1, versione());
+        assertUtilizzi(2, 1, 1, 1);
+    }
+
+    @Test
+    void patchConIngredienteAssenteRifiutata() {
+        assertThrows(IllegalArgumentException.class, () -> cocktailService.modificaStep(negroni,
+                new StepPatchDTO(null, List.of("soda"), null), null));
+        assertThrows(IllegalArgumentException.class, () -> cocktailService.modificaStep(negroni,
+                new StepPatchDTO(null, null, List.of("campari", "campari")), null));
+
+        assertEquals(List.of(), scritture());
+        assertEquals(0, versione());
+    }
+
+    @Test
+    void eliminazioneDelCocktailTogliUnUtilizzo() {
+        assertTrue(cocktailService.deleteCocktail(martini));
+        assertFalse(cocktailService.deleteCocktail(martini));
+
+        assertUtilizzi(1, 1, 1, 0);
+    }
+
+    private long inserisci(String sql, Object parametro) {
+        jdbcTemplate.update(sql, parametro);
+        return jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+    }
+
+    private static StepModificaDTO passo(String ingrediente, String quantita, String unita, String istruzione) {
+        return new StepModificaDTO(ingrediente, quantita != null ? new BigDecimal(quantita) : null, unita, istruzione);
+    }
+
+    private Map<Long, Integer> ordini(Object... coppie) {
+        Map<Long, Integer> ordini = new LinkedHashMap<>();
+        for (int i = 0; i < coppie.length; i += 2) {
+            ordini.put(step.get((String) coppie[i]), (Integer) coppie[i + 1]);
+        }
+        return ordini;
+    }
+
+    /**
+     * Scritture su preparazione registrate dallo spy, nell'ordine in cui sono state eseguite
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> scritture() {
+        List<String> scritture = new ArrayList<>();
+        for (Invocation chiamata : mockingDetails(jdbcTemplate).getInvocations()) {
+            String metodo = chiamata.getMethod().getName();
+            Object[] argomenti = chiamata.getRawArguments();
+            // Solo le chiamate di applicaModifiche: update(sql, parametri...) e
+            // batchUpdate(sql, righe, ...), non gli overload interni a cui delegano
+            boolean scrittura = metodo.equals("update") && argomenti.length == 2 && argomenti[1] instanceof Object[]
+                    || metodo.equals("batchUpdate") && argomenti.length == 4 && argomenti[1] instanceof Collection;
+            if (!scrittura || !(argomenti[0] instanceof String sql) || !sql.contains("preparazione")) {
+                continue;
+            }
+            if (sql.startsWith("DELETE")) {
+                // Ordine degli ID della IN non significativo
+                scritture.add("DELETE " + Stream.of((Object[]) argomenti[1]).map(id -> (Long) id).sorted().toList());
+            } else if (sql.contains("CASE id")) {
+                // Parametri: coppie (id, ordine) del CASE, poi gli stessi id della IN
+                Object[] parametri = (Object[]) argomenti[1];
+                Map<Long, Integer> ordini = new LinkedHashMap<>();
+                for (int i = 0; i < parametri.length / 3 * 2; i += 2) {
+                    ordini.put((Long) parametri[i], (Integer) parametri[i + 1]);
+                }
+                scritture.add("ORDINE " + ordini);
+            } else if (sql.startsWith("UPDATE")) {
+                scritture.add("UPDATE " + ((Collection<Preparazione>) argomenti[1]).stream()
+                        .map(Preparazione::getId).toList());
+            } else if (sql.startsWith("INSERT")) {
+                scritture.add("INSERT " + ((Collection<Preparazione>) argomenti[1]).stream()
+                        .map(p -> nomeIngrediente(p.getIngredienteId()) + " " + p.getStepOrder()).toList());
+            }
+        }
+        return scritture;
+    }
+
+    private List<String> ricetta() {
+        return jdbcTemplate.queryForList("SELECT CONCAT(i.nome, ' ', p.step_order) FROM preparazione p "
+                + "JOIN ingredienti i ON i.id = p.ingrediente_id WHERE p.cocktail_id = ? ORDER BY p.step_order",
+                String.class, negroni);
+    }
+
+    private List<String> ricettaConValori() {
+        return jdbcTemplate.queryForList("SELECT CONCAT(i.nome, ' ', p.step_order, ' ', p.quantita, ' ', p.unita) "
+                + "FROM preparazione p JOIN ingredienti i ON i.id = p.ingrediente_id "
+                + "WHERE p.cocktail_id = ? ORDER BY p.step_order", String.class, negroni);
+    }
+
+    private List<String> ricettaCompleta() {
+        return jdbcTemplate.queryForList("SELECT CONCAT(i.nome, ' ', p.step_order, ' ', p.quantita, ' ', "
+                + "COALESCE(p.unita, '-'), ' ', COALESCE(p.istruzione, '-')) "
+                + "FROM preparazione p JOIN ingredienti i ON i.id = p.ingrediente_id "
+                + "WHERE p.cocktail_id = ? ORDER BY p.step_order", String.class, negroni);
+    }
+
+    private long versione() {
+        return jdbcTemplate.queryForObject("SELECT versione FROM cocktail WHERE id = ?", Long.class, negroni);
+    }
+
+    private String nomeIngrediente(long id) {
+        return jdbcTemplate.queryForObject("SELECT nome FROM ingredienti WHERE id = ?", String.class, id);
+    }
+
+    private long utilizzi(String nome) {
+        return jdbcTemplate.queryForObject("SELECT utilizzi FROM ingredienti WHERE nome = ?", Long.class, nome);
+    }
+
+    private void assertUtilizzi(long gin, long vermut, long campari, long soda) {
+        assertEquals(List.of(gin, vermut, campari, soda),
+                List.of(utilizzi("gin"), utilizzi("vermut"), utilizzi("campari"), utilizzi("soda")),
+                "utilizzi di gin, vermut, campari, soda");
+    }
+}
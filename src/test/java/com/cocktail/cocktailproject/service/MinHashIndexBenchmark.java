@@ -0,0 +1,170 @@
+package com.cocktail.cocktailproject.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * MinHashIndexBenchmark - Tempi di /api/cocktails/{id}/similar su cataloghi sintetici
+ *
+ * Non è un test JUnit (surefire non lo esegue): si lancia a mano dopo test-compile.
+ *
+ *   mvn -q test-compile
+ *   java -Xmx3g -cp target/classes:target/test-classes \
+ *        com.cocktail.cocktailproject.service.MinHashIndexBenchmark 10000 100000 1000000
+ *
+ * Catalogo sintetico: 1000 ingredienti con popolarità Zipf, 5000 ricette "base" da 3-6
+ * ingredienti e cocktail ottenuti come varianti (uno scambio, un'aggiunta o una rimozione).
+ * Per ogni dimensione stampa tempo di costruzione, latenza delle query LSH (media, p50, p99),
+ * candidati medi ri-ordinati, tempo del confronto esaustivo e recall@10 rispetto ad esso.
+ */
+public class MinHashIndexBenchmark {
+
+    private static final int INGREDIENTI = 1000;
+    private static final int RICETTE_BASE = 5000;
+    private static final int QUERY = 2000;
+    private static final int QUERY_ESAUSTIVE = 50;
+    private static final int LIMITE = 10;
+
+    public static void main(String[] args) {
+        int[] dimensioni = args.length == 0
+                ? new int[] {10_000, 100_000, 1_000_000}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        System.out.printf("%10s %10s %10s %10s %10s %10s %12s %10s %10s%n",
+                "cocktail", "build ms", "avg us", "p50 us", "p99 us", "candidati",
+                "esaust. ms", "recall@10", "rec>=0.5");
+        for (int n : dimensioni) {
+            esegui(n);
+        }
+    }
+
+    private static void esegui(int n) {
+        Random random = new Random(42);
+        long[][] catalogo = genera(n, random);
+
+        // Solo LSH (soglia 0): la scansione esatta è misurata a parte (colonna esaust.)
+        MinHashIndex indice = new MinHashIndex(2000, 0);
+        long inizio = System.nanoTime();
+        for (int id = 1; id <= n; id++) {
+            indice.aggiungi(id, catalogo[id]);
+        }
+        long buildMs = (System.nanoTime() - inizio) / 1_000_000;
+
+        // Riscaldamento JIT, poi misura
+        for (int i = 0; i < QUERY; i++) {
+            indice.simili(1 + random.nextInt(n), LIMITE);
+        }
+        long[] tempi = new long[QUERY];
+        long candidati = 0;
+        for (int i = 0; i < QUERY; i++) {
+            int id = 1 + random.nextInt(n);
+            long t = System.nanoTime();
+            indice.simili(id, LIMITE);
+            tempi[i] = System.nanoTime() - t;
+            candidati += indice.contaCandidati(id);
+        }
+        Arrays.sort(tempi);
+        double media = Arrays.stream(tempi).average().orElse(0) / 1000;
+
+        // Confronto esaustivo (Jaccard con tutti) su poche query, per tempo e recall
+        long esaustivoNs = 0;
+        int trovati = 0;
+        int attesi = 0;
+        int trovatiSoglia = 0;
+        int attesiSoglia = 0;
+        for (int i = 0; i < QUERY_ESAUSTIVE; i++) {
+            int id = 1 + random.nextInt(n);
+            long t = System.nanoTime();
+            List<MinHashIndex.Simile> esatti = esaustivo(catalogo, id);
+            esaustivoNs += System.nanoTime() - t;
+            Set<Integer> lsh = new HashSet<>();
+            indice.simili(id, LIMITE).forEach(s -> lsh.add(s.id()));
+            for (MinHashIndex.Simile esatto : esatti) {
+                attesi++;
+                if (lsh.contains(esatto.id())) {
+                    trovati++;
+                }
+                if (esatto.jaccard() >= 0.5) {
+                    attesiSoglia++;
+                    if (lsh.contains(esatto.id())) {
+                        trovatiSoglia++;
+                    }
+                }
+            }
+        }
+
+        System.out.printf("%10d %10d %10.1f %10.1f %10.1f %10.0f %12.2f %10.2f %10.2f%n",
+                n, buildMs, media, tempi[QUERY / 2] / 1000.0, tempi[QUERY * 99 / 100] / 1000.0,
+                (double) candidati / QUERY, esaustivoNs / 1_000_000.0 / QUERY_ESAUSTIVE,
+                attesi == 0 ? 1 : (double) trovati / attesi,
+                attesiSoglia == 0 ? 1 : (double) trovatiSoglia / attesiSoglia);
+    }
+
+    /**
+     * Top 10 esatta confrontando il cocktail con tutto il catalogo
+     */
+    private static List<MinHashIndex.Simile> esaustivo(long[][] catalogo, int id) {
+        List<MinHashIndex.Simile> tutti = new ArrayList<>();
+        for (int altro = 1; altro < catalogo.length; altro++) {
+            if (altro != id) {
+                double jaccard = MinHashIndex.jaccard(catalogo[id], catalogo[altro]);
+                if (jaccard > 0) {
+                    tutti.add(new MinHashIndex.Simile(altro, jaccard));
+                }
+            }
+        }
+        tutti.sort((a, b) -> a.jaccard() != b.jaccard()
+                ? Double.compare(b.jaccard(), a.jaccard())
+                : Integer.compare(a.id(), b.id()));
+        return tutti.subList(0, Math.min(LIMITE, tutti.size()));
+    }
+
+    private static long[][] genera(int n, Random random) {
+        // Distribuzione Zipf cumulativa degli ingredienti (pochi molto comuni, molti rari)
+        double[] cumulata = new double[INGREDIENTI];
+        double somma = 0;
+        for (int i = 0; i < INGREDIENTI; i++) {
+            somma += 1.0 / (i + 1);
+            cumulata[i] = somma;
+        }
+        for (int i = 0; i < INGREDIENTI; i++) {
+            cumulata[i] /= somma;
+        }
+
+        long[][] basi = new long[RICETTE_BASE][];
+        for (int b = 0; b < RICETTE_BASE; b++) {
+            Set<Long> ingredienti = new HashSet<>();
+            int quanti = 3 + random.nextInt(4);
+            while (ingredienti.size() < quanti) {
+                ingredienti.add(ingrediente(cumulata, random));
+            }
+            basi[b] = ingredienti.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+
+        long[][] catalogo = new long[n + 1][];
+        for (int id = 1; id <= n; id++) {
+            List<Long> ingredienti = new ArrayList<>();
+            for (long i : basi[random.nextInt(RICETTE_BASE)]) {
+                ingredienti.add(i);
+            }
+            double variante = random.nextDouble();
+            if (variante < 0.5) {
+                ingredienti.set(random.nextInt(ingredienti.size()), ingrediente(cumulata, random));
+            } else if (variante < 0.8) {
+                ingredienti.add(ingrediente(cumulata, random));
+            } else if (ingredienti.size() > 2) {
+                ingredienti.remove(random.nextInt(ingredienti.size()));
+            }
+            catalogo[id] = ingredienti.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        }
+        return catalogo;
+    }
+
+    private static long ingrediente(double[] cumulata, Random random) {
+        int i = Arrays.binarySearch(cumulata, random.nextDouble());
+        return (i >= 0 ? i : -i - 1) + 1;
+    }
+}
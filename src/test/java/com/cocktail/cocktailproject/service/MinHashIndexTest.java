@@ -0,0 +1,164 @@
+package com.cocktail.cocktailproject.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MinHashIndexTest - Inserimento, rimozione, ridimensionamento e ordinamento dell'indice MinHash
+ *
+ * Le funzioni hash sono fisse: i bucket (e quindi i candidati) sono gli stessi a ogni esecuzione.
+ * L'indice dei test usa solo LSH (soglia di scansione esatta 0), tranne dove indicato.
+ */
+class MinHashIndexTest {
+
+    private final MinHashIndex indice = new MinHashIndex(1000, 0);
+
+    @Test
+    void aggiungiRimuoviRiaggiungi() {
+        indice.aggiungi(1, new long[] {10, 20, 30});
+        indice.aggiungi(2, new long[] {30, 10, 20, 10});
+        int nodi = indice.nodiAllocati();
+        assertEquals(2 * MinHashIndex.BANDE, nodi);
+        assertEquals(List.of(new MinHashIndex.Simile(2, 1.0)), indice.simili(1, 5));
+
+        indice.rimuovi(2);
+        assertFalse(indice.contiene(2));
+        assertEquals(1, indice.size());
+        assertEquals(List.of(), indice.simili(1, 5));
+        assertNull(indice.simili(2, 5));
+
+        // I nodi liberati vengono riusati: nessuna nuova allocazione
+        indice.aggiungi(2, new long[] {10, 20, 30});
+        assertEquals(nodi, indice.nodiAllocati());
+        assertEquals(List.of(new MinHashIndex.Simile(1, 1.0)), indice.simili(2, 5));
+
+        // Sostituzione dello stesso ID: prima rimosso, poi reinserito con gli stessi nodi
+        indice.aggiungi(2, new long[] {40, 50});
+        assertEquals(nodi, indice.nodiAllocati());
+        assertEquals(2, indice.size());
+        assertEquals(List.of(), indice.simili(1, 5));
+    }
+
+    @Test
+    void rimozioneDiUnIdAssenteNonHaEffetto() {
+        indice.aggiungi(1, new long[] {1, 2});
+        indice.rimuovi(7);
+        indice.rimuovi(100_000);
+        assertEquals(1, indice.size());
+        assertTrue(indice.contiene(1));
+    }
+
+    @Test
+    void ridimensionamentoScartaLeChiaviSenzaCocktail() {
+        // 1000 cocktail con ingredienti propri: 16 chiavi di banda ciascuno, poi tutti rimossi
+        for (int id = 0; id < 1000; id++) {
+            indice.aggiungi(id, new long[] {id * 3L + 1, id * 3L + 2, id * 3L + 3});
+        }
+        for (int id = 0; id < 1000; id++) {
+            indice.rimuovi(id);
+        }
+        assertEquals(0, indice.size());
+        // Le chiavi con lista vuota restano fino al prossimo ridimensionamento
+        int chiaviResidue = indice.chiaviInTabella();
+        assertEquals(1000 * MinHashIndex.BANDE, chiaviResidue);
+
+        // Coppie di cocktail con gli stessi ingredienti finché la tabella non si ridimensiona
+        int id = 1000;
+        int precedenti = chiaviResidue;
+        while (indice.chiaviInTabella() >= precedenti) {
+            precedenti = indice.chiaviInTabella();
+            long base = 1_000_000L + id * 3L;
+            indice.aggiungi(id, new long[] {base, base + 1, base + 2});
+            indice.aggiungi(id + 1, new long[] {base, base + 1, base + 2});
+            id += 2;
+            assertTrue(id < 100_000, "la tabella non si è mai ridimensionata");
+        }
+
+        // Restano solo le chiavi dei cocktail presenti (una per banda, condivisa dalla coppia)
+        assertEquals(indice.size() / 2 * MinHashIndex.BANDE, indice.chiaviInTabella());
+        for (int coppia = 1000; coppia < id; coppia += 2) {
+            assertEquals(List.of(new MinHashIndex.Simile(coppia + 1, 1.0)), indice.simili(coppia, 5));
+        }
+    }
+
+    @Test
+    void risultatiOrdinatiPerJaccardEsattaPoiPerId() {
+        indice.aggiungi(1, new long[] {1, 2, 3, 4});
+        indice.aggiungi(9, new long[] {1, 2, 3, 5});     // 3/5
+        indice.aggiungi(7, new long[] {1, 2, 3});        // 3/4
+        indice.aggiungi(3, new long[] {1, 2, 3});        // 3/4, ID minore
+        indice.aggiungi(8, new long[] {1, 2, 3, 4});     // 1
+        indice.aggiungi(5, new long[] {100, 200, 300});  // nessun ingrediente in comune
+
+        assertEquals(List.of(
+                new MinHashIndex.Simile(8, 1.0),
+                new MinHashIndex.Simile(3, 0.75),
+                new MinHashIndex.Simile(7, 0.75),
+                new MinHashIndex.Simile(9, 0.6)), indice.simili(1, 10));
+
+        // Il limite tiene i migliori, a parità di Jaccard l'ID minore
+        assertEquals(List.of(
+                new MinHashIndex.Simile(8, 1.0),
+                new MinHashIndex.Simile(3, 0.75)), indice.simili(1, 2));
+    }
+
+    @Test
+    void scansioneEsattaSottoLaSoglia() {
+        // Jaccard 0.2 tra i cocktail 1 e 2: sotto la soglia delle bande, LSH non li accoppia
+        indice.aggiungi(1, new long[] {1, 2, 3, 4, 5, 6});
+        indice.aggiungi(2, new long[] {1, 2, 7, 8, 9, 10});
+        indice.aggiungi(3, new long[] {1, 2, 3, 4, 5, 11});
+        assertFalse(indice.scansioneEsatta());
+        assertEquals(List.of(new MinHashIndex.Simile(3, 5 / 7.0)), indice.simili(1, 5));
+
+        MinHashIndex piccolo = new MinHashIndex(1000, 3);
+        piccolo.aggiungi(1, new long[] {1, 2, 3, 4, 5, 6});
+        piccolo.aggiungi(2, new long[] {1, 2, 7, 8, 9, 10});
+        piccolo.aggiungi(3, new long[] {1, 2, 3, 4, 5, 11});
+        assertTrue(piccolo.scansioneEsatta());
+        assertEquals(List.of(
+                new MinHashIndex.Simile(3, 5 / 7.0),
+                new MinHashIndex.Simile(2, 0.2)), piccolo.simili(1, 5));
+        assertEquals(List.of(new MinHashIndex.Simile(3, 5 / 7.0)), piccolo.simili(1, 1));
+
+        // Oltre la soglia si torna ai soli candidati LSH, sotto di nuovo alla scansione
+        piccolo.aggiungi(4, new long[] {20, 21});
+        assertFalse(piccolo.scansioneEsatta());
+        assertEquals(List.of(new MinHashIndex.Simile(3, 5 / 7.0)), piccolo.simili(1, 5));
+        piccolo.rimuovi(3);
+        piccolo.rimuovi(4);
+        assertEquals(List.of(new MinHashIndex.Simile(2, 0.2)), piccolo.simili(1, 5));
+    }
+
+    @Test
+    void jaccardEsatta() {
+        assertEquals(0.5, MinHashIndex.jaccard(new long[] {1, 2, 3}, new long[] {2, 3, 4}));
+        assertEquals(1.0, MinHashIndex.jaccard(new long[] {1, 2}, new long[] {1, 2}));
+        assertEquals(0.0, MinHashIndex.jaccard(new long[] {1}, new long[] {2}));
+        assertEquals(0.0, MinHashIndex.jaccard(new long[0], new long[0]));
+    }
+
+    @Test
+    void cocktailSenzaIngredienti() {
+        indice.aggiungi(1, new long[] {1, 2});
+        indice.aggiungi(2, new long[0]);
+
+        assertTrue(indice.contiene(2));
+        assertEquals(2, indice.size());
+        assertEquals(List.of(), indice.simili(2, 5));
+        assertEquals(0, indice.contaCandidati(2));
+        // Nessuna chiave di banda: non compare tra i candidati degli altri
+        assertEquals(MinHashIndex.BANDE, indice.nodiAllocati());
+        assertEquals(List.of(), indice.simili(1, 5));
+
+        indice.rimuovi(2);
+        assertFalse(indice.contiene(2));
+        assertEquals(1, indice.size());
+    }
+}
@@ -0,0 +1,137 @@
+package com.cocktail.cocktailproject.service;
+
+import com.cocktail.cocktailproject.entity.Cocktail;
+import com.cocktail.cocktailproject.entity.Ingrediente;
+import jakarta.persistence.Column;
+import jakarta.persistence.Table;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * OrdinamentiIndiceTest - Ogni ordinamento ammesso per ?sort= deve essere servito da un indice
+ *
+ * Legge gli indici dello schema creato dalle migrazioni Flyway (H2 dei test, stesse V1 e
+ * V2__SchemaCatalogo di MySQL) con DatabaseMetaData.getIndexInfo: Hibernate valida solo tabelle
+ * e colonne, non gli indici, quindi quelli dichiarati sulle entity non bastano. Verifica che le
+ * colonne dell'ORDER BY siano un prefisso di un indice, tutte nella stessa direzione dell'indice
+ * o tutte opposte (scansione all'indietro). Come in InnoDB, ogni indice secondario termina con
+ * la chiave primaria.
+ */
+@SpringBootTest
+class OrdinamentiIndiceTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    private record Colonna(String nome, boolean crescente) {
+    }
+
+    @Test
+    void ordinamentiCocktailServitiDaIndice() {
+        CocktailService.ORDINAMENTI.forEach((chiave, ordinamento) ->
+                assertTrue(servitoDaIndice(Cocktail.class, ordinamento),
+                        "sort=" + chiave + " (" + ordinamento + ") non è servito da un indice di cocktail"));
+    }
+
+    @Test
+    void ordinamentiIngredientiServitiDaIndice() {
+        IngredientService.ORDINAMENTI.forEach((chiave, ordinamento) ->
+                assertTrue(servitoDaIndice(Ingrediente.class, ordinamento),
+                        "sort=" + chiave + " (" + ordinamento + ") non è servito da un indice di ingredienti"));
+    }
+
+    @Test
+    void ordinamentiSenzaIndiceRiconosciuti() {
+        assertFalse(servitoDaIndice(Cocktail.class, Sort.by("descrizione")));
+        assertFalse(servitoDaIndice(Cocktail.class, Sort.by("id", "nome")));
+        assertFalse(servitoDaIndice(Cocktail.class, Sort.by(Sort.Order.asc("preferiti"), Sort.Order.asc("id"))));
+    }
+
+    private boolean servitoDaIndice(Class<?> entity, Sort ordinamento) {
+        List<Colonna> orderBy = new ArrayList<>();
+        ordinamento.forEach(order -> orderBy.add(new Colonna(colonna(entity, order.getProperty()), order.isAscending())));
+        return indici(entity).stream().anyMatch(indice -> prefisso(orderBy, indice));
+    }
+
+    private static boolean prefisso(List<Colonna> orderBy, List<Colonna> indice) {
+        if (orderBy.size() > indice.size()) {
+            return false;
+        }
+        boolean stessaDirezione = true;
+        boolean direzioneOpposta = true;
+        for (int i = 0; i < orderBy.size(); i++) {
+            if (!orderBy.get(i).nome().equals(indice.get(i).nome())) {
+                return false;
+            }
+            boolean uguale = orderBy.get(i).crescente() == indice.get(i).crescente();
+            stessaDirezione &= uguale;
+            direzioneOpposta &= !uguale;
+        }
+        return stessaDirezione || direzioneOpposta;
+    }
+
+    /**
+     * Indici della tabella dell'entity nel database migrato (chiave primaria compresa),
+     * ognuno completato con la chiave primaria
+     */
+    private List<List<Colonna>> indici(Class<?> entity) {
+        String tabella = entity.getAnnotation(Table.class).name();
+        Map<String, List<Colonna>> perNome = new LinkedHashMap<>();
+        List<String> chiavePrimaria = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metadati = connection.getMetaData();
+            try (ResultSet pk = metadati.getPrimaryKeys(connection.getCatalog(), connection.getSchema(), tabella)) {
+                while (pk.next()) {
+                    chiavePrimaria.add(pk.getString("COLUMN_NAME").toLowerCase());
+                }
+            }
+            try (ResultSet righe = metadati.getIndexInfo(connection.getCatalog(), connection.getSchema(), tabella, false, false)) {
+                while (righe.next()) {
+                    if (righe.getString("INDEX_NAME") == null || righe.getString("COLUMN_NAME") == null) {
+                        continue;
+                    }
+                    // Righe in ordine di ORDINAL_POSITION all'interno di ogni indice
+                    perNome.computeIfAbsent(righe.getString("INDEX_NAME"), k -> new ArrayList<>())
+                            .add(new Colonna(righe.getString("COLUMN_NAME").toLowerCase(),
+                                    !"D".equals(righe.getString("ASC_OR_DESC"))));
+                }
+            }
+        } catch (SQLException e) {
+            throw new AssertionError("Lettura degli indici di " + tabella + " fallita", e);
+        }
+        assertFalse(chiavePrimaria.isEmpty(), "Chiave primaria di " + tabella + " non trovata");
+        List<List<Colonna>> indici = new ArrayList<>(perNome.values());
+        for (List<Colonna> indice : indici) {
+            for (String pk : chiavePrimaria) {
+                if (indice.stream().noneMatch(c -> c.nome().equals(pk))) {
+                    indice.add(new Colonna(pk, true));
+                }
+            }
+        }
+        return indici;
+    }
+
+    private static String colonna(Class<?> entity, String proprieta) {
+        try {
+            Column column = entity.getDeclaredField(proprieta).getAnnotation(Column.class);
+            return column != null && !column.name().isEmpty() ? column.name() : proprieta;
+        } catch (NoSuchFieldException e) {
+            throw new AssertionError("Attributo inesistente in " + entity.getSimpleName() + ": " + proprieta, e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.cocktail.cocktailproject.service;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * TextSearchIndexBenchmark - Tempi di /api/cocktails/search/text su testi sintetici
+ *
+ * Non è un test JUnit (surefire non lo esegue): si lancia a mano dopo test-compile.
+ *
+ *   mvn -q test-compile
+ *   java -Xmx2g -cp target/classes:target/test-classes \
+ *        com.cocktail.cocktailproject.service.TextSearchIndexBenchmark 10000 100000
+ *
+ * Testi sintetici: vocabolario di 20000 parole con frequenza Zipf (poche parole molto comuni,
+ * come "ghiaccio" o "bicchiere"), documenti da 20 a 80 parole, query da 1 a 4 parole.
+ * Per ogni dimensione stampa tempo di costruzione e latenza delle query (media, p50, p99).
+ */
+public class TextSearchIndexBenchmark {
+
+    private static final int VOCABOLARIO = 20_000;
+    private static final int QUERY = 5000;
+    private static final int LIMITE = 10;
+
+    public static void main(String[] args) {
+        int[] dimensioni = args.length == 0
+                ? new int[] {10_000, 100_000}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        System.out.printf("%10s %10s %10s %10s %10s%n", "documenti", "build ms", "avg us", "p50 us", "p99 us");
+        for (int n : dimensioni) {
+            esegui(n);
+        }
+    }
+
+    private static void esegui(int n) {
+        Random random = new Random(42);
+        double[] cumulata = zipf();
+        String[] parole = new String[VOCABOLARIO];
+        for (int i = 0; i < VOCABOLARIO; i++) {
+            parole[i] = "parola" + Integer.toString(i, 36) + "zo";
+        }
+
+        TextSearchIndex indice = new TextSearchIndex();
+        long inizio = System.nanoTime();
+        for (int id = 1; id <= n; id++) {
+            indice.aggiungi(id, testo(parole, cumulata, random, 20 + random.nextInt(61)));
+        }
+        long buildMs = (System.nanoTime() - inizio) / 1_000_000;
+
+        String[] query = new String[QUERY];
+        for (int i = 0; i < QUERY; i++) {
+            query[i] = testo(parole, cumulata, random, 1 + random.nextInt(4));
+        }
+        // Riscaldamento JIT, poi misura
+        for (String q : query) {
+            indice.cerca(q, LIMITE);
+        }
+        long[] tempi = new long[QUERY];
+        for (int i = 0; i < QUERY; i++) {
+            long t = System.nanoTime();
+            indice.cerca(query[i], LIMITE);
+            tempi[i] = System.nanoTime() - t;
+        }
+        Arrays.sort(tempi);
+        System.out.printf("%10d %10d %10.1f %10.1f %10.1f%n", n, buildMs,
+                Arrays.stream(tempi).average().orElse(0) / 1000, tempi[QUERY / 2] / 1000.0, tempi[QUERY * 99 / 100] / 1000.0);
+    }
+
+    private static String testo(String[] parole, double[] cumulata, Random random, int lunghezza) {
+        StringBuilder testo = new StringBuilder();
+        for (int i = 0; i < lunghezza; i++) {
+            int p = Arrays.binarySearch(cumulata, random.nextDouble());
+            testo.append(parole[Math.min(VOCABOLARIO - 1, p >= 0 ? p : -p - 1)]).append(' ');
+        }
+        return testo.toString();
+    }
+
+    private static double[] zipf() {
+        double[] cumulata = new double[VOCABOLARIO];
+        double somma = 0;
+        for (int i = 0; i < VOCABOLARIO; i++) {
+            somma += 1.0 / (i + 1);
+            cumulata[i] = somma;
+        }
+        for (int i = 0; i < VOCABOLARIO; i++) {
+            cumulata[i] /= somma;
+        }
+        return cumulata;
+    }
+}
@@ -0,0 +1,203 @@
+package com.cocktail.cocktailproject.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TextSearchIndexTest - Analisi del testo, posting list, norme e accumulatore dell'indice TF-IDF
+ *
+ * I punteggi attesi sono calcolati da zero (coseno TF-IDF con tf = 1 + log(occorrenze)
+ * e idf = log(1 + N / df)) sui testi analizzati con TextSearchIndex.analizza.
+ */
+class TextSearchIndexTest {
+
+    private static final double TOLLERANZA = 1e-5;
+
+    private final TextSearchIndex indice = new TextSearchIndex();
+    private final Map<Integer, String> testi = new HashMap<>();
+
+    @Test
+    void stemUnificaSingolareEPlurale() {
+        assertEquals("limon", TextSearchIndex.stem("limoni"));
+        assertEquals("limon", TextSearchIndex.stem("limone"));
+        assertEquals("aranc", TextSearchIndex.stem("arance"));
+        assertEquals("aranc", TextSearchIndex.stem("arancia"));
+        assertEquals("bicchier", TextSearchIndex.stem("bicchieri"));
+        // Parole brevi e desinenze non di genere/numero restano invariate
+        assertEquals("menta", TextSearchIndex.stem("menta"));
+        assertEquals("shaker", TextSearchIndex.stem("shaker"));
+    }
+
+    @Test
+    void analizzaScartaStopWordEAccenti() {
+        assertEquals(List.of("succo", "limon", "aranc", "scorz"),
+                TextSearchIndex.analizza("Il succo di LIMÓNI, con l'arancia e la scorza!"));
+        // Stop word riconosciute anche con l'accento
+        assertEquals(List.of(), TextSearchIndex.analizza("perché più già"));
+        assertEquals(List.of("caffe", "45ml"), TextSearchIndex.analizza("  Caffè   45ml  "));
+        assertEquals(List.of(), TextSearchIndex.analizza("a e i o u"));
+        assertEquals(List.of(), TextSearchIndex.analizza(null));
+        assertEquals(List.of(), TextSearchIndex.analizza("   "));
+    }
+
+    @Test
+    void queryEDocumentiCondividonoLoStem() {
+        aggiungi(1, "Succo di limone fresco");
+        aggiungi(2, "Scorza d'arancia");
+
+        List<TextSearchIndex.Risultato> risultati = indice.cerca("limoni", 10);
+
+        assertEquals(1, risultati.size());
+        assertEquals(1, risultati.get(0).id());
+        assertEquals(List.of(), indice.cerca("di il con", 10));
+    }
+
+    @Test
+    void rimozioneSpostaLUltimaPostingConIlSuoTf() {
+        aggiungi(1, "gin");
+        aggiungi(2, "gin gin tonic");
+        aggiungi(3, "gin gin gin lime");
+        aggiungi(4, "vodka");
+        List<TextSearchIndex.Risultato> prima = indice.cerca("gin", 10);
+
+        // Il primo elemento della posting di "gin" viene sostituito dall'ultimo (doc 3)
+        indice.rimuovi(1);
+        testi.remove(1);
+        List<TextSearchIndex.Risultato> dopo = indice.cerca("gin", 10);
+        assertEquals(List.of(3, 2), ids(dopo));
+        assertEquals(3, indice.size());
+
+        // Reinserito: stessi documenti e frequenze, quindi stessi punteggi di prima
+        aggiungi(1, "gin");
+        assertEquals(prima, indice.cerca("gin", 10));
+
+        // Rimozione dell'ultimo e di un elemento intermedio
+        indice.rimuovi(1);
+        indice.rimuovi(2);
+        assertEquals(List.of(3), ids(indice.cerca("gin", 10)));
+        assertEquals(List.of(3), ids(indice.cerca("tonic lime", 10)));
+        indice.rimuovi(3);
+        assertEquals(List.of(), indice.cerca("gin", 10));
+        assertEquals(1, indice.size());
+    }
+
+    @Test
+    void normeRicalcolateOltreIlDieciPercento() {
+        for (int id = 1; id <= 10; id++) {
+            aggiungi(id, "gin " + (id % 2 == 0 ? "tonic" : "lime") + " ghiaccio" + id);
+        }
+        assertPunteggiEsatti("gin tonic");
+
+        // 11 documenti su 10 al calcolo: solo la norma del nuovo documento viene calcolata,
+        // le altre restano quelle con N = 10
+        aggiungi(11, "rum lime");
+        TextSearchIndex.Risultato documento2 = risultato(indice.cerca("gin tonic", 20), 2);
+        assertTrue(Math.abs(documento2.punteggio() - coseno("gin tonic", 2)) > TOLLERANZA,
+                "norma ricalcolata prima del 10% di variazione");
+
+        // 12 documenti: variazione oltre il 10%, tutte le norme ricalcolate
+        aggiungi(12, "gin fizz");
+        assertPunteggiEsatti("gin tonic");
+        assertPunteggiEsatti("lime");
+    }
+
+    @Test
+    void accumulatoreAzzeratoTraLeQuery() {
+        aggiungi(1, "gin tonic lime");
+        aggiungi(2, "gin tonic");
+        aggiungi(3, "tonic");
+        aggiungi(5000, "gin lime rum");   // oltre la capacità iniziale dell'accumulatore
+        aggiungi(7, "rum");
+
+        // Limite 1: gli altri documenti toccati vengono scartati, anche loro vanno azzerati
+        assertEquals(1, indice.cerca("gin tonic", 1).size());
+        assertPunteggiEsatti("gin tonic");
+        assertPunteggiEsatti("rum");
+        assertPunteggiEsatti("lime");
+        assertEquals(indice.cerca("gin tonic", 10), indice.cerca("gin tonic", 10));
+    }
+
+    @Test
+    void risultatiOrdinatiPerPunteggioPoiPerId() {
+        aggiungi(9, "negroni");
+        aggiungi(4, "negroni");
+        aggiungi(6, "negroni sbagliato");
+
+        List<TextSearchIndex.Risultato> risultati = indice.cerca("negroni", 10);
+
+        assertEquals(List.of(4, 9, 6), ids(risultati));
+        assertEquals(List.of(4, 9), ids(indice.cerca("negroni", 2)));
+    }
+
+    private void aggiungi(int id, String testo) {
+        indice.aggiungi(id, testo);
+        testi.put(id, testo);
+    }
+
+    private void assertPunteggiEsatti(String query) {
+        List<TextSearchIndex.Risultato> risultati = indice.cerca(query, testi.size());
+        List<Integer> attesi = new ArrayList<>();
+        testi.keySet().stream()
+                .filter(id -> coseno(query, id) > 0)
+                .sorted(Comparator.<Integer>comparingDouble(id -> -coseno(query, id)).thenComparing(id -> id))
+                .forEach(attesi::add);
+        assertEquals(attesi, ids(risultati), query);
+        for (TextSearchIndex.Risultato risultato : risultati) {
+            assertEquals(coseno(query, risultato.id()), risultato.punteggio(), TOLLERANZA,
+                    query + " / documento " + risultato.id());
+        }
+    }
+
+    /**
+     * Coseno TF-IDF calcolato da zero sui documenti presenti
+     */
+    private double coseno(String query, int id) {
+        Map<String, Integer> df = new HashMap<>();
+        for (String testo : testi.values()) {
+            occorrenze(testo).keySet().forEach(termine -> df.merge(termine, 1, Integer::sum));
+        }
+        Map<String, Double> pesiQuery = pesi(occorrenze(query), df);
+        Map<String, Double> pesiDocumento = pesi(occorrenze(testi.get(id)), df);
+        double prodotto = 0;
+        for (Map.Entry<String, Double> peso : pesiQuery.entrySet()) {
+            prodotto += peso.getValue() * pesiDocumento.getOrDefault(peso.getKey(), 0.0);
+        }
+        return prodotto == 0 ? 0 : prodotto / (norma(pesiQuery) * norma(pesiDocumento));
+    }
+
+    private Map<String, Double> pesi(Map<String, Integer> occorrenze, Map<String, Integer> df) {
+        Map<String, Double> pesi = new HashMap<>();
+        occorrenze.forEach((termine, n) -> {
+            if (df.containsKey(termine)) {
+                pesi.put(termine, (1 + Math.log(n)) * Math.log(1 + (double) testi.size() / df.get(termine)));
+            }
+        });
+        return pesi;
+    }
+
+    private static Map<String, Integer> occorrenze(String testo) {
+        Map<String, Integer> occorrenze = new HashMap<>();
+        TextSearchIndex.analizza(testo).forEach(termine -> occorrenze.merge(termine, 1, Integer::sum));
+        return occorrenze;
+    }
+
+    private static double norma(Map<String, Double> pesi) {
+        return Math.sqrt(pesi.values().stream().mapToDouble(p -> p * p).sum());
+    }
+
+    private static TextSearchIndex.Risultato risultato(List<TextSearchIndex.Risultato> risultati, int id) {
+        return risultati.stream().filter(r -> r.id() == id).findFirst().orElseThrow();
+    }
+
+    private static List<Integer> ids(List<TextSearchIndex.Risultato> risultati) {
+        return risultati.stream().map(TextSearchIndex.Risultato::id).toList();
+    }
+}